@@ -25,9 +25,12 @@ import javax.annotation.Nullable;
 import java.lang.ref.SoftReference;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.WeakHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * A factory for {@link CrossBuildInMemoryCache} instances.
@@ -36,10 +39,12 @@ import java.util.WeakHashMap;
  * Note that this implementation currently retains strong references to keys and values during the whole lifetime of a build session.
  *
  * Uses a simple algorithm to collect unused values, by retaining strong references to all keys and values used during the current build session, and the previous build session. All other values are referenced only by soft references.
+ * When released, all values that are not used by the current build session are dropped.
  */
 @ThreadSafe
-public class DefaultCrossBuildInMemoryCacheFactory extends CrossBuildInMemoryCacheFactory {
+public class DefaultCrossBuildInMemoryCacheFactory extends CrossBuildInMemoryCacheFactory implements HeapMemoryHolder {
     private final ListenerManager listenerManager;
+    private final List<DefaultCrossBuildInMemoryCache<?, ?>> caches = new CopyOnWriteArrayList<DefaultCrossBuildInMemoryCache<?, ?>>();
 
     public DefaultCrossBuildInMemoryCacheFactory(ListenerManager listenerManager) {
         this.listenerManager = listenerManager;
@@ -53,6 +58,7 @@ public class DefaultCrossBuildInMemoryCacheFactory extends CrossBuildInMemoryCac
     public <K, V> CrossBuildInMemoryCache<K, V> newCache() {
         DefaultCrossBuildInMemoryCache<K, V> cache = new DefaultCrossBuildInMemoryCache<K, V>(new HashMap<K, SoftReference<V>>());
         listenerManager.addListener(cache);
+        caches.add(cache);
         return cache;
     }
 
@@ -64,9 +70,28 @@ public class DefaultCrossBuildInMemoryCacheFactory extends CrossBuildInMemoryCac
     public <V> CrossBuildInMemoryCache<Class<?>, V> newClassCache() {
         DefaultCrossBuildInMemoryCache<Class<?>, V> cache = new DefaultCrossBuildInMemoryCache<Class<?>, V>(new WeakHashMap<Class<?>, SoftReference<V>>());
         listenerManager.addListener(cache);
+        caches.add(cache);
         return cache;
     }
 
+    @Override
+    public long getRetainedValueCount() {
+        long count = 0;
+        for (DefaultCrossBuildInMemoryCache<?, ?> cache : caches) {
+            count += cache.getRetainedValueCount();
+        }
+        return count;
+    }
+
+    @Override
+    public long release() {
+        long count = 0;
+        for (DefaultCrossBuildInMemoryCache<?, ?> cache : caches) {
+            count += cache.releaseUnused();
+        }
+        return count;
+    }
+
     private static class DefaultCrossBuildInMemoryCache<K, V> implements CrossBuildInMemoryCache<K, V>, SessionLifecycleListener {
         private final Object lock = new Object();
         private final Map<K, V> valuesForThisSession = new HashMap<K, V>();
@@ -92,6 +117,31 @@ public class DefaultCrossBuildInMemoryCacheFactory extends CrossBuildInMemoryCac
             }
         }
 
+        int getRetainedValueCount() {
+            synchronized (lock) {
+                return valuesForThisSession.size() + valuesForPreviousSession.size();
+            }
+        }
+
+        /**
+         * Drops the values that are not used by the current session, including the soft references to them, so that they can be collected right away.
+         * Values used by the current session are kept, as they may be in use.
+         */
+        int releaseUnused() {
+            synchronized (lock) {
+                valuesForPreviousSession.clear();
+                int count = 0;
+                Iterator<K> keys = allValues.keySet().iterator();
+                while (keys.hasNext()) {
+                    if (!valuesForThisSession.containsKey(keys.next())) {
+                        keys.remove();
+                        count++;
+                    }
+                }
+                return count;
+            }
+        }
+
         @Override
         public void clear() {
             synchronized (lock) {
@@ -45,6 +45,7 @@ import org.gradle.internal.remote.services.MessagingServices;
 import org.gradle.process.internal.DefaultExecActionFactory;
 import org.gradle.process.internal.ExecFactory;
 import org.gradle.process.internal.ExecHandleFactory;
+import org.gradle.process.internal.streams.ProcessOutputPump;
 
 /**
  * Defines the basic global services of a given process. This includes the Gradle CLI, daemon and tooling API provider. These services
@@ -86,8 +87,12 @@ public class BasicGlobalScopeServices {
         return new CachingJvmVersionDetector(new DefaultJvmVersionDetector(execHandleFactory));
     }
 
-    ExecFactory createExecFactory(FileResolver fileResolver, FileCollectionFactory fileCollectionFactory, ExecutorFactory executorFactory) {
-        return DefaultExecActionFactory.of(fileResolver, fileCollectionFactory, executorFactory);
+    ProcessOutputPump createProcessOutputPump(ExecutorFactory executorFactory) {
+        return new ProcessOutputPump(executorFactory);
+    }
+
+    ExecFactory createExecFactory(FileResolver fileResolver, FileCollectionFactory fileCollectionFactory, ExecutorFactory executorFactory, ProcessOutputPump processOutputPump) {
+        return DefaultExecActionFactory.of(fileResolver, fileCollectionFactory, executorFactory, processOutputPump);
     }
 
     FileResolver createFileResolver(FileLookup lookup) {
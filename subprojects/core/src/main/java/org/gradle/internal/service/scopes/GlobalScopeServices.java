@@ -49,6 +49,7 @@ import org.gradle.cache.internal.CacheFactory;
 import org.gradle.cache.internal.CrossBuildInMemoryCacheFactory;
 import org.gradle.cache.internal.DefaultCacheFactory;
 import org.gradle.cache.internal.DefaultCrossBuildInMemoryCacheFactory;
+import org.gradle.cache.internal.HeapMemoryManager;
 import org.gradle.cache.internal.InMemoryCacheDecoratorFactory;
 import org.gradle.cli.CommandLineConverter;
 import org.gradle.configuration.DefaultImportsReader;
@@ -233,12 +234,20 @@ public class GlobalScopeServices extends BasicGlobalScopeServices {
         return instantiatorFactory.decorateLenient();
     }
 
-    CrossBuildInMemoryCacheFactory createCrossBuildInMemoryCacheFactory(ListenerManager listenerManager) {
-        return new DefaultCrossBuildInMemoryCacheFactory(listenerManager);
+    HeapMemoryManager createHeapMemoryManager() {
+        return new HeapMemoryManager();
     }
 
-    InMemoryCacheDecoratorFactory createInMemoryTaskArtifactCache(CrossBuildInMemoryCacheFactory cacheFactory) {
-        return new InMemoryCacheDecoratorFactory(environment.isLongLivingProcess(), cacheFactory);
+    CrossBuildInMemoryCacheFactory createCrossBuildInMemoryCacheFactory(ListenerManager listenerManager, HeapMemoryManager heapMemoryManager) {
+        DefaultCrossBuildInMemoryCacheFactory cacheFactory = new DefaultCrossBuildInMemoryCacheFactory(listenerManager);
+        heapMemoryManager.addHolder(cacheFactory, HeapMemoryManager.Priority.EXPENSIVE_TO_RECREATE);
+        return cacheFactory;
+    }
+
+    InMemoryCacheDecoratorFactory createInMemoryTaskArtifactCache(CrossBuildInMemoryCacheFactory cacheFactory, HeapMemoryManager heapMemoryManager) {
+        InMemoryCacheDecoratorFactory decoratorFactory = new InMemoryCacheDecoratorFactory(environment.isLongLivingProcess(), cacheFactory);
+        heapMemoryManager.addHolder(decoratorFactory, HeapMemoryManager.Priority.CHEAP_TO_RECREATE);
+        return decoratorFactory;
     }
 
     DirectoryFileTreeFactory createDirectoryFileTreeFactory(Factory<PatternSet> patternSetFactory, FileSystem fileSystem) {
@@ -21,9 +21,11 @@ import org.gradle.internal.file.PathToFileResolver;
 import org.gradle.process.BaseExecSpec;
 import org.gradle.process.internal.streams.EmptyStdInStreamsHandler;
 import org.gradle.process.internal.streams.ForwardStdinStreamsHandler;
+import org.gradle.process.internal.streams.ProcessOutputPump;
 import org.gradle.process.internal.streams.SafeStreams;
 import org.gradle.process.internal.streams.OutputStreamsForwarder;
 
+import javax.annotation.Nullable;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.ArrayList;
@@ -45,11 +47,13 @@ public abstract class AbstractExecHandleBuilder extends DefaultProcessForkOption
     private int timeoutMillis = Integer.MAX_VALUE;
     protected boolean daemon;
     private Executor executor;
+    private final ProcessOutputPump outputPump;
 
-    AbstractExecHandleBuilder(PathToFileResolver fileResolver, Executor executor, BuildCancellationToken buildCancellationToken) {
+    AbstractExecHandleBuilder(PathToFileResolver fileResolver, Executor executor, @Nullable ProcessOutputPump outputPump, BuildCancellationToken buildCancellationToken) {
         super(fileResolver);
         this.buildCancellationToken = buildCancellationToken;
         this.executor = executor;
+        this.outputPump = outputPump;
         standardOutput = SafeStreams.systemOut();
         errorOutput = SafeStreams.systemErr();
         input = SafeStreams.emptyInput();
@@ -142,7 +146,7 @@ public abstract class AbstractExecHandleBuilder extends DefaultProcessForkOption
             effectiveHandler = this.streamsHandler;
         } else {
             boolean shouldReadErrorStream = !redirectErrorStream;
-            effectiveHandler = new OutputStreamsForwarder(standardOutput, errorOutput, shouldReadErrorStream);
+            effectiveHandler = new OutputStreamsForwarder(standardOutput, errorOutput, shouldReadErrorStream, outputPump);
         }
         return effectiveHandler;
     }
@@ -19,6 +19,7 @@ package org.gradle.process.internal;
 import org.gradle.initialization.BuildCancellationToken;
 import org.gradle.internal.file.PathToFileResolver;
 import org.gradle.process.ExecResult;
+import org.gradle.process.internal.streams.ProcessOutputPump;
 
 import java.util.concurrent.Executor;
 
@@ -26,8 +27,8 @@ import java.util.concurrent.Executor;
  * Use {@link ExecActionFactory} or {@link DslExecActionFactory} instead.
  */
 public class DefaultExecAction extends DefaultExecHandleBuilder implements ExecAction {
-    public DefaultExecAction(PathToFileResolver fileResolver, Executor executor, BuildCancellationToken buildCancellationToken) {
-        super(fileResolver, executor, buildCancellationToken);
+    public DefaultExecAction(PathToFileResolver fileResolver, Executor executor, ProcessOutputPump outputPump, BuildCancellationToken buildCancellationToken) {
+        super(fileResolver, executor, outputPump, buildCancellationToken);
     }
 
     public ExecResult execute() {
@@ -37,7 +37,9 @@ import org.gradle.process.ExecSpec;
 import org.gradle.process.JavaExecSpec;
 import org.gradle.process.JavaForkOptions;
 import org.gradle.process.ProcessForkOptions;
+import org.gradle.process.internal.streams.ProcessOutputPump;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.util.List;
 import java.util.Map;
@@ -46,14 +48,16 @@ import java.util.concurrent.Executor;
 public class DefaultExecActionFactory implements ExecFactory {
     protected final FileResolver fileResolver;
     protected final Executor executor;
+    protected final ProcessOutputPump outputPump;
     protected final FileCollectionFactory fileCollectionFactory;
     protected final BuildCancellationToken buildCancellationToken;
 
-    private DefaultExecActionFactory(FileResolver fileResolver, FileCollectionFactory fileCollectionFactory, Executor executor, BuildCancellationToken buildCancellationToken) {
+    private DefaultExecActionFactory(FileResolver fileResolver, FileCollectionFactory fileCollectionFactory, Executor executor, ProcessOutputPump outputPump, BuildCancellationToken buildCancellationToken) {
         this.fileResolver = fileResolver;
         this.fileCollectionFactory = fileCollectionFactory;
         this.buildCancellationToken = buildCancellationToken;
         this.executor = executor;
+        this.outputPump = outputPump;
     }
 
     // Do not use this. It's here because some of the services this type needs are not easily accessed in certain cases and will be removed ay some point. Use one of the other methods instead
@@ -67,17 +71,25 @@ public class DefaultExecActionFactory implements ExecFactory {
     }
 
     public static DefaultExecActionFactory of(FileResolver fileResolver, FileCollectionFactory fileCollectionFactory, ExecutorFactory executorFactory, BuildCancellationToken buildCancellationToken) {
-        return new RootExecFactory(fileResolver, fileCollectionFactory, executorFactory, buildCancellationToken);
+        ProcessOutputPump outputPump = new ProcessOutputPump(executorFactory);
+        return new RootExecFactory(fileResolver, fileCollectionFactory, executorFactory, outputPump, outputPump, buildCancellationToken);
+    }
+
+    /**
+     * Creates a factory whose processes have their output read by the given pump, which is owned by the caller.
+     */
+    public static DefaultExecActionFactory of(FileResolver fileResolver, FileCollectionFactory fileCollectionFactory, ExecutorFactory executorFactory, ProcessOutputPump outputPump) {
+        return new RootExecFactory(fileResolver, fileCollectionFactory, executorFactory, outputPump, null, new DefaultBuildCancellationToken());
     }
 
     @Override
     public ExecFactory forContext(FileResolver fileResolver, FileCollectionFactory fileCollectionFactory, Instantiator instantiator) {
-        return new DecoratingExecActionFactory(fileResolver, fileCollectionFactory, instantiator, executor, buildCancellationToken);
+        return new DecoratingExecActionFactory(fileResolver, fileCollectionFactory, instantiator, executor, outputPump, buildCancellationToken);
     }
 
     @Override
     public ExecFactory forContext(FileResolver fileResolver, FileCollectionFactory fileCollectionFactory, Instantiator instantiator, BuildCancellationToken buildCancellationToken) {
-        return new DecoratingExecActionFactory(fileResolver, fileCollectionFactory, instantiator, executor, buildCancellationToken);
+        return new DecoratingExecActionFactory(fileResolver, fileCollectionFactory, instantiator, executor, outputPump, buildCancellationToken);
     }
 
     @Override
@@ -87,7 +99,7 @@ public class DefaultExecActionFactory implements ExecFactory {
 
     @Override
     public ExecAction newExecAction() {
-        return new DefaultExecAction(fileResolver, executor, buildCancellationToken);
+        return new DefaultExecAction(fileResolver, executor, outputPump, buildCancellationToken);
     }
 
     @Override
@@ -109,17 +121,17 @@ public class DefaultExecActionFactory implements ExecFactory {
 
     @Override
     public JavaExecAction newJavaExecAction() {
-        return new DefaultJavaExecAction(fileResolver, fileCollectionFactory, executor, buildCancellationToken);
+        return new DefaultJavaExecAction(fileResolver, fileCollectionFactory, executor, outputPump, buildCancellationToken);
     }
 
     @Override
     public ExecHandleBuilder newExec() {
-        return new DefaultExecHandleBuilder(fileResolver, executor, buildCancellationToken);
+        return new DefaultExecHandleBuilder(fileResolver, executor, outputPump, buildCancellationToken);
     }
 
     @Override
     public JavaExecHandleBuilder newJavaExec() {
-        return new JavaExecHandleBuilder(fileResolver, fileCollectionFactory, executor, buildCancellationToken);
+        return new JavaExecHandleBuilder(fileResolver, fileCollectionFactory, executor, outputPump, buildCancellationToken);
     }
 
     @Override
@@ -137,32 +149,35 @@ public class DefaultExecActionFactory implements ExecFactory {
     }
 
     private static class RootExecFactory extends DefaultExecActionFactory implements Stoppable {
-        public RootExecFactory(FileResolver fileResolver, FileCollectionFactory fileCollectionFactory, ExecutorFactory executorFactory, BuildCancellationToken buildCancellationToken) {
-            super(fileResolver, fileCollectionFactory, executorFactory.create("Exec process"), buildCancellationToken);
+        private final ProcessOutputPump ownedOutputPump;
+
+        public RootExecFactory(FileResolver fileResolver, FileCollectionFactory fileCollectionFactory, ExecutorFactory executorFactory, ProcessOutputPump outputPump, @Nullable ProcessOutputPump ownedOutputPump, BuildCancellationToken buildCancellationToken) {
+            super(fileResolver, fileCollectionFactory, executorFactory.create("Exec process"), outputPump, buildCancellationToken);
+            this.ownedOutputPump = ownedOutputPump;
         }
 
         @Override
         public void stop() {
-            CompositeStoppable.stoppable(executor).stop();
+            CompositeStoppable.stoppable(ownedOutputPump, executor).stop();
         }
     }
 
     private static class DecoratingExecActionFactory extends DefaultExecActionFactory {
         private final Instantiator instantiator;
 
-        DecoratingExecActionFactory(FileResolver fileResolver, FileCollectionFactory fileCollectionFactory, Instantiator instantiator, Executor executor, BuildCancellationToken buildCancellationToken) {
-            super(fileResolver, fileCollectionFactory, executor, buildCancellationToken);
+        DecoratingExecActionFactory(FileResolver fileResolver, FileCollectionFactory fileCollectionFactory, Instantiator instantiator, Executor executor, ProcessOutputPump outputPump, BuildCancellationToken buildCancellationToken) {
+            super(fileResolver, fileCollectionFactory, executor, outputPump, buildCancellationToken);
             this.instantiator = instantiator;
         }
 
         @Override
         public ExecAction newDecoratedExecAction() {
-            return instantiator.newInstance(DefaultExecAction.class, fileResolver, executor, buildCancellationToken);
+            return instantiator.newInstance(DefaultExecAction.class, fileResolver, executor, outputPump, buildCancellationToken);
         }
 
         @Override
         public JavaExecAction newDecoratedJavaExecAction() {
-            return instantiator.newInstance(DefaultJavaExecAction.class, fileResolver, fileCollectionFactory, executor, buildCancellationToken);
+            return instantiator.newInstance(DefaultJavaExecAction.class, fileResolver, fileCollectionFactory, executor, outputPump, buildCancellationToken);
         }
     }
 
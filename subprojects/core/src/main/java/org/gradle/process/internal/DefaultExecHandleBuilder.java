@@ -22,8 +22,10 @@ import org.gradle.initialization.BuildCancellationToken;
 import org.gradle.initialization.DefaultBuildCancellationToken;
 import org.gradle.internal.file.PathToFileResolver;
 import org.gradle.process.CommandLineArgumentProvider;
+import org.gradle.process.internal.streams.ProcessOutputPump;
 import org.gradle.util.GUtil;
 
+import javax.annotation.Nullable;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.ArrayList;
@@ -43,7 +45,11 @@ public class DefaultExecHandleBuilder extends AbstractExecHandleBuilder implemen
     }
 
     public DefaultExecHandleBuilder(PathToFileResolver fileResolver, Executor executor, BuildCancellationToken buildCancellationToken) {
-        super(fileResolver, executor, buildCancellationToken);
+        this(fileResolver, executor, null, buildCancellationToken);
+    }
+
+    public DefaultExecHandleBuilder(PathToFileResolver fileResolver, Executor executor, @Nullable ProcessOutputPump outputPump, BuildCancellationToken buildCancellationToken) {
+        super(fileResolver, executor, outputPump, buildCancellationToken);
     }
 
     public DefaultExecHandleBuilder executable(Object executable) {
@@ -20,6 +20,7 @@ import org.gradle.api.internal.file.FileCollectionFactory;
 import org.gradle.api.internal.file.FileResolver;
 import org.gradle.initialization.BuildCancellationToken;
 import org.gradle.process.ExecResult;
+import org.gradle.process.internal.streams.ProcessOutputPump;
 
 import java.util.concurrent.Executor;
 
@@ -27,8 +28,8 @@ import java.util.concurrent.Executor;
  * Use {@link ExecActionFactory} or {@link DslExecActionFactory} instead.
  */
 public class DefaultJavaExecAction extends JavaExecHandleBuilder implements JavaExecAction {
-    public DefaultJavaExecAction(FileResolver fileResolver, FileCollectionFactory fileCollectionFactory, Executor executor, BuildCancellationToken buildCancellationToken) {
-        super(fileResolver, fileCollectionFactory, executor, buildCancellationToken);
+    public DefaultJavaExecAction(FileResolver fileResolver, FileCollectionFactory fileCollectionFactory, Executor executor, ProcessOutputPump outputPump, BuildCancellationToken buildCancellationToken) {
+        super(fileResolver, fileCollectionFactory, executor, outputPump, buildCancellationToken);
     }
 
     public ExecResult execute() {
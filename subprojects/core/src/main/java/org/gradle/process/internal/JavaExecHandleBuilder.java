@@ -24,9 +24,11 @@ import org.gradle.initialization.BuildCancellationToken;
 import org.gradle.process.CommandLineArgumentProvider;
 import org.gradle.process.JavaExecSpec;
 import org.gradle.process.JavaForkOptions;
+import org.gradle.process.internal.streams.ProcessOutputPump;
 import org.gradle.util.CollectionUtils;
 import org.gradle.util.GUtil;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -46,7 +48,11 @@ public class JavaExecHandleBuilder extends AbstractExecHandleBuilder implements
     private final List<CommandLineArgumentProvider> argumentProviders = new ArrayList<CommandLineArgumentProvider>();
 
     public JavaExecHandleBuilder(FileResolver fileResolver, FileCollectionFactory fileCollectionFactory, Executor executor, BuildCancellationToken buildCancellationToken) {
-        super(fileResolver, executor, buildCancellationToken);
+        this(fileResolver, fileCollectionFactory, executor, null, buildCancellationToken);
+    }
+
+    public JavaExecHandleBuilder(FileResolver fileResolver, FileCollectionFactory fileCollectionFactory, Executor executor, @Nullable ProcessOutputPump outputPump, BuildCancellationToken buildCancellationToken) {
+        super(fileResolver, executor, outputPump, buildCancellationToken);
         this.fileCollectionFactory = fileCollectionFactory;
         javaOptions = new DefaultJavaForkOptions(fileResolver, fileCollectionFactory);
         executable(javaOptions.getExecutable());
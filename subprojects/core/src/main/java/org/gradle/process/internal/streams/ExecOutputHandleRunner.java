@@ -74,6 +74,59 @@ public class ExecOutputHandleRunner implements Runnable {
         }
     }
 
+    /**
+     * Reads the content that is available without blocking. The content is not forwarded, see {@link #forward(byte[])}.
+     *
+     * @return the number of bytes read, or -1 when the stream is finished.
+     */
+    int readAvailableContent(byte[] buffer) {
+        try {
+            if (!closed) {
+                int available = inputStream.available();
+                if (available == 0) {
+                    return 0;
+                }
+                return inputStream.read(buffer, 0, Math.min(available, buffer.length));
+            }
+        } catch (Throwable t) {
+            if (!closed && !wasInterrupted(t)) {
+                LOGGER.error(String.format("Could not %s.", displayName), t);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Forwards content that has been read from the stream. Nothing more is read from the stream once forwarding fails.
+     */
+    void forward(byte[] content) {
+        if (closed) {
+            return;
+        }
+        try {
+            outputStream.write(content);
+            outputStream.flush();
+        } catch (Throwable t) {
+            if (!closed && !wasInterrupted(t)) {
+                LOGGER.error(String.format("Could not %s.", displayName), t);
+            }
+            closed = true;
+        }
+    }
+
+    /**
+     * Closes the streams once the content read from the stream has been forwarded.
+     */
+    void finish() {
+        try {
+            CompositeStoppable.stoppable(inputStream, outputStream).stop();
+        } catch (Throwable t) {
+            LOGGER.debug(String.format("Could not close streams to %s.", displayName), t);
+        } finally {
+            completed.countDown();
+        }
+    }
+
     /**
      * This can happen e.g. on IBM JDK when a remote process was terminated. Instead of
      * returning -1 on the next read() call, it will interrupt the current read call.
@@ -20,6 +20,7 @@ import org.gradle.internal.UncheckedException;
 import org.gradle.internal.operations.CurrentBuildOperationPreservingRunnable;
 import org.gradle.process.internal.StreamsHandler;
 
+import javax.annotation.Nullable;
 import java.io.OutputStream;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
@@ -31,21 +32,28 @@ public class OutputStreamsForwarder implements StreamsHandler {
     private final OutputStream standardOutput;
     private final OutputStream errorOutput;
     private final boolean readErrorStream;
+    private final ProcessOutputPump outputPump;
     private final CountDownLatch completed;
     private Executor executor;
+    private Process process;
     private ExecOutputHandleRunner standardOutputReader;
     private ExecOutputHandleRunner standardErrorReader;
 
-    public OutputStreamsForwarder(OutputStream standardOutput, OutputStream errorOutput, boolean readErrorStream) {
+    /**
+     * @param outputPump the pump that reads the streams. When null, each stream is read by a thread of the executor of the process.
+     */
+    public OutputStreamsForwarder(OutputStream standardOutput, OutputStream errorOutput, boolean readErrorStream, @Nullable ProcessOutputPump outputPump) {
         this.standardOutput = standardOutput;
         this.errorOutput = errorOutput;
         this.readErrorStream = readErrorStream;
+        this.outputPump = outputPump;
         this.completed = new CountDownLatch(readErrorStream ? 2 : 1);
     }
 
     @Override
     public void connectStreams(Process process, String processName, Executor executor) {
         this.executor = executor;
+        this.process = process;
         standardOutputReader = new ExecOutputHandleRunner("read standard output of " + processName, process.getInputStream(), standardOutput, completed);
         if (readErrorStream) {
             standardErrorReader = new ExecOutputHandleRunner("read error output of " + processName, process.getErrorStream(), errorOutput, completed);
@@ -53,10 +61,18 @@ public class OutputStreamsForwarder implements StreamsHandler {
     }
 
     public void start() {
+        if (outputPump == null) {
+            if (readErrorStream) {
+                executor.execute(wrapInBuildOperation(standardErrorReader));
+            }
+            executor.execute(wrapInBuildOperation(standardOutputReader));
+            return;
+        }
+        // The streams of all processes share a pump, to avoid a pair of threads for every process
         if (readErrorStream) {
-            executor.execute(wrapInBuildOperation(standardErrorReader));
+            outputPump.pump(standardErrorReader, process, executor);
         }
-        executor.execute(wrapInBuildOperation(standardOutputReader));
+        outputPump.pump(standardOutputReader, process, executor);
     }
 
     private Runnable wrapInBuildOperation(Runnable runnable) {
@@ -0,0 +1,235 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.process.internal.streams;
+
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.operations.CurrentBuildOperationPreservingRunnable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Reads the output of many processes from a single thread, rather than from a thread for each stream of each process.
+ *
+ * <p>The streams of a process cannot be selected on, so the pump reads what is available from each stream in turn, and backs off for a few milliseconds
+ * while there is nothing to read. The pump does not write to the destination of a stream itself. The content it reads is handed to the executor of
+ * the process, which writes the content of each stream in order. A slow destination therefore holds up its own process only: once a certain amount of
+ * its content is waiting to be written, the pump stops reading the stream and the process blocks when its pipe is full.
+ * Once a process has exited, the rest of its output is forwarded by the executor of the process, as a process that leaves the stream open to a child
+ * of its own would otherwise block the pump.</p>
+ *
+ * <p>The pump is a service shared by the processes started from the same scope, and its thread is stopped with that scope.</p>
+ */
+public class ProcessOutputPump implements Stoppable {
+    private static final int BUFFER_SIZE = 8192;
+    private static final int MAX_PENDING_BYTES = 8 * BUFFER_SIZE;
+    private static final long MAX_IDLE_MILLIS = 5;
+
+    private final Object lock = new Object();
+    private final List<PumpedStream> streams = new ArrayList<PumpedStream>();
+    private final ManagedExecutor pumpExecutor;
+    private boolean running;
+    private boolean streamsAdded;
+
+    public ProcessOutputPump(ExecutorFactory executorFactory) {
+        this.pumpExecutor = executorFactory.create("Process output pump");
+    }
+
+    void pump(ExecOutputHandleRunner runner, Process process, Executor executor) {
+        PumpedStream stream = new PumpedStream(runner, process, executor);
+        synchronized (lock) {
+            streams.add(stream);
+            streamsAdded = true;
+            lock.notifyAll();
+            if (!running) {
+                running = true;
+                pumpExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        pumpUntilIdle();
+                    }
+                });
+            }
+        }
+    }
+
+    private void pumpUntilIdle() {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long idleMillis = 0;
+        List<PumpedStream> snapshot = new ArrayList<PumpedStream>();
+        while (true) {
+            synchronized (lock) {
+                if (streams.isEmpty()) {
+                    running = false;
+                    return;
+                }
+                snapshot.clear();
+                snapshot.addAll(streams);
+                streamsAdded = false;
+            }
+
+            boolean read = false;
+            for (PumpedStream stream : snapshot) {
+                if (stream.isBackedUp()) {
+                    continue;
+                }
+                int count = stream.readAvailableContent(buffer);
+                if (count > 0) {
+                    read = true;
+                } else if (count < 0) {
+                    remove(stream);
+                    stream.finish();
+                } else if (stream.hasProcessExited()) {
+                    remove(stream);
+                    stream.forwardRemainingContent();
+                }
+            }
+
+            if (read) {
+                idleMillis = 0;
+            } else {
+                idleMillis = Math.min(MAX_IDLE_MILLIS, idleMillis + 1);
+                synchronized (lock) {
+                    // Streams of a new process are read right away
+                    if (!streamsAdded) {
+                        try {
+                            lock.wait(idleMillis);
+                        } catch (InterruptedException e) {
+                            // Keep pumping, the streams still need to be forwarded
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Waits for the streams that are being pumped to be closed, and stops the pump thread.
+     */
+    @Override
+    public void stop() {
+        pumpExecutor.stop();
+    }
+
+    private void remove(PumpedStream stream) {
+        synchronized (lock) {
+            streams.remove(stream);
+        }
+    }
+
+    /**
+     * A stream of a process, with the content that has been read from it and is waiting to be written to its destination.
+     */
+    private static class PumpedStream {
+        private final ExecOutputHandleRunner runner;
+        private final Process process;
+        private final Executor executor;
+        private final Runnable forwardPendingContent;
+        // Guarded by this
+        private final Deque<Runnable> pending = new ArrayDeque<Runnable>();
+        private int pendingBytes;
+        private boolean forwarding;
+
+        PumpedStream(ExecOutputHandleRunner runner, Process process, Executor executor) {
+            this.runner = runner;
+            this.process = process;
+            this.executor = executor;
+            // Forward the content on behalf of the build operation that started the process
+            this.forwardPendingContent = new CurrentBuildOperationPreservingRunnable(new Runnable() {
+                @Override
+                public void run() {
+                    forwardPendingContent();
+                }
+            });
+        }
+
+        synchronized boolean isBackedUp() {
+            return pendingBytes >= MAX_PENDING_BYTES;
+        }
+
+        int readAvailableContent(byte[] buffer) {
+            int count = runner.readAvailableContent(buffer);
+            if (count > 0) {
+                final byte[] content = Arrays.copyOf(buffer, count);
+                enqueue(new Runnable() {
+                    @Override
+                    public void run() {
+                        runner.forward(content);
+                        synchronized (PumpedStream.this) {
+                            pendingBytes -= content.length;
+                        }
+                    }
+                }, count);
+            }
+            return count;
+        }
+
+        boolean hasProcessExited() {
+            try {
+                process.exitValue();
+                return true;
+            } catch (IllegalThreadStateException e) {
+                return false;
+            }
+        }
+
+        void finish() {
+            enqueue(new Runnable() {
+                @Override
+                public void run() {
+                    runner.finish();
+                }
+            }, 0);
+        }
+
+        void forwardRemainingContent() {
+            enqueue(runner, 0);
+        }
+
+        private void enqueue(Runnable action, int bytes) {
+            synchronized (this) {
+                pending.add(action);
+                pendingBytes += bytes;
+                if (forwarding) {
+                    return;
+                }
+                forwarding = true;
+            }
+            executor.execute(forwardPendingContent);
+        }
+
+        private void forwardPendingContent() {
+            while (true) {
+                Runnable action;
+                synchronized (this) {
+                    action = pending.poll();
+                    if (action == null) {
+                        forwarding = false;
+                        return;
+                    }
+                }
+                action.run();
+            }
+        }
+    }
+}
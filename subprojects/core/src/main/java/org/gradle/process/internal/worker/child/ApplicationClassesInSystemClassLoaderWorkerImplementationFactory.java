@@ -72,12 +72,14 @@ public class ApplicationClassesInSystemClassLoaderWorkerImplementationFactory im
     private final TemporaryFileProvider temporaryFileProvider;
     private final JvmVersionDetector jvmVersionDetector;
     private final File gradleUserHomeDir;
+    private final WorkerClassDataSharing classDataSharing;
 
-    public ApplicationClassesInSystemClassLoaderWorkerImplementationFactory(ClassPathRegistry classPathRegistry, TemporaryFileProvider temporaryFileProvider, JvmVersionDetector jvmVersionDetector, File gradleUserHomeDir) {
+    public ApplicationClassesInSystemClassLoaderWorkerImplementationFactory(ClassPathRegistry classPathRegistry, TemporaryFileProvider temporaryFileProvider, JvmVersionDetector jvmVersionDetector, File gradleUserHomeDir, WorkerClassDataSharing classDataSharing) {
         this.classPathRegistry = classPathRegistry;
         this.temporaryFileProvider = temporaryFileProvider;
         this.jvmVersionDetector = jvmVersionDetector;
         this.gradleUserHomeDir = gradleUserHomeDir;
+        this.classDataSharing = classDataSharing;
     }
 
     @Override
@@ -90,12 +92,16 @@ public class ApplicationClassesInSystemClassLoaderWorkerImplementationFactory im
 
         execSpec.setMain("worker." + GradleWorkerMain.class.getName());
 
-        boolean useOptionsFile = shouldUseOptionsFile(execSpec);
+        JavaVersion executableVersion = jvmVersionDetector.getJavaVersion(execSpec.getExecutable());
+        boolean useOptionsFile = executableVersion != null && executableVersion.isJava9Compatible();
         if (useOptionsFile) {
             // Use an options file to pass across application classpath
             File optionsFile = temporaryFileProvider.createTemporaryFile("gradle-worker-classpath", "txt");
-            List<String> jvmArgs = writeOptionsFile(workerMainClassPath.getAsFiles(), applicationClasspath, optionsFile);
+            List<File> classpath = getJvmClasspath(workerMainClassPath.getAsFiles(), applicationClasspath);
+            List<String> jvmArgs = writeOptionsFile(classpath, optionsFile);
             execSpec.jvmArgs(jvmArgs);
+            // The security manager below changes the classpath of the JVM at runtime, so the classes can only be shared when the classpath is given up front
+            classDataSharing.configure(execSpec, executableVersion, classpath, implementationClassPath);
         } else {
             // Use a dummy security manager, which hacks the application classpath into the system ClassLoader
             execSpec.classpath(workerMainClassPath.getAsFiles());
@@ -148,15 +154,14 @@ public class ApplicationClassesInSystemClassLoaderWorkerImplementationFactory im
         execSpec.setStandardInput(buffer.getInputStream());
     }
 
-    private boolean shouldUseOptionsFile(JavaExecHandleBuilder execSpec) {
-        JavaVersion executableVersion = jvmVersionDetector.getJavaVersion(execSpec.getExecutable());
-        return executableVersion != null && executableVersion.isJava9Compatible();
-    }
-
-    private List<String> writeOptionsFile(Collection<File> workerMainClassPath, Collection<File> applicationClasspath, File optionsFile) {
+    private static List<File> getJvmClasspath(Collection<File> workerMainClassPath, Collection<File> applicationClasspath) {
         List<File> classpath = new ArrayList<File>(workerMainClassPath.size() + applicationClasspath.size());
         classpath.addAll(workerMainClassPath);
         classpath.addAll(applicationClasspath);
+        return classpath;
+    }
+
+    private List<String> writeOptionsFile(List<File> classpath, File optionsFile) {
         List<String> argumentList = Arrays.asList("-cp", Joiner.on(File.pathSeparator).join(classpath));
         return ArgWriter.argsFileGenerator(optionsFile, ArgWriter.javaStyleFactory()).transform(argumentList);
     }
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.process.internal.worker.child;
+
+import com.google.common.collect.ImmutableList;
+import org.gradle.api.JavaVersion;
+import org.gradle.cache.CacheRepository;
+import org.gradle.cache.FileLockManager;
+import org.gradle.cache.PersistentCache;
+import org.gradle.cache.internal.LeastRecentlyUsedCacheCleanup;
+import org.gradle.cache.internal.SingleDepthFilesFinder;
+import org.gradle.internal.hash.Hasher;
+import org.gradle.internal.hash.Hashing;
+import org.gradle.internal.resource.local.FileAccessTimeJournal;
+import org.gradle.internal.resource.local.FileAccessTracker;
+import org.gradle.internal.resource.local.SingleDepthFileAccessTracker;
+import org.gradle.process.ExecResult;
+import org.gradle.process.internal.ExecHandle;
+import org.gradle.process.internal.ExecHandleListener;
+import org.gradle.process.internal.JavaExecHandleBuilder;
+import org.gradle.util.GFileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileFilter;
+import java.net.URL;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.gradle.cache.internal.filelock.LockOptionsBuilder.mode;
+
+/**
+ * Shares the class data of worker processes through an AppCDS archive in the Gradle user home, so that a worker does not have to load and verify
+ * the worker classes from scratch.
+ *
+ * <p>The first worker started for a particular JVM and classpath writes the archive of the classes it has loaded when it exits, using the dynamic
+ * archiving of Java 13 and later. Later workers with the same JVM and classpath map that archive.</p>
+ *
+ * <p>The JVM only uses an archive while the files of its classpath have the same size and modification time as when it was written, so an archive is
+ * keyed by those as well as by the paths of the classpath. A new archive replaces the archive for the same paths with other file sizes or modification
+ * times, and archives that have not been used for a while are removed by the cache cleanup.</p>
+ */
+public class WorkerClassDataSharing implements Closeable {
+    public static final String ENABLED_PROPERTY = "org.gradle.internal.worker.class-data-sharing";
+    private static final Logger LOGGER = LoggerFactory.getLogger(WorkerClassDataSharing.class);
+    private static final String CACHE_KEY = "worker-cds";
+    private static final int FILE_TREE_DEPTH_TO_TRACK_AND_CLEANUP = 1;
+    private static final int MAX_AGE_IN_DAYS = 7;
+
+    private final CacheRepository cacheRepository;
+    private final FileAccessTimeJournal fileAccessTimeJournal;
+    private final Set<String> archivesInProgress = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    private PersistentCache cache;
+    private FileAccessTracker fileAccessTracker;
+
+    public WorkerClassDataSharing(CacheRepository cacheRepository, FileAccessTimeJournal fileAccessTimeJournal) {
+        this.cacheRepository = cacheRepository;
+        this.fileAccessTimeJournal = fileAccessTimeJournal;
+    }
+
+    /**
+     * Adds the JVM arguments to use, or to write, the archive for a worker with the given classpath.
+     *
+     * @param jvmClasspath the classpath of the worker JVM, which must be the same when the archive is used as when it was written.
+     * @param implementationClassPath the classpath the worker implementation is loaded from.
+     */
+    public void configure(JavaExecHandleBuilder execSpec, JavaVersion executableVersion, Collection<File> jvmClasspath, List<URL> implementationClassPath) {
+        if (!Boolean.getBoolean(ENABLED_PROPERTY) || executableVersion.compareTo(JavaVersion.VERSION_12) <= 0) {
+            return;
+        }
+        for (File file : jvmClasspath) {
+            if (!file.isFile()) {
+                // Classes are not archived from directories, and the JVM refuses to write an archive when the classpath contains one
+                return;
+            }
+        }
+
+        final File archiveDir = getArchiveDir();
+        final String classpathKey = classpathKey(execSpec.getExecutable(), jvmClasspath, implementationClassPath);
+        final File archive = new File(archiveDir, classpathKey + "-" + fileStatesKey(execSpec.getExecutable(), jvmClasspath) + ".jsa");
+        if (archive.isFile()) {
+            LOGGER.debug("Using class data sharing archive {}.", archive);
+            fileAccessTracker.markAccessed(archive);
+            execSpec.jvmArgs(ImmutableList.of("-XX:SharedArchiveFile=" + archive.getAbsolutePath(), "-Xlog:cds=off", "-Xlog:cds+dynamic=off"));
+            return;
+        }
+        if (!archivesInProgress.add(classpathKey)) {
+            // Another worker is writing the archive already
+            return;
+        }
+
+        // Write to a file of our own, so that no other process picks up the archive before it is complete
+        final File archiveInProgress = new File(archiveDir, classpathKey + "-" + UUID.randomUUID() + ".tmp");
+        LOGGER.debug("Writing class data sharing archive {}.", archive);
+        execSpec.jvmArgs(ImmutableList.of("-XX:ArchiveClassesAtExit=" + archiveInProgress.getAbsolutePath(), "-Xlog:cds=off", "-Xlog:cds+dynamic=off"));
+        execSpec.listener(new ExecHandleListener() {
+            @Override
+            public void executionStarted(ExecHandle execHandle) {
+            }
+
+            @Override
+            public void executionFinished(ExecHandle execHandle, ExecResult execResult) {
+                try {
+                    if (execResult.getExitValue() == 0 && archiveInProgress.length() > 0 && archiveInProgress.renameTo(archive)) {
+                        LOGGER.debug("Wrote class data sharing archive {}.", archive);
+                        fileAccessTracker.markAccessed(archive);
+                        deleteOutdatedArchives(archiveDir, classpathKey, archive);
+                    }
+                } finally {
+                    GFileUtils.deleteQuietly(archiveInProgress);
+                    archivesInProgress.remove(classpathKey);
+                }
+            }
+        });
+    }
+
+    @Override
+    public synchronized void close() {
+        if (cache != null) {
+            cache.close();
+        }
+    }
+
+    private synchronized File getArchiveDir() {
+        if (cache == null) {
+            cache = cacheRepository
+                .cache(CACHE_KEY)
+                .withDisplayName("worker class data sharing archives")
+                .withLockOptions(mode(FileLockManager.LockMode.None))
+                .withCleanup(new LeastRecentlyUsedCacheCleanup(new SingleDepthFilesFinder(FILE_TREE_DEPTH_TO_TRACK_AND_CLEANUP), fileAccessTimeJournal, MAX_AGE_IN_DAYS))
+                .open();
+            fileAccessTracker = new SingleDepthFileAccessTracker(fileAccessTimeJournal, cache.getBaseDir(), FILE_TREE_DEPTH_TO_TRACK_AND_CLEANUP);
+        }
+        return cache.getBaseDir();
+    }
+
+    /**
+     * Deletes the archives for the same classpath that were written before the files of the classpath changed, as the JVM will not use them any more.
+     */
+    private static void deleteOutdatedArchives(File archiveDir, final String classpathKey, final File archive) {
+        File[] outdatedArchives = archiveDir.listFiles(new FileFilter() {
+            @Override
+            public boolean accept(File file) {
+                return file.getName().startsWith(classpathKey + "-") && file.getName().endsWith(".jsa") && !file.equals(archive);
+            }
+        });
+        if (outdatedArchives != null) {
+            for (File outdatedArchive : outdatedArchives) {
+                GFileUtils.deleteQuietly(outdatedArchive);
+            }
+        }
+    }
+
+    private static String classpathKey(String executable, Collection<File> jvmClasspath, List<URL> implementationClassPath) {
+        Hasher hasher = Hashing.newHasher();
+        hasher.putString(executable);
+        for (File file : jvmClasspath) {
+            hasher.putString(file.getAbsolutePath());
+        }
+        for (URL url : implementationClassPath) {
+            hasher.putString(url.toString());
+        }
+        return hasher.hash().toString();
+    }
+
+    /**
+     * Hashes the modification time of the JVM and the sizes and modification times of the classpath files, which is what the JVM validates an
+     * archive against. This is much cheaper than hashing the contents of the files.
+     */
+    private static String fileStatesKey(String executable, Collection<File> jvmClasspath) {
+        Hasher hasher = Hashing.newHasher();
+        hasher.putLong(new File(executable).lastModified());
+        for (File file : jvmClasspath) {
+            hasher.putLong(file.length());
+            hasher.putLong(file.lastModified());
+        }
+        return hasher.hash().toString();
+    }
+}
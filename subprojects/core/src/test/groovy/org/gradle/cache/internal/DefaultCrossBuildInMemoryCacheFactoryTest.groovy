@@ -147,6 +147,30 @@ class DefaultCrossBuildInMemoryCacheFactoryTest extends ConcurrentSpec {
         0 * transformer._
     }
 
+    def "releases values not used by the current session"() {
+        def cache = factory.newCache()
+        def c = new Object()
+
+        given:
+        cache.put("a", new Object())
+        cache.put("b", new Object())
+        listenerManager.getBroadcaster(SessionLifecycleListener).beforeComplete()
+        cache.put("c", c)
+
+        expect:
+        factory.retainedValueCount == 3
+
+        when:
+        def released = factory.release()
+
+        then:
+        released == 2
+        factory.retainedValueCount == 1
+        cache.get("c") == c
+        cache.get("a") == null
+        cache.get("b") == null
+    }
+
     def "creates a cache whose keys are classes"() {
         def a = new Object()
         def b = new Object()
@@ -38,6 +38,72 @@ class ExecOutputHandleRunnerTest extends Specification {
         completed.count == 0
     }
 
+    def "reads the available content without blocking"() {
+        def source = new PipedOutputStream()
+        def input = new PipedInputStream(source)
+        def output = new ByteArrayOutputStream()
+        def completed = new CountDownLatch(1)
+        def runner = new ExecOutputHandleRunner("test", input, output, 4, completed)
+        def buffer = new byte[4]
+
+        expect:
+        runner.readAvailableContent(buffer) == 0
+
+        when:
+        source.write("hello".bytes)
+
+        then:
+        runner.readAvailableContent(buffer) == 4
+        new String(buffer) == "hell"
+        runner.readAvailableContent(buffer) == 1
+        runner.readAvailableContent(buffer) == 0
+        output.size() == 0
+
+        when:
+        runner.disconnect()
+
+        then:
+        runner.readAvailableContent(buffer) == -1
+        completed.count == 1
+    }
+
+    def "forwards content and closes the streams when finished"() {
+        def input = Mock(InputStream)
+        def output = Mock(OutputStream)
+        def completed = new CountDownLatch(1)
+        def runner = new ExecOutputHandleRunner("test", input, output, 4, completed)
+
+        when:
+        runner.forward("hello".bytes)
+
+        then:
+        1 * output.write("hello".bytes)
+        1 * output.flush()
+
+        when:
+        runner.finish()
+
+        then:
+        1 * input.close()
+        1 * output.close()
+        completed.count == 0
+    }
+
+    def "stops reading when content cannot be forwarded"() {
+        def input = new ByteArrayInputStream("hello".bytes)
+        def output = Mock(OutputStream)
+        def runner = new ExecOutputHandleRunner("test", input, output, 4, new CountDownLatch(1))
+
+        when:
+        runner.forward("hello".bytes)
+
+        then:
+        1 * output.write(_) >> { throw new IOException("broken") }
+
+        and:
+        runner.readAvailableContent(new byte[4]) == -1
+    }
+
     @Issue("GRADLE-3329")
     def "Handles exec output with line containing multi-byte unicode character at buffer boundary"() {
         given:
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.process.internal.streams
+
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import spock.lang.Specification
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+class ProcessOutputPumpTest extends Specification {
+    def executorFactory = new DefaultExecutorFactory()
+    def processExecutor = executorFactory.create("process")
+    def pump = new ProcessOutputPump(executorFactory)
+
+    def cleanup() {
+        executorFactory.stop()
+    }
+
+    def "forwards the output of a process and closes the streams once the process has exited"() {
+        def process = new TestProcess()
+        def output = new ByteArrayOutputStream()
+        def completed = new CountDownLatch(1)
+
+        when:
+        pump.pump(new ExecOutputHandleRunner("test", process.inputStream, output, completed), process, processExecutor)
+        process.output.write("hello".bytes)
+        process.exit()
+
+        then:
+        completed.await(10, TimeUnit.SECONDS)
+        output.toString() == "hello"
+    }
+
+    def "stopping waits for the streams that are being pumped"() {
+        def process = new TestProcess()
+        def output = new ByteArrayOutputStream()
+        def completed = new CountDownLatch(1)
+        pump.pump(new ExecOutputHandleRunner("test", process.inputStream, output, completed), process, processExecutor)
+        process.output.write("hello".bytes)
+        process.exit()
+
+        when:
+        pump.stop()
+
+        then:
+        completed.await(10, TimeUnit.SECONDS)
+        output.toString() == "hello"
+    }
+
+    def "a slow destination does not hold up the output of other processes"() {
+        def slowProcess = new TestProcess()
+        def fastProcess = new TestProcess()
+        def release = new CountDownLatch(1)
+        def received = new CountDownLatch(1)
+        def slowOutput = new OutputStream() {
+            @Override
+            void write(int b) {
+                release.await()
+            }
+        }
+        def fastOutput = new OutputStream() {
+            @Override
+            void write(int b) {
+                received.countDown()
+            }
+        }
+        def completed = new CountDownLatch(2)
+
+        when:
+        pump.pump(new ExecOutputHandleRunner("slow", slowProcess.inputStream, slowOutput, completed), slowProcess, processExecutor)
+        pump.pump(new ExecOutputHandleRunner("fast", fastProcess.inputStream, fastOutput, completed), fastProcess, processExecutor)
+        slowProcess.output.write("slow".bytes)
+        fastProcess.output.write("fast".bytes)
+
+        then:
+        received.await(10, TimeUnit.SECONDS)
+
+        cleanup:
+        release.countDown()
+        slowProcess.exit()
+        fastProcess.exit()
+        completed.await(10, TimeUnit.SECONDS)
+    }
+
+    def "stops reading the output of a process whose destination falls behind"() {
+        def process = new TestProcess(256 * 1024)
+        def release = new CountDownLatch(1)
+        def forwarded = new AtomicInteger()
+        def slowOutput = new OutputStream() {
+            @Override
+            void write(int b) {
+                release.await()
+                forwarded.incrementAndGet()
+            }
+        }
+        def completed = new CountDownLatch(1)
+        def length = 128 * 1024
+
+        when:
+        pump.pump(new ExecOutputHandleRunner("slow", process.inputStream, slowOutput, completed), process, processExecutor)
+        process.output.write(new byte[length])
+        waitFor { process.inputStream.available() <= length / 2 }
+        Thread.sleep(100)
+
+        then:
+        process.inputStream.available() > 0
+
+        when:
+        release.countDown()
+        process.exit()
+
+        then:
+        completed.await(10, TimeUnit.SECONDS)
+        forwarded.get() == length
+    }
+
+    private static void waitFor(Closure<Boolean> condition) {
+        long expiry = System.currentTimeMillis() + 10000
+        while (!condition.call()) {
+            assert System.currentTimeMillis() < expiry
+            Thread.sleep(10)
+        }
+    }
+
+    private static class TestProcess extends Process {
+        final PipedOutputStream output = new PipedOutputStream()
+        final PipedInputStream inputStream
+        private volatile boolean exited
+
+        TestProcess(int pipeSize = 1024) {
+            inputStream = new PipedInputStream(output, pipeSize)
+        }
+
+        void exit() {
+            output.close()
+            exited = true
+        }
+
+        @Override
+        OutputStream getOutputStream() {
+            return new ByteArrayOutputStream()
+        }
+
+        @Override
+        InputStream getErrorStream() {
+            return new ByteArrayInputStream(new byte[0])
+        }
+
+        @Override
+        int waitFor() {
+            throw new UnsupportedOperationException()
+        }
+
+        @Override
+        int exitValue() {
+            if (!exited) {
+                throw new IllegalThreadStateException()
+            }
+            return 0
+        }
+
+        @Override
+        void destroy() {
+        }
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.process.internal.worker.child
+
+import org.gradle.api.JavaVersion
+import org.gradle.cache.CacheBuilder
+import org.gradle.cache.CacheRepository
+import org.gradle.cache.PersistentCache
+import org.gradle.internal.resource.local.FileAccessTimeJournal
+import org.gradle.process.ExecResult
+import org.gradle.process.internal.ExecHandleListener
+import org.gradle.process.internal.JavaExecHandleBuilder
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.util.SetSystemProperties
+import org.junit.Rule
+import spock.lang.Specification
+
+class WorkerClassDataSharingTest extends Specification {
+    @Rule final TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    @Rule final SetSystemProperties systemProperties = new SetSystemProperties((WorkerClassDataSharing.ENABLED_PROPERTY): "true")
+    def execSpec = Mock(JavaExecHandleBuilder) {
+        getExecutable() >> "java"
+    }
+    def classpath = [tmpDir.createFile("worker.jar")]
+    def implementationClasspath = [new URL("file:/gradle-core.jar")]
+    def archiveDir = tmpDir.testDirectory.file("worker-cds").createDir()
+    def cache = Mock(PersistentCache) {
+        getBaseDir() >> archiveDir
+    }
+    def cacheBuilder = Stub(CacheBuilder) {
+        open() >> cache
+        withDisplayName(_) >> { cacheBuilder }
+        withLockOptions(_) >> { cacheBuilder }
+        withCleanup(_) >> { cacheBuilder }
+    }
+    def cacheRepository = Stub(CacheRepository) {
+        cache("worker-cds") >> cacheBuilder
+    }
+    def fileAccessTimeJournal = Mock(FileAccessTimeJournal)
+    def classDataSharing = new WorkerClassDataSharing(cacheRepository, fileAccessTimeJournal)
+
+    def "writes the archive from the first worker and uses it in later workers"() {
+        ExecHandleListener listener = null
+        def dumpArg = null
+
+        when:
+        classDataSharing.configure(execSpec, JavaVersion.VERSION_HIGHER, classpath, implementationClasspath)
+
+        then:
+        1 * execSpec.jvmArgs(_) >> { args -> dumpArg = args[0].find { it.startsWith("-XX:ArchiveClassesAtExit=") } }
+        1 * execSpec.listener(_) >> { args -> listener = args[0] }
+
+        when:
+        new File(dumpArg - "-XX:ArchiveClassesAtExit=").text = "archive"
+        listener.executionFinished(null, Stub(ExecResult) { getExitValue() >> 0 })
+        classDataSharing.configure(execSpec, JavaVersion.VERSION_HIGHER, classpath, implementationClasspath)
+
+        then:
+        archiveDir.listFiles().size() == 1
+        2 * fileAccessTimeJournal.setLastAccessTime({ it.parentFile == archiveDir && it.name.endsWith(".jsa") }, _)
+        1 * execSpec.jvmArgs(_) >> { args -> assert args[0].contains("-XX:SharedArchiveFile=" + archiveDir.listFiles()[0].absolutePath) }
+        0 * execSpec.listener(_)
+    }
+
+    def "replaces the archive when the classpath files change"() {
+        ExecHandleListener listener = null
+        def dumpArg = null
+        def staleArchive = null
+
+        when:
+        classDataSharing.configure(execSpec, JavaVersion.VERSION_HIGHER, classpath, implementationClasspath)
+        new File(dumpArg - "-XX:ArchiveClassesAtExit=").text = "archive"
+        listener.executionFinished(null, Stub(ExecResult) { getExitValue() >> 0 })
+        staleArchive = archiveDir.listFiles()[0]
+        classpath[0].text = "changed"
+        classDataSharing.configure(execSpec, JavaVersion.VERSION_HIGHER, classpath, implementationClasspath)
+        new File(dumpArg - "-XX:ArchiveClassesAtExit=").text = "archive"
+        listener.executionFinished(null, Stub(ExecResult) { getExitValue() >> 0 })
+
+        then:
+        2 * execSpec.jvmArgs(_) >> { args -> dumpArg = args[0].find { it.startsWith("-XX:ArchiveClassesAtExit=") } }
+        2 * execSpec.listener(_) >> { args -> listener = args[0] }
+        archiveDir.listFiles().size() == 1
+        archiveDir.listFiles()[0] != staleArchive
+    }
+
+    def "does not keep unfinished archives"() {
+        ExecHandleListener listener = null
+
+        when:
+        classDataSharing.configure(execSpec, JavaVersion.VERSION_HIGHER, classpath, implementationClasspath)
+        listener.executionFinished(null, Stub(ExecResult) { getExitValue() >> 1 })
+
+        then:
+        1 * execSpec.jvmArgs(_) >> { args -> new File(args[0].find { it.startsWith("-XX:ArchiveClassesAtExit=") } - "-XX:ArchiveClassesAtExit=").text = "partial" }
+        1 * execSpec.listener(_) >> { args -> listener = args[0] }
+        archiveDir.listFiles().size() == 0
+        0 * fileAccessTimeJournal._
+    }
+
+    def "closes the cache when it was opened"() {
+        when:
+        classDataSharing.configure(execSpec, JavaVersion.VERSION_HIGHER, classpath, implementationClasspath)
+        classDataSharing.close()
+
+        then:
+        1 * cache.close()
+    }
+
+    def "only one worker writes the archive at a time"() {
+        when:
+        classDataSharing.configure(execSpec, JavaVersion.VERSION_HIGHER, classpath, implementationClasspath)
+        classDataSharing.configure(execSpec, JavaVersion.VERSION_HIGHER, classpath, implementationClasspath)
+
+        then:
+        1 * execSpec.jvmArgs(_)
+        1 * execSpec.listener(_)
+    }
+
+    def "does not share classes when #reason"() {
+        if (!enabled) {
+            System.clearProperty(WorkerClassDataSharing.ENABLED_PROPERTY)
+        }
+
+        when:
+        classDataSharing.configure(execSpec, javaVersion, classpath + extraClasspath.collect { tmpDir.testDirectory.file(it).createDir() }, implementationClasspath)
+
+        then:
+        0 * execSpec.jvmArgs(_)
+        0 * execSpec.listener(_)
+        0 * cache._
+
+        where:
+        reason                                     | enabled | javaVersion                | extraClasspath
+        "not enabled"                              | false   | JavaVersion.VERSION_HIGHER | []
+        "the JVM cannot write archives"            | true    | JavaVersion.VERSION_11     | []
+        "the classpath contains a class directory" | true    | JavaVersion.VERSION_HIGHER | ["classes"]
+    }
+}
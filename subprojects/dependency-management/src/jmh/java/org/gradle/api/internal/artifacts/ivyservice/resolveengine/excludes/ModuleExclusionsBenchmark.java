@@ -0,0 +1,108 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes;
+
+import com.google.common.collect.ImmutableList;
+import org.gradle.api.artifacts.ModuleIdentifier;
+import org.gradle.api.internal.artifacts.DefaultImmutableModuleIdentifierFactory;
+import org.gradle.api.internal.artifacts.ImmutableModuleIdentifierFactory;
+import org.gradle.internal.component.external.descriptor.DefaultExclude;
+import org.gradle.internal.component.model.ExcludeMetadata;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Reproduces the shape of the exclusions found in a BOM heavy graph, such as a Spring Boot application: a few dozen starters,
+ * each declaring a handful of group, module and module id excludes, reached through several paths of the graph.
+ */
+@Fork(2)
+@Warmup(iterations = 10)
+@State(Scope.Benchmark)
+public class ModuleExclusionsBenchmark {
+    private static final int STARTERS = 60;
+    private static final int MODULES = 400;
+    private static final int PATH_DEPTH = 4;
+
+    private final ImmutableModuleIdentifierFactory moduleIdentifierFactory = new DefaultImmutableModuleIdentifierFactory();
+
+    private List<ImmutableList<ExcludeMetadata>> starterExcludes;
+    private List<ModuleIdentifier> modules;
+    private ModuleExclusions moduleExclusions;
+
+    @Setup(Level.Trial)
+    public void createGraph() {
+        Random random = new Random(42);
+        modules = new ArrayList<ModuleIdentifier>(MODULES);
+        for (int i = 0; i < MODULES; i++) {
+            modules.add(moduleIdentifierFactory.module("org.group" + (i % 40), "module" + i));
+        }
+        starterExcludes = new ArrayList<ImmutableList<ExcludeMetadata>>(STARTERS);
+        for (int i = 0; i < STARTERS; i++) {
+            ImmutableList.Builder<ExcludeMetadata> excludes = ImmutableList.builder();
+            excludes.add(new DefaultExclude(moduleIdentifierFactory.module("commons-logging", "commons-logging")));
+            excludes.add(new DefaultExclude(moduleIdentifierFactory.module("org.group" + random.nextInt(40), "*")));
+            excludes.add(new DefaultExclude(moduleIdentifierFactory.module("*", "module" + random.nextInt(MODULES))));
+            for (int j = 0; j < 5; j++) {
+                excludes.add(new DefaultExclude(modules.get(random.nextInt(MODULES))));
+            }
+            starterExcludes.add(excludes.build());
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void createExclusions() {
+        moduleExclusions = new ModuleExclusions(moduleIdentifierFactory);
+    }
+
+    @Benchmark
+    public void resolveGraph(Blackhole bh) {
+        ModuleExclusion[] pathExclusions = new ModuleExclusion[STARTERS];
+        for (int i = 0; i < STARTERS; i++) {
+            ModuleExclusion exclusion = ModuleExclusions.excludeNone();
+            for (int depth = 0; depth < PATH_DEPTH; depth++) {
+                exclusion = moduleExclusions.intersect(exclusion, moduleExclusions.excludeAny(starterExcludes.get((i + depth) % STARTERS)));
+            }
+            pathExclusions[i] = exclusion;
+        }
+        for (int i = 0; i < STARTERS; i++) {
+            ModuleExclusion exclusion = moduleExclusions.union(pathExclusions[i], pathExclusions[(i + 1) % STARTERS]);
+            for (ModuleIdentifier module : modules) {
+                bh.consume(exclusion.excludeModule(module));
+            }
+        }
+    }
+
+    @Benchmark
+    public void evaluateExcludes(Blackhole bh) {
+        for (ImmutableList<ExcludeMetadata> excludes : starterExcludes) {
+            ModuleExclusion exclusion = moduleExclusions.excludeAny(excludes);
+            for (ModuleIdentifier module : modules) {
+                bh.consume(exclusion.excludeModule(module));
+            }
+        }
+    }
+}
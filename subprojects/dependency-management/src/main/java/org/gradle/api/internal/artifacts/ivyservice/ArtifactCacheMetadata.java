@@ -15,6 +15,7 @@
  */
 package org.gradle.api.internal.artifacts.ivyservice;
 
+import javax.annotation.Nullable;
 import java.io.File;
 
 public interface ArtifactCacheMetadata {
@@ -48,4 +49,12 @@ public interface ArtifactCacheMetadata {
      * Returns the root directory for the transforms cache.
      */
     File getTransformsStoreDirectory();
+
+    /**
+     * Returns the root directory of a read-only, pre-populated module artifacts file store, or null when none is configured.
+     *
+     * @return Read-only file store location
+     */
+    @Nullable
+    File getReadOnlyFileStoreDirectory();
 }
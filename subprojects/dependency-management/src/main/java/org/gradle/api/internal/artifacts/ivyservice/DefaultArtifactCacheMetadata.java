@@ -15,24 +15,55 @@
  */
 package org.gradle.api.internal.artifacts.ivyservice;
 
+import org.apache.commons.lang.StringUtils;
 import org.gradle.cache.internal.CacheScopeMapping;
 import org.gradle.cache.internal.CacheVersion;
 import org.gradle.cache.internal.VersionStrategy;
 import org.gradle.internal.classpath.CachedJarFileStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.util.Arrays;
 import java.util.List;
 
 public class DefaultArtifactCacheMetadata implements ArtifactCacheMetadata, CachedJarFileStore {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DefaultArtifactCacheMetadata.class);
 
     public static final CacheVersion CACHE_LAYOUT_VERSION = CacheLayout.META_DATA.getVersion();
+
+    /**
+     * Environment variable pointing to a read-only directory with the same layout as the Gradle user home caches directory, typically
+     * pre-populated and mounted in ephemeral build agents.
+     */
+    public static final String READ_ONLY_CACHE_ENV_VAR = "GRADLE_RO_DEP_CACHE";
+
     private final File cacheDir;
     private final File transformsDir;
+    private final File readOnlyCacheDir;
 
     public DefaultArtifactCacheMetadata(CacheScopeMapping cacheScopeMapping) {
+        this(cacheScopeMapping, System.getenv(READ_ONLY_CACHE_ENV_VAR));
+    }
+
+    DefaultArtifactCacheMetadata(CacheScopeMapping cacheScopeMapping, @Nullable String readOnlyCachePath) {
         cacheDir = cacheScopeMapping.getBaseDirectory(null, CacheLayout.ROOT.getKey(), VersionStrategy.SharedCache);
         transformsDir = cacheScopeMapping.getBaseDirectory(null, CacheLayout.TRANSFORMS.getKey(), VersionStrategy.SharedCache);
+        readOnlyCacheDir = readOnlyCacheDir(readOnlyCachePath);
+    }
+
+    @Nullable
+    private static File readOnlyCacheDir(@Nullable String readOnlyCachePath) {
+        if (StringUtils.isBlank(readOnlyCachePath)) {
+            return null;
+        }
+        File cacheDir = CacheLayout.ROOT.getPath(new File(readOnlyCachePath));
+        if (!cacheDir.isDirectory()) {
+            LOGGER.warn("The read-only dependency cache is disabled because {} does not exist.", cacheDir);
+            return null;
+        }
+        return cacheDir;
     }
 
     @Override
@@ -65,6 +96,12 @@ public class DefaultArtifactCacheMetadata implements ArtifactCacheMetadata, Cach
         return new File(createCacheRelativeDir(CacheLayout.META_DATA), "descriptors");
     }
 
+    @Nullable
+    @Override
+    public File getReadOnlyFileStoreDirectory() {
+        return readOnlyCacheDir == null ? null : CacheLayout.FILE_STORE.getPath(readOnlyCacheDir);
+    }
+
     private File createCacheRelativeDir(CacheLayout cacheLayout) {
         return cacheLayout.getPath(getCacheDir());
     }
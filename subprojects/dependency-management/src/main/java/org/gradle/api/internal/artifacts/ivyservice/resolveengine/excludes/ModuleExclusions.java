@@ -60,6 +60,7 @@ public class ModuleExclusions {
     private final Map<MergeOperation, AbstractModuleExclusion> mergeCache = Maps.newConcurrentMap();
     private final Map<ImmutableList<ExcludeMetadata>, AbstractModuleExclusion> excludeAnyCache = Maps.newConcurrentMap();
     private final Map<ImmutableSet<AbstractModuleExclusion>, IntersectionExclusion> intersectionCache = Maps.newConcurrentMap();
+    private final Map<IntersectOperation, ModuleExclusion> intersectCache = Maps.newConcurrentMap();
     private final Map<AbstractModuleExclusion[], Map<AbstractModuleExclusion[], MergeOperation>> mergeOperationCache = Maps.newIdentityHashMap();
     private final Map<ModuleIdentifier, ModuleIdExcludeSpec> moduleIdSpecs = Maps.newConcurrentMap();
     private final Map<String, ModuleNameExcludeSpec> moduleNameSpecs = Maps.newConcurrentMap();
@@ -185,13 +186,21 @@ public class ModuleExclusions {
             return two;
         }
 
-        AbstractModuleExclusion aOne = (AbstractModuleExclusion) one;
-        AbstractModuleExclusion aTwo = (AbstractModuleExclusion) two;
+        // The same pair of exclusions is intersected for many edges of the graph, so avoid unpacking and rebuilding the flattened set each time
+        IntersectOperation operation = new IntersectOperation((AbstractModuleExclusion) one, (AbstractModuleExclusion) two);
+        ModuleExclusion intersection = intersectCache.get(operation);
+        if (intersection == null) {
+            intersection = doIntersect(operation.one, operation.two);
+            intersectCache.put(operation, intersection);
+        }
+        return intersection;
+    }
 
-        List<AbstractModuleExclusion> builder = Lists.newArrayListWithExpectedSize(estimateSize(aOne) + estimateSize(aTwo));
+    private IntersectionExclusion doIntersect(AbstractModuleExclusion one, AbstractModuleExclusion two) {
+        List<AbstractModuleExclusion> builder = Lists.newArrayListWithExpectedSize(estimateSize(one) + estimateSize(two));
 
-        aOne.unpackIntersection(builder);
-        aTwo.unpackIntersection(builder);
+        one.unpackIntersection(builder);
+        two.unpackIntersection(builder);
 
         return asIntersection(ImmutableSet.copyOf(builder));
     }
@@ -444,6 +453,36 @@ public class ModuleExclusions {
         }
     }
 
+    private static final class IntersectOperation {
+        private final AbstractModuleExclusion one;
+        private final AbstractModuleExclusion two;
+        private final int hashCode;
+
+        private IntersectOperation(AbstractModuleExclusion one, AbstractModuleExclusion two) {
+            this.one = one;
+            this.two = two;
+            this.hashCode = 31 * one.hashCode() + two.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+
+            IntersectOperation that = (IntersectOperation) o;
+            return hashCode == that.hashCode && one.equals(that.one) && two.equals(that.two);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
     private static final class MergeSet extends HashSet<AbstractModuleExclusion> {
         private final BitSet remaining;
         private int idx;
@@ -63,7 +63,11 @@ public class DefaultTransformationNodeFactory implements TransformationNodeFacto
                 TransformationNode previous = getOrCreateInternal(artifact, transformationChain.subList(0, transformationChain.size() - 1), dependenciesResolver);
                 transformationNode = TransformationNode.chained(transformationChain.get(transformationChain.size() - 1).get(), previous, dependenciesResolver);
             }
-            transformations.put(key, transformationNode);
+            // Several projects may resolve the same artifact concurrently, make sure they all end up scheduling the same node
+            TransformationNode existing = transformations.putIfAbsent(key, transformationNode);
+            if (existing != null) {
+                return existing;
+            }
         }
         return transformationNode;
     }
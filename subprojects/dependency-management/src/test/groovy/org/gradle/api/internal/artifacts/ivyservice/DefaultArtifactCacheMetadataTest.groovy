@@ -21,6 +21,7 @@ import org.gradle.test.fixtures.file.TestFile
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
 import org.junit.Rule
 import spock.lang.Specification
+import spock.lang.Unroll
 
 class DefaultArtifactCacheMetadataTest extends Specification {
     @Rule TestNameTestDirectoryProvider temporaryFolder
@@ -51,4 +52,30 @@ class DefaultArtifactCacheMetadataTest extends Specification {
         then:
         metadataStore == new File(testCacheDir, CacheLayout.META_DATA.key + '/descriptors')
     }
+
+    def "calculates read-only file store directory"() {
+        given:
+        TestFile readOnlyCacheDir = temporaryFolder.createDir("read-only")
+        readOnlyCacheDir.createDir(CacheLayout.ROOT.key)
+
+        when:
+        def metaData = new DefaultArtifactCacheMetadata(scopeMapping, readOnlyCacheDir.absolutePath)
+
+        then:
+        metaData.readOnlyFileStoreDirectory == new File(readOnlyCacheDir, CacheLayout.ROOT.key + '/' + CacheLayout.FILE_STORE.key)
+    }
+
+    @Unroll
+    def "has no read-only file store directory when #description"() {
+        when:
+        def metaData = new DefaultArtifactCacheMetadata(scopeMapping, path == null ? null : temporaryFolder.file(path).absolutePath)
+
+        then:
+        metaData.readOnlyFileStoreDirectory == null
+
+        where:
+        description                  | path
+        "not configured"             | null
+        "the directory is not found" | "missing"
+    }
 }
@@ -720,6 +720,32 @@ class DefaultModuleExclusionTest extends Specification {
         !intersect(spec1, spec2).excludesSameModulesAs(intersect(spec1, spec3))
     }
 
+    def "intersection of the same specs is reused"() {
+        def spec = excludeAny(excludeRule("org", "module"), regexpExcludeRule("org", "module2"))
+        def spec2 = excludeAny(excludeGroupRule("org2"))
+
+        expect:
+        intersect(spec, spec2).is(intersect(spec, spec2))
+        intersect(spec, spec2) == intersect(spec2, spec)
+    }
+
+    def "does not accept module that matches any of many group, module name or module id exclude rules"() {
+        def rules = (1..100).collect { excludeGroupRule("group$it") } +
+            (1..100).collect { excludeModuleRule("module$it") } +
+            (1..100).collect { excludeRule("org$it", "lib$it") } +
+            [regexpExcludeRule("regexp", "other-\\d+")]
+        def spec = excludeAny(rules as Exclude[])
+
+        expect:
+        spec.excludeModule(moduleId("group12", "anything"))
+        spec.excludeModule(moduleId("anything", "module42"))
+        spec.excludeModule(moduleId("org7", "lib7"))
+        spec.excludeModule(moduleId("regexp", "other-12"))
+        !spec.excludeModule(moduleId("org7", "lib8"))
+        !spec.excludeModule(moduleId("group", "module"))
+        !spec.excludeModule(moduleId("regexp", "other"))
+    }
+
     def "does not accept artifact that matches specific exclude rule"() {
         def rule1 = excludeArtifactRule("a", "jar", "jar")
         def rule2 = excludeArtifactRule("b", "jar", "jar")
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.transform
+
+import org.gradle.api.Action
+import org.gradle.api.artifacts.component.ComponentArtifactIdentifier
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.ResolvableArtifact
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.ResolvedArtifactSet
+import org.gradle.test.fixtures.concurrent.ConcurrentSpec
+
+import java.util.concurrent.ConcurrentHashMap
+
+class DefaultTransformationNodeFactoryTest extends ConcurrentSpec {
+    def factory = new DefaultTransformationNodeFactory()
+    def firstStep = Stub(TransformationStep)
+    def secondStep = Stub(TransformationStep)
+    def artifactId = Stub(ComponentArtifactIdentifier)
+    def artifact = Stub(ResolvableArtifact) {
+        getId() >> artifactId
+    }
+    def artifactSet = Stub(ResolvedArtifactSet) {
+        visitLocalArtifacts(_) >> { ResolvedArtifactSet.LocalArtifactVisitor visitor -> visitor.visitArtifact(artifact) }
+    }
+    def transformation = Stub(Transformation) {
+        visitTransformationSteps(_) >> { Action<? super TransformationStep> action ->
+            action.execute(firstStep)
+            action.execute(secondStep)
+        }
+    }
+
+    def "reuses nodes for the same artifact and transformation chain"() {
+        when:
+        def first = factory.getOrCreate(artifactSet, transformation, Stub(ExecutionGraphDependenciesResolver))
+        def second = factory.getOrCreate(artifactSet, transformation, Stub(ExecutionGraphDependenciesResolver))
+
+        then:
+        first.size() == 1
+        first[0].is(second[0])
+    }
+
+    def "schedules a single node when the same artifact is transformed concurrently"() {
+        def nodes = ConcurrentHashMap.newKeySet()
+        def dependenciesResolver = Stub(ExecutionGraphDependenciesResolver)
+
+        when:
+        async {
+            20.times {
+                start {
+                    nodes.addAll(factory.getOrCreate(artifactSet, transformation, dependenciesResolver))
+                }
+            }
+        }
+
+        then:
+        nodes.size() == 1
+    }
+}
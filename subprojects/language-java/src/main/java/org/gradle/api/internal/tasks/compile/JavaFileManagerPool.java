@@ -0,0 +1,328 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile;
+
+import org.gradle.api.UncheckedIOException;
+import org.gradle.cache.internal.HeapMemoryHolder;
+import org.gradle.cache.internal.HeapMemoryManager;
+import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.os.OperatingSystem;
+
+import javax.annotation.Nullable;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the file managers of the JDK compiler between the compilations of the build process, so that the jars of the classpath are not opened and
+ * indexed again by every compilation that uses them.
+ *
+ * <p>A file manager caches the jars it has read by path. It is only reused when none of the jars on the classpath of the next
+ * compilation has changed since it was read. The jars are opened for the target platform of the first compilation that reads them, which decides
+ * the entries of multi-release jars they provide, so file managers are only shared between compilations for the same target platform.
+ * Reuse is disabled on Windows, where the open jars could not be deleted.</p>
+ *
+ * <p>The idle file managers are closed when the pool is stopped with its scope, and when the heap is running low.</p>
+ */
+public class JavaFileManagerPool implements Stoppable, HeapMemoryHolder {
+    public static final String REUSE_FILE_MANAGERS_PROPERTY = "org.gradle.internal.java.compile.reuseFileManagers";
+
+    private static final int MAX_IDLE_PER_KEY = Runtime.getRuntime().availableProcessors();
+    private static final int MAX_CACHED_JARS = 1000;
+    private static final long MAX_IDLE_MILLIS = TimeUnit.MINUTES.toMillis(5);
+    private static final JavaFileManager.Location[] RESET_LOCATIONS = {
+        StandardLocation.CLASS_PATH,
+        StandardLocation.SOURCE_PATH,
+        StandardLocation.ANNOTATION_PROCESSOR_PATH,
+        StandardLocation.CLASS_OUTPUT,
+        StandardLocation.SOURCE_OUTPUT,
+        StandardLocation.PLATFORM_CLASS_PATH
+    };
+
+    private final Map<Key, LinkedList<PooledFileManager>> idleFileManagers = new HashMap<Key, LinkedList<PooledFileManager>>();
+    private final HeapMemoryManager heapMemoryManager;
+    private boolean stopped;
+
+    public JavaFileManagerPool(HeapMemoryManager heapMemoryManager) {
+        this.heapMemoryManager = heapMemoryManager;
+        heapMemoryManager.addHolder(this, HeapMemoryManager.Priority.CHEAP_TO_RECREATE);
+    }
+
+    public static boolean isEnabled() {
+        return !OperatingSystem.current().isWindows() && !"false".equals(System.getProperty(REUSE_FILE_MANAGERS_PROPERTY));
+    }
+
+    /**
+     * Returns a file manager that is not used by any other compilation and that is up-to-date with the given classpath.
+     *
+     * @param targetPlatform the options of the compilation that select the target platform, such as {@code --release 11}.
+     */
+    public PooledFileManager acquire(JavaCompiler compiler, @Nullable Charset charset, String targetPlatform, @Nullable Iterable<File> classpath) {
+        Key key = new Key(compiler.getClass(), charset, targetPlatform);
+        Map<File, JarState> jars = snapshotJars(classpath);
+        long now = System.currentTimeMillis();
+        List<PooledFileManager> discarded = new ArrayList<PooledFileManager>();
+        PooledFileManager fileManager = null;
+        synchronized (this) {
+            removeExpired(now, discarded);
+            LinkedList<PooledFileManager> candidates = idleFileManagers.get(key);
+            while (fileManager == null && candidates != null && !candidates.isEmpty()) {
+                PooledFileManager candidate = candidates.removeFirst();
+                if (candidate.isUpToDate(jars)) {
+                    fileManager = candidate;
+                } else {
+                    discarded.add(candidate);
+                }
+            }
+        }
+        CompositeStoppable.stoppable(discarded).stop();
+
+        if (fileManager == null) {
+            fileManager = new PooledFileManager(key, compiler.getStandardFileManager(null, null, charset));
+        }
+        fileManager.prepare(jars);
+        return fileManager;
+    }
+
+    private void returnToPool(PooledFileManager fileManager) {
+        CompositeStoppable.stoppable(addIdle(fileManager)).stop();
+    }
+
+    /**
+     * Adds the given file manager to the idle ones, returning the file manager that has to be closed instead, if any.
+     */
+    @Nullable
+    private synchronized PooledFileManager addIdle(PooledFileManager fileManager) {
+        if (stopped) {
+            return fileManager;
+        }
+        LinkedList<PooledFileManager> idle = idleFileManagers.get(fileManager.key);
+        if (idle == null) {
+            idle = new LinkedList<PooledFileManager>();
+            idleFileManagers.put(fileManager.key, idle);
+        }
+        fileManager.lastUsed = System.currentTimeMillis();
+        idle.addFirst(fileManager);
+        if (idle.size() > MAX_IDLE_PER_KEY) {
+            return idle.removeLast();
+        }
+        return null;
+    }
+
+    @Override
+    public synchronized long getRetainedValueCount() {
+        long count = 0;
+        for (LinkedList<PooledFileManager> idle : idleFileManagers.values()) {
+            count += idle.size();
+        }
+        return count;
+    }
+
+    /**
+     * Closes the idle file managers. File managers in use are returned to the pool as usual.
+     */
+    @Override
+    public long release() {
+        List<PooledFileManager> discarded = takeIdleFileManagers();
+        CompositeStoppable.stoppable(discarded).stop();
+        return discarded.size();
+    }
+
+    @Override
+    public void stop() {
+        heapMemoryManager.removeHolder(this);
+        List<PooledFileManager> discarded;
+        synchronized (this) {
+            stopped = true;
+            discarded = takeIdleFileManagers();
+        }
+        CompositeStoppable.stoppable(discarded).stop();
+    }
+
+    private synchronized List<PooledFileManager> takeIdleFileManagers() {
+        List<PooledFileManager> idle = new ArrayList<PooledFileManager>();
+        for (LinkedList<PooledFileManager> idleForKey : idleFileManagers.values()) {
+            idle.addAll(idleForKey);
+        }
+        idleFileManagers.clear();
+        return idle;
+    }
+
+    private void removeExpired(long now, List<PooledFileManager> discarded) {
+        Iterator<LinkedList<PooledFileManager>> iterator = idleFileManagers.values().iterator();
+        while (iterator.hasNext()) {
+            LinkedList<PooledFileManager> idle = iterator.next();
+            while (!idle.isEmpty() && now - idle.getLast().lastUsed > MAX_IDLE_MILLIS) {
+                discarded.add(idle.removeLast());
+            }
+            if (idle.isEmpty()) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private static Map<File, JarState> snapshotJars(@Nullable Iterable<File> classpath) {
+        Map<File, JarState> jars = new HashMap<File, JarState>();
+        if (classpath != null) {
+            for (File file : classpath) {
+                // Directories are listed again by every compilation
+                if (file.isFile()) {
+                    jars.put(file, new JarState(file.length(), file.lastModified()));
+                }
+            }
+        }
+        return jars;
+    }
+
+    /**
+     * A file manager leased to a single compilation.
+     */
+    public class PooledFileManager implements Closeable {
+        private final Key key;
+        private final StandardJavaFileManager fileManager;
+        private final Map<File, JarState> cachedJars = new HashMap<File, JarState>();
+        private long lastUsed;
+
+        private PooledFileManager(Key key, StandardJavaFileManager fileManager) {
+            this.key = key;
+            this.fileManager = fileManager;
+        }
+
+        public StandardJavaFileManager getFileManager() {
+            return fileManager;
+        }
+
+        private boolean isUpToDate(Map<File, JarState> jars) {
+            if (cachedJars.size() > MAX_CACHED_JARS) {
+                return false;
+            }
+            for (Map.Entry<File, JarState> entry : jars.entrySet()) {
+                JarState cachedState = cachedJars.get(entry.getKey());
+                if (cachedState != null && !cachedState.equals(entry.getValue())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void prepare(Map<File, JarState> jars) {
+            cachedJars.putAll(jars);
+            try {
+                // Start from the same locations as a new file manager, as the compiler arguments only set some of them
+                for (JavaFileManager.Location location : RESET_LOCATIONS) {
+                    fileManager.setLocation(location, null);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Makes this file manager available to other compilations.
+         */
+        public void release() {
+            try {
+                fileManager.flush();
+            } catch (IOException e) {
+                close();
+                throw new UncheckedIOException(e);
+            }
+            returnToPool(this);
+        }
+
+        /**
+         * Discards this file manager, for example when the compilation failed in an unexpected way.
+         */
+        @Override
+        public void close() {
+            try {
+                fileManager.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static class Key {
+        private final Class<?> compilerType;
+        private final Charset charset;
+        private final String targetPlatform;
+
+        Key(Class<?> compilerType, @Nullable Charset charset, String targetPlatform) {
+            this.compilerType = compilerType;
+            this.charset = charset;
+            this.targetPlatform = targetPlatform;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key other = (Key) o;
+            return compilerType.equals(other.compilerType) && (charset == null ? other.charset == null : charset.equals(other.charset)) && targetPlatform.equals(other.targetPlatform);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * compilerType.hashCode() + (charset == null ? 0 : charset.hashCode())) + targetPlatform.hashCode();
+        }
+    }
+
+    private static class JarState {
+        private final long length;
+        private final long lastModified;
+
+        JarState(long length, long lastModified) {
+            this.length = length;
+            this.lastModified = lastModified;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            JarState other = (JarState) o;
+            return length == other.length && lastModified == other.lastModified;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (int) (length ^ (length >>> 32)) + (int) (lastModified ^ (lastModified >>> 32));
+        }
+    }
+}
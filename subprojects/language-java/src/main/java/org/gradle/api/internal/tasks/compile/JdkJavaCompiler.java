@@ -15,6 +15,7 @@
  */
 package org.gradle.api.internal.tasks.compile;
 
+import com.google.common.collect.ImmutableSet;
 import org.gradle.api.JavaVersion;
 import org.gradle.api.internal.tasks.compile.processing.AnnotationProcessorDeclaration;
 import org.gradle.api.internal.tasks.compile.reflect.SourcepathIgnoringProxy;
@@ -24,6 +25,7 @@ import org.gradle.language.base.internal.compile.Compiler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import javax.tools.JavaCompiler;
 import javax.tools.JavaFileObject;
 import javax.tools.StandardJavaFileManager;
@@ -35,10 +37,18 @@ import java.util.Set;
 
 public class JdkJavaCompiler implements Compiler<JavaCompileSpec>, Serializable {
     private static final Logger LOGGER = LoggerFactory.getLogger(JdkJavaCompiler.class);
+    private static final Set<String> TARGET_PLATFORM_OPTIONS = ImmutableSet.of("--release", "-target", "--target", "-source", "--source");
     private final Factory<JavaCompiler> javaHomeBasedJavaCompilerFactory;
+    // Not sent to a compiler daemon, which uses a new file manager for each compilation
+    private final transient JavaFileManagerPool fileManagerPool;
 
     public JdkJavaCompiler(Factory<JavaCompiler> javaHomeBasedJavaCompilerFactory) {
+        this(javaHomeBasedJavaCompilerFactory, null);
+    }
+
+    public JdkJavaCompiler(Factory<JavaCompiler> javaHomeBasedJavaCompilerFactory, @Nullable JavaFileManagerPool fileManagerPool) {
         this.javaHomeBasedJavaCompilerFactory = javaHomeBasedJavaCompilerFactory;
+        this.fileManagerPool = fileManagerPool;
     }
 
     @Override
@@ -58,7 +68,15 @@ public class JdkJavaCompiler implements Compiler<JavaCompileSpec>, Serializable
         List<String> options = new JavaCompilerArgumentsBuilder(spec).build();
         JavaCompiler compiler = javaHomeBasedJavaCompilerFactory.create();
         MinimalJavaCompileOptions compileOptions = spec.getCompileOptions();
-        StandardJavaFileManager standardFileManager = compiler.getStandardFileManager(null, null, compileOptions.getEncoding() != null ? Charset.forName(compileOptions.getEncoding()) : null);
+        Charset charset = compileOptions.getEncoding() != null ? Charset.forName(compileOptions.getEncoding()) : null;
+        JavaFileManagerPool.PooledFileManager pooledFileManager = null;
+        StandardJavaFileManager standardFileManager;
+        if (canReuseFileManager(spec, options)) {
+            pooledFileManager = fileManagerPool.acquire(compiler, charset, targetPlatformIn(options), spec.getCompileClasspath());
+            standardFileManager = pooledFileManager.getFileManager();
+        } else {
+            standardFileManager = compiler.getStandardFileManager(null, null, charset);
+        }
         Iterable<? extends JavaFileObject> compilationUnits = standardFileManager.getJavaFileObjectsFromFiles(spec.getSourceFiles());
         StandardJavaFileManager fileManager = standardFileManager;
         if (JavaVersion.current().isJava9Compatible() && emptySourcepathIn(options)) {
@@ -68,10 +86,42 @@ public class JdkJavaCompiler implements Compiler<JavaCompileSpec>, Serializable
 
         Set<AnnotationProcessorDeclaration> annotationProcessors = spec.getEffectiveAnnotationProcessors();
         task = new AnnotationProcessingCompileTask(task, annotationProcessors, spec.getAnnotationProcessorPath(), result.getAnnotationProcessingResult());
-        task = new ResourceCleaningCompilationTask(task, fileManager);
+        task = new ResourceCleaningCompilationTask(task, fileManager, pooledFileManager);
         return task;
     }
 
+    /**
+     * File managers are only shared between compilations that use the class path, as the module locations are not reset between compilations.
+     */
+    private boolean canReuseFileManager(JavaCompileSpec spec, List<String> options) {
+        if (fileManagerPool == null || !JavaFileManagerPool.isEnabled() || !spec.getModulePath().isEmpty()) {
+            return false;
+        }
+        for (String option : options) {
+            if (option.startsWith("--module") || option.equals("-p")) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the options that decide the target platform, which selects the entries of multi-release jars that the compilation reads.
+     */
+    private static String targetPlatformIn(List<String> options) {
+        StringBuilder targetPlatform = new StringBuilder();
+        Iterator<String> optionsIter = options.iterator();
+        while (optionsIter.hasNext()) {
+            String current = optionsIter.next();
+            if (TARGET_PLATFORM_OPTIONS.contains(current) && optionsIter.hasNext()) {
+                targetPlatform.append(current).append(' ').append(optionsIter.next()).append(' ');
+            } else if (current.startsWith("--release=")) {
+                targetPlatform.append(current).append(' ');
+            }
+        }
+        return targetPlatform.toString();
+    }
+
     private static boolean emptySourcepathIn(List<String> options) {
         Iterator<String> optionsIter = options.iterator();
         while (optionsIter.hasNext()) {
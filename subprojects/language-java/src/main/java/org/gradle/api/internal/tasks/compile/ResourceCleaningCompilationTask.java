@@ -18,6 +18,7 @@ package org.gradle.api.internal.tasks.compile;
 
 import org.gradle.internal.concurrent.CompositeStoppable;
 
+import javax.annotation.Nullable;
 import javax.annotation.processing.Processor;
 import javax.tools.DiagnosticListener;
 import javax.tools.JavaCompiler;
@@ -26,15 +27,21 @@ import java.nio.charset.Charset;
 import java.util.Locale;
 
 /**
- * Cleans up resources (e.g. file handles) after compilation has finished.
+ * Cleans up resources (e.g. file handles) after compilation has finished, or hands a pooled file manager back for the next compilation.
  */
 class ResourceCleaningCompilationTask implements JavaCompiler.CompilationTask {
     private final JavaCompiler.CompilationTask delegate;
     private final StandardJavaFileManager fileManager;
+    private final JavaFileManagerPool.PooledFileManager pooledFileManager;
 
     ResourceCleaningCompilationTask(JavaCompiler.CompilationTask delegate, StandardJavaFileManager fileManager) {
+        this(delegate, fileManager, null);
+    }
+
+    ResourceCleaningCompilationTask(JavaCompiler.CompilationTask delegate, StandardJavaFileManager fileManager, @Nullable JavaFileManagerPool.PooledFileManager pooledFileManager) {
         this.delegate = delegate;
         this.fileManager = fileManager;
+        this.pooledFileManager = pooledFileManager;
     }
 
     @Override
@@ -53,6 +60,9 @@ class ResourceCleaningCompilationTask implements JavaCompiler.CompilationTask {
 
     @Override
     public Boolean call() {
+        if (pooledFileManager != null) {
+            return callWithPooledFileManager();
+        }
         try {
             return delegate.call();
         } finally {
@@ -61,6 +71,23 @@ class ResourceCleaningCompilationTask implements JavaCompiler.CompilationTask {
         }
     }
 
+    private Boolean callWithPooledFileManager() {
+        Boolean result;
+        try {
+            result = delegate.call();
+        } catch (RuntimeException e) {
+            // The file manager may be in an inconsistent state, so don't let anyone else use it
+            CompositeStoppable.stoppable(pooledFileManager).stop();
+            throw e;
+        } catch (Error e) {
+            CompositeStoppable.stoppable(pooledFileManager).stop();
+            throw e;
+        }
+        // A compilation that reported errors leaves the file manager usable
+        pooledFileManager.release();
+        return result;
+    }
+
     /**
      * The javac file manager uses a shared ZIP cache which keeps file handles open
      * after compilation. It's supposed to be tunable with the -XDuseOptimizedZip parameter,
@@ -22,4 +22,9 @@ import org.gradle.internal.hash.HashCode;
 
 public interface ClassDependenciesAnalyzer {
     ClassAnalysis getClassAnalysis(HashCode classFileHash, FileTreeElement classFile);
+
+    /**
+     * Analyzes a class file whose content has already been read, such as a class file from a jar.
+     */
+    ClassAnalysis getClassAnalysis(HashCode classFileHash, byte[] classFileContent);
 }
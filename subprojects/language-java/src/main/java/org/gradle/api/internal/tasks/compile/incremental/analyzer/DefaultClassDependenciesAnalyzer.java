@@ -36,7 +36,10 @@ public class DefaultClassDependenciesAnalyzer implements ClassDependenciesAnalyz
     }
 
     public ClassAnalysis getClassAnalysis(InputStream input) throws IOException {
-        ClassReader reader = new ClassReader(ByteStreams.toByteArray(input));
+        return getClassAnalysis(new ClassReader(ByteStreams.toByteArray(input)));
+    }
+
+    private ClassAnalysis getClassAnalysis(ClassReader reader) {
         String className = reader.getClassName().replace("/", ".");
         return ClassDependenciesVisitor.analyze(className, reader, interner);
     }
@@ -54,4 +57,9 @@ public class DefaultClassDependenciesAnalyzer implements ClassDependenciesAnalyz
             throw new RuntimeException("Problems loading class analysis for " + classFile.toString());
         }
     }
+
+    @Override
+    public ClassAnalysis getClassAnalysis(HashCode classFileHash, byte[] classFileContent) {
+        return getClassAnalysis(new ClassReader(classFileContent));
+    }
 }
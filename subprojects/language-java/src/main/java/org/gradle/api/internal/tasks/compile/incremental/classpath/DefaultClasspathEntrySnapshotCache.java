@@ -18,6 +18,7 @@ package org.gradle.api.internal.tasks.compile.incremental.classpath;
 
 import org.gradle.cache.PersistentIndexedCache;
 import org.gradle.cache.internal.MinimalPersistentCache;
+import org.gradle.cache.internal.ProducerGuard;
 import org.gradle.internal.Factory;
 import org.gradle.internal.hash.HashCode;
 import org.gradle.internal.snapshot.FileSystemSnapshotter;
@@ -27,6 +28,7 @@ import java.io.File;
 public class DefaultClasspathEntrySnapshotCache implements ClasspathEntrySnapshotCache {
     private final FileSystemSnapshotter fileSystemSnapshotter;
     private final MinimalPersistentCache<HashCode, ClasspathEntrySnapshotData> cache;
+    private final ProducerGuard<HashCode> producerGuard = ProducerGuard.adaptive();
 
     public DefaultClasspathEntrySnapshotCache(FileSystemSnapshotter fileSystemSnapshotter, PersistentIndexedCache<HashCode, ClasspathEntrySnapshotData> persistentCache) {
         this.fileSystemSnapshotter = fileSystemSnapshotter;
@@ -41,10 +43,15 @@ public class DefaultClasspathEntrySnapshotCache implements ClasspathEntrySnapsho
 
     @Override
     public ClasspathEntrySnapshot get(File key, final Factory<ClasspathEntrySnapshot> factory) {
-        HashCode fileContentHash = fileSystemSnapshotter.snapshot(key).getHash();
-        return new ClasspathEntrySnapshot(cache.get(fileContentHash, new Factory<ClasspathEntrySnapshotData>() {
+        final HashCode fileContentHash = fileSystemSnapshotter.snapshot(key).getHash();
+        // Tasks compiling against the same new jar at the same time should only analyze it once
+        return new ClasspathEntrySnapshot(producerGuard.guardByKey(fileContentHash, new Factory<ClasspathEntrySnapshotData>() {
             public ClasspathEntrySnapshotData create() {
-                return factory.create().getData();
+                return cache.get(fileContentHash, new Factory<ClasspathEntrySnapshotData>() {
+                    public ClasspathEntrySnapshotData create() {
+                        return factory.create().getData();
+                    }
+                });
             }
         }));
     }
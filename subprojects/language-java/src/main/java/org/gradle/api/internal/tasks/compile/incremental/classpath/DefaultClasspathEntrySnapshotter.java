@@ -15,7 +15,12 @@
  */
 package org.gradle.api.internal.tasks.compile.incremental.classpath;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.io.ByteStreams;
+import org.gradle.api.Action;
+import org.gradle.api.UncheckedIOException;
+import org.gradle.api.file.FileTreeElement;
 import org.gradle.api.file.FileVisitDetails;
 import org.gradle.api.file.FileVisitor;
 import org.gradle.api.internal.file.FileOperations;
@@ -28,26 +33,37 @@ import org.gradle.internal.IoActions;
 import org.gradle.internal.hash.FileHasher;
 import org.gradle.internal.hash.HashCode;
 import org.gradle.internal.hash.StreamHasher;
+import org.gradle.internal.operations.BuildOperationContext;
+import org.gradle.internal.operations.BuildOperationDescriptor;
+import org.gradle.internal.operations.BuildOperationExecutor;
+import org.gradle.internal.operations.BuildOperationQueue;
+import org.gradle.internal.operations.RunnableBuildOperation;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
+import java.util.List;
 import java.util.Map;
 
 import static org.gradle.internal.FileUtils.hasExtension;
 
 public class DefaultClasspathEntrySnapshotter {
     private static final Logger LOGGER = Logging.getLogger(DefaultClasspathEntrySnapshotter.class);
+    private static final int CLASSES_PER_BATCH = 500;
 
     private final FileHasher fileHasher;
     private final StreamHasher hasher;
     private final ClassDependenciesAnalyzer analyzer;
     private final FileOperations fileOperations;
+    private final BuildOperationExecutor buildOperationExecutor;
 
-    public DefaultClasspathEntrySnapshotter(FileHasher fileHasher, StreamHasher streamHasher, ClassDependenciesAnalyzer analyzer, FileOperations fileOperations) {
+    public DefaultClasspathEntrySnapshotter(FileHasher fileHasher, StreamHasher streamHasher, ClassDependenciesAnalyzer analyzer, FileOperations fileOperations, BuildOperationExecutor buildOperationExecutor) {
         this.fileHasher = fileHasher;
         this.hasher = streamHasher;
         this.analyzer = analyzer;
         this.fileOperations = fileOperations;
+        this.buildOperationExecutor = buildOperationExecutor;
     }
 
     public ClasspathEntrySnapshot createSnapshot(HashCode hash, File classpathEntry) {
@@ -66,22 +82,41 @@ public class DefaultClasspathEntrySnapshotter {
         return new ClasspathEntrySnapshot(new ClasspathEntrySnapshotData(hash, hashes, accumulator.getAnalysis()));
     }
 
-    private void visit(File classpathEntry, Map<String, HashCode> hashes, ClassDependentsAccumulator accumulator) {
-        if (hasExtension(classpathEntry, ".jar")) {
-            fileOperations.zipTree(classpathEntry).visit(new JarEntryVisitor(accumulator, hashes));
-        }
-        if (classpathEntry.isDirectory()) {
-            fileOperations.fileTree(classpathEntry).visit(new DirectoryEntryVisitor(accumulator, hashes));
+    private void visit(final File classpathEntry, Map<String, HashCode> hashes, ClassDependentsAccumulator accumulator) {
+        final List<AnalyzeClasses> batches = Lists.newArrayList();
+        // Classes are read and hashed while visiting the entry, and analyzed in batches by other workers in the meantime
+        buildOperationExecutor.runAll(new Action<BuildOperationQueue<AnalyzeClasses>>() {
+            @Override
+            public void execute(BuildOperationQueue<AnalyzeClasses> queue) {
+                if (hasExtension(classpathEntry, ".jar")) {
+                    EntryVisitor visitor = new JarEntryVisitor(classpathEntry, queue, batches);
+                    fileOperations.zipTree(classpathEntry).visit(visitor);
+                    visitor.flush();
+                }
+                if (classpathEntry.isDirectory()) {
+                    EntryVisitor visitor = new DirectoryEntryVisitor(classpathEntry, queue, batches);
+                    fileOperations.fileTree(classpathEntry).visit(visitor);
+                    visitor.flush();
+                }
+            }
+        });
+
+        // Accumulate in the order of the entry, so that the result does not depend on which batch finished first
+        for (AnalyzeClasses batch : batches) {
+            batch.addTo(hashes, accumulator);
         }
     }
 
     private abstract class EntryVisitor implements FileVisitor {
-        private final ClassDependentsAccumulator accumulator;
-        private final Map<String, HashCode> hashes;
+        private final File classpathEntry;
+        private final BuildOperationQueue<AnalyzeClasses> queue;
+        private final List<AnalyzeClasses> batches;
+        private AnalyzeClasses currentBatch;
 
-        public EntryVisitor(ClassDependentsAccumulator accumulator, Map<String, HashCode> hashes) {
-            this.accumulator = accumulator;
-            this.hashes = hashes;
+        public EntryVisitor(File classpathEntry, BuildOperationQueue<AnalyzeClasses> queue, List<AnalyzeClasses> batches) {
+            this.classpathEntry = classpathEntry;
+            this.queue = queue;
+            this.batches = batches;
         }
 
         public void visitDir(FileVisitDetails dirDetails) {
@@ -92,50 +127,137 @@ public class DefaultClasspathEntrySnapshotter {
                 return;
             }
 
-            HashCode classFileHash = getHashCode(fileDetails);
+            if (currentBatch == null) {
+                currentBatch = new AnalyzeClasses(classpathEntry, batches.size());
+                batches.add(currentBatch);
+            }
+            currentBatch.add(classFile(fileDetails));
+            if (currentBatch.size() == CLASSES_PER_BATCH) {
+                queue.add(currentBatch);
+                currentBatch = null;
+            }
+        }
 
-            try {
-                ClassAnalysis analysis = analyzer.getClassAnalysis(classFileHash, fileDetails);
-                accumulator.addClass(analysis);
-                hashes.put(analysis.getClassName(), classFileHash);
-            } catch (Exception e) {
-                accumulator.fullRebuildNeeded(fileDetails.getName() + " could not be analyzed for incremental compilation. See the debug log for more details");
-                if (LOGGER.isDebugEnabled()) {
-                    LOGGER.debug("Could not analyze " + fileDetails.getName() + " for incremental compilation", e);
-                }
+        void flush() {
+            if (currentBatch != null) {
+                queue.add(currentBatch);
+                currentBatch = null;
             }
         }
 
-        protected abstract HashCode getHashCode(FileVisitDetails fileDetails);
+        protected abstract ClassFile classFile(FileVisitDetails fileDetails);
     }
 
     private class JarEntryVisitor extends EntryVisitor {
 
-        public JarEntryVisitor(ClassDependentsAccumulator accumulator, Map<String, HashCode> hashes) {
-            super(accumulator, hashes);
+        public JarEntryVisitor(File classpathEntry, BuildOperationQueue<AnalyzeClasses> queue, List<AnalyzeClasses> batches) {
+            super(classpathEntry, queue, batches);
         }
 
         @Override
-        protected HashCode getHashCode(FileVisitDetails fileDetails) {
+        protected ClassFile classFile(FileVisitDetails fileDetails) {
+            // The zip entry can only be read while the jar is being visited
             InputStream inputStream = fileDetails.open();
+            byte[] content;
             try {
-                return hasher.hash(inputStream);
+                content = ByteStreams.toByteArray(inputStream);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
             } finally {
                 IoActions.closeQuietly(inputStream);
             }
+            HashCode hash = hasher.hash(new ByteArrayInputStream(content));
+            return new ClassFile(hash, fileDetails.getName(), content);
         }
     }
 
     private class DirectoryEntryVisitor extends EntryVisitor {
 
-        public DirectoryEntryVisitor(ClassDependentsAccumulator accumulator, Map<String, HashCode> hashes) {
-            super(accumulator, hashes);
+        public DirectoryEntryVisitor(File classpathEntry, BuildOperationQueue<AnalyzeClasses> queue, List<AnalyzeClasses> batches) {
+            super(classpathEntry, queue, batches);
         }
 
         @Override
-        protected HashCode getHashCode(FileVisitDetails fileDetails) {
-            return fileHasher.hash(fileDetails);
+        protected ClassFile classFile(FileVisitDetails fileDetails) {
+            return new ClassFile(fileHasher.hash(fileDetails), fileDetails);
+        }
+    }
+
+    private static class ClassFile {
+        private final HashCode hash;
+        private final String name;
+        // Either the class file, or its content when it had to be read while visiting the entry. Both are dropped once the class has been analyzed.
+        private FileTreeElement details;
+        private byte[] content;
+        private ClassAnalysis analysis;
+        private String failure;
+
+        private ClassFile(HashCode hash, FileTreeElement details) {
+            this.hash = hash;
+            this.name = details.getName();
+            this.details = details;
+        }
+
+        private ClassFile(HashCode hash, String name, byte[] content) {
+            this.hash = hash;
+            this.name = name;
+            this.content = content;
+        }
+
+        void analyze(ClassDependenciesAnalyzer analyzer) {
+            try {
+                analysis = content != null ? analyzer.getClassAnalysis(hash, content) : analyzer.getClassAnalysis(hash, details);
+            } catch (Exception e) {
+                failure = name + " could not be analyzed for incremental compilation. See the debug log for more details";
+                if (LOGGER.isDebugEnabled()) {
+                    LOGGER.debug("Could not analyze " + name + " for incremental compilation", e);
+                }
+            } finally {
+                details = null;
+                content = null;
+            }
         }
     }
 
+    private class AnalyzeClasses implements RunnableBuildOperation {
+        private final File classpathEntry;
+        private final int index;
+        private final List<ClassFile> classFiles = Lists.newArrayListWithCapacity(CLASSES_PER_BATCH);
+
+        private AnalyzeClasses(File classpathEntry, int index) {
+            this.classpathEntry = classpathEntry;
+            this.index = index;
+        }
+
+        void add(ClassFile classFile) {
+            classFiles.add(classFile);
+        }
+
+        int size() {
+            return classFiles.size();
+        }
+
+        @Override
+        public void run(BuildOperationContext context) {
+            for (ClassFile classFile : classFiles) {
+                classFile.analyze(analyzer);
+            }
+        }
+
+        void addTo(Map<String, HashCode> hashes, ClassDependentsAccumulator accumulator) {
+            for (ClassFile classFile : classFiles) {
+                if (classFile.failure != null) {
+                    accumulator.fullRebuildNeeded(classFile.failure);
+                } else {
+                    accumulator.addClass(classFile.analysis);
+                    hashes.put(classFile.analysis.getClassName(), classFile.hash);
+                }
+            }
+        }
+
+        @Override
+        public BuildOperationDescriptor.Builder description() {
+            return BuildOperationDescriptor.displayName("Analyze classes of " + classpathEntry + " (batch " + (index + 1) + ")");
+        }
+    }
 }
@@ -29,8 +29,10 @@ import org.gradle.internal.serialize.Encoder;
 import org.gradle.internal.serialize.IntSetSerializer;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -97,7 +99,7 @@ public class ClassSetAnalysisData {
 
         @Override
         public ClassSetAnalysisData read(Decoder decoder) throws Exception {
-            Map<Integer, String> classNameMap = new HashMap<Integer, String>();
+            List<String> classNameMap = new ArrayList<String>();
 
             int count = decoder.readSmallInt();
             ImmutableSet.Builder<String> classes = ImmutableSet.builder();
@@ -170,17 +172,18 @@ public class ClassSetAnalysisData {
             encoder.writeNullableString(value.fullRebuildCause);
         }
 
-        private DependentsSet readDependentsSet(Decoder decoder, Map<Integer, String> classNameMap) throws IOException {
+        private DependentsSet readDependentsSet(Decoder decoder, List<String> classNameMap) throws IOException {
             byte b = decoder.readByte();
             if (b == 1) {
                 return DependentsSet.dependencyToAll(decoder.readNullableString());
             }
+            // Most dependent sets are never queried, so only keep the class name ids until they are
             int count = decoder.readSmallInt();
-            ImmutableSet.Builder<String> builder = ImmutableSet.builder();
+            int[] ids = new int[count];
             for (int i = 0; i < count; i++) {
-                builder.add(readClassName(decoder, classNameMap));
+                ids[i] = readClassNameId(decoder, classNameMap);
             }
-            return DependentsSet.dependents(builder.build());
+            return DependentsSet.dependents(classNameMap, ids);
         }
 
         private void writeDependentSet(DependentsSet dependentsSet, Map<String, Integer> classNameMap, Encoder encoder) throws IOException {
@@ -196,15 +199,20 @@ public class ClassSetAnalysisData {
             }
         }
 
-        private String readClassName(Decoder decoder, Map<Integer, String> classNameMap) throws IOException {
+        private String readClassName(Decoder decoder, List<String> classNameMap) throws IOException {
+            return classNameMap.get(readClassNameId(decoder, classNameMap) - 1);
+        }
+
+        private int readClassNameId(Decoder decoder, List<String> classNameMap) throws IOException {
             int id = decoder.readSmallInt();
             if (id == 0) {
                 id = decoder.readSmallInt();
                 String className = interner.intern(decoder.readString());
-                classNameMap.put(id, className);
-                return className;
+                // Ids are assigned in the order the names are first written
+                classNameMap.add(className);
+                assert classNameMap.size() == id;
             }
-            return classNameMap.get(id);
+            return id;
         }
 
         private void writeClassName(String className, Map<String, Integer> classIdMap, Encoder encoder) throws IOException {
@@ -20,6 +20,7 @@ import com.google.common.collect.ImmutableSet;
 
 import javax.annotation.Nullable;
 import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 
 public abstract class DependentsSet {
@@ -40,6 +41,19 @@ public abstract class DependentsSet {
         }
     }
 
+    /**
+     * Creates a set of the given class names, which is only built when the dependent classes are queried.
+     *
+     * @param classNames all class names, indexed by their ids starting at 1. May still grow after this method returns.
+     */
+    static DependentsSet dependents(List<String> classNames, int[] dependentClassIds) {
+        if (dependentClassIds.length == 0) {
+            return empty();
+        } else {
+            return new LazyDependentsSet(classNames, dependentClassIds);
+        }
+    }
+
     public static DependentsSet dependencyToAll() {
         return DependencyToAll.INSTANCE;
     }
@@ -105,6 +119,43 @@ public abstract class DependentsSet {
         }
     }
 
+    private static class LazyDependentsSet extends DependentsSet {
+
+        private final List<String> classNames;
+        private final int[] dependentClassIds;
+        // Immutable once built, so it can be published without synchronization
+        private Set<String> dependentClasses;
+
+        private LazyDependentsSet(List<String> classNames, int[] dependentClassIds) {
+            this.classNames = classNames;
+            this.dependentClassIds = dependentClassIds;
+        }
+
+        @Override
+        public Set<String> getDependentClasses() {
+            Set<String> result = dependentClasses;
+            if (result == null) {
+                ImmutableSet.Builder<String> builder = ImmutableSet.builder();
+                for (int id : dependentClassIds) {
+                    builder.add(classNames.get(id - 1));
+                }
+                result = builder.build();
+                dependentClasses = result;
+            }
+            return result;
+        }
+
+        @Override
+        public boolean isDependencyToAll() {
+            return false;
+        }
+
+        @Override
+        public String getDescription() {
+            return null;
+        }
+    }
+
     private static class DependencyToAll extends DependentsSet {
         private static final DependencyToAll INSTANCE = new DependencyToAll();
 
@@ -22,6 +22,7 @@ import org.gradle.api.internal.tasks.compile.incremental.classpath.ClasspathEntr
 import org.gradle.api.internal.tasks.compile.incremental.classpath.ClasspathEntrySnapshotCache;
 import org.gradle.api.internal.tasks.compile.incremental.deps.ClassSetAnalysis;
 import org.gradle.api.internal.tasks.compile.incremental.deps.DependentsSet;
+import org.gradle.internal.hash.HashCode;
 
 import java.io.File;
 import java.util.List;
@@ -56,6 +57,13 @@ public class PreviousCompilation {
         return classpathEntrySnapshotCache.get(file, data.getClasspathSnapshot().getFileHashes().get(file));
     }
 
+    /**
+     * Returns the hash the given classpath entry had in the previous compilation, without loading its snapshot.
+     */
+    public HashCode getClasspathEntryHash(File file) {
+        return data.getClasspathSnapshot().getFileHashes().get(file);
+    }
+
     public Set<File> getClasspath() {
         return data.getClasspathSnapshot().getFileHashes().keySet();
     }
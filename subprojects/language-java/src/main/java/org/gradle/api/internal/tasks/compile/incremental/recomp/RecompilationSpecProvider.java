@@ -20,6 +20,7 @@ import org.gradle.api.internal.tasks.compile.incremental.classpath.ClasspathEntr
 import org.gradle.api.internal.tasks.compile.incremental.classpath.ClasspathSnapshot;
 import org.gradle.internal.change.FileChange;
 import org.gradle.internal.file.FileType;
+import org.gradle.internal.hash.HashCode;
 import org.gradle.internal.util.Alignment;
 
 import java.io.File;
@@ -64,9 +65,10 @@ public class RecompilationSpecProvider {
                     return;
                 case identical:
                     File key = fileAlignment.getPreviousValue();
-                    ClasspathEntrySnapshot previousSnapshot = previous.getClasspathEntrySnapshot(key);
+                    // Compare the recorded hashes, so that the analysis of unchanged entries is never read from the cache
+                    HashCode previousHash = previous.getClasspathEntryHash(key);
                     ClasspathEntrySnapshot snapshot = currentSnapshots.getSnapshot(key);
-                    if (previousSnapshot == null || !snapshot.getHash().equals(previousSnapshot.getHash())) {
+                    if (previousHash == null || !snapshot.getHash().equals(previousHash)) {
                         classpathEntryChangeProcessor.processChange(FileChange.modified(key.getAbsolutePath(), "classpathEntry", FileType.RegularFile, FileType.RegularFile), spec);
                     }
                     break;
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile
+
+import org.gradle.cache.internal.HeapMemoryManager
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+import javax.tools.JavaCompiler
+import javax.tools.StandardJavaFileManager
+import javax.tools.StandardLocation
+import java.nio.charset.Charset
+
+class JavaFileManagerPoolTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def heapMemoryManager = Mock(HeapMemoryManager)
+    def pool = new JavaFileManagerPool(heapMemoryManager)
+    def compiler = Mock(JavaCompiler)
+    def jar = tmpDir.file("lib.jar").createFile()
+    def classesDir = tmpDir.file("classes").createDir()
+
+    def "reuses file manager when the jars on the classpath have not changed"() {
+        def fileManager = Mock(StandardJavaFileManager)
+
+        when:
+        def first = pool.acquire(compiler, null, "", [jar, classesDir])
+        first.release()
+        def second = pool.acquire(compiler, null, "", [jar, classesDir])
+
+        then:
+        1 * compiler.getStandardFileManager(null, null, null) >> fileManager
+        1 * fileManager.flush()
+        0 * fileManager.close()
+        second.fileManager.is(fileManager)
+    }
+
+    def "uses new file manager when a jar on the classpath has changed"() {
+        def fileManager1 = Mock(StandardJavaFileManager)
+        def fileManager2 = Mock(StandardJavaFileManager)
+
+        when:
+        pool.acquire(compiler, null, "", [jar]).release()
+        jar.text = "changed"
+        jar.lastModified = jar.lastModified() - 2000
+        def second = pool.acquire(compiler, null, "", [jar])
+
+        then:
+        2 * compiler.getStandardFileManager(null, null, null) >>> [fileManager1, fileManager2]
+        1 * fileManager1.close()
+        second.fileManager.is(fileManager2)
+    }
+
+    def "reuses file manager when classpath contains jars it has not seen yet"() {
+        def fileManager = Mock(StandardJavaFileManager)
+        def otherJar = tmpDir.file("other.jar").createFile()
+
+        when:
+        pool.acquire(compiler, null, "", [jar]).release()
+        def second = pool.acquire(compiler, null, "", [jar, otherJar])
+
+        then:
+        1 * compiler.getStandardFileManager(null, null, null) >> fileManager
+        second.fileManager.is(fileManager)
+    }
+
+    def "does not share file manager between concurrent compilations"() {
+        def fileManager1 = Mock(StandardJavaFileManager)
+        def fileManager2 = Mock(StandardJavaFileManager)
+
+        when:
+        def first = pool.acquire(compiler, null, "", [jar])
+        def second = pool.acquire(compiler, null, "", [jar])
+
+        then:
+        2 * compiler.getStandardFileManager(null, null, null) >>> [fileManager1, fileManager2]
+        first.fileManager.is(fileManager1)
+        second.fileManager.is(fileManager2)
+    }
+
+    def "does not share file manager between compilations using different encodings"() {
+        def fileManager1 = Mock(StandardJavaFileManager)
+        def fileManager2 = Mock(StandardJavaFileManager)
+        def utf8 = Charset.forName("UTF-8")
+
+        when:
+        pool.acquire(compiler, null, "", [jar]).release()
+        def second = pool.acquire(compiler, utf8, "", [jar])
+
+        then:
+        1 * compiler.getStandardFileManager(null, null, null) >> fileManager1
+        1 * compiler.getStandardFileManager(null, null, utf8) >> fileManager2
+        second.fileManager.is(fileManager2)
+    }
+
+    def "does not share file manager between compilations for different target platforms"() {
+        def fileManager1 = Mock(StandardJavaFileManager)
+        def fileManager2 = Mock(StandardJavaFileManager)
+
+        when:
+        pool.acquire(compiler, null, "--release 8 ", [jar]).release()
+        def second = pool.acquire(compiler, null, "--release 11 ", [jar])
+
+        then:
+        2 * compiler.getStandardFileManager(null, null, null) >>> [fileManager1, fileManager2]
+        second.fileManager.is(fileManager2)
+    }
+
+    def "resets the locations of a reused file manager"() {
+        def fileManager = Mock(StandardJavaFileManager)
+        compiler.getStandardFileManager(null, null, null) >> fileManager
+
+        when:
+        pool.acquire(compiler, null, "", [jar]).release()
+        pool.acquire(compiler, null, "", [jar])
+
+        then:
+        2 * fileManager.setLocation(StandardLocation.CLASS_PATH, null)
+        2 * fileManager.setLocation(StandardLocation.CLASS_OUTPUT, null)
+    }
+
+    def "discarded file manager is closed and not reused"() {
+        def fileManager1 = Mock(StandardJavaFileManager)
+        def fileManager2 = Mock(StandardJavaFileManager)
+
+        when:
+        pool.acquire(compiler, null, "", [jar]).close()
+        def second = pool.acquire(compiler, null, "", [jar])
+
+        then:
+        2 * compiler.getStandardFileManager(null, null, null) >>> [fileManager1, fileManager2]
+        1 * fileManager1.close()
+        second.fileManager.is(fileManager2)
+    }
+
+    def "closes idle file managers when the heap is running low"() {
+        def fileManager1 = Mock(StandardJavaFileManager)
+        def fileManager2 = Mock(StandardJavaFileManager)
+        compiler.getStandardFileManager(null, null, null) >>> [fileManager1, fileManager2]
+
+        given:
+        pool.acquire(compiler, null, "", [jar]).release()
+        def inUse = pool.acquire(compiler, null, "", [jar])
+
+        expect:
+        pool.retainedValueCount == 0
+
+        when:
+        inUse.release()
+
+        then:
+        pool.retainedValueCount == 1
+
+        when:
+        def released = pool.release()
+
+        then:
+        released == 1
+        pool.retainedValueCount == 0
+        1 * fileManager1.close()
+    }
+
+    def "closes idle file managers when stopped and file managers released afterwards"() {
+        def fileManager1 = Mock(StandardJavaFileManager)
+        def fileManager2 = Mock(StandardJavaFileManager)
+        compiler.getStandardFileManager(null, null, null) >>> [fileManager1, fileManager2]
+
+        given:
+        def first = pool.acquire(compiler, null, "", [jar])
+        def second = pool.acquire(compiler, null, "", [jar])
+        first.release()
+
+        when:
+        pool.stop()
+
+        then:
+        1 * fileManager1.close()
+        1 * heapMemoryManager.removeHolder(pool)
+
+        when:
+        second.release()
+
+        then:
+        1 * fileManager2.close()
+        pool.retainedValueCount == 0
+    }
+}
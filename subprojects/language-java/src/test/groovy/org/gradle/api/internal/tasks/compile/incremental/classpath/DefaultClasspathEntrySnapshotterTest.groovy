@@ -19,22 +19,36 @@
 package org.gradle.api.internal.tasks.compile.incremental.classpath
 
 import org.gradle.api.file.ConfigurableFileTree
+import org.gradle.api.file.FileTree
+import org.gradle.api.file.FileVisitDetails
 import org.gradle.api.file.FileVisitor
+import org.gradle.api.file.RelativePath
 import org.gradle.api.internal.file.DefaultFileVisitDetails
 import org.gradle.api.internal.file.FileOperations
 import org.gradle.api.internal.tasks.compile.incremental.analyzer.ClassDependenciesAnalyzer
 import org.gradle.api.internal.tasks.compile.incremental.deps.ClassAnalysis
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.concurrent.ParallelismConfigurationManagerFixture
 import org.gradle.internal.hash.FileHasher
 import org.gradle.internal.hash.HashCode
 import org.gradle.internal.hash.StreamHasher
+import org.gradle.internal.operations.BuildOperationListener
+import org.gradle.internal.operations.DefaultBuildOperationExecutor
+import org.gradle.internal.operations.DefaultBuildOperationIdFactory
+import org.gradle.internal.operations.DefaultBuildOperationQueueFactory
+import org.gradle.internal.operations.TestBuildOperationExecutor
+import org.gradle.internal.progress.NoOpProgressLoggerFactory
+import org.gradle.internal.resources.DefaultResourceLockCoordinationService
+import org.gradle.internal.time.Clock
+import org.gradle.internal.work.DefaultWorkerLeaseService
+import org.gradle.test.fixtures.concurrent.ConcurrentSpec
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
 import org.gradle.util.UsesNativeServices
 import org.junit.Rule
-import spock.lang.Specification
 import spock.lang.Subject
 
 @UsesNativeServices
-class DefaultClasspathEntrySnapshotterTest extends Specification {
+class DefaultClasspathEntrySnapshotterTest extends ConcurrentSpec {
 
     @Rule TestNameTestDirectoryProvider temp = new TestNameTestDirectoryProvider()
 
@@ -42,7 +56,7 @@ class DefaultClasspathEntrySnapshotterTest extends Specification {
     def streamHasher = Mock(StreamHasher)
     def classDependenciesAnalyzer = Mock(ClassDependenciesAnalyzer)
     def fileOperations = Mock(FileOperations)
-    @Subject snapshotter = new DefaultClasspathEntrySnapshotter(fileHasher, streamHasher, classDependenciesAnalyzer, fileOperations)
+    @Subject snapshotter = new DefaultClasspathEntrySnapshotter(fileHasher, streamHasher, classDependenciesAnalyzer, fileOperations, new TestBuildOperationExecutor())
 
     def "creates snapshot for an empty entry"() {
         expect:
@@ -87,4 +101,101 @@ class DefaultClasspathEntrySnapshotterTest extends Specification {
         snapshot.hashes == ["Foo": f1Hash, "com.Foo2": f2Hash]
         snapshot.classAnalysis
     }
+
+    def "analyzes classes read from a jar"() {
+        def jar = temp.createFile("lib.jar")
+        def jarTree = Mock(FileTree)
+        def hash = HashCode.fromInt(1)
+        def entry = Stub(FileVisitDetails) {
+            getName() >> "Foo.class"
+            getRelativePath() >> RelativePath.parse(true, "Foo.class")
+            open() >> new ByteArrayInputStream([1, 2, 3] as byte[])
+        }
+
+        when:
+        def snapshot = snapshotter.createSnapshot(HashCode.fromInt(123), jar)
+
+        then:
+        1 * fileOperations.zipTree(jar) >> jarTree
+        1 * jarTree.visit(_) >> { FileVisitor visitor -> visitor.visitFile(entry) }
+        1 * streamHasher.hash(_) >> hash
+        1 * classDependenciesAnalyzer.getClassAnalysis(hash, [1, 2, 3] as byte[]) >> {
+            Stub(ClassAnalysis) {
+                getClassName() >> "Foo"
+            }
+        }
+
+        and:
+        snapshot.hashes == ["Foo": hash]
+    }
+
+    def "analyzes all classes of an entry that spans several batches"() {
+        def entry = temp.createDir("foo")
+        def fileTree = Mock(ConfigurableFileTree)
+        def classNames = (1..1234).collect { "Foo" + it }
+
+        when:
+        def snapshot = snapshotter.createSnapshot(HashCode.fromInt(123), entry)
+
+        then:
+        1 * fileOperations.fileTree(entry) >> fileTree
+        1 * fileTree.visit(_) >> { FileVisitor visitor ->
+            classNames.each { visitor.visitFile(new DefaultFileVisitDetails(temp.file("foo/${it}.class"), null, null)) }
+        }
+        _ * fileHasher.hash(_) >> { FileVisitDetails details -> HashCode.fromInt(details.name.hashCode()) }
+        1234 * classDependenciesAnalyzer.getClassAnalysis(_, _) >> { HashCode h, FileVisitDetails details ->
+            Stub(ClassAnalysis) {
+                getClassName() >> details.name - ".class"
+            }
+        }
+
+        and:
+        snapshot.hashes.size() == 1234
+        snapshot.classes == classNames as Set
+        snapshot.hashes["Foo1000"] == HashCode.fromInt("Foo1000.class".hashCode())
+    }
+
+    def "analyzes the batches of an entry in parallel"() {
+        def parallelismConfiguration = new ParallelismConfigurationManagerFixture(true, 4)
+        def workerLeaseService = new DefaultWorkerLeaseService(new DefaultResourceLockCoordinationService(), parallelismConfiguration)
+        def buildOperationExecutor = new DefaultBuildOperationExecutor(
+            Mock(BuildOperationListener), Mock(Clock), new NoOpProgressLoggerFactory(),
+            new DefaultBuildOperationQueueFactory(workerLeaseService), new DefaultExecutorFactory(), parallelismConfiguration, new DefaultBuildOperationIdFactory())
+        def snapshotter = new DefaultClasspathEntrySnapshotter(fileHasher, streamHasher, classDependenciesAnalyzer, fileOperations, buildOperationExecutor)
+        def entry = temp.createDir("foo")
+        def fileTree = Stub(ConfigurableFileTree)
+        def classNames = (1..1000).collect { "Foo" + it }
+        fileOperations.fileTree(entry) >> fileTree
+        fileTree.visit(_) >> { FileVisitor visitor ->
+            classNames.each { visitor.visitFile(new DefaultFileVisitDetails(temp.file("foo/${it}.class"), null, null)) }
+        }
+        fileHasher.hash(_) >> { FileVisitDetails details -> HashCode.fromInt(details.name.hashCode()) }
+        classDependenciesAnalyzer.getClassAnalysis(_, _) >> { HashCode h, FileVisitDetails details ->
+            def className = details.name - ".class"
+            if (className == "Foo1") {
+                // The first batch only completes once the second batch has started
+                thread.blockUntil.secondBatchStarted
+            } else if (className == "Foo501") {
+                instant.secondBatchStarted
+            }
+            Stub(ClassAnalysis) {
+                getClassName() >> className
+            }
+        }
+        def completion = workerLeaseService.getWorkerLease().start()
+
+        when:
+        def snapshot = null
+        async {
+            snapshot = snapshotter.createSnapshot(HashCode.fromInt(123), entry)
+        }
+
+        then:
+        snapshot.classes == classNames as Set
+        snapshot.hashes["Foo1"] == HashCode.fromInt("Foo1.class".hashCode())
+
+        cleanup:
+        completion?.leaseFinish()
+        workerLeaseService?.stop()
+    }
 }
@@ -59,4 +59,23 @@ class ClassSetAnalysisDataSerializerTest extends Specification {
         read.classesToChildren == ['A': ['SA'] as Set, B: ['SB1', 'SB2'] as Set]
         read.fullRebuildCause == "Because"
     }
+
+    def "dependents of a class are only built when queried and then reused"() {
+        def data = new ClassSetAnalysisData(["A", "B", "C"] as Set,
+            ["A": dependents("B", "C"), "B": dependents("C")],
+            [:], [:], null
+        )
+        def os = new ByteArrayOutputStream()
+        serializer.write(new OutputStreamBackedEncoder(os), data)
+
+        when:
+        ClassSetAnalysisData read = serializer.read(new InputStreamBackedDecoder(new ByteArrayInputStream(os.toByteArray())))
+        def dependentsOfA = read.getDependents("A")
+
+        then:
+        dependentsOfA.dependentClasses == ["B", "C"] as Set
+        dependentsOfA.dependentClasses.is(dependentsOfA.dependentClasses)
+        read.getDependents("B").dependentClasses == ["C"] as Set
+        read.getDependents("C").dependentClasses.empty
+    }
 }
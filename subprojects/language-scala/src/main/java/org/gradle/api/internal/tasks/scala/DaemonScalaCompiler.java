@@ -67,12 +67,18 @@ public class DaemonScalaCompiler<T extends ScalaJavaJointCompileSpec> extends Ab
         ScalaForkOptions scalaOptions = spec.getScalaCompileOptions().getForkOptions();
         JavaForkOptions javaForkOptions = new BaseForkOptionsConverter(forkOptionsFactory).transform(mergeForkOptions(javaOptions, scalaOptions));
         javaForkOptions.setWorkingDir(daemonWorkingDir);
+        // Zinc keeps analysis files in memory, keyed by their content hash. Keep more of them in a daemon that is shared by many projects, as far as its heap allows.
+        // A limit given with the fork options, as -Dzinc.analysis.cache.limit, is used as it is.
+        if (!javaForkOptions.getSystemProperties().containsKey(ZincScalaCompilerUtil.ZINC_ANALYSIS_CACHE_LIMIT_SYSTEM_PROPERTY)) {
+            javaForkOptions.systemProperty(ZincScalaCompilerUtil.ZINC_ANALYSIS_CACHE_LIMIT_SYSTEM_PROPERTY, ZincScalaCompilerUtil.getAnalysisCacheLimit(javaForkOptions.getMaxHeapSize()));
+        }
 
         return new DaemonForkOptionsBuilder(forkOptionsFactory)
             .javaForkOptions(javaForkOptions)
             .classpath(zincClasspath)
             .sharedPackages(SHARED_PACKAGES)
-            .keepAliveMode(KeepAliveMode.SESSION)
+            // Keep the daemon with its warmed up compilers and cached analysis for the next builds, it is stopped when memory runs low
+            .keepAliveMode(KeepAliveMode.DAEMON)
             .build();
     }
 }
@@ -16,11 +16,35 @@
 
 package org.gradle.api.internal.tasks.scala;
 
+import org.gradle.process.internal.health.memory.MemoryAmount;
+
+import javax.annotation.Nullable;
+
 public final class ZincScalaCompilerUtil {
     private ZincScalaCompilerUtil() {
     }
 
+    // Zinc's own default for the number of analysis files kept in memory
+    private static final int DEFAULT_ANALYSIS_CACHE_LIMIT = 5;
+    private static final int MAX_ANALYSIS_CACHE_LIMIT = 50;
+    // A generous estimate of the heap taken by the analysis of a large project
+    private static final long HEAP_PER_ANALYSIS = 32L * 1024 * 1024;
+
     public static final String ZINC_CACHE_HOME_DIR_SYSTEM_PROPERTY = "org.gradle.zinc.home.dir";
     public static final String ZINC_DIR_SYSTEM_PROPERTY = "zinc.dir";
+    public static final String ZINC_ANALYSIS_CACHE_LIMIT_SYSTEM_PROPERTY = "zinc.analysis.cache.limit";
     public static final String ZINC_DIR_IGNORED_MESSAGE = "In order to guarantee parallel safe Scala compilation, Gradle does not support the '" + ZINC_DIR_SYSTEM_PROPERTY + "' system property and ignores any value provided.";
+
+    /**
+     * Returns the number of analysis files that Zinc keeps in memory in a compiler daemon with the given maximum heap size, so that they take at most about half of the heap.
+     * Never less than Zinc's own default, which is also used when the maximum heap size is not known.
+     */
+    public static int getAnalysisCacheLimit(@Nullable String maxHeapSize) {
+        long maxHeapBytes = MemoryAmount.parseNotation(maxHeapSize);
+        if (maxHeapBytes <= 0) {
+            return DEFAULT_ANALYSIS_CACHE_LIMIT;
+        }
+        long limit = maxHeapBytes / 2 / HEAP_PER_ANALYSIS;
+        return (int) Math.max(DEFAULT_ANALYSIS_CACHE_LIMIT, Math.min(MAX_ANALYSIS_CACHE_LIMIT, limit));
+    }
 }
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.scala
+
+import org.gradle.api.internal.file.TestFiles
+import org.gradle.api.tasks.compile.CompileOptions
+import org.gradle.api.tasks.compile.ForkOptions
+import org.gradle.api.tasks.scala.ScalaForkOptions
+import org.gradle.language.base.internal.compile.Compiler
+import org.gradle.language.scala.tasks.BaseScalaCompileOptions
+import org.gradle.workers.internal.KeepAliveMode
+import org.gradle.workers.internal.WorkerDaemonFactory
+import spock.lang.Specification
+
+class DaemonScalaCompilerTest extends Specification {
+    def javaForkOptions = new ForkOptions()
+    def scalaForkOptions = new ScalaForkOptions()
+    def spec = Stub(ScalaJavaJointCompileSpec) {
+        getCompileOptions() >> Stub(CompileOptions) {
+            getForkOptions() >> javaForkOptions
+        }
+        getScalaCompileOptions() >> Stub(BaseScalaCompileOptions) {
+            getForkOptions() >> scalaForkOptions
+        }
+    }
+    def compiler = new DaemonScalaCompiler(new File("daemon").absoluteFile, Stub(Compiler), Stub(WorkerDaemonFactory), [], TestFiles.execFactory())
+
+    def "keeps the compiler daemon for later builds"() {
+        when:
+        def daemonForkOptions = compiler.toDaemonForkOptions(spec)
+
+        then:
+        daemonForkOptions.keepAliveMode == KeepAliveMode.DAEMON
+    }
+
+    def "limits the analysis files kept in memory by the heap size of the compiler daemon"() {
+        scalaForkOptions.memoryMaximumSize = "1g"
+
+        when:
+        def daemonForkOptions = compiler.toDaemonForkOptions(spec)
+
+        then:
+        daemonForkOptions.javaForkOptions.systemProperties[ZincScalaCompilerUtil.ZINC_ANALYSIS_CACHE_LIMIT_SYSTEM_PROPERTY].toString() == "16"
+    }
+
+    def "uses Zinc's default number of analysis files kept in memory when the heap size of the compiler daemon is not known"() {
+        when:
+        def daemonForkOptions = compiler.toDaemonForkOptions(spec)
+
+        then:
+        daemonForkOptions.javaForkOptions.systemProperties[ZincScalaCompilerUtil.ZINC_ANALYSIS_CACHE_LIMIT_SYSTEM_PROPERTY].toString() == "5"
+    }
+
+    def "uses the number of analysis files kept in memory given in the fork options"() {
+        scalaForkOptions.memoryMaximumSize = "4g"
+        scalaForkOptions.jvmArgs = ["-D${ZincScalaCompilerUtil.ZINC_ANALYSIS_CACHE_LIMIT_SYSTEM_PROPERTY}=3".toString()]
+
+        when:
+        def daemonForkOptions = compiler.toDaemonForkOptions(spec)
+
+        then:
+        daemonForkOptions.javaForkOptions.systemProperties[ZincScalaCompilerUtil.ZINC_ANALYSIS_CACHE_LIMIT_SYSTEM_PROPERTY].toString() == "3"
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.scala
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class ZincScalaCompilerUtilTest extends Specification {
+    @Unroll
+    def "keeps #limit analysis files in memory with a maximum heap size of #maxHeapSize"() {
+        expect:
+        ZincScalaCompilerUtil.getAnalysisCacheLimit(maxHeapSize) == limit
+
+        where:
+        maxHeapSize | limit
+        null        | 5
+        ""          | 5
+        "128m"      | 5
+        "512m"      | 8
+        "1g"        | 16
+        "2048m"     | 32
+        "4g"        | 50
+        "16g"       | 50
+    }
+}
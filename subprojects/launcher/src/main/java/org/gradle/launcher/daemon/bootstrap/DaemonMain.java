@@ -40,6 +40,7 @@ import org.gradle.launcher.daemon.server.Daemon;
 import org.gradle.launcher.daemon.server.DaemonServices;
 import org.gradle.launcher.daemon.server.MasterExpirationStrategy;
 import org.gradle.launcher.daemon.server.expiry.DaemonExpirationStrategy;
+import org.gradle.launcher.daemon.server.health.StandbyDaemonStarter;
 import org.gradle.process.internal.shutdown.ShutdownHooks;
 import org.gradle.process.internal.streams.EncodedStream;
 
@@ -107,7 +108,7 @@ public class DaemonMain extends EntryPoint {
         }
 
         NativeServices.initialize(gradleHomeDir);
-        DaemonServerConfiguration parameters = new DefaultDaemonServerConfiguration(daemonUid, daemonBaseDir, idleTimeoutMs, periodicCheckIntervalMs, singleUse, priority, startupOpts);
+        DaemonServerConfiguration parameters = new DefaultDaemonServerConfiguration(daemonUid, daemonBaseDir, gradleHomeDir, idleTimeoutMs, periodicCheckIntervalMs, singleUse, priority, startupOpts);
         LoggingServiceRegistry loggingRegistry = LoggingServiceRegistry.newCommandLineProcessLogging();
         LoggingManagerInternal loggingManager = loggingRegistry.newInstance(LoggingManagerInternal.class);
 
@@ -135,7 +136,7 @@ public class DaemonMain extends EntryPoint {
         } finally {
             daemon.stop();
             // TODO: Stop all daemon services
-            CompositeStoppable.stoppable(daemonServices.get(GradleUserHomeScopeServiceRegistry.class)).stop();
+            CompositeStoppable.stoppable(daemonServices.get(GradleUserHomeScopeServiceRegistry.class), daemonServices.get(StandbyDaemonStarter.class)).stop();
         }
     }
 
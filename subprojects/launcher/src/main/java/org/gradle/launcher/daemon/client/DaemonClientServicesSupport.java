@@ -30,6 +30,8 @@ import org.gradle.internal.operations.BuildOperationIdFactory;
 import org.gradle.internal.operations.DefaultBuildOperationIdFactory;
 import org.gradle.internal.remote.internal.OutgoingConnector;
 import org.gradle.internal.remote.internal.inet.TcpOutgoingConnector;
+import org.gradle.internal.remote.internal.inet.UnixDomainSocketOutgoingConnector;
+import org.gradle.internal.remote.internal.inet.UnixDomainSockets;
 import org.gradle.internal.serialize.Serializer;
 import org.gradle.internal.service.DefaultServiceRegistry;
 import org.gradle.internal.service.ServiceRegistry;
@@ -97,7 +99,11 @@ public abstract class DaemonClientServicesSupport extends DefaultServiceRegistry
     }
 
     OutgoingConnector createOutgoingConnector() {
-        return new TcpOutgoingConnector();
+        TcpOutgoingConnector tcpConnector = new TcpOutgoingConnector();
+        if (UnixDomainSockets.isSupported()) {
+            return new UnixDomainSocketOutgoingConnector(tcpConnector);
+        }
+        return tcpConnector;
     }
 
     Clock createClock() {
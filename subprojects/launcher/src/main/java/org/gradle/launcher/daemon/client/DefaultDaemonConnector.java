@@ -25,6 +25,7 @@ import org.gradle.internal.Pair;
 import org.gradle.internal.UncheckedException;
 import org.gradle.internal.logging.progress.ProgressLogger;
 import org.gradle.internal.logging.progress.ProgressLoggerFactory;
+import org.gradle.internal.remote.Address;
 import org.gradle.internal.remote.internal.ConnectException;
 import org.gradle.internal.remote.internal.OutgoingConnector;
 import org.gradle.internal.remote.internal.RemoteConnection;
@@ -32,6 +33,7 @@ import org.gradle.internal.serialize.Serializer;
 import org.gradle.internal.serialize.Serializers;
 import org.gradle.internal.time.CountdownTimer;
 import org.gradle.internal.time.Time;
+import org.gradle.launcher.daemon.context.DaemonCompatibilitySpec;
 import org.gradle.launcher.daemon.context.DaemonConnectDetails;
 import org.gradle.launcher.daemon.context.DaemonContext;
 import org.gradle.launcher.daemon.diagnostics.DaemonStartupInfo;
@@ -67,6 +69,7 @@ public class DefaultDaemonConnector implements DaemonConnector {
     private final ProgressLoggerFactory progressLoggerFactory;
     private final Serializer<Message> serializer;
     private long connectTimeout = DefaultDaemonConnector.DEFAULT_CONNECT_TIMEOUT;
+    private volatile Address lastUsedAttempt;
 
     public DefaultDaemonConnector(DaemonRegistry daemonRegistry, OutgoingConnector connector, DaemonStarter daemonStarter, DaemonStartListener startListener, ProgressLoggerFactory progressLoggerFactory, Serializer<Message> serializer) {
         this.serializer = serializer;
@@ -109,25 +112,63 @@ public class DefaultDaemonConnector implements DaemonConnector {
     }
 
     public DaemonClientConnection connect(ExplainingSpec<DaemonContext> constraint) {
+        // Try the daemon we used last time for this context before reading the whole registry
+        DaemonClientConnection connection = connectToLastUsedDaemon(constraint);
+        if (connection != null) {
+            return connection;
+        }
+
         final Pair<Collection<DaemonInfo>, Collection<DaemonInfo>> idleBusy = partitionByState(daemonRegistry.getAll(), Idle);
         final Collection<DaemonInfo> idleDaemons = idleBusy.getLeft();
         final Collection<DaemonInfo> busyDaemons = idleBusy.getRight();
 
         // Check to see if there are any compatible idle daemons
-        DaemonClientConnection connection = connectToIdleDaemon(idleDaemons, constraint);
+        connection = connectToIdleDaemon(idleDaemons, constraint);
         if (connection != null) {
-            return connection;
+            return rememberLastUsed(constraint, connection);
         }
 
         // Check to see if there are any compatible canceled daemons and wait to see if one becomes idle
         connection = connectToCanceledDaemon(busyDaemons, constraint);
         if (connection != null) {
-            return connection;
+            return rememberLastUsed(constraint, connection);
         }
 
         // No compatible daemons available - start a new daemon
         handleStopEvents(idleDaemons, busyDaemons);
-        return startDaemon(constraint);
+        return rememberLastUsed(constraint, startDaemon(constraint));
+    }
+
+    private DaemonClientConnection connectToLastUsedDaemon(ExplainingSpec<DaemonContext> constraint) {
+        if (!(constraint instanceof DaemonCompatibilitySpec)) {
+            return null;
+        }
+        DaemonInfo daemon = daemonRegistry.getLastUsed(((DaemonCompatibilitySpec) constraint).getContextKey());
+        Address previousAttempt = lastUsedAttempt;
+        lastUsedAttempt = null;
+        if (daemon == null || !constraint.isSatisfiedBy(daemon.getContext())) {
+            return null;
+        }
+        if (daemon.getAddress().equals(previousAttempt)) {
+            // We handed out this daemon last time and have been asked again, most likely because it turned out to be busy.
+            // Look through the registry instead
+            return null;
+        }
+        try {
+            DaemonClientConnection connection = connectToDaemon(daemon, new CleanupOnStaleAddress(daemon, true));
+            lastUsedAttempt = daemon.getAddress();
+            return connection;
+        } catch (ConnectException e) {
+            LOGGER.debug("Cannot connect to last used daemon {} due to {}. Looking for a different daemon...", daemon, e);
+            return null;
+        }
+    }
+
+    private DaemonClientConnection rememberLastUsed(ExplainingSpec<DaemonContext> constraint, DaemonClientConnection connection) {
+        if (constraint instanceof DaemonCompatibilitySpec && connection.getDaemon() instanceof DaemonInfo) {
+            daemonRegistry.storeLastUsed(((DaemonCompatibilitySpec) constraint).getContextKey(), (DaemonInfo) connection.getDaemon());
+        }
+        return connection;
     }
 
     private void handleStopEvents(Collection<DaemonInfo> idleDaemons, Collection<DaemonInfo> busyDaemons) {
@@ -35,6 +35,8 @@ import org.gradle.launcher.daemon.DaemonExecHandleBuilder;
 import org.gradle.launcher.daemon.bootstrap.DaemonOutputConsumer;
 import org.gradle.launcher.daemon.bootstrap.GradleDaemon;
 import org.gradle.launcher.daemon.configuration.DaemonParameters;
+import org.gradle.launcher.daemon.configuration.DaemonServerConfiguration;
+import org.gradle.launcher.daemon.configuration.DefaultDaemonServerConfiguration;
 import org.gradle.launcher.daemon.diagnostics.DaemonStartupInfo;
 import org.gradle.launcher.daemon.registry.DaemonDir;
 import org.gradle.process.internal.DefaultExecActionFactory;
@@ -69,8 +71,24 @@ public class DefaultDaemonStarter implements DaemonStarter {
     }
 
     public DaemonStartupInfo startDaemon(boolean singleUse) {
-        String daemonUid = UUID.randomUUID().toString();
+        versionValidator.validate(daemonParameters);
+
+        DaemonServerConfiguration configuration = new DefaultDaemonServerConfiguration(
+            UUID.randomUUID().toString(),
+            daemonDir.getBaseDir(),
+            daemonParameters.getGradleUserHomeDir(),
+            daemonParameters.getIdleTimeout(),
+            daemonParameters.getPeriodicCheckInterval(),
+            singleUse,
+            daemonParameters.getPriority(),
+            daemonParameters.getEffectiveJvmArgs());
+        return startDaemon(daemonParameters.getEffectiveJvm().getJavaExecutable(), configuration, daemonDir, daemonGreeter);
+    }
 
+    /**
+     * Starts a daemon process with the given configuration, without validating the JVM. Also used by a daemon to start its replacement.
+     */
+    public static DaemonStartupInfo startDaemon(File javaExecutable, DaemonServerConfiguration configuration, DaemonDir daemonDir, DaemonGreeter daemonGreeter) {
         GradleInstallation gradleInstallation = CurrentGradleInstallation.get();
         ModuleRegistry registry = new DefaultModuleRegistry(gradleInstallation);
         ClassPath classpath;
@@ -88,13 +106,11 @@ public class DefaultDaemonStarter implements DaemonStarter {
             throw new IllegalStateException("Unable to construct a bootstrap classpath when starting the daemon");
         }
 
-        versionValidator.validate(daemonParameters);
-
         List<String> daemonArgs = new ArrayList<String>();
-        daemonArgs.addAll(getPriorityArgs(daemonParameters.getPriority()));
-        daemonArgs.add(daemonParameters.getEffectiveJvm().getJavaExecutable().getAbsolutePath());
+        daemonArgs.addAll(getPriorityArgs(configuration.getPriority()));
+        daemonArgs.add(javaExecutable.getAbsolutePath());
 
-        List<String> daemonOpts = daemonParameters.getEffectiveJvmArgs();
+        List<String> daemonOpts = configuration.getJvmOptions();
         daemonArgs.addAll(daemonOpts);
         daemonArgs.add("-cp");
         daemonArgs.add(CollectionUtils.join(File.pathSeparator, classpath.getAsFiles()));
@@ -112,13 +128,13 @@ public class DefaultDaemonStarter implements DaemonStarter {
         StreamByteBuffer buffer = new StreamByteBuffer();
         FlushableEncoder encoder = new KryoBackedEncoder(new EncodedStream.EncodedOutput(buffer.getOutputStream()));
         try {
-            encoder.writeString(daemonParameters.getGradleUserHomeDir().getAbsolutePath());
-            encoder.writeString(daemonDir.getBaseDir().getAbsolutePath());
-            encoder.writeSmallInt(daemonParameters.getIdleTimeout());
-            encoder.writeSmallInt(daemonParameters.getPeriodicCheckInterval());
-            encoder.writeBoolean(singleUse);
-            encoder.writeString(daemonUid);
-            encoder.writeSmallInt(daemonParameters.getPriority().ordinal());
+            encoder.writeString(configuration.getGradleUserHomeDir().getAbsolutePath());
+            encoder.writeString(configuration.getBaseDir().getAbsolutePath());
+            encoder.writeSmallInt(configuration.getIdleTimeout());
+            encoder.writeSmallInt(configuration.getPeriodicCheckIntervalMs());
+            encoder.writeBoolean(configuration.isSingleUse());
+            encoder.writeString(configuration.getUid());
+            encoder.writeSmallInt(configuration.getPriority().ordinal());
             encoder.writeSmallInt(daemonOpts.size());
             for (String daemonOpt : daemonOpts) {
                 encoder.writeString(daemonOpt);
@@ -133,10 +149,10 @@ public class DefaultDaemonStarter implements DaemonStarter {
         }
         InputStream stdInput = buffer.getInputStream();
 
-        return startProcess(daemonArgs, daemonDir.getVersionedDir(), stdInput);
+        return startProcess(daemonArgs, daemonDir.getVersionedDir(), stdInput, daemonGreeter);
     }
 
-    private List<String> getPriorityArgs(DaemonParameters.Priority priority) {
+    private static List<String> getPriorityArgs(DaemonParameters.Priority priority) {
         if (priority == DaemonParameters.Priority.NORMAL) {
             return Collections.emptyList();
         }
@@ -150,7 +166,7 @@ public class DefaultDaemonStarter implements DaemonStarter {
         }
     }
 
-    private DaemonStartupInfo startProcess(List<String> args, File workingDir, InputStream stdInput) {
+    private static DaemonStartupInfo startProcess(List<String> args, File workingDir, InputStream stdInput, DaemonGreeter daemonGreeter) {
         LOGGER.debug("Starting daemon process: workingDir = {}, daemonArgs: {}", workingDir, args);
         Timer clock = Time.startTimer();
         try {
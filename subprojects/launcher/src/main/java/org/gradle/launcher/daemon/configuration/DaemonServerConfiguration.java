@@ -23,6 +23,8 @@ public interface DaemonServerConfiguration {
 
     File getBaseDir();
 
+    File getGradleUserHomeDir();
+
     int getIdleTimeout();
 
     int getPeriodicCheckIntervalMs();
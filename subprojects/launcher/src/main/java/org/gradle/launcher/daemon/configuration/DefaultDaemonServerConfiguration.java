@@ -23,15 +23,17 @@ public class DefaultDaemonServerConfiguration implements DaemonServerConfigurati
 
     private final String daemonUid;
     private final File daemonBaseDir;
+    private final File gradleUserHomeDir;
     private final int idleTimeoutMs;
     private final int periodicCheckIntervalMs;
     private final boolean singleUse;
     private final DaemonParameters.Priority priority;
     private final List<String> jvmOptions;
 
-    public DefaultDaemonServerConfiguration(String daemonUid, File daemonBaseDir, int idleTimeoutMs, int periodicCheckIntervalMs, boolean singleUse, DaemonParameters.Priority priority, List<String> jvmOptions) {
+    public DefaultDaemonServerConfiguration(String daemonUid, File daemonBaseDir, File gradleUserHomeDir, int idleTimeoutMs, int periodicCheckIntervalMs, boolean singleUse, DaemonParameters.Priority priority, List<String> jvmOptions) {
         this.daemonUid = daemonUid;
         this.daemonBaseDir = daemonBaseDir;
+        this.gradleUserHomeDir = gradleUserHomeDir;
         this.idleTimeoutMs = idleTimeoutMs;
         this.periodicCheckIntervalMs = periodicCheckIntervalMs;
         this.singleUse = singleUse;
@@ -44,6 +46,11 @@ public class DefaultDaemonServerConfiguration implements DaemonServerConfigurati
         return daemonBaseDir;
     }
 
+    @Override
+    public File getGradleUserHomeDir() {
+        return gradleUserHomeDir;
+    }
+
     @Override
     public int getIdleTimeout() {
         return idleTimeoutMs;
@@ -15,7 +15,10 @@
  */
 package org.gradle.launcher.daemon.context;
 
+import com.google.common.collect.Ordering;
 import org.gradle.api.internal.specs.ExplainingSpec;
+import org.gradle.internal.hash.Hasher;
+import org.gradle.internal.hash.Hashing;
 
 import static org.gradle.internal.FileUtils.canonicalize;
 
@@ -27,6 +30,20 @@ public class DaemonCompatibilitySpec implements ExplainingSpec<DaemonContext> {
         this.desiredContext = desiredContext;
     }
 
+    /**
+     * Returns a key that is the same for all desired contexts that this spec would treat as equivalent.
+     */
+    public String getContextKey() {
+        Hasher hasher = Hashing.newHasher();
+        hasher.putString(canonicalize(desiredContext.getJavaHome()).getPath());
+        // Daemon options are compared regardless of order
+        for (String daemonOpt : Ordering.natural().sortedCopy(desiredContext.getDaemonOpts())) {
+            hasher.putString(daemonOpt);
+        }
+        hasher.putString(String.valueOf(desiredContext.getPriority()));
+        return hasher.hash().toString();
+    }
+
     public boolean isSatisfiedBy(DaemonContext potentialContext) {
         return whyUnsatisfied(potentialContext) == null;
     }
@@ -19,6 +19,7 @@ package org.gradle.launcher.daemon.registry;
 import net.jcip.annotations.ThreadSafe;
 import org.gradle.internal.remote.Address;
 
+import javax.annotation.Nullable;
 import java.util.Collection;
 import java.util.List;
 
@@ -45,6 +46,17 @@ public interface DaemonRegistry {
     List<DaemonStopEvent> getStopEvents();
     void removeStopEvents(Collection<DaemonStopEvent> stopEvents);
 
+    /**
+     * Returns the daemon most recently used for the given context key, without reading the whole registry. The daemon may no longer be running or may be busy.
+     */
+    @Nullable
+    DaemonInfo getLastUsed(String contextKey);
+
+    /**
+     * Records the daemon most recently used for the given context key. The entry is discarded when the daemon is removed from the registry.
+     */
+    void storeLastUsed(String contextKey, DaemonInfo info);
+
     static class EmptyRegistryException extends RuntimeException {
         public EmptyRegistryException(String message) {
             super(message);
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.launcher.daemon.registry;
+
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.internal.nativeintegration.filesystem.Chmod;
+import org.gradle.internal.remote.Address;
+import org.gradle.internal.serialize.InputStreamBackedDecoder;
+import org.gradle.internal.serialize.OutputStreamBackedEncoder;
+import org.gradle.util.GFileUtils;
+
+import javax.annotation.Nullable;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Remembers the daemon most recently used for each daemon context, one small file per context.
+ *
+ * <p>The files are written to a temporary file and renamed into place, so they can be read without holding the registry lock.
+ * Entries may be stale, and callers must be prepared for the daemon to have gone away or to have become busy.</p>
+ */
+class LastUsedDaemonCache {
+    private static final Logger LOGGER = Logging.getLogger(LastUsedDaemonCache.class);
+    private static final String SUFFIX = ".bin";
+
+    private final File cacheDir;
+    private final Chmod chmod;
+
+    LastUsedDaemonCache(File cacheDir, Chmod chmod) {
+        this.cacheDir = cacheDir;
+        this.chmod = chmod;
+    }
+
+    @Nullable
+    DaemonInfo get(String contextKey) {
+        return read(fileFor(contextKey));
+    }
+
+    void store(String contextKey, DaemonInfo info) {
+        File cacheFile = fileFor(contextKey);
+        File tmpFile = new File(cacheDir, UUID.randomUUID() + ".tmp");
+        try {
+            GFileUtils.mkdirs(cacheDir);
+            chmod.chmod(cacheDir, 0700); // read-write-execute for user only
+            // Contains the daemon token, so use the same permissions as the registry
+            tmpFile.createNewFile();
+            chmod.chmod(tmpFile, 0600);
+            DaemonRegistryContent content = new DaemonRegistryContent();
+            content.setStatus(info.getAddress(), info);
+            OutputStreamBackedEncoder encoder = new OutputStreamBackedEncoder(new BufferedOutputStream(new FileOutputStream(tmpFile)));
+            try {
+                DaemonRegistryContent.SERIALIZER.write(encoder, content);
+            } finally {
+                encoder.close();
+            }
+            if (!tmpFile.renameTo(cacheFile)) {
+                // Some file systems will not rename over an existing file
+                GFileUtils.deleteQuietly(cacheFile);
+                if (!tmpFile.renameTo(cacheFile)) {
+                    LOGGER.debug("Could not record last used daemon in {}.", cacheFile);
+                }
+            }
+        } catch (Exception e) {
+            LOGGER.debug("Could not record last used daemon in " + cacheFile + ".", e);
+        } finally {
+            GFileUtils.deleteQuietly(tmpFile);
+        }
+    }
+
+    void remove(Address address) {
+        File[] files = cacheDir.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (!file.getName().endsWith(SUFFIX)) {
+                continue;
+            }
+            DaemonInfo info = read(file);
+            if (info != null && info.getAddress().equals(address)) {
+                GFileUtils.deleteQuietly(file);
+            }
+        }
+    }
+
+    @Nullable
+    private DaemonInfo read(File cacheFile) {
+        if (!cacheFile.isFile()) {
+            return null;
+        }
+        try {
+            InputStreamBackedDecoder decoder = new InputStreamBackedDecoder(new BufferedInputStream(new FileInputStream(cacheFile)));
+            try {
+                DaemonRegistryContent content = DaemonRegistryContent.SERIALIZER.read(decoder);
+                if (content == null) {
+                    return null;
+                }
+                List<DaemonInfo> infos = content.getInfos();
+                return infos.size() == 1 ? infos.get(0) : null;
+            } finally {
+                decoder.close();
+            }
+        } catch (Exception e) {
+            // Removed or replaced while reading, treat as a miss
+            LOGGER.debug("Could not read last used daemon from " + cacheFile + ".", e);
+            return null;
+        }
+    }
+
+    private File fileFor(String contextKey) {
+        return new File(cacheDir, contextKey + SUFFIX);
+    }
+}
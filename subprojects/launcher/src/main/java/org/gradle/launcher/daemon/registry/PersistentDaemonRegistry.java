@@ -28,6 +28,7 @@ import org.gradle.internal.nativeintegration.filesystem.Chmod;
 import org.gradle.internal.remote.Address;
 import org.gradle.launcher.daemon.context.DaemonContext;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.util.Collection;
 import java.util.LinkedList;
@@ -46,11 +47,13 @@ public class PersistentDaemonRegistry implements DaemonRegistry {
     private final PersistentStateCache<DaemonRegistryContent> cache;
     private final Lock lock = new ReentrantLock();
     private final File registryFile;
+    private final LastUsedDaemonCache lastUsedDaemons;
 
     private static final Logger LOGGER = Logging.getLogger(PersistentDaemonRegistry.class);
 
     public PersistentDaemonRegistry(File registryFile, FileLockManager fileLockManager, Chmod chmod) {
         this.registryFile = registryFile;
+        this.lastUsedDaemons = new LastUsedDaemonCache(new File(registryFile.getParentFile(), "last-used"), chmod);
         cache = new FileIntegrityViolationSuppressingPersistentStateCacheDecorator<DaemonRegistryContent>(
             new SimpleStateCache<DaemonRegistryContent>(
                 registryFile,
@@ -133,6 +136,7 @@ public class PersistentDaemonRegistry implements DaemonRegistry {
                     return oldValue;
                 }
             });
+            lastUsedDaemons.remove(address);
         } finally {
             lock.unlock();
         }
@@ -233,6 +237,18 @@ public class PersistentDaemonRegistry implements DaemonRegistry {
         }
     }
 
+    @Nullable
+    @Override
+    public DaemonInfo getLastUsed(String contextKey) {
+        // Deliberately does not take the registry lock
+        return lastUsedDaemons.get(contextKey);
+    }
+
+    @Override
+    public void storeLastUsed(String contextKey, DaemonInfo info) {
+        lastUsedDaemons.store(contextKey, info);
+    }
+
     public String toString() {
         return String.format("PersistentDaemonRegistry[file=%s]", registryFile);
     }
@@ -18,6 +18,7 @@ package org.gradle.launcher.daemon.server;
 import com.google.common.collect.ImmutableList;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
+import org.gradle.cache.internal.HeapMemoryManager;
 import org.gradle.internal.classpath.ClassPath;
 import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.event.ListenerManager;
@@ -58,6 +59,7 @@ import org.gradle.launcher.daemon.server.health.DaemonHealthCheck;
 import org.gradle.launcher.daemon.server.health.DaemonHealthStats;
 import org.gradle.launcher.daemon.server.health.DaemonMemoryStatus;
 import org.gradle.launcher.daemon.server.health.HealthExpirationStrategy;
+import org.gradle.launcher.daemon.server.health.StandbyDaemonStarter;
 import org.gradle.launcher.daemon.server.health.gc.GarbageCollectorMonitoringStrategy;
 import org.gradle.launcher.daemon.server.scaninfo.DaemonScanInfo;
 import org.gradle.launcher.daemon.server.scaninfo.DefaultDaemonScanInfo;
@@ -125,12 +127,16 @@ public class DaemonServices extends DefaultServiceRegistry {
         return new MasterExpirationStrategy(daemon, configuration, healthExpirationStrategy, listenerManager);
     }
 
-    protected HealthExpirationStrategy createHealthExpirationStrategy(DaemonMemoryStatus memoryStatus) {
-        return new HealthExpirationStrategy(memoryStatus);
+    protected HealthExpirationStrategy createHealthExpirationStrategy(DaemonMemoryStatus memoryStatus, HeapMemoryManager heapMemoryManager, StandbyDaemonStarter standbyDaemonStarter) {
+        return new HealthExpirationStrategy(memoryStatus, heapMemoryManager, standbyDaemonStarter);
     }
 
-    protected DaemonHealthStats createDaemonHealthStats(DaemonRunningStats runningStats, GarbageCollectorMonitoringStrategy strategy, ExecutorFactory executorFactory) {
-        return new DaemonHealthStats(runningStats, strategy, executorFactory);
+    protected StandbyDaemonStarter createStandbyDaemonStarter(DaemonContext daemonContext, DaemonDir daemonDir, DaemonRegistry daemonRegistry, ExecutorFactory executorFactory) {
+        return new StandbyDaemonStarter(configuration, daemonContext, daemonDir, daemonRegistry, executorFactory);
+    }
+
+    protected DaemonHealthStats createDaemonHealthStats(DaemonRunningStats runningStats, GarbageCollectorMonitoringStrategy strategy, ExecutorFactory executorFactory, HeapMemoryManager heapMemoryManager) {
+        return new DaemonHealthStats(runningStats, strategy, executorFactory, heapMemoryManager);
     }
 
     protected GarbageCollectorMonitoringStrategy createGarbageCollectorMonitoringStrategy() {
@@ -167,7 +173,8 @@ public class DaemonServices extends DefaultServiceRegistry {
             new DaemonTcpServerConnector(
                 get(ExecutorFactory.class),
                 get(InetAddressFactory.class),
-                DaemonMessageSerializer.create(buildActionSerializer)
+                DaemonMessageSerializer.create(buildActionSerializer),
+                configuration.getBaseDir()
             ),
             get(DaemonRegistry.class),
             get(DaemonContext.class),
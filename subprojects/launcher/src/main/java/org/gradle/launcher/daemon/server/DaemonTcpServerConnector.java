@@ -27,10 +27,13 @@ import org.gradle.internal.remote.internal.IncomingConnector;
 import org.gradle.internal.remote.internal.RemoteConnection;
 import org.gradle.internal.remote.internal.inet.InetAddressFactory;
 import org.gradle.internal.remote.internal.inet.TcpIncomingConnector;
+import org.gradle.internal.remote.internal.inet.UnixDomainSocketIncomingConnector;
+import org.gradle.internal.remote.internal.inet.UnixDomainSockets;
 import org.gradle.internal.serialize.Serializer;
 import org.gradle.internal.serialize.Serializers;
 import org.gradle.launcher.daemon.protocol.Message;
 
+import java.io.File;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -46,13 +49,21 @@ public class DaemonTcpServerConnector implements DaemonServerConnector {
     private final Lock lifecycleLock = new ReentrantLock();
     private ConnectionAcceptor acceptor;
 
-    public DaemonTcpServerConnector(ExecutorFactory executorFactory, InetAddressFactory inetAddressFactory, Serializer<Message> serializer) {
+    /**
+     * @param socketBaseDir the directory to create the Unix domain sockets of the daemon in, when they are enabled.
+     */
+    public DaemonTcpServerConnector(ExecutorFactory executorFactory, InetAddressFactory inetAddressFactory, Serializer<Message> serializer, File socketBaseDir) {
         this.serializer = serializer;
-        this.incomingConnector = new TcpIncomingConnector(
+        TcpIncomingConnector tcpConnector = new TcpIncomingConnector(
                 executorFactory,
                 inetAddressFactory,
                 new UUIDGenerator()
         );
+        if (UnixDomainSockets.isEnabled()) {
+            this.incomingConnector = new UnixDomainSocketIncomingConnector(tcpConnector, executorFactory, socketBaseDir);
+        } else {
+            this.incomingConnector = tcpConnector;
+        }
     }
 
     public Address start(final IncomingConnectionHandler handler, final Runnable connectionErrorHandler) {
@@ -17,6 +17,7 @@
 package org.gradle.launcher.daemon.server.health;
 
 import com.google.common.annotations.VisibleForTesting;
+import org.gradle.cache.internal.HeapMemoryManager;
 import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.concurrent.ManagedScheduledExecutor;
 import org.gradle.internal.concurrent.Stoppable;
@@ -35,17 +36,20 @@ public class DaemonHealthStats implements Stoppable {
     private final ManagedScheduledExecutor scheduler;
     private final GarbageCollectionInfo gcInfo;
     private final GarbageCollectionMonitor gcMonitor;
+    private final HeapMemoryManager heapMemoryManager;
 
-    public DaemonHealthStats(DaemonRunningStats runningStats, GarbageCollectorMonitoringStrategy strategy, ExecutorFactory executorFactory) {
+    public DaemonHealthStats(DaemonRunningStats runningStats, GarbageCollectorMonitoringStrategy strategy, ExecutorFactory executorFactory, HeapMemoryManager heapMemoryManager) {
         this.runningStats = runningStats;
+        this.heapMemoryManager = heapMemoryManager;
         this.scheduler = executorFactory.createScheduled("Daemon health stats", 1);
         this.gcInfo = new GarbageCollectionInfo();
         this.gcMonitor = new GarbageCollectionMonitor(strategy, scheduler);
     }
 
     @VisibleForTesting
-    DaemonHealthStats(DaemonRunningStats runningStats, GarbageCollectionInfo gcInfo, GarbageCollectionMonitor gcMonitor) {
+    DaemonHealthStats(DaemonRunningStats runningStats, GarbageCollectionInfo gcInfo, GarbageCollectionMonitor gcMonitor, HeapMemoryManager heapMemoryManager) {
         this.runningStats = runningStats;
+        this.heapMemoryManager = heapMemoryManager;
         this.scheduler = null;
         this.gcInfo = gcInfo;
         this.gcMonitor = gcMonitor;
@@ -97,6 +101,15 @@ public class DaemonHealthStats implements Stoppable {
         if (nonHeapStats.isValid()) {
             message.append(format(", non-heap usage: %s%% of %s", nonHeapStats.getUsedPercent(), NumberUtil.formatBytes(nonHeapStats.getMaxSizeInBytes())));
         }
+
+        long retainedValues = heapMemoryManager.getRetainedValueCount();
+        if (retainedValues > 0) {
+            message.append(format(", cache entries: %s", retainedValues));
+        }
+        long releasedValues = heapMemoryManager.getReleasedValueCount();
+        if (releasedValues > 0) {
+            message.append(format(", released cache entries: %s", releasedValues));
+        }
         message.append("]");
 
         return message.toString();
@@ -27,6 +27,11 @@ public class DaemonMemoryStatus {
 
     public static final String ENABLE_PERFORMANCE_MONITORING = "org.gradle.daemon.performance.enable-monitoring";
 
+    /**
+     * How far below the heap usage threshold the heap is considered to be under pressure, in percent.
+     */
+    private static final int HEAP_PRESSURE_MARGIN = 10;
+
     private static final String HEAP = "heap";
     private static final String NON_HEAP = "non-heap";
 
@@ -59,6 +64,30 @@ public class DaemonMemoryStatus {
         });
     }
 
+    /**
+     * Returns true when tenured heap usage is approaching the usage threshold, so that in-memory caches can be released before the daemon has to expire.
+     */
+    public boolean isHeapUnderPressure() {
+        GarbageCollectionStats gcStats = stats.getHeapStats();
+
+        return exceedsThreshold(HEAP, gcStats, new Spec<GarbageCollectionStats>() {
+            @Override
+            public boolean isSatisfiedBy(GarbageCollectionStats gcStats) {
+                return heapUsageThreshold != 0
+                    && gcStats.isValid()
+                    && gcStats.getUsedPercent() >= heapUsageThreshold - HEAP_PRESSURE_MARGIN;
+            }
+        });
+    }
+
+    /**
+     * Returns the tenured heap usage, in percent of the maximum size, or 0 when it is not known yet.
+     */
+    public int getHeapUsedPercent() {
+        GarbageCollectionStats gcStats = stats.getHeapStats();
+        return gcStats.isValid() ? gcStats.getUsedPercent() : 0;
+    }
+
     public boolean isNonHeapSpaceExhausted() {
         GarbageCollectionStats gcStats = stats.getNonHeapStats();
 
@@ -16,16 +16,48 @@
 
 package org.gradle.launcher.daemon.server.health;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
+import org.gradle.cache.internal.HeapMemoryManager;
+import org.gradle.internal.time.Clock;
+import org.gradle.internal.time.Time;
 import org.gradle.launcher.daemon.server.expiry.AnyDaemonExpirationStrategy;
+import org.gradle.launcher.daemon.server.expiry.DaemonExpirationListener;
 import org.gradle.launcher.daemon.server.expiry.DaemonExpirationResult;
 import org.gradle.launcher.daemon.server.expiry.DaemonExpirationStrategy;
 
+import java.util.concurrent.TimeUnit;
+
+import static org.gradle.launcher.daemon.server.expiry.DaemonExpirationStatus.DO_NOT_EXPIRE;
+
 public class HealthExpirationStrategy implements DaemonExpirationStrategy {
+    /**
+     * How long to wait after releasing in-memory caches before releasing more. The heap usage is averaged over recent garbage collections,
+     * so it takes a while for a release to show.
+     */
+    private static final long MIN_RELEASE_INTERVAL_MILLIS = TimeUnit.SECONDS.toMillis(30);
 
+    private final DaemonMemoryStatus memoryStatus;
+    private final HeapMemoryManager heapMemoryManager;
     private final DaemonExpirationStrategy strategy;
+    private final DaemonExpirationListener unhealthyListener;
+    private final Clock clock;
+    private long lastReleaseTime = -1;
+
+    /**
+     * @param heapMemoryManager asked to release in-memory caches while the heap is under pressure, before the expiration checks run.
+     * @param unhealthyListener notified when the daemon is found to be unhealthy, before the expiration is acted on.
+     */
+    public HealthExpirationStrategy(DaemonMemoryStatus memoryStatus, HeapMemoryManager heapMemoryManager, DaemonExpirationListener unhealthyListener) {
+        this(memoryStatus, heapMemoryManager, unhealthyListener, Time.clock());
+    }
 
-    public HealthExpirationStrategy(DaemonMemoryStatus memoryStatus) {
+    @VisibleForTesting
+    HealthExpirationStrategy(DaemonMemoryStatus memoryStatus, HeapMemoryManager heapMemoryManager, DaemonExpirationListener unhealthyListener, Clock clock) {
+        this.memoryStatus = memoryStatus;
+        this.clock = clock;
+        this.heapMemoryManager = heapMemoryManager;
+        this.unhealthyListener = unhealthyListener;
         this.strategy = new AnyDaemonExpirationStrategy(ImmutableList.of(
             new GcThrashingDaemonExpirationStrategy(memoryStatus),
             new LowHeapSpaceDaemonExpirationStrategy(memoryStatus),
@@ -35,7 +67,25 @@ public class HealthExpirationStrategy implements DaemonExpirationStrategy {
 
     @Override
     public DaemonExpirationResult checkExpiration() {
-        return strategy.checkExpiration();
+        if (memoryStatus.isHeapUnderPressure()) {
+            releaseInMemoryCaches();
+        } else {
+            heapMemoryManager.onHeapPressureRelieved();
+        }
+        DaemonExpirationResult result = strategy.checkExpiration();
+        if (result.getStatus() != DO_NOT_EXPIRE) {
+            unhealthyListener.onExpirationEvent(result);
+        }
+        return result;
+    }
+
+    private synchronized void releaseInMemoryCaches() {
+        long now = clock.getCurrentTime();
+        if (lastReleaseTime >= 0 && now - lastReleaseTime < MIN_RELEASE_INTERVAL_MILLIS) {
+            return;
+        }
+        lastReleaseTime = now;
+        heapMemoryManager.onHeapPressure(memoryStatus.getHeapUsedPercent());
     }
 
 }
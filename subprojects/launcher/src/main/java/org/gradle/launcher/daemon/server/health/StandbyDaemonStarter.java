@@ -0,0 +1,119 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.launcher.daemon.server.health;
+
+import org.gradle.api.internal.DocumentationRegistry;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.jvm.Jvm;
+import org.gradle.launcher.daemon.client.DaemonGreeter;
+import org.gradle.launcher.daemon.client.DefaultDaemonStarter;
+import org.gradle.launcher.daemon.configuration.DaemonServerConfiguration;
+import org.gradle.launcher.daemon.configuration.DefaultDaemonServerConfiguration;
+import org.gradle.launcher.daemon.context.DaemonContext;
+import org.gradle.launcher.daemon.diagnostics.DaemonStartupInfo;
+import org.gradle.launcher.daemon.registry.DaemonDir;
+import org.gradle.launcher.daemon.registry.DaemonInfo;
+import org.gradle.launcher.daemon.registry.DaemonRegistry;
+import org.gradle.launcher.daemon.server.expiry.DaemonExpirationListener;
+import org.gradle.launcher.daemon.server.expiry.DaemonExpirationResult;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.gradle.launcher.daemon.server.api.DaemonStateControl.State.Idle;
+import static org.gradle.launcher.daemon.server.expiry.DaemonExpirationStatus.DO_NOT_EXPIRE;
+
+/**
+ * Starts a replacement daemon with the same configuration when this daemon expires because it is unhealthy, so that the next build does not have to wait for a new daemon to start.
+ *
+ * <p>Opt-in via the {@value #ENABLED_PROPERTY} system property.</p>
+ */
+public class StandbyDaemonStarter implements DaemonExpirationListener, Stoppable {
+    public static final String ENABLED_PROPERTY = "org.gradle.internal.daemon.standby";
+    private static final Logger LOGGER = Logging.getLogger(StandbyDaemonStarter.class);
+
+    private final DaemonServerConfiguration configuration;
+    private final DaemonContext daemonContext;
+    private final DaemonDir daemonDir;
+    private final DaemonRegistry daemonRegistry;
+    private final ManagedExecutor executor;
+    private final AtomicBoolean started = new AtomicBoolean();
+
+    public StandbyDaemonStarter(DaemonServerConfiguration configuration, DaemonContext daemonContext, DaemonDir daemonDir, DaemonRegistry daemonRegistry, ExecutorFactory executorFactory) {
+        this.configuration = configuration;
+        this.daemonContext = daemonContext;
+        this.daemonDir = daemonDir;
+        this.daemonRegistry = daemonRegistry;
+        this.executor = executorFactory.create("Standby daemon starter");
+    }
+
+    @Override
+    public void onExpirationEvent(DaemonExpirationResult result) {
+        if (result.getStatus() == DO_NOT_EXPIRE || configuration.isSingleUse() || !Boolean.getBoolean(ENABLED_PROPERTY)) {
+            return;
+        }
+        if (!started.compareAndSet(false, true)) {
+            return;
+        }
+        LOGGER.info("Starting a standby daemon to replace this daemon, which is expiring {}.", result.getReason());
+        // Don't hold up the build that triggered the expiration
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                startStandbyDaemon();
+            }
+        });
+    }
+
+    private void startStandbyDaemon() {
+        try {
+            DaemonServerConfiguration standbyConfiguration = new DefaultDaemonServerConfiguration(
+                UUID.randomUUID().toString(),
+                configuration.getBaseDir(),
+                configuration.getGradleUserHomeDir(),
+                configuration.getIdleTimeout(),
+                configuration.getPeriodicCheckIntervalMs(),
+                false,
+                configuration.getPriority(),
+                configuration.getJvmOptions());
+            DaemonStartupInfo startupInfo = DefaultDaemonStarter.startDaemon(Jvm.forHome(daemonContext.getJavaHome()).getJavaExecutable(), standbyConfiguration, daemonDir, new DaemonGreeter(new DocumentationRegistry()));
+            LOGGER.info("Started standby daemon {}", startupInfo);
+
+            // A new daemon advertises itself as busy until the client that started it is done with it.
+            // No client is waiting for this one, so make it available straight away
+            for (DaemonInfo daemonInfo : daemonRegistry.getNotIdle()) {
+                if (daemonInfo.getUid().equals(startupInfo.getUid())) {
+                    daemonRegistry.markState(daemonInfo.getAddress(), Idle);
+                }
+            }
+        } catch (Exception e) {
+            LOGGER.warn("Could not start a standby daemon.", e);
+        }
+    }
+
+    /**
+     * Waits for a standby daemon that is being started to finish starting.
+     */
+    @Override
+    public void stop() {
+        executor.stop();
+    }
+}
@@ -25,6 +25,7 @@ import org.gradle.internal.remote.internal.OutgoingConnector
 import org.gradle.internal.remote.internal.RemoteConnection
 import org.gradle.internal.serialize.Serializer
 import org.gradle.launcher.daemon.configuration.DaemonParameters
+import org.gradle.launcher.daemon.context.DaemonCompatibilitySpec
 import org.gradle.launcher.daemon.context.DaemonContext
 import org.gradle.launcher.daemon.context.DefaultDaemonContext
 import org.gradle.launcher.daemon.diagnostics.DaemonStartupInfo
@@ -103,6 +104,10 @@ class DefaultDaemonConnectorTest extends Specification {
         registry.all.size()
     }
 
+    def compatibilitySpec() {
+        new DaemonCompatibilitySpec(new DefaultDaemonContext("client", javaHome, javaHome, 100, 1000, [], DaemonParameters.Priority.NORMAL))
+    }
+
     abstract static class DummyExplainingSpec implements ExplainingSpec {
         String whyUnsatisfied(Object element) {
             ""
@@ -183,6 +188,54 @@ class DefaultDaemonConnectorTest extends Specification {
         thrown(DaemonConnectionException)
     }
 
+    def "connect() uses the daemon last used for the desired context before looking in the registry"() {
+        given:
+        def spec = compatibilitySpec()
+        startIdleDaemon()
+        assert connector.connect(spec).connection.num == 0
+        registry.markState(registry.all[0].address, Busy)
+
+        expect:
+        def connection = connector.connect(spec)
+        connection.connection.num == 0
+
+        and:
+        numAllDaemons == 1
+    }
+
+    def "connect() looks in the registry when asked again after connecting to the last used daemon"() {
+        given:
+        def spec = compatibilitySpec()
+        startIdleDaemon()
+        assert connector.connect(spec).connection.num == 0
+        registry.markState(registry.all[0].address, Busy)
+        assert connector.connect(spec).connection.num == 0
+
+        expect:
+        def connection = connector.connect(spec)
+        connection.connection.num == 1
+
+        and:
+        numAllDaemons == 2
+        registry.getLastUsed(spec.contextKey).address.num == 1
+    }
+
+    def "last used daemon is forgotten when its address is stale"() {
+        given:
+        def spec = compatibilitySpec()
+        startIdleDaemon()
+        connector.connect(spec)
+        assert registry.getLastUsed(spec.contextKey)
+
+        connector.connector.connect(_ as Address) >> { throw new ConnectException("Problem!", new RuntimeException("foo")) }
+
+        when:
+        connector.maybeConnect({ true } as ExplainingSpec)
+
+        then:
+        registry.getLastUsed(spec.contextKey) == null
+    }
+
     def "suspect address is removed from the registry on connect failure"() {
         given:
         startIdleDaemon()
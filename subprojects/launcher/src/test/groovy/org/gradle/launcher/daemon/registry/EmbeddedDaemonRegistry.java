@@ -42,6 +42,7 @@ import static org.gradle.launcher.daemon.server.api.DaemonStateControl.State.*;
 public class EmbeddedDaemonRegistry implements DaemonRegistry {
     private final List<DaemonStopEvent> stopEvents = Lists.newCopyOnWriteArrayList();
     private final Map<Address, DaemonInfo> daemonInfos = new ConcurrentHashMap<Address, DaemonInfo>();
+    private final Map<String, DaemonInfo> lastUsed = new ConcurrentHashMap<String, DaemonInfo>();
     private final Spec<DaemonInfo> allSpec = new Spec<DaemonInfo>() {
         public boolean isSatisfiedBy(DaemonInfo entry) {
             return true;
@@ -93,6 +94,11 @@ public class EmbeddedDaemonRegistry implements DaemonRegistry {
     @Override
     public void remove(Address address) {
         daemonInfos.remove(address);
+        for (Map.Entry<String, DaemonInfo> entry : lastUsed.entrySet()) {
+            if (entry.getValue().getAddress().equals(address)) {
+                lastUsed.remove(entry.getKey());
+            }
+        }
     }
 
     public void markState(Address address, State state) {
@@ -116,6 +122,16 @@ public class EmbeddedDaemonRegistry implements DaemonRegistry {
         stopEvents.removeAll(events);
     }
 
+    @Override
+    public DaemonInfo getLastUsed(String contextKey) {
+        return lastUsed.get(contextKey);
+    }
+
+    @Override
+    public void storeLastUsed(String contextKey, DaemonInfo info) {
+        lastUsed.put(contextKey, info);
+    }
+
     private List<DaemonInfo> daemonInfosOfEntriesMatching(Spec<DaemonInfo> spec) {
         List<DaemonInfo> matches = new ArrayList<DaemonInfo>();
         for (DaemonInfo daemonInfo : daemonInfos.values()) {
@@ -138,6 +138,35 @@ class PersistentDaemonRegistryTest extends Specification {
         registry.stopEvents.empty
     }
 
+    def "remembers last used daemon per context until it is removed"() {
+        given:
+        def address = address()
+        def info = new DaemonInfo(address, daemonContext(), "password".bytes, Idle)
+        registry.store(info)
+
+        when:
+        registry.storeLastUsed("context", info)
+
+        then:
+        registry.getLastUsed("context").address == address
+        registry.getLastUsed("context").token == "password".bytes
+        registry.getLastUsed("other") == null
+
+        when:
+        registry.remove(address)
+
+        then:
+        registry.getLastUsed("context") == null
+    }
+
+    def "ignores unreadable last used daemon"() {
+        given:
+        tmp.file("last-used/context.bin").write("broken")
+
+        expect:
+        registry.getLastUsed("context") == null
+    }
+
     DaemonContext daemonContext() {
         new DaemonContextBuilder([maybeGetPid: {null}] as ProcessEnvironment).with {
             daemonRegistryDir = tmp.createDir("daemons")
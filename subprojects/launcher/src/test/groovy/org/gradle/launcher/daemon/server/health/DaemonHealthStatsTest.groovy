@@ -16,6 +16,8 @@
 
 package org.gradle.launcher.daemon.server.health
 
+import org.gradle.cache.internal.HeapMemoryHolder
+import org.gradle.cache.internal.HeapMemoryManager
 import org.gradle.internal.event.DefaultListenerManager
 import org.gradle.launcher.daemon.server.health.gc.GarbageCollectionInfo
 import org.gradle.launcher.daemon.server.health.gc.GarbageCollectionMonitor
@@ -29,7 +31,8 @@ class DaemonHealthStatsTest extends Specification {
     def gcInfo = Stub(GarbageCollectionInfo)
     def gcMonitor = Stub(GarbageCollectionMonitor)
     def runningStats = Stub(DaemonRunningStats)
-    def healthStats = new DaemonHealthStats(runningStats, gcInfo, gcMonitor)
+    def heapMemoryManager = new HeapMemoryManager()
+    def healthStats = new DaemonHealthStats(runningStats, gcInfo, gcMonitor, heapMemoryManager)
 
     def "consumes first build"() {
         when:
@@ -74,4 +77,48 @@ class DaemonHealthStatsTest extends Specification {
         healthStats.healthInfo == "Starting 2nd build in daemon [uptime: 3 mins, performance: 98%]"
     }
 
+    def "reports released cache entries"() {
+        def holder = Stub(HeapMemoryHolder) {
+            release() >> 12
+        }
+        heapMemoryManager.addHolder(holder, HeapMemoryManager.Priority.CHEAP_TO_RECREATE)
+        heapMemoryManager.onHeapPressure(80)
+
+        when:
+        gcInfo.getCollectionTime() >> 25
+        runningStats.getBuildCount() >> 1
+        runningStats.getPrettyUpTime() >> "3 mins"
+        runningStats.getAllBuildsTime() >> 1000
+        gcMonitor.getHeapStats() >> {
+            GarbageCollectionStats.noData()
+        }
+        gcMonitor.getNonHeapStats() >> {
+            GarbageCollectionStats.noData()
+        }
+
+        then:
+        healthStats.healthInfo == "Starting 2nd build in daemon [uptime: 3 mins, performance: 98%, released cache entries: 12]"
+    }
+
+    def "reports retained cache entries"() {
+        def holder = Stub(HeapMemoryHolder) {
+            getRetainedValueCount() >> 7
+        }
+        heapMemoryManager.addHolder(holder, HeapMemoryManager.Priority.CHEAP_TO_RECREATE)
+
+        when:
+        gcInfo.getCollectionTime() >> 25
+        runningStats.getBuildCount() >> 1
+        runningStats.getPrettyUpTime() >> "3 mins"
+        runningStats.getAllBuildsTime() >> 1000
+        gcMonitor.getHeapStats() >> {
+            GarbageCollectionStats.noData()
+        }
+        gcMonitor.getNonHeapStats() >> {
+            GarbageCollectionStats.noData()
+        }
+
+        then:
+        healthStats.healthInfo == "Starting 2nd build in daemon [uptime: 3 mins, performance: 98%, cache entries: 7]"
+    }
 }
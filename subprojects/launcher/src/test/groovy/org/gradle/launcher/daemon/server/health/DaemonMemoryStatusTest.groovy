@@ -58,6 +58,27 @@ class DaemonMemoryStatusTest extends Specification {
         1.0           | 75             | 1.0  | 100   | true
     }
 
+    @Unroll
+    def "knows when heap is under pressure (#usageThreshold - 10 <= #usage)"() {
+        when:
+        def status = create(usageThreshold, 100, 100, 100)
+        stats.getHeapStats() >> {
+            new GarbageCollectionStats(0, usage, 100, 10)
+        }
+
+        then:
+        status.isHeapUnderPressure() == underPressure
+
+        where:
+        usageThreshold | usage | underPressure
+        90             | 100   | true
+        90             | 80    | true
+        90             | 79    | false
+        75             | 65    | true
+        75             | 64    | false
+        0              | 100   | false
+    }
+
     @Unroll
     def "knows when metaspace is exhausted (#usageThreshold <= #usage, #usageThreshold <= #usage)"() {
         when:
@@ -116,6 +137,9 @@ class DaemonMemoryStatusTest extends Specification {
         then:
         !status.isHeapSpaceExhausted()
 
+        and:
+        !status.isHeapUnderPressure()
+
         and:
         !status.isNonHeapSpaceExhausted()
 
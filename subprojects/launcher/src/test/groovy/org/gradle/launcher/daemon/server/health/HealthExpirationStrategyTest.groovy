@@ -0,0 +1,61 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.launcher.daemon.server.health
+
+import org.gradle.cache.internal.HeapMemoryManager
+import org.gradle.internal.time.MockClock
+import org.gradle.launcher.daemon.server.expiry.DaemonExpirationListener
+import spock.lang.Specification
+
+class HealthExpirationStrategyTest extends Specification {
+    def memoryStatus = Stub(DaemonMemoryStatus) {
+        getHeapUsedPercent() >> 80
+    }
+    def heapMemoryManager = Mock(HeapMemoryManager)
+    def clock = new MockClock()
+    def strategy = new HealthExpirationStrategy(memoryStatus, heapMemoryManager, Stub(DaemonExpirationListener), clock)
+
+    def "releases in-memory caches at most once per interval while the heap is under pressure"() {
+        memoryStatus.isHeapUnderPressure() >> true
+
+        when:
+        strategy.checkExpiration()
+        clock.increment(1000)
+        strategy.checkExpiration()
+
+        then:
+        1 * heapMemoryManager.onHeapPressure(80)
+
+        when:
+        clock.increment(30000)
+        strategy.checkExpiration()
+
+        then:
+        1 * heapMemoryManager.onHeapPressure(80)
+    }
+
+    def "reports that pressure is relieved"() {
+        memoryStatus.isHeapUnderPressure() >> false
+
+        when:
+        strategy.checkExpiration()
+
+        then:
+        1 * heapMemoryManager.onHeapPressureRelieved()
+        0 * heapMemoryManager.onHeapPressure(_)
+    }
+}
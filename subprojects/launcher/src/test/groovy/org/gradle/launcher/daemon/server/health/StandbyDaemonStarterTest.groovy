@@ -0,0 +1,88 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.launcher.daemon.server.health
+
+import org.gradle.internal.concurrent.ExecutorFactory
+import org.gradle.internal.concurrent.ManagedExecutor
+import org.gradle.launcher.daemon.configuration.DaemonServerConfiguration
+import org.gradle.launcher.daemon.context.DaemonContext
+import org.gradle.launcher.daemon.registry.DaemonDir
+import org.gradle.launcher.daemon.registry.DaemonRegistry
+import org.gradle.launcher.daemon.server.expiry.DaemonExpirationResult
+import org.gradle.util.SetSystemProperties
+import org.junit.Rule
+import spock.lang.Specification
+
+import static org.gradle.launcher.daemon.server.expiry.DaemonExpirationStatus.GRACEFUL_EXPIRE
+
+class StandbyDaemonStarterTest extends Specification {
+    @Rule SetSystemProperties systemProperties = new SetSystemProperties()
+
+    def configuration = Stub(DaemonServerConfiguration)
+    def executor = Mock(ManagedExecutor)
+    def executorFactory = Stub(ExecutorFactory) {
+        create(_) >> executor
+    }
+    def starter = new StandbyDaemonStarter(configuration, Stub(DaemonContext), Stub(DaemonDir), Stub(DaemonRegistry), executorFactory)
+    def unhealthy = new DaemonExpirationResult(GRACEFUL_EXPIRE, "after running out of JVM memory")
+
+    def "does not start a standby daemon unless enabled"() {
+        when:
+        starter.onExpirationEvent(unhealthy)
+
+        then:
+        0 * executor._
+    }
+
+    def "starts a single standby daemon when enabled"() {
+        given:
+        System.setProperty(StandbyDaemonStarter.ENABLED_PROPERTY, "true")
+
+        when:
+        starter.onExpirationEvent(DaemonExpirationResult.NOT_TRIGGERED)
+
+        then:
+        0 * executor._
+
+        when:
+        starter.onExpirationEvent(unhealthy)
+        starter.onExpirationEvent(unhealthy)
+
+        then:
+        1 * executor.execute(_ as Runnable)
+    }
+
+    def "does not start a standby daemon for a single use daemon"() {
+        given:
+        System.setProperty(StandbyDaemonStarter.ENABLED_PROPERTY, "true")
+        configuration.isSingleUse() >> true
+
+        when:
+        starter.onExpirationEvent(unhealthy)
+
+        then:
+        0 * executor._
+    }
+
+    def "waits for a standby daemon being started when stopped"() {
+        when:
+        starter.stop()
+
+        then:
+        1 * executor.stop()
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.remote.internal.hub;
+
+import org.gradle.api.Action;
+import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.remote.ConnectionAcceptor;
+import org.gradle.internal.remote.MessagingClient;
+import org.gradle.internal.remote.MessagingServer;
+import org.gradle.internal.remote.ObjectConnection;
+import org.gradle.internal.remote.internal.inet.UnixDomainSockets;
+import org.gradle.internal.remote.services.MessagingServices;
+import org.gradle.internal.serialize.BaseSerializerFactory;
+import org.gradle.internal.serialize.DefaultSerializerRegistry;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how many messages, and how many bytes of payload, one object connection can send to another in the same process, over TCP and over Unix domain sockets.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class MessageHubBenchmark {
+    private static final int MESSAGES = 1000;
+
+    @Param({"tcp", "uds"})
+    String transport;
+
+    @Param({"100", "65536"})
+    int payloadSize;
+
+    private MessagingServices services;
+    private ConnectionAcceptor acceptor;
+    private ObjectConnection serverConnection;
+    private ObjectConnection clientConnection;
+    private MessageSink sink;
+    private byte[] payload;
+    private final Semaphore received = new Semaphore(0);
+
+    @Setup
+    public void setup() throws InterruptedException {
+        if (transport.equals("uds")) {
+            if (!UnixDomainSockets.isSupported()) {
+                throw new IllegalStateException("Unix domain sockets are not supported by this JVM.");
+            }
+            System.setProperty(UnixDomainSockets.ENABLED_PROPERTY, "true");
+        } else {
+            System.clearProperty(UnixDomainSockets.ENABLED_PROPERTY);
+        }
+        payload = new byte[payloadSize];
+        final DefaultSerializerRegistry serializers = new DefaultSerializerRegistry();
+        serializers.register(byte[].class, BaseSerializerFactory.BYTE_ARRAY_SERIALIZER);
+        services = new MessagingServices();
+        final BlockingQueue<ObjectConnection> accepted = new LinkedBlockingQueue<ObjectConnection>();
+        acceptor = services.get(MessagingServer.class).accept(new Action<ObjectConnection>() {
+            @Override
+            public void execute(ObjectConnection connection) {
+                connection.useParameterSerializers(serializers);
+                connection.addIncoming(MessageSink.class, new MessageSink() {
+                    @Override
+                    public void receive(byte[] message) {
+                        received.release();
+                    }
+                });
+                connection.connect();
+                accepted.add(connection);
+            }
+        });
+        clientConnection = services.get(MessagingClient.class).getConnection(acceptor.getAddress());
+        clientConnection.useParameterSerializers(serializers);
+        sink = clientConnection.addOutgoing(MessageSink.class);
+        clientConnection.connect();
+        serverConnection = accepted.take();
+    }
+
+    @TearDown
+    public void tearDown() {
+        CompositeStoppable.stoppable(clientConnection, serverConnection, acceptor, services).stop();
+        System.clearProperty(UnixDomainSockets.ENABLED_PROPERTY);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public void sendMessages(Transferred transferred) throws InterruptedException {
+        for (int i = 0; i < MESSAGES; i++) {
+            sink.receive(payload);
+        }
+        received.acquire(MESSAGES);
+        transferred.bytes += (long) MESSAGES * payloadSize;
+    }
+
+    public interface MessageSink {
+        void receive(byte[] message);
+    }
+
+    /**
+     * Reports the payload bytes sent per second next to the messages per second.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Transferred {
+        public long bytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytes = 0;
+        }
+    }
+}
@@ -16,8 +16,11 @@
 package org.gradle.internal.remote.internal.inet;
 
 import com.google.common.collect.Iterables;
+import com.google.common.base.Objects;
 import com.google.common.collect.Lists;
 
+import javax.annotation.Nullable;
+import java.io.File;
 import java.net.InetAddress;
 import java.util.ArrayList;
 import java.util.List;
@@ -27,15 +30,21 @@ public class MultiChoiceAddress implements InetEndpoint {
     private final UUID canonicalAddress;
     private final int port;
     private final List<InetAddress> candidates;
+    private final File unixSocket;
 
     public MultiChoiceAddress(UUID canonicalAddress, int port, List<InetAddress> candidates) {
+        this(canonicalAddress, port, candidates, null);
+    }
+
+    public MultiChoiceAddress(UUID canonicalAddress, int port, List<InetAddress> candidates, @Nullable File unixSocket) {
         this.canonicalAddress = canonicalAddress;
         this.port = port;
         this.candidates = new ArrayList<InetAddress>(candidates);
+        this.unixSocket = unixSocket;
     }
 
     public String getDisplayName() {
-        return "[" + canonicalAddress + " port:" + port + ", addresses:" + candidates + "]";
+        return "[" + canonicalAddress + " port:" + port + ", addresses:" + candidates + (unixSocket == null ? "" : ", socket:" + unixSocket) + "]";
     }
 
     public UUID getCanonicalAddress() {
@@ -50,6 +59,14 @@ public class MultiChoiceAddress implements InetEndpoint {
         return port;
     }
 
+    /**
+     * The Unix domain socket that the endpoint also accepts connections on, if any. Only reachable from the same machine.
+     */
+    @Nullable
+    public File getUnixSocket() {
+        return unixSocket;
+    }
+
     @Override
     public String toString() {
         return getDisplayName();
@@ -64,7 +81,7 @@ public class MultiChoiceAddress implements InetEndpoint {
             return false;
         }
         MultiChoiceAddress other = (MultiChoiceAddress) o;
-        return other.canonicalAddress.equals(canonicalAddress) && port == other.port && candidates.equals(other.candidates);
+        return other.canonicalAddress.equals(canonicalAddress) && port == other.port && candidates.equals(other.candidates) && Objects.equal(unixSocket, other.unixSocket);
     }
 
     @Override
@@ -73,6 +90,10 @@ public class MultiChoiceAddress implements InetEndpoint {
     }
 
     public MultiChoiceAddress addAddresses(Iterable<InetAddress> candidates) {
-        return new MultiChoiceAddress(canonicalAddress, port, Lists.newArrayList(Iterables.concat(candidates, this.candidates)));
+        return new MultiChoiceAddress(canonicalAddress, port, Lists.newArrayList(Iterables.concat(candidates, this.candidates)), unixSocket);
+    }
+
+    public MultiChoiceAddress withUnixSocket(File unixSocket) {
+        return new MultiChoiceAddress(canonicalAddress, port, candidates, unixSocket);
     }
 }
@@ -20,6 +20,7 @@ import org.gradle.internal.serialize.Decoder;
 import org.gradle.internal.serialize.Encoder;
 import org.gradle.internal.serialize.Serializer;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.InetAddress;
 import java.util.ArrayList;
@@ -37,7 +38,8 @@ public class MultiChoiceAddressSerializer implements Serializer<MultiChoiceAddre
             InetAddress address = InetAddress.getByAddress(decoder.readBinary());
             addresses.add(address);
         }
-        return new MultiChoiceAddress(canonicalAddress, port, addresses);
+        String unixSocket = decoder.readNullableString();
+        return new MultiChoiceAddress(canonicalAddress, port, addresses, unixSocket == null ? null : new File(unixSocket));
     }
 
     @Override
@@ -50,5 +52,7 @@ public class MultiChoiceAddressSerializer implements Serializer<MultiChoiceAddre
         for (InetAddress inetAddress : address.getCandidates()) {
             encoder.writeBinary(inetAddress.getAddress());
         }
+        File unixSocket = address.getUnixSocket();
+        encoder.writeNullableString(unixSocket == null ? null : unixSocket.getPath());
     }
 }
@@ -21,21 +21,39 @@ import org.gradle.internal.remote.internal.RemoteConnection;
 import org.gradle.internal.serialize.StatefulSerializer;
 import org.gradle.internal.remote.internal.ConnectCompletion;
 
+import javax.annotation.Nullable;
 import java.nio.channels.SocketChannel;
 
 class SocketConnectCompletion implements ConnectCompletion {
     private final SocketChannel socket;
+    private final Object localAddress;
+    private final Object remoteAddress;
 
     public SocketConnectCompletion(SocketChannel socket) {
+        this(socket, null, null);
+    }
+
+    /**
+     * Creates a completion for a socket that is not bound to an internet address, which is described by the given addresses.
+     */
+    public SocketConnectCompletion(SocketChannel socket, @Nullable Object localAddress, @Nullable Object remoteAddress) {
         this.socket = socket;
+        this.localAddress = localAddress;
+        this.remoteAddress = remoteAddress;
     }
 
     @Override
     public String toString() {
+        if (localAddress != null) {
+            return localAddress + " to " + remoteAddress;
+        }
         return socket.socket().getLocalSocketAddress() + " to " + socket.socket().getRemoteSocketAddress();
     }
 
     public <T> RemoteConnection<T> create(StatefulSerializer<T> serializer) {
+        if (localAddress != null) {
+            return new SocketConnection<T>(socket, new KryoBackedMessageSerializer(), serializer, localAddress, remoteAddress);
+        }
         return new SocketConnection<T>(socket, new KryoBackedMessageSerializer(), serializer);
     }
 }
@@ -33,7 +33,9 @@ import org.slf4j.LoggerFactory;
 
 import java.io.*;
 import java.net.InetSocketAddress;
+import java.net.SocketAddress;
 import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
 import java.nio.channels.ClosedSelectorException;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
@@ -42,8 +44,8 @@ import java.nio.channels.SocketChannel;
 public class SocketConnection<T> implements RemoteConnection<T> {
     private static final Logger LOGGER = LoggerFactory.getLogger(SocketConnection.class);
     private final SocketChannel socket;
-    private final SocketInetAddress localAddress;
-    private final SocketInetAddress remoteAddress;
+    private final Object localAddress;
+    private final Object remoteAddress;
     private final ObjectWriter<T> objectWriter;
     private final ObjectReader<T> objectReader;
     private final InputStream instr;
@@ -51,7 +53,16 @@ public class SocketConnection<T> implements RemoteConnection<T> {
     private final FlushableEncoder encoder;
 
     public SocketConnection(SocketChannel socket, MessageSerializer streamSerializer, StatefulSerializer<T> messageSerializer) {
+        this(socket, streamSerializer, messageSerializer, toAddress(socket.socket().getLocalSocketAddress()), toAddress(socket.socket().getRemoteSocketAddress()));
+    }
+
+    /**
+     * Creates a connection for a socket that is not bound to an internet address, which is described by the given addresses.
+     */
+    public SocketConnection(SocketChannel socket, MessageSerializer streamSerializer, StatefulSerializer<T> messageSerializer, Object localAddress, Object remoteAddress) {
         this.socket = socket;
+        this.localAddress = localAddress;
+        this.remoteAddress = remoteAddress;
         try {
             // NOTE: we use non-blocking IO as there is no reliable way when using blocking IO to shutdown reads while
             // keeping writes active. For example, Socket.shutdownInput() does not work on Windows.
@@ -61,15 +72,16 @@ public class SocketConnection<T> implements RemoteConnection<T> {
         } catch (IOException e) {
             throw UncheckedException.throwAsUncheckedException(e);
         }
-        InetSocketAddress localSocketAddress = (InetSocketAddress) socket.socket().getLocalSocketAddress();
-        localAddress = new SocketInetAddress(localSocketAddress.getAddress(), localSocketAddress.getPort());
-        InetSocketAddress remoteSocketAddress = (InetSocketAddress) socket.socket().getRemoteSocketAddress();
-        remoteAddress = new SocketInetAddress(remoteSocketAddress.getAddress(), remoteSocketAddress.getPort());
         objectReader = messageSerializer.newReader(streamSerializer.newDecoder(instr));
         encoder = streamSerializer.newEncoder(outstr);
         objectWriter = messageSerializer.newWriter(encoder);
     }
 
+    private static SocketInetAddress toAddress(SocketAddress socketAddress) {
+        InetSocketAddress inetSocketAddress = (InetSocketAddress) socketAddress;
+        return new SocketInetAddress(inetSocketAddress.getAddress(), inetSocketAddress.getPort());
+    }
+
     @Override
     public String toString() {
         return "socket connection from " + localAddress + " to " + remoteAddress;
@@ -216,14 +228,23 @@ public class SocketConnection<T> implements RemoteConnection<T> {
 
     private static class SocketOutputStream extends OutputStream {
         private static final int RETRIES_WHEN_BUFFER_FULL = 2;
-        private Selector selector;
+        private static final DirectByteBufferPool BUFFERS = new DirectByteBufferPool(32 * 1024, 16);
+        // Writes at least this large skip the staging buffer and are handed to the socket together with it
+        private static final int GATHERING_WRITE_THRESHOLD = 8 * 1024;
+        // Heap buffers are copied to a per-thread direct buffer by the JDK, so keep the size of each piece bounded
+        private static final int MAX_GATHERED_BYTES = 128 * 1024;
+        private volatile Selector selector;
         private final SocketChannel socket;
-        private final ByteBuffer buffer;
+        private ByteBuffer buffer;
+        private final ByteBuffer[] stagedOnly = new ByteBuffer[1];
+        private final ByteBuffer[] stagedAndSource = new ByteBuffer[2];
         private final byte[] writeBuffer = new byte[1];
 
         public SocketOutputStream(SocketChannel socket) throws IOException {
             this.socket = socket;
-            buffer = ByteBuffer.allocateDirect(32 * 1024);
+            buffer = BUFFERS.acquire();
+            stagedOnly[0] = buffer;
+            stagedAndSource[0] = buffer;
         }
 
         @Override
@@ -233,7 +254,12 @@ public class SocketConnection<T> implements RemoteConnection<T> {
         }
 
         @Override
-        public void write(byte[] src, int offset, int max) throws IOException {
+        public synchronized void write(byte[] src, int offset, int max) throws IOException {
+            assertOpen();
+            if (max >= GATHERING_WRITE_THRESHOLD) {
+                writeGathering(src, offset, max);
+                return;
+            }
             int remaining = max;
             int currentPos = offset;
             while (remaining > 0) {
@@ -249,8 +275,28 @@ public class SocketConnection<T> implements RemoteConnection<T> {
             }
         }
 
+        /**
+         * Writes whatever is staged followed by the given bytes, without copying the bytes into the staging buffer.
+         */
+        private void writeGathering(byte[] src, int offset, int max) throws IOException {
+            BufferCaster.cast(buffer).flip();
+            int end = offset + max;
+            for (int pos = offset; pos < end; pos += MAX_GATHERED_BYTES) {
+                ByteBuffer source = ByteBuffer.wrap(src, pos, Math.min(MAX_GATHERED_BYTES, end - pos));
+                stagedAndSource[1] = source;
+                while (buffer.hasRemaining() || source.hasRemaining()) {
+                    writeToChannel(stagedAndSource);
+                }
+            }
+            stagedAndSource[1] = null;
+            BufferCaster.cast(buffer).clear();
+        }
+
         @Override
-        public void flush() throws IOException {
+        public synchronized void flush() throws IOException {
+            if (buffer == null) {
+                return;
+            }
             while (buffer.position() > 0) {
                 writeBufferToChannel();
             }
@@ -258,19 +304,23 @@ public class SocketConnection<T> implements RemoteConnection<T> {
 
         private void writeBufferToChannel() throws IOException {
             BufferCaster.cast(buffer).flip();
-            int count = writeWithNonBlockingRetry();
+            writeToChannel(stagedOnly);
+            buffer.compact();
+        }
+
+        private void writeToChannel(ByteBuffer[] buffers) throws IOException {
+            long count = writeWithNonBlockingRetry(buffers);
             if (count == 0) {
                 // buffer was still full after non-blocking retries, now block
                 waitForWriteBufferToDrain();
             }
-            buffer.compact();
         }
 
-        private int writeWithNonBlockingRetry() throws IOException {
-            int count = 0;
+        private long writeWithNonBlockingRetry(ByteBuffer[] buffers) throws IOException {
+            long count = 0;
             int retryCount = 0;
             while (count == 0 && retryCount++ < RETRIES_WHEN_BUFFER_FULL) {
-                count = socket.write(buffer);
+                count = socket.write(buffers);
                 if (count < 0) {
                     throw new EOFException();
                 } else if (count == 0) {
@@ -294,12 +344,35 @@ public class SocketConnection<T> implements RemoteConnection<T> {
             selector.selectNow();
         }
 
+        private void assertOpen() throws IOException {
+            if (buffer == null) {
+                throw new ClosedChannelException();
+            }
+        }
+
         @Override
         public void close() throws IOException {
+            // Wake up a writer that is blocked waiting for the peer before waiting for it to give up the buffer
+            Selector writeSelector = selector;
+            if (writeSelector != null) {
+                writeSelector.close();
+            }
+            synchronized (this) {
+                releaseBuffer();
+            }
+        }
+
+        private void releaseBuffer() throws IOException {
             if (selector != null) {
                 selector.close();
                 selector = null;
             }
+            if (buffer != null) {
+                BUFFERS.release(buffer);
+                buffer = null;
+                stagedOnly[0] = null;
+                stagedAndSource[0] = null;
+            }
         }
     }
 }
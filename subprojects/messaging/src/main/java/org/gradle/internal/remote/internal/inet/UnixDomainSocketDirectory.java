@@ -0,0 +1,194 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.remote.internal.inet;
+
+import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.concurrent.Stoppable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The directory that holds the Unix domain sockets of this process. Each process uses a directory of its own below a directory of the current user,
+ * and holds a lock on it while it is running. The directories of processes that went away without removing them are deleted when the next process
+ * creates its directory.
+ */
+class UnixDomainSocketDirectory implements Stoppable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(UnixDomainSocketDirectory.class);
+    private static final String PREFIX = "p-";
+    private static final String LOCK_FILE_NAME = "lock";
+    // Gives a process that just created its directory the time to lock it
+    private static final long MIN_AGE_OF_UNLOCKED_DIR = TimeUnit.MINUTES.toMillis(1);
+    // Closing any file handle of a lock file releases the lock of this process, so the lock files of this process must not be opened again
+    private static final Set<File> DIRS_OF_THIS_PROCESS = Collections.synchronizedSet(new HashSet<File>());
+
+    private final File baseDir;
+    private File dir;
+    private RandomAccessFile lockFile;
+    private FileLock lock;
+    private int socketCount;
+
+    UnixDomainSocketDirectory(File baseDir) {
+        this.baseDir = new File(baseDir, "gradle-uds-" + System.getProperty("user.name"));
+    }
+
+    /**
+     * Returns a new socket file in the directory of this process, or null when the directory cannot be created.
+     */
+    @Nullable
+    synchronized File newSocketFile() {
+        if (dir == null && !create()) {
+            return null;
+        }
+        return new File(dir, (socketCount++) + ".sock");
+    }
+
+    private boolean create() {
+        if (!baseDir.isDirectory() && !baseDir.mkdirs()) {
+            LOGGER.debug("Could not create directory {} for Unix domain sockets.", baseDir);
+            return false;
+        }
+        if (!isOwnedAndPrivate(baseDir)) {
+            LOGGER.debug("Directory {} for Unix domain sockets is not owned by the current user or is a link, not using it.", baseDir);
+            return false;
+        }
+        deleteStaleDirs();
+        File candidate = new File(baseDir, PREFIX + UUID.randomUUID().toString().substring(0, 8));
+        if (!candidate.mkdir()) {
+            LOGGER.debug("Could not create directory {} for Unix domain sockets.", candidate);
+            return false;
+        }
+        try {
+            lockFile = new RandomAccessFile(new File(candidate, LOCK_FILE_NAME), "rw");
+            lock = lockFile.getChannel().lock();
+        } catch (IOException e) {
+            LOGGER.debug("Could not lock directory " + candidate + " for Unix domain sockets.", e);
+            CompositeStoppable.stoppable(lockFile).stop();
+            lockFile = null;
+            delete(candidate);
+            return false;
+        }
+        dir = candidate;
+        DIRS_OF_THIS_PROCESS.add(dir);
+        return true;
+    }
+
+    /**
+     * Restricts the permissions of the given directory to 0700, which fails when the directory was created by another user, as only the owner
+     * of a file may change its permissions. The base directory can be in a directory that all users may write to, such as java.io.tmpdir, so
+     * another user could create it, or a link in its place, before this process does.
+     */
+    private static boolean isOwnedAndPrivate(File dir) {
+        try {
+            File canonicalDir = dir.getCanonicalFile();
+            if (!canonicalDir.equals(new File(dir.getAbsoluteFile().getParentFile().getCanonicalFile(), dir.getName()))) {
+                return false;
+            }
+        } catch (IOException e) {
+            return false;
+        }
+        return dir.setReadable(false, false)
+            && dir.setWritable(false, false)
+            && dir.setExecutable(false, false)
+            && dir.setReadable(true, true)
+            && dir.setWritable(true, true)
+            && dir.setExecutable(true, true);
+    }
+
+    private void deleteStaleDirs() {
+        File[] dirs = baseDir.listFiles(new FileFilter() {
+            @Override
+            public boolean accept(File file) {
+                return file.isDirectory() && file.getName().startsWith(PREFIX);
+            }
+        });
+        if (dirs == null) {
+            return;
+        }
+        for (File candidate : dirs) {
+            if (!DIRS_OF_THIS_PROCESS.contains(candidate) && isStale(candidate)) {
+                LOGGER.debug("Deleting stale Unix domain socket directory {}.", candidate);
+                delete(candidate);
+            }
+        }
+    }
+
+    private static boolean isStale(File candidate) {
+        File lockFile = new File(candidate, LOCK_FILE_NAME);
+        if (!lockFile.isFile()) {
+            return System.currentTimeMillis() - candidate.lastModified() > MIN_AGE_OF_UNLOCKED_DIR;
+        }
+        RandomAccessFile file = null;
+        try {
+            file = new RandomAccessFile(lockFile, "rw");
+            FileChannel channel = file.getChannel();
+            FileLock lock = channel.tryLock();
+            if (lock == null) {
+                // Held by another process
+                return false;
+            }
+            lock.release();
+            return true;
+        } catch (OverlappingFileLockException e) {
+            return false;
+        } catch (IOException e) {
+            // Cannot tell whether the directory is in use, so keep it
+            return false;
+        } finally {
+            CompositeStoppable.stoppable(file).stop();
+        }
+    }
+
+    private static void delete(File dir) {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (dir == null) {
+            return;
+        }
+        try {
+            lock.release();
+        } catch (IOException e) {
+            // Ignore, the lock goes away when the file is closed
+        }
+        CompositeStoppable.stoppable(lockFile).stop();
+        delete(dir);
+        DIRS_OF_THIS_PROCESS.remove(dir);
+        dir = null;
+    }
+}
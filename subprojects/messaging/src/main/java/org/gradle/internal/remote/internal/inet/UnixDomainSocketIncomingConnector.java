@@ -0,0 +1,146 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.remote.internal.inet;
+
+import org.gradle.api.Action;
+import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.remote.Address;
+import org.gradle.internal.remote.ConnectionAcceptor;
+import org.gradle.internal.remote.internal.ConnectCompletion;
+import org.gradle.internal.remote.internal.IncomingConnector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Accepts connections through a Unix domain socket, in addition to the TCP connections accepted by the given connector.
+ * Falls back to only accepting TCP connections when the socket cannot be created.
+ *
+ * <p>The sockets are created in a directory of this process below the given base directory, which is removed when the connector is stopped.
+ * Directories left behind by processes that did not stop their connector are removed when a connector in another process creates its directory.</p>
+ */
+public class UnixDomainSocketIncomingConnector implements IncomingConnector, Stoppable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(UnixDomainSocketIncomingConnector.class);
+    private final TcpIncomingConnector tcpConnector;
+    private final ExecutorFactory executorFactory;
+    private final UnixDomainSocketDirectory socketDir;
+
+    public UnixDomainSocketIncomingConnector(TcpIncomingConnector tcpConnector, ExecutorFactory executorFactory, File baseDir) {
+        this.tcpConnector = tcpConnector;
+        this.executorFactory = executorFactory;
+        this.socketDir = new UnixDomainSocketDirectory(baseDir);
+    }
+
+    public ConnectionAcceptor accept(Action<ConnectCompletion> action, boolean allowRemote) {
+        final ConnectionAcceptor tcpAcceptor = tcpConnector.accept(action, allowRemote);
+        if (!UnixDomainSockets.isSupported()) {
+            return tcpAcceptor;
+        }
+        MultiChoiceAddress tcpAddress = (MultiChoiceAddress) tcpAcceptor.getAddress();
+        final File socketFile = socketDir.newSocketFile();
+        if (socketFile == null) {
+            return tcpAcceptor;
+        }
+        if (!UnixDomainSockets.canUsePath(socketFile)) {
+            LOGGER.debug("Path {} is too long for a Unix domain socket, accepting TCP connections only.", socketFile);
+            return tcpAcceptor;
+        }
+
+        final ServerSocketChannel serverChannel;
+        try {
+            serverChannel = UnixDomainSockets.openServerChannel(socketFile);
+        } catch (IOException e) {
+            LOGGER.debug("Could not listen on Unix domain socket " + socketFile + ", accepting TCP connections only.", e);
+            return tcpAcceptor;
+        }
+        // Only processes of the same user may connect
+        socketFile.setReadable(false, false);
+        socketFile.setWritable(false, false);
+        socketFile.setReadable(true, true);
+        socketFile.setWritable(true, true);
+
+        final Address address = tcpAddress.withUnixSocket(socketFile);
+        LOGGER.debug("Listening on {}.", address);
+
+        final ManagedExecutor executor = executorFactory.create("Incoming Unix domain socket connector on " + socketFile);
+        executor.execute(new Receiver(serverChannel, socketFile, action));
+
+        return new ConnectionAcceptor() {
+            public Address getAddress() {
+                return address;
+            }
+
+            public void requestStop() {
+                tcpAcceptor.requestStop();
+                CompositeStoppable.stoppable(serverChannel).stop();
+                socketFile.delete();
+            }
+
+            public void stop() {
+                requestStop();
+                CompositeStoppable.stoppable(tcpAcceptor, executor).stop();
+            }
+        };
+    }
+
+    public void stop() {
+        socketDir.stop();
+    }
+
+    private static class Receiver implements Runnable {
+        private final ServerSocketChannel serverChannel;
+        private final File socketFile;
+        private final Action<ConnectCompletion> action;
+
+        public Receiver(ServerSocketChannel serverChannel, File socketFile, Action<ConnectCompletion> action) {
+            this.serverChannel = serverChannel;
+            this.socketFile = socketFile;
+            this.action = action;
+        }
+
+        public void run() {
+            try {
+                try {
+                    while (true) {
+                        final SocketChannel socket = serverChannel.accept();
+                        LOGGER.debug("Accepted connection on {}.", socketFile);
+                        try {
+                            action.execute(new SocketConnectCompletion(socket, "unix socket " + socketFile, "local process"));
+                        } catch (Throwable t) {
+                            socket.close();
+                            throw t;
+                        }
+                    }
+                } catch (ClosedChannelException e) {
+                    // Ignore
+                } catch (Throwable e) {
+                    LOGGER.error("Could not accept local connection.", e);
+                }
+            } finally {
+                CompositeStoppable.stoppable(serverChannel).stop();
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.remote.internal.inet;
+
+import org.gradle.internal.remote.Address;
+import org.gradle.internal.remote.internal.ConnectCompletion;
+import org.gradle.internal.remote.internal.ConnectException;
+import org.gradle.internal.remote.internal.OutgoingConnector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Connects through the Unix domain socket of the destination when it has one, and through TCP otherwise.
+ */
+public class UnixDomainSocketOutgoingConnector implements OutgoingConnector {
+    private static final Logger LOGGER = LoggerFactory.getLogger(UnixDomainSocketOutgoingConnector.class);
+    private final OutgoingConnector tcpConnector;
+
+    public UnixDomainSocketOutgoingConnector(OutgoingConnector tcpConnector) {
+        this.tcpConnector = tcpConnector;
+    }
+
+    public ConnectCompletion connect(Address destinationAddress) throws ConnectException {
+        if (destinationAddress instanceof MultiChoiceAddress) {
+            File socketFile = ((MultiChoiceAddress) destinationAddress).getUnixSocket();
+            // The socket file only exists when the destination is on this machine
+            if (socketFile != null && socketFile.exists() && UnixDomainSockets.isSupported()) {
+                LOGGER.debug("Attempting to connect to {}.", socketFile);
+                try {
+                    SocketChannel socket = UnixDomainSockets.connect(socketFile);
+                    LOGGER.debug("Connected to {}.", socketFile);
+                    return new SocketConnectCompletion(socket, "local process", "unix socket " + socketFile);
+                } catch (IOException e) {
+                    LOGGER.debug("Cannot connect to " + socketFile + ", trying TCP instead.", e);
+                }
+            }
+        }
+        return tcpConnector.connect(destinationAddress);
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.remote.internal.inet;
+
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.os.OperatingSystem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.SocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Opens Unix domain socket channels, which are available from Java 16. The channel APIs are accessed reflectively, as this code also needs to run on older Java versions.
+ */
+public class UnixDomainSockets {
+    /**
+     * When set to {@code true}, servers also accept connections through a Unix domain socket. Clients always prefer the Unix domain socket of a server when they can use one.
+     */
+    public static final String ENABLED_PROPERTY = "org.gradle.internal.remote.unixDomainSockets";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(UnixDomainSockets.class);
+    // Leaves some room below the platform limit on the socket path length, which is 104 bytes on macOS
+    private static final int MAX_PATH_LENGTH = 100;
+    private static final UnixDomainSockets INSTANCE = load();
+
+    private final Object unixProtocolFamily;
+    private final Method openServerChannel;
+    private final Method openChannel;
+    private final Method createAddress;
+    private final Method bind;
+
+    private UnixDomainSockets(Object unixProtocolFamily, Method openServerChannel, Method openChannel, Method createAddress, Method bind) {
+        this.unixProtocolFamily = unixProtocolFamily;
+        this.openServerChannel = openServerChannel;
+        this.openChannel = openChannel;
+        this.createAddress = createAddress;
+        this.bind = bind;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static UnixDomainSockets load() {
+        if (OperatingSystem.current().isWindows()) {
+            return null;
+        }
+        try {
+            Class<?> protocolFamilyType = Class.forName("java.net.ProtocolFamily");
+            Object unixProtocolFamily = Enum.valueOf((Class) Class.forName("java.net.StandardProtocolFamily"), "UNIX");
+            Method openServerChannel = ServerSocketChannel.class.getMethod("open", protocolFamilyType);
+            Method openChannel = SocketChannel.class.getMethod("open", protocolFamilyType);
+            Method createAddress = Class.forName("java.net.UnixDomainSocketAddress").getMethod("of", String.class);
+            Method bind = ServerSocketChannel.class.getMethod("bind", SocketAddress.class);
+            return new UnixDomainSockets(unixProtocolFamily, openServerChannel, openChannel, createAddress, bind);
+        } catch (Exception e) {
+            LOGGER.debug("Unix domain sockets are not available in this JVM.");
+            return null;
+        }
+    }
+
+    /**
+     * Returns true when this JVM can connect to a Unix domain socket.
+     */
+    public static boolean isSupported() {
+        return INSTANCE != null;
+    }
+
+    /**
+     * Returns true when servers in this JVM should accept connections through a Unix domain socket.
+     */
+    public static boolean isEnabled() {
+        return isSupported() && Boolean.getBoolean(ENABLED_PROPERTY);
+    }
+
+    static boolean canUsePath(File socketFile) {
+        return socketFile.getAbsolutePath().length() <= MAX_PATH_LENGTH;
+    }
+
+    static ServerSocketChannel openServerChannel(File socketFile) throws IOException {
+        ServerSocketChannel channel = (ServerSocketChannel) INSTANCE.invoke(INSTANCE.openServerChannel, null, INSTANCE.unixProtocolFamily);
+        try {
+            INSTANCE.invoke(INSTANCE.bind, channel, INSTANCE.address(socketFile));
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return channel;
+    }
+
+    static SocketChannel connect(File socketFile) throws IOException {
+        SocketChannel channel = (SocketChannel) INSTANCE.invoke(INSTANCE.openChannel, null, INSTANCE.unixProtocolFamily);
+        try {
+            channel.connect((SocketAddress) INSTANCE.address(socketFile));
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return channel;
+    }
+
+    private Object address(File socketFile) throws IOException {
+        return invoke(createAddress, null, socketFile.getAbsolutePath());
+    }
+
+    private Object invoke(Method method, Object target, Object argument) throws IOException {
+        try {
+            return method.invoke(target, argument);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw UncheckedException.throwAsUncheckedException(e.getCause());
+        } catch (IllegalAccessException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+}
@@ -16,6 +16,7 @@
 
 package org.gradle.internal.remote.services;
 
+import org.gradle.internal.SystemProperties;
 import org.gradle.internal.concurrent.DefaultExecutorFactory;
 import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.concurrent.Stoppable;
@@ -31,7 +32,11 @@ import org.gradle.internal.remote.internal.hub.MessageHubBackedServer;
 import org.gradle.internal.remote.internal.inet.InetAddressFactory;
 import org.gradle.internal.remote.internal.inet.TcpIncomingConnector;
 import org.gradle.internal.remote.internal.inet.TcpOutgoingConnector;
+import org.gradle.internal.remote.internal.inet.UnixDomainSocketIncomingConnector;
+import org.gradle.internal.remote.internal.inet.UnixDomainSocketOutgoingConnector;
+import org.gradle.internal.remote.internal.inet.UnixDomainSockets;
 
+import java.io.File;
 import java.util.UUID;
 
 /**
@@ -61,15 +66,23 @@ public class MessagingServices extends DefaultServiceRegistry implements Stoppab
     }
 
     protected OutgoingConnector createOutgoingConnector() {
-        return new TcpOutgoingConnector();
+        TcpOutgoingConnector tcpConnector = new TcpOutgoingConnector();
+        if (UnixDomainSockets.isSupported()) {
+            return new UnixDomainSocketOutgoingConnector(tcpConnector);
+        }
+        return tcpConnector;
     }
 
     protected IncomingConnector createIncomingConnector(ExecutorFactory executorFactory, InetAddressFactory inetAddressFactory) {
-        return new TcpIncomingConnector(
+        TcpIncomingConnector tcpConnector = new TcpIncomingConnector(
                 executorFactory,
                 inetAddressFactory,
                 idGenerator
         );
+        if (UnixDomainSockets.isEnabled()) {
+            return new UnixDomainSocketIncomingConnector(tcpConnector, executorFactory, new File(SystemProperties.getInstance().getJavaIoTmpDir()));
+        }
+        return tcpConnector;
     }
 
     protected MessagingClient createMessagingClient(OutgoingConnector outgoingConnector, ExecutorFactory executorFactory) {
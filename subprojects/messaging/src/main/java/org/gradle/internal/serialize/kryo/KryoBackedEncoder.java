@@ -16,22 +16,29 @@
 
 package org.gradle.internal.serialize.kryo;
 
+import com.esotericsoftware.kryo.KryoException;
 import com.esotericsoftware.kryo.io.Output;
 import org.gradle.internal.serialize.AbstractEncoder;
 import org.gradle.internal.serialize.FlushableEncoder;
 
 import javax.annotation.Nullable;
 import java.io.Closeable;
+import java.io.IOException;
 import java.io.OutputStream;
 
 public class KryoBackedEncoder extends AbstractEncoder implements FlushableEncoder, Closeable {
     private final Output output;
+    private final OutputStream outputStream;
+    private final int bufferSize;
+    private long writtenDirectly;
 
     public KryoBackedEncoder(OutputStream outputStream) {
         this(outputStream, 4096);
     }
 
     public KryoBackedEncoder(OutputStream outputStream, int bufferSize) {
+        this.outputStream = outputStream;
+        this.bufferSize = bufferSize;
         output = new Output(outputStream, bufferSize);
     }
 
@@ -40,7 +47,21 @@ public class KryoBackedEncoder extends AbstractEncoder implements FlushableEncod
     }
 
     public void writeBytes(byte[] bytes, int offset, int count) {
-        output.writeBytes(bytes, offset, count);
+        if (count < bufferSize) {
+            output.writeBytes(bytes, offset, count);
+            return;
+        }
+        // Copying a large array through the buffer only splits it into buffer sized writes, so hand it to the stream as a whole.
+        // The buffered bytes are handed over first without flushing the stream, so that a buffering stream can send both in one write
+        int buffered = output.position();
+        try {
+            outputStream.write(output.getBuffer(), 0, buffered);
+            outputStream.write(bytes, offset, count);
+        } catch (IOException e) {
+            throw new KryoException(e);
+        }
+        output.setPosition(0);
+        writtenDirectly += buffered + count;
     }
 
     public void writeLong(long value) {
@@ -78,7 +99,7 @@ public class KryoBackedEncoder extends AbstractEncoder implements FlushableEncod
      * Returns the total number of bytes written by this encoder, some of which may still be buffered.
      */
     public long getWritePosition() {
-        return output.total();
+        return output.total() + writtenDirectly;
     }
 
     public void flush() {
@@ -24,4 +24,25 @@ class MultiChoiceAddressSerializerTest extends SerializerSpec {
         expect:
         serialize(address, new MultiChoiceAddressSerializer()) == address
     }
+
+    def "serializes an address with a Unix domain socket"() {
+        def address = new MultiChoiceAddress(UUID.randomUUID(), 1234, [InetAddress.getByName(null)], new File("/tmp/gradle.sock"))
+
+        expect:
+        serialize(address, new MultiChoiceAddressSerializer()) == address
+    }
+
+    def "serializes an address without a Unix domain socket"() {
+        def address = new MultiChoiceAddress(UUID.randomUUID(), 1234, [InetAddress.getByName(null)])
+
+        expect:
+        serialize(address, new MultiChoiceAddressSerializer()).unixSocket == null
+    }
+
+    def "keeps the Unix domain socket when adding addresses"() {
+        def address = new MultiChoiceAddress(UUID.randomUUID(), 1234, [InetAddress.getByName(null)], new File("/tmp/gradle.sock"))
+
+        expect:
+        serialize(address.addAddresses([InetAddress.getLocalHost()]), new MultiChoiceAddressSerializer()).unixSocket == new File("/tmp/gradle.sock")
+    }
 }
@@ -223,6 +223,34 @@ class TcpConnectorTest extends ConcurrentSpec {
         acceptor?.stop()
     }
 
+    def "can send messages larger than the connection buffers"() {
+        def binarySerializer = Serializers.stateful(BaseSerializerFactory.BYTE_ARRAY_SERIALIZER)
+        def small = [1, 2, 3] as byte[]
+        def large = new byte[1024 * 1024]
+        new Random(12).nextBytes(large)
+
+        when:
+        def acceptor = incomingConnector.accept({ ConnectCompletion event ->
+            def connection = event.create(binarySerializer)
+            connection.dispatch(small)
+            connection.dispatch(large)
+            connection.dispatch(small)
+            connection.stop()
+        } as Action, false)
+
+        def connection = outgoingConnector.connect(acceptor.address).create(binarySerializer)
+
+        then:
+        connection.receive() == small
+        connection.receive() == large
+        connection.receive() == small
+        connection.receive() == null
+
+        cleanup:
+        connection?.stop()
+        acceptor?.stop()
+    }
+
     def "returns null on failure to receive due to truncated input"() {
         given:
         def incomingSerializer = { Encoder encoder, String value ->
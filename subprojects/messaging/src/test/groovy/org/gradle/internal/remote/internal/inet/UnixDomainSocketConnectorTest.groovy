@@ -0,0 +1,194 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.remote.internal.inet
+
+import org.gradle.api.Action
+import org.gradle.internal.id.UUIDGenerator
+import org.gradle.internal.remote.internal.ConnectCompletion
+import org.gradle.internal.remote.internal.OutgoingConnector
+import org.gradle.internal.serialize.BaseSerializerFactory
+import org.gradle.internal.serialize.Serializers
+import org.gradle.test.fixtures.concurrent.ConcurrentSpec
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.IgnoreIf
+import spock.lang.Shared
+import spock.lang.Timeout
+
+@Timeout(60)
+class UnixDomainSocketConnectorTest extends ConcurrentSpec {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    @Shared def serializer = Serializers.stateful(BaseSerializerFactory.STRING_SERIALIZER)
+    final def tcpOutgoingConnector = Spy(TcpOutgoingConnector)
+    final def outgoingConnector = new UnixDomainSocketOutgoingConnector(tcpOutgoingConnector)
+    final def tcpIncomingConnector = new TcpIncomingConnector(executorFactory, new InetAddressFactory(), new UUIDGenerator())
+    // Keep the socket path short, as it is limited in length
+    final def socketDir = File.createTempFile("uds", "")
+
+    def setup() {
+        socketDir.delete()
+        socketDir.mkdirs()
+    }
+
+    def cleanup() {
+        socketDir.deleteDir()
+    }
+
+    @IgnoreIf({ !UnixDomainSockets.supported })
+    def "client connects through the Unix domain socket of the server"() {
+        def incomingConnector = new UnixDomainSocketIncomingConnector(tcpIncomingConnector, executorFactory, socketDir)
+
+        when:
+        def acceptor = incomingConnector.accept({ ConnectCompletion event ->
+            def connection = event.create(serializer)
+            connection.dispatch("hello")
+            connection.stop()
+            instant.closed
+        } as Action, false)
+        def connection = outgoingConnector.connect(acceptor.address).create(serializer)
+        thread.blockUntil.closed
+
+        then:
+        acceptor.address.unixSocket.parentFile.parentFile == new File(socketDir, "gradle-uds-" + System.getProperty("user.name"))
+        connection.receive() == "hello"
+        connection.receive() == null
+        0 * tcpOutgoingConnector.connect(_)
+
+        cleanup:
+        connection?.stop()
+        acceptor?.stop()
+        incomingConnector.stop()
+    }
+
+    @IgnoreIf({ !UnixDomainSockets.supported })
+    def "removes socket file when stopped"() {
+        def incomingConnector = new UnixDomainSocketIncomingConnector(tcpIncomingConnector, executorFactory, socketDir)
+
+        when:
+        def acceptor = incomingConnector.accept(Mock(Action), false)
+        def socketFile = acceptor.address.unixSocket
+
+        then:
+        socketFile.exists()
+
+        when:
+        acceptor.stop()
+
+        then:
+        !socketFile.exists()
+
+        when:
+        incomingConnector.stop()
+
+        then:
+        !socketFile.parentFile.exists()
+    }
+
+    @IgnoreIf({ !UnixDomainSockets.supported })
+    def "client falls back to TCP when the socket of the server does not exist"() {
+        def incomingConnector = new UnixDomainSocketIncomingConnector(tcpIncomingConnector, executorFactory, socketDir)
+        Action action = Mock()
+
+        when:
+        def acceptor = incomingConnector.accept(action, false)
+        def address = acceptor.address
+        address.unixSocket.delete()
+        def connection = outgoingConnector.connect(address).create(serializer)
+        thread.blockUntil.connected
+
+        then:
+        1 * tcpOutgoingConnector.connect(address)
+        1 * action.execute(!null) >> { instant.connected }
+
+        cleanup:
+        connection?.stop()
+        acceptor?.stop()
+        incomingConnector.stop()
+    }
+
+    def "server accepts TCP connections only when the socket path is too long"() {
+        def longDir = tmpDir.createDir("x" * 100)
+        def incomingConnector = new UnixDomainSocketIncomingConnector(tcpIncomingConnector, executorFactory, longDir)
+
+        when:
+        def acceptor = incomingConnector.accept(Mock(Action), false)
+
+        then:
+        acceptor.address.unixSocket == null
+
+        cleanup:
+        acceptor?.stop()
+        incomingConnector.stop()
+    }
+
+    @IgnoreIf({ UnixDomainSockets.supported })
+    def "server accepts TCP connections only when Unix domain sockets are not supported"() {
+        def incomingConnector = new UnixDomainSocketIncomingConnector(tcpIncomingConnector, executorFactory, socketDir)
+
+        when:
+        def acceptor = incomingConnector.accept(Mock(Action), false)
+
+        then:
+        acceptor.address.unixSocket == null
+        socketDir.list().length == 0
+
+        cleanup:
+        acceptor?.stop()
+    }
+
+    def "client connects through TCP when the server has no Unix domain socket"() {
+        def tcpConnector = Mock(OutgoingConnector)
+        def connectCompletion = Stub(ConnectCompletion)
+        def address = new MultiChoiceAddress(UUID.randomUUID(), 1234, [InetAddress.getByName(null)])
+
+        when:
+        def result = new UnixDomainSocketOutgoingConnector(tcpConnector).connect(address)
+
+        then:
+        result == connectCompletion
+        1 * tcpConnector.connect(address) >> connectCompletion
+    }
+
+    def "client connects through TCP when the socket file of the server is on another machine"() {
+        def tcpConnector = Mock(OutgoingConnector)
+        def connectCompletion = Stub(ConnectCompletion)
+        def address = new MultiChoiceAddress(UUID.randomUUID(), 1234, [InetAddress.getByName(null)], new File(socketDir, "missing.sock"))
+
+        when:
+        def result = new UnixDomainSocketOutgoingConnector(tcpConnector).connect(address)
+
+        then:
+        result == connectCompletion
+        1 * tcpConnector.connect(address) >> connectCompletion
+    }
+
+    def "client falls back to TCP when it cannot connect to the socket file of the server"() {
+        def tcpConnector = Mock(OutgoingConnector)
+        def connectCompletion = Stub(ConnectCompletion)
+        def notASocket = new File(socketDir, "0.sock")
+        notASocket.text = "not a socket"
+        def address = new MultiChoiceAddress(UUID.randomUUID(), 1234, [InetAddress.getByName(null)], notASocket)
+
+        when:
+        def result = new UnixDomainSocketOutgoingConnector(tcpConnector).connect(address)
+
+        then:
+        result == connectCompletion
+        1 * tcpConnector.connect(address) >> connectCompletion
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.remote.internal.inet
+
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.util.Requires
+import org.gradle.util.TestPrecondition
+import org.junit.Rule
+import spock.lang.Specification
+
+import java.util.concurrent.TimeUnit
+
+class UnixDomainSocketDirectoryTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def userDir = tmpDir.testDirectory.file("gradle-uds-" + System.getProperty("user.name"))
+    def directory = new UnixDomainSocketDirectory(tmpDir.testDirectory)
+
+    def cleanup() {
+        directory.stop()
+    }
+
+    def "creates socket files in a directory of this process"() {
+        when:
+        def first = directory.newSocketFile()
+        def second = directory.newSocketFile()
+
+        then:
+        first.parentFile.parentFile == userDir
+        first.parentFile.directory
+        new File(first.parentFile, "lock").file
+        second.parentFile == first.parentFile
+        second != first
+    }
+
+    @Requires(TestPrecondition.FILE_PERMISSIONS)
+    def "makes the directory of the current user private"() {
+        userDir.createDir().permissions = "rwxrwxrwx"
+
+        when:
+        def socketFile = directory.newSocketFile()
+
+        then:
+        socketFile != null
+        userDir.permissions == "rwx------"
+    }
+
+    @Requires(TestPrecondition.SYMLINKS)
+    def "does not use a directory of the current user that is a link"() {
+        def target = tmpDir.testDirectory.createDir("target")
+        userDir.createLink(target)
+
+        expect:
+        directory.newSocketFile() == null
+        target.list().length == 0
+    }
+
+    def "removes the directory of this process when stopped"() {
+        def socketFile = directory.newSocketFile()
+        socketFile.text = "socket"
+
+        when:
+        directory.stop()
+
+        then:
+        !socketFile.parentFile.exists()
+    }
+
+    def "removes directories of processes that went away"() {
+        def staleDir = userDir.createDir("p-stale")
+        staleDir.createFile("lock")
+        staleDir.createFile("0.sock")
+
+        when:
+        directory.newSocketFile()
+
+        then:
+        !staleDir.exists()
+    }
+
+    def "keeps directories of running processes"() {
+        def other = new UnixDomainSocketDirectory(tmpDir.testDirectory)
+        def otherSocketFile = other.newSocketFile()
+
+        when:
+        def socketFile = directory.newSocketFile()
+
+        then:
+        otherSocketFile.parentFile.directory
+        socketFile.parentFile != otherSocketFile.parentFile
+
+        cleanup:
+        other.stop()
+    }
+
+    def "keeps directories that were just created by another process"() {
+        def newDir = userDir.createDir("p-new")
+        def oldDir = userDir.createDir("p-old")
+        oldDir.lastModified = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(10)
+
+        when:
+        directory.newSocketFile()
+
+        then:
+        newDir.directory
+        !oldDir.exists()
+    }
+
+    def "does not remove other files"() {
+        def otherDir = tmpDir.testDirectory.createDir("p-other")
+        def otherFile = userDir.createFile("p-file")
+
+        when:
+        directory.newSocketFile()
+
+        then:
+        otherDir.directory
+        otherFile.file
+    }
+}
@@ -34,6 +34,24 @@ class KryoBackedCodecTest extends AbstractCodecTest {
         closure.call(decoder)
     }
 
+    def "hands buffered bytes and a large byte array to the stream without flushing it"() {
+        def outstr = Mock(OutputStream)
+        def encoder = new KryoBackedEncoder(outstr, 16)
+        def bytes = new byte[32]
+
+        when:
+        encoder.writeInt(12)
+        encoder.writeBytes(bytes)
+
+        then:
+        1 * outstr.write(_, 0, 4)
+
+        then:
+        1 * outstr.write(bytes, 0, 32)
+        0 * outstr._
+        encoder.writePosition == 36
+    }
+
     def "can query write and read positions"() {
         def outstr = new ByteArrayOutputStream()
         def encoder = new KryoBackedEncoder(outstr)
@@ -62,7 +80,7 @@ class KryoBackedCodecTest extends AbstractCodecTest {
 
         then:
         encoder.writePosition == 4108
-        outstr.size() == 4106
+        outstr.size() == 4108
 
         when:
         encoder.close()
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal;
+
+/**
+ * Retains values on the heap that can be dropped and later recreated, such as the entries of an in-memory cache.
+ *
+ * @see HeapMemoryManager
+ */
+public interface HeapMemoryHolder {
+    /**
+     * Returns the approximate number of values that are currently strongly retained.
+     */
+    long getRetainedValueCount();
+
+    /**
+     * Stops retaining values, so that they can be garbage collected.
+     *
+     * @return the approximate number of values released.
+     */
+    long release();
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal;
+
+import net.jcip.annotations.ThreadSafe;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps track of the in-memory caches of a long lived process, and releases them when the heap is running low.
+ *
+ * <p>Holders are released in priority order: each time pressure is reported, the holders of the next priority are released, until pressure is reported to be relieved.
+ * Once every priority has been released, further reports release all holders again, but only while releasing them has a measurable effect on heap usage.
+ * Callers are expected to limit how often they report pressure, so that the effect of a release can be seen before the next one.</p>
+ */
+@ThreadSafe
+public class HeapMemoryManager {
+    private static final Logger LOGGER = LoggerFactory.getLogger(HeapMemoryManager.class);
+
+    public enum Priority {
+        /**
+         * Values that are cheap to recreate, for example entries that can be read back from a persistent cache.
+         */
+        CHEAP_TO_RECREATE,
+        /**
+         * Values that are expensive to recreate, for example generated classes.
+         */
+        EXPENSIVE_TO_RECREATE
+    }
+
+    private final Object lock = new Object();
+    private final List<List<HeapMemoryHolder>> holders = new ArrayList<List<HeapMemoryHolder>>();
+    private final AtomicLong released = new AtomicLong();
+    private int nextPriority;
+    private int heapUsedPercentAtLastRelease = Integer.MAX_VALUE;
+
+    public HeapMemoryManager() {
+        for (int i = 0; i < Priority.values().length; i++) {
+            holders.add(new ArrayList<HeapMemoryHolder>());
+        }
+    }
+
+    public void addHolder(HeapMemoryHolder holder, Priority priority) {
+        synchronized (lock) {
+            holders.get(priority.ordinal()).add(holder);
+        }
+    }
+
+    public void removeHolder(HeapMemoryHolder holder) {
+        synchronized (lock) {
+            for (List<HeapMemoryHolder> holdersForPriority : holders) {
+                holdersForPriority.remove(holder);
+            }
+        }
+    }
+
+    /**
+     * Called when the heap is running low.
+     *
+     * @param heapUsedPercent the current heap usage, used to tell whether the previous release had an effect.
+     * @return the approximate number of values released.
+     */
+    public long onHeapPressure(int heapUsedPercent) {
+        List<HeapMemoryHolder> toRelease = new ArrayList<HeapMemoryHolder>();
+        synchronized (lock) {
+            if (nextPriority < holders.size()) {
+                toRelease.addAll(holders.get(nextPriority));
+                nextPriority++;
+            } else if (heapUsedPercent < heapUsedPercentAtLastRelease) {
+                for (List<HeapMemoryHolder> holdersForPriority : holders) {
+                    toRelease.addAll(holdersForPriority);
+                }
+            } else {
+                LOGGER.debug("Heap is running low, but releasing in-memory caches did not reduce heap usage. Not releasing them again.");
+                return 0;
+            }
+            heapUsedPercentAtLastRelease = heapUsedPercent;
+        }
+        long count = 0;
+        for (HeapMemoryHolder holder : toRelease) {
+            count += holder.release();
+        }
+        released.addAndGet(count);
+        LOGGER.debug("Heap is running low, released {} in-memory cache values.", count);
+        return count;
+    }
+
+    /**
+     * Called when the heap is no longer running low, so that the next time pressure is reported the cheapest values are released first.
+     */
+    public void onHeapPressureRelieved() {
+        synchronized (lock) {
+            nextPriority = 0;
+            heapUsedPercentAtLastRelease = Integer.MAX_VALUE;
+        }
+    }
+
+    /**
+     * Returns the approximate number of values currently retained by all holders.
+     */
+    public long getRetainedValueCount() {
+        List<HeapMemoryHolder> all = new ArrayList<HeapMemoryHolder>();
+        synchronized (lock) {
+            for (List<HeapMemoryHolder> holdersForPriority : holders) {
+                all.addAll(holdersForPriority);
+            }
+        }
+        long count = 0;
+        for (HeapMemoryHolder holder : all) {
+            count += holder.getRetainedValueCount();
+        }
+        return count;
+    }
+
+    /**
+     * Returns the approximate number of values released since this manager was created.
+     */
+    public long getReleasedValueCount() {
+        return released.get();
+    }
+}
@@ -27,6 +27,11 @@ import org.gradle.cache.MultiProcessSafePersistentIndexedCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -34,12 +39,16 @@ import java.util.concurrent.atomic.AtomicReference;
  * The in-memory cache is invalidated when the backing cache is changed by another process.
  *
  * Also decorates each cache so that updates to the backing cache are made asynchronously.
+ *
+ * The in-memory caches can be released when the heap is running low, as their entries can be read back from the backing caches.
  */
-public class InMemoryCacheDecoratorFactory {
+public class InMemoryCacheDecoratorFactory implements HeapMemoryHolder {
     private final static Logger LOG = LoggerFactory.getLogger(InMemoryCacheDecoratorFactory.class);
     private final boolean longLivingProcess;
     private final HeapProportionalCacheSizer cacheSizer = new HeapProportionalCacheSizer();
     private final CrossBuildInMemoryCache<String, CacheDetails> caches;
+    // Weakly referenced, so that releasing does not keep stores alive that have been dropped from the cross build cache
+    private final Set<Cache<Object, Object>> inMemoryCaches = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<Cache<Object, Object>, Boolean>()));
 
     public InMemoryCacheDecoratorFactory(boolean longLivingProcess, CrossBuildInMemoryCacheFactory cacheFactory) {
         this.longLivingProcess = longLivingProcess;
@@ -82,9 +91,36 @@ public class InMemoryCacheDecoratorFactory {
         final CacheBuilder<Object, Object> cacheBuilder = CacheBuilder.newBuilder().maximumSize(maxSize).recordStats().removalListener(evictionListener);
         Cache<Object, Object> inMemoryCache = cacheBuilder.build();
         evictionListener.setCache(inMemoryCache);
+        inMemoryCaches.add(inMemoryCache);
         return inMemoryCache;
     }
 
+    @Override
+    public long getRetainedValueCount() {
+        long count = 0;
+        for (Cache<Object, Object> inMemoryCache : snapshotInMemoryCaches()) {
+            count += inMemoryCache.size();
+        }
+        return count;
+    }
+
+    @Override
+    public long release() {
+        // Reads of the backing caches wait for pending updates, so entries can be dropped at any time
+        long count = 0;
+        for (Cache<Object, Object> inMemoryCache : snapshotInMemoryCaches()) {
+            count += inMemoryCache.size();
+            inMemoryCache.invalidateAll();
+        }
+        return count;
+    }
+
+    private List<Cache<Object, Object>> snapshotInMemoryCaches() {
+        synchronized (inMemoryCaches) {
+            return new ArrayList<Cache<Object, Object>>(inMemoryCaches);
+        }
+    }
+
     private class InMemoryCacheDecorator implements CacheDecorator {
         private final int maxEntriesToKeepInMemory;
         private final boolean cacheInMemoryForShortLivedProcesses;
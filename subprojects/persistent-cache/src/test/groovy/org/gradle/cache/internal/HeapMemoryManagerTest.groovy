@@ -0,0 +1,121 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal
+
+import spock.lang.Specification
+
+class HeapMemoryManagerTest extends Specification {
+    def manager = new HeapMemoryManager()
+    def cheap = Mock(HeapMemoryHolder)
+    def expensive = Mock(HeapMemoryHolder)
+
+    def setup() {
+        manager.addHolder(expensive, HeapMemoryManager.Priority.EXPENSIVE_TO_RECREATE)
+        manager.addHolder(cheap, HeapMemoryManager.Priority.CHEAP_TO_RECREATE)
+    }
+
+    def "releases cheap holders before expensive holders"() {
+        when:
+        def released = manager.onHeapPressure(80)
+
+        then:
+        released == 5
+        1 * cheap.release() >> 5
+        0 * expensive.release()
+
+        when:
+        released = manager.onHeapPressure(80)
+
+        then:
+        released == 3
+        0 * cheap.release()
+        1 * expensive.release() >> 3
+
+        and:
+        manager.releasedValueCount == 8
+    }
+
+    def "releases all holders once every priority has been released while releasing them reduces heap usage"() {
+        given:
+        manager.onHeapPressure(80)
+        manager.onHeapPressure(80)
+
+        when:
+        def released = manager.onHeapPressure(75)
+
+        then:
+        released == 3
+        1 * cheap.release() >> 1
+        1 * expensive.release() >> 2
+    }
+
+    def "does not release holders again when the previous release did not reduce heap usage"() {
+        given:
+        manager.onHeapPressure(80)
+        manager.onHeapPressure(80)
+
+        when:
+        def released = manager.onHeapPressure(82)
+
+        then:
+        released == 0
+        0 * cheap.release()
+        0 * expensive.release()
+
+        when:
+        manager.onHeapPressureRelieved()
+        manager.onHeapPressure(82)
+
+        then:
+        1 * cheap.release() >> 1
+    }
+
+    def "starts again with cheap holders when pressure is relieved"() {
+        given:
+        manager.onHeapPressure(80)
+
+        when:
+        manager.onHeapPressureRelieved()
+        manager.onHeapPressure(80)
+
+        then:
+        1 * cheap.release() >> 0
+        0 * expensive.release()
+    }
+
+    def "does not release removed holders"() {
+        given:
+        manager.removeHolder(cheap)
+
+        when:
+        manager.onHeapPressure(80)
+        manager.onHeapPressure(80)
+
+        then:
+        0 * cheap.release()
+        1 * expensive.release() >> 0
+    }
+
+    def "sums retained values of all holders"() {
+        given:
+        cheap.retainedValueCount >> 4
+        expensive.retainedValueCount >> 6
+
+        expect:
+        manager.retainedValueCount == 10
+    }
+}
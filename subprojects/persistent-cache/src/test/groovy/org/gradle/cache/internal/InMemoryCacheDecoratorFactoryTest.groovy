@@ -200,4 +200,26 @@ class InMemoryCacheDecoratorFactoryTest extends Specification {
         0 * target._
     }
 
+    def "discards cached values when released"() {
+        given:
+        def cache = cacheFactory.decorator(100, true).decorate("path/fileSnapshots.bin", "fileSnapshots", target, crossProcessCacheAccess, asyncCacheAccess)
+        crossProcessCacheAccess.withFileLock(_) >> { Factory task -> task.create() }
+        asyncCacheAccess.read(_) >> { Factory task -> task.create() }
+        cache.get("key")
+
+        expect:
+        cacheFactory.retainedValueCount == 1
+
+        when:
+        def released = cacheFactory.release()
+        def result = cache.get("key")
+
+        then:
+        released == 1
+        result == "result 2"
+
+        and:
+        1 * target.get("key") >> "result 2"
+        0 * target._
+    }
 }
@@ -45,6 +45,7 @@ public class HttpClientHelper implements Closeable {
     private static final Logger LOGGER = LoggerFactory.getLogger(HttpClientHelper.class);
     private CloseableHttpClient client;
     private final HttpSettings settings;
+    private final HttpConnectionLimiter connectionLimiter;
 
     /**
      * Maintains a queue of contexts which are shared between threads when authentication
@@ -56,7 +57,12 @@ public class HttpClientHelper implements Closeable {
     private final ConcurrentLinkedQueue<HttpContext> sharedContext;
 
     public HttpClientHelper(HttpSettings settings) {
+        this(settings, HttpConnectionLimiter.UNLIMITED);
+    }
+
+    public HttpClientHelper(HttpSettings settings, HttpConnectionLimiter connectionLimiter) {
         this.settings = settings;
+        this.connectionLimiter = connectionLimiter;
         if (!settings.getAuthenticationSettings().isEmpty()) {
             sharedContext = new ConcurrentLinkedQueue<HttpContext>();
         } else {
@@ -127,20 +133,26 @@ public class HttpClientHelper implements Closeable {
     private HttpClientResponse performHttpRequest(HttpRequestBase request, HttpContext httpContext) throws IOException {
         // Without this, HTTP Client prohibits multiple redirects to the same location within the same context
         httpContext.removeAttribute(REDIRECT_LOCATIONS);
+        // The permit is released once the content has been read or the response is closed, which is when the connection goes back to the pool
+        HttpConnectionLimiter.Permit permit = connectionLimiter.acquire(request.getURI());
         LOGGER.debug("Performing HTTP {}: {}", request.getMethod(), request.getURI());
         try {
             CloseableHttpResponse response = getClient().execute(request, httpContext);
-            return toHttpClientResponse(request, httpContext, response);
+            return toHttpClientResponse(request, httpContext, response, permit);
         } catch (IOException e) {
+            permit.release();
             URI lastRedirectLocation = getLastRedirectLocation(httpContext);
             throw (lastRedirectLocation == null) ? e : new FailureFromRedirectLocation(lastRedirectLocation, e);
+        } catch (RuntimeException e) {
+            permit.release();
+            throw e;
         }
     }
 
-    private HttpClientResponse toHttpClientResponse(HttpRequestBase request, HttpContext httpContext, CloseableHttpResponse response) {
+    private HttpClientResponse toHttpClientResponse(HttpRequestBase request, HttpContext httpContext, CloseableHttpResponse response, HttpConnectionLimiter.Permit permit) {
         URI lastRedirectLocation = getLastRedirectLocation(httpContext);
         URI effectiveUri = lastRedirectLocation == null ? request.getURI() : lastRedirectLocation;
-        return new HttpClientResponse(request.getMethod(), effectiveUri, response);
+        return new HttpClientResponse(request.getMethod(), effectiveUri, response, permit);
     }
 
     @SuppressWarnings("unchecked")
@@ -23,6 +23,7 @@ import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.utils.HttpClientUtils;
 
 import java.io.Closeable;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
@@ -32,12 +33,18 @@ public class HttpClientResponse implements Closeable {
     private final String method;
     private final URI effectiveUri;
     private final CloseableHttpResponse httpResponse;
+    private final HttpConnectionLimiter.Permit permit;
     private boolean closed;
 
     HttpClientResponse(String method, URI effectiveUri, CloseableHttpResponse httpResponse) {
+        this(method, effectiveUri, httpResponse, HttpConnectionLimiter.UNLIMITED.acquire(effectiveUri));
+    }
+
+    HttpClientResponse(String method, URI effectiveUri, CloseableHttpResponse httpResponse, HttpConnectionLimiter.Permit permit) {
         this.method = method;
         this.effectiveUri = effectiveUri;
         this.httpResponse = httpResponse;
+        this.permit = permit;
     }
 
     public String getHeader(String name) {
@@ -50,7 +57,7 @@ public class HttpClientResponse implements Closeable {
         if (entity == null) {
             throw new IOException(String.format("Response %d: %s has no content!", getStatusLine().getStatusCode(), getStatusLine().getReasonPhrase()));
         }
-        return entity.getContent();
+        return new PermitReleasingInputStream(entity.getContent());
     }
 
     public StatusLine getStatusLine() {
@@ -61,7 +68,11 @@ public class HttpClientResponse implements Closeable {
     public void close() {
         if (!closed) {
             closed = true;
-            HttpClientUtils.closeQuietly(httpResponse);
+            try {
+                HttpClientUtils.closeQuietly(httpResponse);
+            } finally {
+                permit.release();
+            }
         }
     }
 
@@ -82,4 +93,41 @@ public class HttpClientResponse implements Closeable {
         int statusCode = getStatusLine().getStatusCode();
         return statusCode == 404;
     }
+
+    /**
+     * Releases the permit of the response once the content has been read to the end or closed, as the connection goes back to the pool then.
+     * This way a caller that reads the content and keeps the response open does not hold up other requests to the host.
+     */
+    private class PermitReleasingInputStream extends FilterInputStream {
+        PermitReleasingInputStream(InputStream content) {
+            super(content);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int result = super.read();
+            if (result < 0) {
+                permit.release();
+            }
+            return result;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int result = super.read(b, off, len);
+            if (result < 0) {
+                permit.release();
+            }
+            return result;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                permit.release();
+            }
+        }
+    }
 }
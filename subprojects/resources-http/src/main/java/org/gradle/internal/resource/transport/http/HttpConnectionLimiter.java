@@ -0,0 +1,147 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.resource.transport.http;
+
+import org.apache.commons.lang.StringUtils;
+import org.gradle.internal.UncheckedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits the number of concurrent HTTP requests made to a given host.
+ *
+ * <p>Each repository uses its own HTTP client, with its own connection pool. A single limiter is shared by all of them,
+ * so that many repositories backed by the same host do not open more connections to that host than it is expected to serve.</p>
+ *
+ * <p>A permit is held from the moment the request is sent until the content of the response has been read to the end or the
+ * response is closed, which is when the underlying connection is released back to the pool.</p>
+ *
+ * <p>A thread that holds a permit for a host must not wait for another request to the same host while it still holds the response,
+ * as every permit may be held by threads doing the same. A response that is never closed also keeps its permit. In both cases
+ * the limit cannot be honoured, so a request that waits longer than {@link #DEFAULT_PERMIT_TIMEOUT_MILLIS} for a permit goes ahead
+ * without one rather than blocking the build.</p>
+ */
+public class HttpConnectionLimiter {
+    private static final Logger LOGGER = LoggerFactory.getLogger(HttpConnectionLimiter.class);
+
+    public static final String MAX_CONNECTIONS_PER_HOST_SYSTEM_PROPERTY = "org.gradle.internal.http.maxConnectionsPerHost";
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_HOST = 20;
+    public static final long DEFAULT_PERMIT_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    /**
+     * A limiter that does not limit anything.
+     */
+    public static final HttpConnectionLimiter UNLIMITED = new HttpConnectionLimiter(0);
+
+    private static final Permit NO_PERMIT = new Permit() {
+        @Override
+        public void release() {
+        }
+    };
+
+    private final int maxConnectionsPerHost;
+    private final long permitTimeoutMillis;
+    private final ConcurrentMap<String, Semaphore> hosts = new ConcurrentHashMap<String, Semaphore>();
+
+    /**
+     * @param maxConnectionsPerHost the maximum number of concurrent requests per host, or a value {@code <= 0} for no limit.
+     */
+    public HttpConnectionLimiter(int maxConnectionsPerHost) {
+        this(maxConnectionsPerHost, DEFAULT_PERMIT_TIMEOUT_MILLIS);
+    }
+
+    HttpConnectionLimiter(int maxConnectionsPerHost, long permitTimeoutMillis) {
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+        this.permitTimeoutMillis = permitTimeoutMillis;
+    }
+
+    public static HttpConnectionLimiter fromSystemProperties() {
+        String systemProperty = System.getProperty(MAX_CONNECTIONS_PER_HOST_SYSTEM_PROPERTY);
+        int maxConnectionsPerHost = DEFAULT_MAX_CONNECTIONS_PER_HOST;
+        if (!StringUtils.isBlank(systemProperty)) {
+            try {
+                maxConnectionsPerHost = Integer.parseInt(systemProperty);
+            } catch (NumberFormatException e) {
+                LOGGER.warn("Invalid value for java system property '{}': {}. Default value '{}' will be used.",
+                    MAX_CONNECTIONS_PER_HOST_SYSTEM_PROPERTY, systemProperty, DEFAULT_MAX_CONNECTIONS_PER_HOST);
+            }
+        }
+        return new HttpConnectionLimiter(maxConnectionsPerHost);
+    }
+
+    public int getMaxConnectionsPerHost() {
+        return maxConnectionsPerHost;
+    }
+
+    /**
+     * Blocks until a request can be made to the host of the given URI, or until the permit timeout has passed.
+     */
+    public Permit acquire(URI uri) {
+        if (maxConnectionsPerHost <= 0 || uri.getHost() == null) {
+            return NO_PERMIT;
+        }
+        final Semaphore semaphore = semaphoreFor(uri);
+        if (!semaphore.tryAcquire()) {
+            LOGGER.debug("Waiting for an available connection to {}", uri.getHost());
+            try {
+                if (!semaphore.tryAcquire(permitTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                    LOGGER.debug("No connection to {} became available in {}ms, making the request anyway.", uri.getHost(), permitTimeoutMillis);
+                    return NO_PERMIT;
+                }
+            } catch (InterruptedException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+        }
+        return new Permit() {
+            private boolean released;
+
+            @Override
+            public synchronized void release() {
+                if (!released) {
+                    released = true;
+                    semaphore.release();
+                }
+            }
+        };
+    }
+
+    private Semaphore semaphoreFor(URI uri) {
+        String key = uri.getScheme() + "://" + uri.getHost() + ":" + uri.getPort();
+        Semaphore semaphore = hosts.get(key);
+        if (semaphore == null) {
+            semaphore = new Semaphore(maxConnectionsPerHost);
+            Semaphore existing = hosts.putIfAbsent(key, semaphore);
+            if (existing != null) {
+                semaphore = existing;
+            }
+        }
+        return semaphore;
+    }
+
+    public interface Permit {
+        /**
+         * Releases this permit. Does nothing when the permit has already been released.
+         */
+        void release();
+    }
+}
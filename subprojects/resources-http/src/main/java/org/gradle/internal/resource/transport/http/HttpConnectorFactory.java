@@ -39,9 +39,11 @@ public class HttpConnectorFactory implements ResourceConnectorFactory {
     );
 
     private SslContextFactory sslContextFactory;
+    private final HttpConnectionLimiter connectionLimiter;
 
-    public HttpConnectorFactory(SslContextFactory sslContextFactory) {
+    public HttpConnectorFactory(SslContextFactory sslContextFactory, HttpConnectionLimiter connectionLimiter) {
         this.sslContextFactory = sslContextFactory;
+        this.connectionLimiter = connectionLimiter;
     }
 
     @Override
@@ -59,7 +61,8 @@ public class HttpConnectorFactory implements ResourceConnectorFactory {
         HttpClientHelper http = new HttpClientHelper(DefaultHttpSettings.builder()
             .withAuthenticationSettings(connectionDetails.getAuthentications())
             .withSslContextFactory(sslContextFactory)
-            .build()
+            .build(),
+            connectionLimiter
         );
         HttpResourceAccessor accessor = new HttpResourceAccessor(http);
         HttpResourceLister lister = new HttpResourceLister(accessor);
@@ -41,8 +41,12 @@ public class HttpResourcesPluginServiceRegistry extends AbstractPluginServiceReg
             return new DefaultSslContextFactory();
         }
 
-        ResourceConnectorFactory createHttpConnectorFactory(SslContextFactory sslContextFactory) {
-            return new HttpConnectorFactory(sslContextFactory);
+        HttpConnectionLimiter createHttpConnectionLimiter() {
+            return HttpConnectionLimiter.fromSystemProperties();
+        }
+
+        ResourceConnectorFactory createHttpConnectorFactory(SslContextFactory sslContextFactory, HttpConnectionLimiter connectionLimiter) {
+            return new HttpConnectorFactory(sslContextFactory, connectionLimiter);
         }
     }
 
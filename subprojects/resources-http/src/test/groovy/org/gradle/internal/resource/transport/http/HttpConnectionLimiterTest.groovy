@@ -0,0 +1,147 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.resource.transport.http
+
+import org.apache.http.HttpEntity
+import org.apache.http.client.methods.CloseableHttpResponse
+import org.gradle.test.fixtures.concurrent.ConcurrentSpec
+import org.gradle.util.SetSystemProperties
+import org.junit.Rule
+
+import static org.gradle.internal.resource.transport.http.HttpConnectionLimiter.DEFAULT_MAX_CONNECTIONS_PER_HOST
+import static org.gradle.internal.resource.transport.http.HttpConnectionLimiter.MAX_CONNECTIONS_PER_HOST_SYSTEM_PROPERTY
+
+class HttpConnectionLimiterTest extends ConcurrentSpec {
+    @Rule SetSystemProperties setSystemProperties = new SetSystemProperties()
+
+    def "can retrieve limit from system property"() {
+        expect:
+        HttpConnectionLimiter.fromSystemProperties().maxConnectionsPerHost == DEFAULT_MAX_CONNECTIONS_PER_HOST
+
+        when:
+        System.setProperty(MAX_CONNECTIONS_PER_HOST_SYSTEM_PROPERTY, "4")
+
+        then:
+        HttpConnectionLimiter.fromSystemProperties().maxConnectionsPerHost == 4
+
+        when:
+        System.setProperty(MAX_CONNECTIONS_PER_HOST_SYSTEM_PROPERTY, "abc")
+
+        then:
+        HttpConnectionLimiter.fromSystemProperties().maxConnectionsPerHost == DEFAULT_MAX_CONNECTIONS_PER_HOST
+    }
+
+    def "blocks until a permit for the same host is released"() {
+        def limiter = new HttpConnectionLimiter(1)
+        def permit = limiter.acquire(new URI("https://repo.example.com/a.jar"))
+
+        when:
+        async {
+            start {
+                def other = limiter.acquire(new URI("https://repo.example.com/b.jar"))
+                instant.acquired
+                other.release()
+            }
+            start {
+                limiter.acquire(new URI("https://other.example.com/b.jar")).release()
+                instant.otherHostAcquired
+                thread.blockUntil.otherHostAcquired
+                instant.released
+                permit.release()
+            }
+        }
+
+        then:
+        instant.acquired > instant.released
+    }
+
+    def "releasing a permit more than once has no effect"() {
+        def limiter = new HttpConnectionLimiter(1)
+        def uri = new URI("http://repo.example.com/a.jar")
+        def permit = limiter.acquire(uri)
+        permit.release()
+        permit.release()
+        def second = limiter.acquire(uri)
+
+        when:
+        async {
+            start {
+                limiter.acquire(uri).release()
+                instant.acquired
+            }
+            thread.block()
+            instant.released
+            second.release()
+        }
+
+        then:
+        instant.acquired > instant.released
+    }
+
+    def "makes the request without a permit once the permit timeout has passed"() {
+        def limiter = new HttpConnectionLimiter(1, 100)
+        def uri = new URI("http://repo.example.com/a.jar")
+        def permit = limiter.acquire(uri)
+
+        when:
+        limiter.acquire(uri).release()
+
+        then:
+        noExceptionThrown()
+
+        cleanup:
+        permit.release()
+    }
+
+    def "releases the permit of a response once its content has been read to the end"() {
+        def limiter = new HttpConnectionLimiter(1, Long.MAX_VALUE)
+        def uri = new URI("http://repo.example.com/a.jar")
+        def httpResponse = Stub(CloseableHttpResponse) {
+            getEntity() >> Stub(HttpEntity) {
+                getContent() >> new ByteArrayInputStream("content".bytes)
+            }
+        }
+        def response = new HttpClientResponse("GET", uri, httpResponse, limiter.acquire(uri))
+
+        when:
+        async {
+            start {
+                response.content.text
+                instant.read
+            }
+            start {
+                thread.blockUntil.read
+                limiter.acquire(uri).release()
+                instant.acquired
+            }
+        }
+
+        then:
+        instant.acquired > instant.read
+
+        cleanup:
+        response.close()
+    }
+
+    def "does not limit when no limit is configured"() {
+        def uri = new URI("http://repo.example.com/a.jar")
+
+        expect:
+        (1..100).each { HttpConnectionLimiter.UNLIMITED.acquire(uri) }
+        (1..100).each { new HttpConnectionLimiter(0).acquire(uri) }
+    }
+}
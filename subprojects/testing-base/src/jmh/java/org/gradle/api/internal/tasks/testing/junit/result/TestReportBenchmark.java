@@ -0,0 +1,113 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.junit.result;
+
+import org.gradle.api.internal.tasks.testing.DefaultTestOutputEvent;
+import org.gradle.api.tasks.testing.TestOutputEvent;
+import org.gradle.api.tasks.testing.TestResult;
+import org.gradle.util.GFileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generates the XML report of a suite sized like a large project, one class per invocation, from several threads.
+ */
+@Fork(1)
+@Threads(4)
+@Warmup(iterations = 5)
+@State(Scope.Benchmark)
+public class TestReportBenchmark {
+
+    @Param({"9000"})
+    int classCount;
+
+    @Param({"10"})
+    int testsPerClass;
+
+    @Param({"200"})
+    int outputLinesPerTest;
+
+    private File resultsDir;
+    private List<TestClassResult> classes;
+    private InMemoryTestResultsProvider resultsProvider;
+    private JUnitXmlResultWriter xmlWriter;
+    private final AtomicInteger next = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void writeResults() throws IOException {
+        resultsDir = File.createTempFile("test-results", "");
+        resultsDir.delete();
+        resultsDir.mkdirs();
+
+        TestOutputStore outputStore = new TestOutputStore(resultsDir);
+        TestOutputStore.Writer outputWriter = outputStore.writer();
+        classes = new ArrayList<TestClassResult>(classCount);
+        long id = 1;
+        for (int classIndex = 0; classIndex < classCount; classIndex++) {
+            TestClassResult classResult = new TestClassResult(id++, "org.gradle.sample.package" + classIndex % 100 + ".SampleTest" + classIndex, 0);
+            for (int testIndex = 0; testIndex < testsPerClass; testIndex++) {
+                TestMethodResult methodResult = new TestMethodResult(id++, "test" + testIndex, TestResult.ResultType.SUCCESS, 10, 10);
+                for (int line = 0; line < outputLinesPerTest; line++) {
+                    outputWriter.onOutput(classResult.getId(), methodResult.getId(), new DefaultTestOutputEvent(TestOutputEvent.Destination.StdOut, "Some output from " + methodResult.getName() + " line " + line + "\n"));
+                }
+                classResult.add(methodResult);
+            }
+            classes.add(classResult);
+        }
+        outputWriter.close();
+
+        resultsProvider = new InMemoryTestResultsProvider(classes, outputStore);
+        xmlWriter = new JUnitXmlResultWriter("localhost", resultsProvider, TestOutputAssociation.WITH_SUITE);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteResults() throws IOException {
+        resultsProvider.close();
+        GFileUtils.deleteDirectory(resultsDir);
+    }
+
+    @Benchmark
+    public void writeXmlReportForClass() {
+        TestClassResult classResult = classes.get((next.getAndIncrement() & Integer.MAX_VALUE) % classes.size());
+        xmlWriter.write(classResult, new DiscardingOutputStream());
+    }
+
+    private static class DiscardingOutputStream extends OutputStream {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    }
+}
@@ -17,11 +17,26 @@
 package org.gradle.api.internal.tasks.testing;
 
 import org.gradle.api.internal.tasks.testing.operations.TestExecutionBuildOperationBuildSessionScopeServices;
+import org.gradle.api.internal.tasks.testing.worker.TestWorkerProcessPool;
+import org.gradle.cache.internal.HeapMemoryManager;
+import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.service.ServiceRegistration;
 import org.gradle.internal.service.scopes.AbstractPluginServiceRegistry;
+import org.gradle.internal.time.Clock;
+import org.gradle.process.internal.health.memory.MemoryManager;
+import org.gradle.process.internal.health.memory.OsMemoryInfo;
 
 public class TestingBasePluginServiceRegistry extends AbstractPluginServiceRegistry {
 
+    @Override
+    public void registerGradleUserHomeServices(ServiceRegistration registration) {
+        registration.addProvider(new Object() {
+            TestWorkerProcessPool createTestWorkerProcessPool(ExecutorFactory executorFactory, MemoryManager memoryManager, HeapMemoryManager heapMemoryManager, OsMemoryInfo memoryInfo, Clock clock) {
+                return new TestWorkerProcessPool(executorFactory, memoryManager, heapMemoryManager, memoryInfo, clock);
+            }
+        });
+    }
+
     @Override
     public void registerBuildSessionServices(ServiceRegistration registration) {
         registration.addProvider(new TestExecutionBuildOperationBuildSessionScopeServices());
@@ -16,29 +16,66 @@
 
 package org.gradle.api.internal.tasks.testing.junit.result;
 
+import com.esotericsoftware.kryo.io.ByteBufferInputStream;
 import com.esotericsoftware.kryo.io.Input;
 import com.esotericsoftware.kryo.io.Output;
 import com.google.common.collect.ImmutableMap;
 import org.gradle.api.UncheckedIOException;
 import org.gradle.api.tasks.testing.TestOutputEvent;
-import org.gradle.internal.io.RandomAccessFileInputStream;
-import org.gradle.internal.UncheckedException;
-import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
-import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
-
-import java.io.*;
+import org.gradle.internal.os.OperatingSystem;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
 
+/**
+ * Spools the test output to a file, grouped into segments that each hold the output of a single test class.
+ *
+ * <p>The index records the segments of each class and, for each test, the segments that contain its output, so that
+ * the output of a test can be read without scanning the output of the other tests that ran at the same time.</p>
+ */
 public class TestOutputStore {
 
+    /**
+     * The system property that sets the maximum number of characters of output kept for each test and destination.
+     */
+    public static final String MAX_OUTPUT_PER_TEST_PROPERTY = "org.gradle.internal.testing.maxOutputPerTest";
+
+    private static final int SEGMENT_SIZE = 64 * 1024;
+    private static final int MIN_MAPPED_SIZE = 256 * 1024;
+    private static final int MAX_MAPPED_SIZE = 16 * 1024 * 1024;
+
     private final File resultsDir;
     private final Charset messageStorageCharset;
+    private final int maxOutputPerTest;
 
     public TestOutputStore(File resultsDir) {
+        this(resultsDir, 0);
+    }
+
+    /**
+     * @param maxOutputPerTest the maximum number of characters to keep for each test and destination, or 0 to keep all output.
+     * When a test writes more than this, the start and the end of its output are kept.
+     */
+    public TestOutputStore(File resultsDir, int maxOutputPerTest) {
         this.resultsDir = resultsDir;
         this.messageStorageCharset = Charset.forName("UTF-8");
+        this.maxOutputPerTest = maxOutputPerTest;
     }
 
     File getOutputsFile() {
@@ -50,13 +87,8 @@ public class TestOutputStore {
     }
 
     private static class Region {
-        long start;
-        long stop;
-
-        private Region() {
-            start = -1;
-            stop = -1;
-        }
+        final long start;
+        final long stop;
 
         private Region(long start, long stop) {
             this.start = start;
@@ -64,19 +96,121 @@ public class TestOutputStore {
         }
     }
 
-    private static class TestCaseRegion {
-        Region stdOutRegion = new Region();
-        Region stdErrRegion = new Region();
+    private static class SegmentList {
+        private final List<Integer> segments = new ArrayList<Integer>();
+
+        void add(int segment) {
+            if (segments.isEmpty() || segments.get(segments.size() - 1) != segment) {
+                segments.add(segment);
+            }
+        }
+    }
+
+    /**
+     * Keeps the start and the end of the output written by a test to one destination, once it reaches the limit.
+     */
+    private class LimitedOutput {
+        private final int headLimit = maxOutputPerTest - maxOutputPerTest / 2;
+        private final int tailLimit = maxOutputPerTest / 2;
+        private int written;
+        private long omitted;
+        private StringBuilder tail;
+
+        /**
+         * Returns the part of the message to write now, or null.
+         */
+        String accept(String message) {
+            if (tail == null && written + message.length() <= headLimit) {
+                written += message.length();
+                return message;
+            }
+            String accepted = null;
+            if (tail == null) {
+                int remaining = headLimit - written;
+                if (remaining > 0) {
+                    accepted = message.substring(0, remaining);
+                    message = message.substring(remaining);
+                }
+                written = headLimit;
+                tail = new StringBuilder();
+            }
+            tail.append(message);
+            if (tail.length() > 2 * tailLimit) {
+                trimTail();
+            }
+            return accepted;
+        }
+
+        /**
+         * Returns the retained end of the output, or null when the limit has not been reached since the last call.
+         */
+        String drainTail() {
+            if (tail == null) {
+                return null;
+            }
+            trimTail();
+            String result = String.format("%n[... %d characters of output omitted ...]%n", omitted) + tail;
+            tail = null;
+            omitted = 0;
+            return result;
+        }
+
+        private void trimTail() {
+            int drop = tail.length() - tailLimit;
+            if (drop > 0) {
+                omitted += drop;
+                tail.delete(0, drop);
+            }
+        }
+    }
+
+    private class TestOutput {
+        final SegmentList stdOutSegments = new SegmentList();
+        final SegmentList stdErrSegments = new SegmentList();
+        LimitedOutput stdOutLimit;
+        LimitedOutput stdErrLimit;
+
+        SegmentList segments(boolean stdout) {
+            return stdout ? stdOutSegments : stdErrSegments;
+        }
+
+        LimitedOutput limit(boolean stdout) {
+            if (stdout) {
+                if (stdOutLimit == null) {
+                    stdOutLimit = new LimitedOutput();
+                }
+                return stdOutLimit;
+            }
+            if (stdErrLimit == null) {
+                stdErrLimit = new LimitedOutput();
+            }
+            return stdErrLimit;
+        }
+    }
+
+    private static class ClassOutput {
+        // Only allocated while the class has output that has not been written to the file
+        Output buffer;
+        final List<Region> segments = new ArrayList<Region>();
+        final Map<Long, TestOutput> tests = new LinkedHashMap<Long, TestOutput>();
+
+        Output buffer() {
+            if (buffer == null) {
+                buffer = new Output(4096, -1);
+            }
+            return buffer;
+        }
     }
 
     public class Writer implements Closeable {
-        private final KryoBackedEncoder output;
+        private final OutputStream output;
+        private long writePosition;
 
-        private final Map<Long, Map<Long, TestCaseRegion>> index = new LinkedHashMap<Long, Map<Long, TestCaseRegion>>();
+        private final Map<Long, ClassOutput> index = new LinkedHashMap<Long, ClassOutput>();
 
         public Writer() {
             try {
-                output = new KryoBackedEncoder(new FileOutputStream(getOutputsFile()));
+                output = new BufferedOutputStream(new FileOutputStream(getOutputsFile()));
             } catch (FileNotFoundException e) {
                 throw new UncheckedIOException(e);
             }
@@ -84,7 +218,21 @@ public class TestOutputStore {
 
         @Override
         public void close() {
-            output.close();
+            try {
+                try {
+                    for (Map.Entry<Long, ClassOutput> classEntry : index.entrySet()) {
+                        ClassOutput classOutput = classEntry.getValue();
+                        for (Map.Entry<Long, TestOutput> testEntry : classOutput.tests.entrySet()) {
+                            writeTails(classEntry.getKey(), classOutput, testEntry.getKey(), testEntry.getValue());
+                        }
+                        flushSegment(classOutput);
+                    }
+                } finally {
+                    output.close();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
             writeIndex();
         }
 
@@ -94,42 +242,112 @@ public class TestOutputStore {
 
         public void onOutput(long classId, long testId, TestOutputEvent outputEvent) {
             boolean stdout = outputEvent.getDestination() == TestOutputEvent.Destination.StdOut;
-            mark(classId, testId, stdout);
+            ClassOutput classOutput = classOutput(classId);
+            TestOutput testOutput = testOutput(classOutput, testId);
+            String message = outputEvent.getMessage();
+            if (maxOutputPerTest > 0) {
+                message = testOutput.limit(stdout).accept(message);
+                if (message == null) {
+                    return;
+                }
+            }
+            write(classId, classOutput, testId, testOutput, stdout, message);
+        }
 
-            output.writeBoolean(stdout);
-            output.writeSmallLong(classId);
-            output.writeSmallLong(testId);
+        /**
+         * Called when a test has completed, to write out the end of its output if it was over the limit.
+         */
+        public void onTestCompleted(long classId, long testId) {
+            ClassOutput classOutput = index.get(classId);
+            TestOutput testOutput = classOutput == null ? null : classOutput.tests.get(testId);
+            if (testOutput != null) {
+                writeTails(classId, classOutput, testId, testOutput);
+            }
+        }
 
-            byte[] bytes;
+        /**
+         * Called when a test class has completed, to write out its buffered output and release the buffer.
+         */
+        public void onClassCompleted(long classId) {
+            ClassOutput classOutput = index.get(classId);
+            if (classOutput == null) {
+                return;
+            }
+            for (Map.Entry<Long, TestOutput> testEntry : classOutput.tests.entrySet()) {
+                writeTails(classId, classOutput, testEntry.getKey(), testEntry.getValue());
+            }
             try {
-                bytes = outputEvent.getMessage().getBytes(messageStorageCharset.name());
-            } catch (UnsupportedEncodingException e) {
-                throw UncheckedException.throwAsUncheckedException(e);
+                flushSegment(classOutput);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
             }
-            output.writeSmallInt(bytes.length);
-            output.writeBytes(bytes, 0, bytes.length);
+            classOutput.buffer = null;
         }
 
-        private void mark(long classId, long testId, boolean isStdout) {
-            if (!index.containsKey(classId)) {
-                index.put(classId, new LinkedHashMap<Long, TestCaseRegion>());
+        private void writeTails(long classId, ClassOutput classOutput, long testId, TestOutput testOutput) {
+            if (testOutput.stdOutLimit != null) {
+                String tail = testOutput.stdOutLimit.drainTail();
+                if (tail != null) {
+                    write(classId, classOutput, testId, testOutput, true, tail);
+                }
+            }
+            if (testOutput.stdErrLimit != null) {
+                String tail = testOutput.stdErrLimit.drainTail();
+                if (tail != null) {
+                    write(classId, classOutput, testId, testOutput, false, tail);
+                }
             }
+        }
 
-            Map<Long, TestCaseRegion> testCaseRegions = index.get(classId);
-            if (!testCaseRegions.containsKey(testId)) {
-                TestCaseRegion region = new TestCaseRegion();
-                testCaseRegions.put(testId, region);
+        private ClassOutput classOutput(long classId) {
+            ClassOutput classOutput = index.get(classId);
+            if (classOutput == null) {
+                classOutput = new ClassOutput();
+                index.put(classId, classOutput);
             }
+            return classOutput;
+        }
 
-            TestCaseRegion region = testCaseRegions.get(testId);
+        private TestOutput testOutput(ClassOutput classOutput, long testId) {
+            TestOutput testOutput = classOutput.tests.get(testId);
+            if (testOutput == null) {
+                testOutput = new TestOutput();
+                classOutput.tests.put(testId, testOutput);
+            }
+            return testOutput;
+        }
+
+        private void write(long classId, ClassOutput classOutput, long testId, TestOutput testOutput, boolean stdout, String message) {
+            // The record goes into the segment that is written when the buffer of the class is next flushed
+            testOutput.segments(stdout).add(classOutput.segments.size());
 
-            Region streamRegion = isStdout ? region.stdOutRegion : region.stdErrRegion;
+            byte[] bytes = message.getBytes(messageStorageCharset);
+            Output buffer = classOutput.buffer();
+            buffer.writeBoolean(stdout);
+            buffer.writeLong(classId, true);
+            buffer.writeLong(testId, true);
+            buffer.writeInt(bytes.length, true);
+            buffer.writeBytes(bytes, 0, bytes.length);
+
+            if (buffer.position() >= SEGMENT_SIZE) {
+                try {
+                    flushSegment(classOutput);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
 
-            long total = output.getWritePosition();
-            if (streamRegion.start < 0) {
-                streamRegion.start = total;
+        private void flushSegment(ClassOutput classOutput) throws IOException {
+            Output buffer = classOutput.buffer;
+            if (buffer == null || buffer.position() == 0) {
+                return;
             }
-            streamRegion.stop = total;
+            int length = buffer.position();
+            output.write(buffer.getBuffer(), 0, length);
+            classOutput.segments.add(new Region(writePosition, writePosition + length));
+            writePosition += length;
+            buffer.clear();
         }
 
         private void writeIndex() {
@@ -140,86 +358,85 @@ public class TestOutputStore {
                 throw new UncheckedIOException(e);
             }
 
-
             try {
                 indexOutput.writeInt(index.size(), true);
 
-                for (Map.Entry<Long, Map<Long, TestCaseRegion>> classEntry : index.entrySet()) {
-                    Long classId = classEntry.getKey();
-                    Map<Long, TestCaseRegion> regions = classEntry.getValue();
-
-                    indexOutput.writeLong(classId, true);
-                    indexOutput.writeInt(regions.size(), true);
-
-                    for (Map.Entry<Long, TestCaseRegion> testCaseEntry : regions.entrySet()) {
-                        long id = testCaseEntry.getKey();
-                        TestCaseRegion region = testCaseEntry.getValue();
-                        indexOutput.writeLong(id, true);
-                        indexOutput.writeLong(region.stdOutRegion.start);
-                        indexOutput.writeLong(region.stdOutRegion.stop);
-                        indexOutput.writeLong(region.stdErrRegion.start);
-                        indexOutput.writeLong(region.stdErrRegion.stop);
+                for (Map.Entry<Long, ClassOutput> classEntry : index.entrySet()) {
+                    ClassOutput classOutput = classEntry.getValue();
+
+                    indexOutput.writeLong(classEntry.getKey(), true);
+                    indexOutput.writeInt(classOutput.segments.size(), true);
+                    for (Region segment : classOutput.segments) {
+                        indexOutput.writeLong(segment.start, true);
+                        indexOutput.writeLong(segment.stop, true);
+                    }
+
+                    indexOutput.writeInt(classOutput.tests.size(), true);
+                    for (Map.Entry<Long, TestOutput> testEntry : classOutput.tests.entrySet()) {
+                        indexOutput.writeLong(testEntry.getKey(), true);
+                        writeSegments(indexOutput, testEntry.getValue().stdOutSegments);
+                        writeSegments(indexOutput, testEntry.getValue().stdErrSegments);
                     }
                 }
             } finally {
                 indexOutput.close();
             }
         }
+
+        private void writeSegments(Output indexOutput, SegmentList segmentList) {
+            indexOutput.writeInt(segmentList.segments.size(), true);
+            for (Integer segment : segmentList.segments) {
+                indexOutput.writeInt(segment, true);
+            }
+        }
     }
 
     public Writer writer() {
         return new Writer();
     }
 
-    private static class Index {
-        final ImmutableMap<Long, Index> children;
-        final Region stdOut;
-        final Region stdErr;
+    private static class TestIndex {
+        final int[] stdOutSegments;
+        final int[] stdErrSegments;
 
-        private Index(Region stdOut, Region stdErr) {
-            this.children = ImmutableMap.of();
-            this.stdOut = stdOut;
-            this.stdErr = stdErr;
+        private TestIndex(int[] stdOutSegments, int[] stdErrSegments) {
+            this.stdOutSegments = stdOutSegments;
+            this.stdErrSegments = stdErrSegments;
         }
 
-        private Index(ImmutableMap<Long, Index> children, Region stdOut, Region stdErr) {
-            this.children = children;
-            this.stdOut = stdOut;
-            this.stdErr = stdErr;
+        int[] segments(boolean stdout) {
+            return stdout ? stdOutSegments : stdErrSegments;
         }
     }
 
-    private static class IndexBuilder {
-        final Region stdOut = new Region();
-        final Region stdErr = new Region();
+    private static class ClassIndex {
+        final Region[] segments;
+        final ImmutableMap<Long, TestIndex> tests;
 
-        private final ImmutableMap.Builder<Long, Index> children = ImmutableMap.builder();
-
-        void add(long key, Index index) {
-            if (stdOut.start < 0) {
-                stdOut.start = index.stdOut.start;
-            }
-            if (stdErr.start < 0) {
-                stdErr.start = index.stdErr.start;
-            }
-            if (index.stdOut.stop > stdOut.stop) {
-                stdOut.stop = index.stdOut.stop;
-            }
-            if (index.stdErr.stop > stdErr.stop) {
-                stdErr.stop = index.stdErr.stop;
-            }
-
-            children.put(key, index);
+        private ClassIndex(Region[] segments, ImmutableMap<Long, TestIndex> tests) {
+            this.segments = segments;
+            this.tests = tests;
         }
 
-        Index build() {
-            return new Index(children.build(), stdOut, stdErr);
+        boolean hasOutput(boolean stdout) {
+            for (TestIndex test : tests.values()) {
+                if (test.segments(stdout).length > 0) {
+                    return true;
+                }
+            }
+            return false;
         }
     }
 
+    /**
+     * Reads the test output. Can be used by multiple threads concurrently.
+     */
     public class Reader implements Closeable {
-        private final Index index;
+        private final ImmutableMap<Long, ClassIndex> index;
         private final RandomAccessFile dataFile;
+        private final FileChannel dataChannel;
+        // Files that are mapped cannot be deleted on Windows until the mapping is garbage collected
+        private final boolean mapSegments = !OperatingSystem.current().isWindows();
 
         public Reader() {
             File indexFile = getIndexFile();
@@ -237,36 +454,37 @@ public class TestOutputStore {
                     throw new UncheckedIOException(e);
                 }
 
-                IndexBuilder rootBuilder = null;
                 try {
+                    ImmutableMap.Builder<Long, ClassIndex> builder = ImmutableMap.builder();
                     int numClasses = input.readInt(true);
-                    rootBuilder = new IndexBuilder();
-
                     for (int classCounter = 0; classCounter < numClasses; ++classCounter) {
                         long classId = input.readLong(true);
-                        IndexBuilder classBuilder = new IndexBuilder();
 
-                        int numEntries = input.readInt(true);
-                        for (int entryCounter = 0; entryCounter < numEntries; ++entryCounter) {
+                        Region[] segments = new Region[input.readInt(true)];
+                        for (int segment = 0; segment < segments.length; ++segment) {
+                            segments[segment] = new Region(input.readLong(true), input.readLong(true));
+                        }
+
+                        ImmutableMap.Builder<Long, TestIndex> tests = ImmutableMap.builder();
+                        int numTests = input.readInt(true);
+                        for (int testCounter = 0; testCounter < numTests; ++testCounter) {
                             long testId = input.readLong(true);
-                            Region stdOut = new Region(input.readLong(), input.readLong());
-                            Region stdErr = new Region(input.readLong(), input.readLong());
-                            classBuilder.add(testId, new Index(stdOut, stdErr));
+                            tests.put(testId, new TestIndex(readSegments(input), readSegments(input)));
                         }
 
-                        rootBuilder.add(classId, classBuilder.build());
+                        builder.put(classId, new ClassIndex(segments, tests.build()));
                     }
+                    index = builder.build();
                 } finally {
                     input.close();
                 }
 
-                index = rootBuilder.build();
-
                 try {
                     dataFile = new RandomAccessFile(getOutputsFile(), "r");
                 } catch (FileNotFoundException e) {
                     throw new UncheckedIOException(e);
                 }
+                dataChannel = dataFile.getChannel();
             } else { // no outputs file
                 if (indexFile.exists()) {
                     throw new IllegalStateException(String.format("Test outputs data file '%s' does not exist but the index file '%s' does", outputsFile, indexFile));
@@ -274,7 +492,16 @@ public class TestOutputStore {
 
                 index = null;
                 dataFile = null;
+                dataChannel = null;
+            }
+        }
+
+        private int[] readSegments(Input input) {
+            int[] segments = new int[input.readInt(true)];
+            for (int i = 0; i < segments.length; i++) {
+                segments[i] = input.readInt(true);
             }
+            return segments;
         }
 
         @Override
@@ -289,13 +516,8 @@ public class TestOutputStore {
                 return false;
             }
 
-            Index classIndex = index.children.get(classId);
-            if (classIndex == null) {
-                return false;
-            } else {
-                Region region = destination == TestOutputEvent.Destination.StdOut ? classIndex.stdOut : classIndex.stdErr;
-                return region.start >= 0;
-            }
+            ClassIndex classIndex = index.get(classId);
+            return classIndex != null && classIndex.hasOutput(destination == TestOutputEvent.Destination.StdOut);
         }
 
         public void writeAllOutput(long classId, TestOutputEvent.Destination destination, java.io.Writer writer) {
@@ -315,71 +537,82 @@ public class TestOutputStore {
                 return;
             }
 
-            Index targetIndex = index.children.get(classId);
-            if (targetIndex != null && testId != 0) {
-                targetIndex = targetIndex.children.get(testId);
-            }
-
-            if (targetIndex == null) {
+            ClassIndex classIndex = index.get(classId);
+            if (classIndex == null) {
                 return;
             }
 
             boolean stdout = destination == TestOutputEvent.Destination.StdOut;
-            Region region = stdout ? targetIndex.stdOut : targetIndex.stdErr;
-
-            if (region.start < 0) {
-                return;
+            SortedSet<Integer> segments = new TreeSet<Integer>();
+            if (allClassOutput) {
+                for (TestIndex testIndex : classIndex.tests.values()) {
+                    addAll(segments, testIndex.segments(stdout));
+                }
+            } else {
+                TestIndex testIndex = classIndex.tests.get(testId);
+                if (testIndex == null) {
+                    return;
+                }
+                addAll(segments, testIndex.segments(stdout));
             }
 
-            boolean ignoreClassLevel = !allClassOutput && testId != 0;
-            boolean ignoreTestLevel = !allClassOutput && testId == 0;
-
             try {
-                dataFile.seek(region.start);
-                long maxPos = region.stop - region.start;
-                KryoBackedDecoder decoder = new KryoBackedDecoder(new RandomAccessFileInputStream(dataFile));
-                while (decoder.getReadPosition() <= maxPos) {
-                    boolean readStdout = decoder.readBoolean();
-                    long readClassId = decoder.readSmallLong();
-                    long readTestId = decoder.readSmallLong();
-                    int readLength = decoder.readSmallInt();
-
-                    boolean isClassLevel = readTestId == 0;
-
-                    if (stdout != readStdout || classId != readClassId) {
-                        decoder.skipBytes(readLength);
-                        continue;
-                    }
-
-                    if (ignoreClassLevel && isClassLevel) {
-                        decoder.skipBytes(readLength);
-                        continue;
+                // Read segments that are next to each other in the file in one go
+                long runStart = -1;
+                long runStop = -1;
+                for (Integer segment : segments) {
+                    Region region = classIndex.segments[segment];
+                    if (region.start != runStop || region.stop - runStart > MAX_MAPPED_SIZE) {
+                        if (runStart >= 0) {
+                            readRecords(runStart, runStop, stdout, allClassOutput, testId, writer);
+                        }
+                        runStart = region.start;
                     }
+                    runStop = region.stop;
+                }
+                if (runStart >= 0) {
+                    readRecords(runStart, runStop, stdout, allClassOutput, testId, writer);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
 
-                    if (ignoreTestLevel && !isClassLevel) {
-                        decoder.skipBytes(readLength);
-                        continue;
-                    }
+        private void addAll(SortedSet<Integer> target, int[] segments) {
+            for (int segment : segments) {
+                target.add(segment);
+            }
+        }
 
-                    if (testId == 0 || testId == readTestId) {
-                        byte[] stringBytes = new byte[readLength];
-                        decoder.readBytes(stringBytes);
-                        String message;
-                        try {
-                            message = new String(stringBytes, messageStorageCharset.name());
-                        } catch (UnsupportedEncodingException e) {
-                            // shouldn't happen
-                            throw UncheckedException.throwAsUncheckedException(e);
-                        }
+        private void readRecords(long start, long stop, boolean stdout, boolean allClassOutput, long testId, java.io.Writer writer) throws IOException {
+            long length = stop - start;
+            Input input = new Input(new ByteBufferInputStream(read(start, (int) length)));
+            while (input.total() < length) {
+                boolean readStdout = input.readBoolean();
+                input.readLong(true); // class id
+                long readTestId = input.readLong(true);
+                int readLength = input.readInt(true);
+
+                if (stdout == readStdout && (allClassOutput || testId == readTestId)) {
+                    writer.write(new String(input.readBytes(readLength), messageStorageCharset));
+                } else {
+                    input.skip(readLength);
+                }
+            }
+        }
 
-                        writer.write(message);
-                    } else {
-                        decoder.skipBytes(readLength);
-                    }
+        private ByteBuffer read(long position, int length) throws IOException {
+            if (mapSegments && length >= MIN_MAPPED_SIZE && length <= MAX_MAPPED_SIZE) {
+                return dataChannel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(length);
+            while (buffer.hasRemaining()) {
+                if (dataChannel.read(buffer, position + buffer.position()) < 0) {
+                    throw new IOException(String.format("Unexpected end of test outputs data file '%s'", getOutputsFile()));
                 }
-            } catch (IOException e1) {
-                throw new UncheckedIOException(e1);
             }
+            buffer.flip();
+            return buffer;
         }
     }
 
@@ -50,6 +50,12 @@ public class TestReportDataCollector implements TestListener, TestOutputListener
 
     @Override
     public void afterSuite(TestDescriptor suite, TestResult result) {
+        if (suite.getClassName() != null) {
+            TestClassResult classResult = results.get(suite.getClassName());
+            if (classResult != null) {
+                outputWriter.onClassCompleted(classResult.getId());
+            }
+        }
         if (result.getResultType() == TestResult.ResultType.FAILURE && !result.getExceptions().isEmpty()) {
             //there are some exceptions attached to the suite. Let's make sure they are reported to the user.
             //this may happen for example when suite initialisation fails and no tests are executed
@@ -94,6 +100,7 @@ public class TestReportDataCollector implements TestListener, TestOutputListener
             classResult.setStartTime(result.getStartTime());
         }
         classResult.add(methodResult);
+        outputWriter.onTestCompleted(classResult.getId(), methodResult.getId());
     }
 
     private String failureMessage(Throwable throwable) {
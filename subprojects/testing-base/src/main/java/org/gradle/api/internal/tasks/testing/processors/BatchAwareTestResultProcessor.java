@@ -0,0 +1,30 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.processors;
+
+import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+
+/**
+ * A {@link TestResultProcessor} that can receive a batch of output events in a single call, which is cheaper than one call per event when
+ * the call is sent to another process or thread.
+ */
+public interface BatchAwareTestResultProcessor extends TestResultProcessor {
+    /**
+     * Receives a batch of output events, in the order they were produced.
+     */
+    void outputBatch(TestOutputEventBatch batch);
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.processors;
+
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent;
+import org.gradle.api.internal.tasks.testing.TestDescriptorInternal;
+import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.gradle.api.internal.tasks.testing.TestStartEvent;
+import org.gradle.api.tasks.testing.TestOutputEvent;
+
+/**
+ * Forwards test events to a {@link TestResultProcessor}. A batch of output events is forwarded as a whole when the target is a
+ * {@link BatchAwareTestResultProcessor}, and is otherwise unpacked into individual events.
+ */
+public class BatchUnpackingTestResultProcessor implements BatchAwareTestResultProcessor {
+    private final TestResultProcessor delegate;
+
+    public BatchUnpackingTestResultProcessor(TestResultProcessor delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void started(TestDescriptorInternal test, TestStartEvent event) {
+        delegate.started(test, event);
+    }
+
+    @Override
+    public void completed(Object testId, TestCompleteEvent event) {
+        delegate.completed(testId, event);
+    }
+
+    @Override
+    public void output(Object testId, TestOutputEvent event) {
+        delegate.output(testId, event);
+    }
+
+    @Override
+    public void failure(Object testId, Throwable result) {
+        delegate.failure(testId, result);
+    }
+
+    @Override
+    public void outputBatch(TestOutputEventBatch batch) {
+        outputBatch(batch, delegate);
+    }
+
+    /**
+     * Passes the given batch on to the given processor, in a single call when the processor accepts batches.
+     */
+    public static void outputBatch(TestOutputEventBatch batch, TestResultProcessor target) {
+        if (target instanceof BatchAwareTestResultProcessor) {
+            ((BatchAwareTestResultProcessor) target).outputBatch(batch);
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            target.output(batch.getTestId(i), batch.getEvent(i));
+        }
+    }
+}
@@ -27,18 +27,23 @@ import org.gradle.internal.concurrent.CompositeStoppable;
 import org.gradle.internal.dispatch.DispatchException;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 /**
- * Manages a set of parallel TestClassProcessors. Uses a simple round-robin algorithm to assign test classes to
- * processors.
+ * Manages a set of parallel TestClassProcessors. Each test class is assigned to the processor with the least amount of
+ * expected work, using the durations of the previous run where available. Without previous durations this is a simple
+ * round-robin algorithm.
  */
 public class MaxNParallelTestClassProcessor implements TestClassProcessor {
     private final int maxProcessors;
     private final Factory<TestClassProcessor> factory;
     private final ActorFactory actorFactory;
+    private final Map<String, Long> previousTestClassDurations;
+    private final long defaultDuration;
+    private final long[] expectedWork;
     private TestResultProcessor resultProcessor;
-    private int pos;
     private List<TestClassProcessor> processors = new ArrayList<TestClassProcessor>();
     private List<TestClassProcessor> rawProcessors = new ArrayList<TestClassProcessor>();
     private List<Actor> actors = new ArrayList<Actor>();
@@ -46,16 +51,35 @@ public class MaxNParallelTestClassProcessor implements TestClassProcessor {
     private volatile boolean stoppedNow;
 
     public MaxNParallelTestClassProcessor(int maxProcessors, Factory<TestClassProcessor> factory, ActorFactory actorFactory) {
+        this(maxProcessors, factory, actorFactory, Collections.<String, Long>emptyMap());
+    }
+
+    public MaxNParallelTestClassProcessor(int maxProcessors, Factory<TestClassProcessor> factory, ActorFactory actorFactory, Map<String, Long> previousTestClassDurations) {
         this.maxProcessors = maxProcessors;
         this.factory = factory;
         this.actorFactory = actorFactory;
+        this.previousTestClassDurations = previousTestClassDurations;
+        this.defaultDuration = averageOf(previousTestClassDurations);
+        this.expectedWork = new long[maxProcessors];
+    }
+
+    private static long averageOf(Map<String, Long> durations) {
+        if (durations.isEmpty()) {
+            return 1;
+        }
+        long total = 0;
+        for (Long duration : durations.values()) {
+            total += duration;
+        }
+        return Math.max(1, total / durations.size());
     }
 
     @Override
     public void startProcessing(TestResultProcessor resultProcessor) {
-        // Create a processor that processes events in its own thread
-        resultProcessorActor = actorFactory.createActor(resultProcessor);
-        this.resultProcessor = resultProcessorActor.getProxy(TestResultProcessor.class);
+        // Create a processor that processes events in its own thread. Batches of output events from the workers are passed to this thread
+        // as a single message and unpacked there
+        resultProcessorActor = actorFactory.createActor(new BatchUnpackingTestResultProcessor(resultProcessor));
+        this.resultProcessor = resultProcessorActor.getProxy(BatchAwareTestResultProcessor.class);
     }
 
     @Override
@@ -65,7 +89,9 @@ public class MaxNParallelTestClassProcessor implements TestClassProcessor {
         }
 
         TestClassProcessor processor;
+        int index;
         if (processors.size() < maxProcessors) {
+            index = processors.size();
             processor = factory.create();
             rawProcessors.add(processor);
             Actor actor = actorFactory.createActor(processor);
@@ -74,12 +100,28 @@ public class MaxNParallelTestClassProcessor implements TestClassProcessor {
             processors.add(processor);
             processor.startProcessing(resultProcessor);
         } else {
-            processor = processors.get(pos);
-            pos = (pos + 1) % processors.size();
+            index = leastBusyProcessor();
+            processor = processors.get(index);
         }
+        expectedWork[index] += expectedDuration(testClass);
         processor.processTestClass(testClass);
     }
 
+    private int leastBusyProcessor() {
+        int index = 0;
+        for (int i = 1; i < processors.size(); i++) {
+            if (expectedWork[i] < expectedWork[index]) {
+                index = i;
+            }
+        }
+        return index;
+    }
+
+    private long expectedDuration(TestClassRunInfo testClass) {
+        Long duration = previousTestClassDurations.get(testClass.getTestClassName());
+        return duration == null ? defaultDuration : Math.max(1, duration);
+    }
+
     @Override
     public void stop() {
         try {
@@ -20,21 +20,36 @@ import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
 import org.gradle.api.internal.tasks.testing.TestResultProcessor;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
  * In order to speed up the development feedback cycle, this class guarantee previous failed test classes
  * to be passed to its delegate first.
+ *
+ * The remaining test classes are passed on longest first, based on the durations of the previous run, so that
+ * slow test classes do not end up at the tail of a parallel test run. Classes without a previous duration keep
+ * their discovery order and go before the classes with a known duration.
  */
 public class RunPreviousFailedFirstTestClassProcessor implements TestClassProcessor {
     private final Set<String> previousFailedTestClasses;
+    private final Map<String, Long> previousTestClassDurations;
     private final TestClassProcessor delegate;
     private final LinkedHashSet<TestClassRunInfo> prioritizedTestClasses = new LinkedHashSet<TestClassRunInfo>();
     private final LinkedHashSet<TestClassRunInfo> otherTestClasses = new LinkedHashSet<TestClassRunInfo>();
 
     public RunPreviousFailedFirstTestClassProcessor(Set<String> previousFailedTestClasses, TestClassProcessor delegate) {
+        this(previousFailedTestClasses, Collections.<String, Long>emptyMap(), delegate);
+    }
+
+    public RunPreviousFailedFirstTestClassProcessor(Set<String> previousFailedTestClasses, Map<String, Long> previousTestClassDurations, TestClassProcessor delegate) {
         this.previousFailedTestClasses = previousFailedTestClasses;
+        this.previousTestClassDurations = previousTestClassDurations;
         this.delegate = delegate;
     }
 
@@ -57,12 +72,34 @@ public class RunPreviousFailedFirstTestClassProcessor implements TestClassProces
         for (TestClassRunInfo test : prioritizedTestClasses) {
             delegate.processTestClass(test);
         }
-        for (TestClassRunInfo test : otherTestClasses) {
+        for (TestClassRunInfo test : longestFirst(otherTestClasses)) {
             delegate.processTestClass(test);
         }
         delegate.stop();
     }
 
+    private Iterable<TestClassRunInfo> longestFirst(Set<TestClassRunInfo> testClasses) {
+        if (previousTestClassDurations.isEmpty()) {
+            return testClasses;
+        }
+        List<TestClassRunInfo> sorted = new ArrayList<TestClassRunInfo>(testClasses);
+        // Stable sort, so classes with equal durations keep their discovery order
+        Collections.sort(sorted, new Comparator<TestClassRunInfo>() {
+            @Override
+            public int compare(TestClassRunInfo left, TestClassRunInfo right) {
+                long leftDuration = durationOf(left);
+                long rightDuration = durationOf(right);
+                return leftDuration > rightDuration ? -1 : (leftDuration == rightDuration ? 0 : 1);
+            }
+        });
+        return sorted;
+    }
+
+    private long durationOf(TestClassRunInfo testClass) {
+        Long duration = previousTestClassDurations.get(testClass.getTestClassName());
+        return duration == null ? Long.MAX_VALUE : duration;
+    }
+
     @Override
     public void stopNow() {
         delegate.stopNow();
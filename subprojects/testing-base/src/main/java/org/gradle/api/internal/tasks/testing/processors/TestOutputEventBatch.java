@@ -0,0 +1,71 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.processors;
+
+import org.gradle.api.tasks.testing.TestOutputEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A sequence of test output events that is passed on as a whole, for example from a test worker to the build in a single message.
+ *
+ * @see BatchAwareTestResultProcessor
+ */
+public class TestOutputEventBatch {
+    private final List<Object> testIds;
+    private final List<TestOutputEvent> events;
+    private int messageLength;
+
+    public TestOutputEventBatch() {
+        this(16);
+    }
+
+    public TestOutputEventBatch(int expectedSize) {
+        testIds = new ArrayList<Object>(expectedSize);
+        events = new ArrayList<TestOutputEvent>(expectedSize);
+    }
+
+    public void add(Object testId, TestOutputEvent event) {
+        testIds.add(testId);
+        events.add(event);
+        messageLength += event.getMessage().length();
+    }
+
+    public int size() {
+        return events.size();
+    }
+
+    public boolean isEmpty() {
+        return events.isEmpty();
+    }
+
+    /**
+     * The total length of the messages in this batch.
+     */
+    public int getMessageLength() {
+        return messageLength;
+    }
+
+    public Object getTestId(int index) {
+        return testIds.get(index);
+    }
+
+    public TestOutputEvent getEvent(int index) {
+        return events.get(index);
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker;
+
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent;
+import org.gradle.api.internal.tasks.testing.TestDescriptorInternal;
+import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.gradle.api.internal.tasks.testing.TestStartEvent;
+import org.gradle.api.internal.tasks.testing.processors.TestOutputEventBatch;
+import org.gradle.api.tasks.testing.TestOutputEvent;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedScheduledExecutor;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.id.CompositeIdGenerator;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects the output events of the tests into batches, so that they are sent to the build with fewer remote calls.
+ *
+ * <p>A batch is sent when it holds enough output, at regular intervals so that the output still shows up while the tests run, and before any other event
+ * so that the events keep their order.</p>
+ */
+public class BatchingTestResultProcessor implements TestResultProcessor, Stoppable {
+    private static final int MAX_BATCH_MESSAGE_LENGTH = 32 * 1024;
+    private static final int MAX_BATCH_SIZE = 1000;
+    private static final long FLUSH_INTERVAL_MILLIS = 100;
+
+    private final RemoteTestResultProcessor target;
+    private final ManagedScheduledExecutor flushExecutor;
+    private TestOutputEventBatch batch = new TestOutputEventBatch();
+
+    public BatchingTestResultProcessor(RemoteTestResultProcessor target, ExecutorFactory executorFactory) {
+        this(target, executorFactory, FLUSH_INTERVAL_MILLIS);
+    }
+
+    BatchingTestResultProcessor(RemoteTestResultProcessor target, ExecutorFactory executorFactory, long flushIntervalMillis) {
+        this.target = target;
+        this.flushExecutor = executorFactory.createScheduled("Test output flusher", 1);
+        flushExecutor.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                flush();
+            }
+        }, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void started(TestDescriptorInternal test, TestStartEvent event) {
+        flush();
+        target.started(test, event);
+    }
+
+    @Override
+    public synchronized void completed(Object testId, TestCompleteEvent event) {
+        flush();
+        target.completed(testId, event);
+    }
+
+    @Override
+    public synchronized void output(Object testId, TestOutputEvent event) {
+        if (!(testId instanceof CompositeIdGenerator.CompositeId)) {
+            // Only output of tests with the usual ids can be batched
+            flush();
+            target.output(testId, event);
+            return;
+        }
+        batch.add(testId, event);
+        if (batch.getMessageLength() >= MAX_BATCH_MESSAGE_LENGTH || batch.size() >= MAX_BATCH_SIZE) {
+            flush();
+        }
+    }
+
+    @Override
+    public synchronized void failure(Object testId, Throwable result) {
+        flush();
+        target.failure(testId, result);
+    }
+
+    /**
+     * Sends the output collected so far.
+     */
+    public synchronized void flush() {
+        if (batch.isEmpty()) {
+            return;
+        }
+        TestOutputEventBatch current = batch;
+        batch = new TestOutputEventBatch();
+        target.outputBatch(current);
+    }
+
+    @Override
+    public void stop() {
+        flushExecutor.stop();
+        flush();
+    }
+}
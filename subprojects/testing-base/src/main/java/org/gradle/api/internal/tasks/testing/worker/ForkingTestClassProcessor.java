@@ -23,6 +23,7 @@ import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
 import org.gradle.api.internal.tasks.testing.TestResultProcessor;
 import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory;
+import org.gradle.internal.UncheckedException;
 import org.gradle.internal.remote.ObjectConnection;
 import org.gradle.internal.work.WorkerLeaseRegistry;
 import org.gradle.process.JavaForkOptions;
@@ -32,8 +33,15 @@ import org.gradle.process.internal.worker.WorkerProcessBuilder;
 import org.gradle.process.internal.worker.WorkerProcessFactory;
 import org.gradle.util.CollectionUtils;
 
+import javax.annotation.Nullable;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -46,15 +54,25 @@ public class ForkingTestClassProcessor implements TestClassProcessor {
     private final Iterable<File> classPath;
     private final Action<WorkerProcessBuilder> buildConfigAction;
     private final ModuleRegistry moduleRegistry;
+    private final TestWorkerProcessPool workerProcessPool;
     private final Lock lock = new ReentrantLock();
     private RemoteTestClassProcessor remoteProcessor;
     private WorkerProcess workerProcess;
+    private TestWorkerProcessPool.PooledTestWorker pooledWorker;
     private TestResultProcessor resultProcessor;
     private WorkerLeaseRegistry.WorkerLeaseCompletion completion;
     private DocumentationRegistry documentationRegistry;
     private boolean stoppedNow;
 
     public ForkingTestClassProcessor(WorkerLeaseRegistry.WorkerLease parentWorkerLease, WorkerProcessFactory workerFactory, WorkerTestClassProcessorFactory processorFactory, JavaForkOptions options, Iterable<File> classPath, Action<WorkerProcessBuilder> buildConfigAction, ModuleRegistry moduleRegistry, DocumentationRegistry documentationRegistry) {
+        this(parentWorkerLease, workerFactory, processorFactory, options, classPath, buildConfigAction, moduleRegistry, documentationRegistry, null);
+    }
+
+    /**
+     * @param workerProcessPool when not null, the tests run in a worker process from this pool that is kept alive after the tests have finished.
+     */
+    public ForkingTestClassProcessor(WorkerLeaseRegistry.WorkerLease parentWorkerLease, WorkerProcessFactory workerFactory, WorkerTestClassProcessorFactory processorFactory, JavaForkOptions options, Iterable<File> classPath, Action<WorkerProcessBuilder> buildConfigAction, ModuleRegistry moduleRegistry, DocumentationRegistry documentationRegistry, @Nullable TestWorkerProcessPool workerProcessPool) {
+        this.workerProcessPool = workerProcessPool;
         this.currentWorkerLease = parentWorkerLease;
         this.workerFactory = workerFactory;
         this.processorFactory = processorFactory;
@@ -81,7 +99,7 @@ public class ForkingTestClassProcessor implements TestClassProcessor {
             if (remoteProcessor == null) {
                 completion = currentWorkerLease.startChild();
                 try {
-                    remoteProcessor = forkProcess();
+                    remoteProcessor = workerProcessPool == null ? forkProcess() : startPooledWorkerSession();
                 } catch (RuntimeException e) {
                     completion.leaseFinish();
                     completion = null;
@@ -109,13 +127,54 @@ public class ForkingTestClassProcessor implements TestClassProcessor {
 
         ObjectConnection connection = workerProcess.getConnection();
         connection.useParameterSerializers(TestEventSerializer.create());
-        connection.addIncoming(TestResultProcessor.class, resultProcessor);
+        connection.addIncoming(RemoteTestResultProcessor.class, new RemoteTestResultProcessorAdapter(resultProcessor));
         RemoteTestClassProcessor remoteProcessor = connection.addOutgoing(RemoteTestClassProcessor.class);
         connection.connect();
         remoteProcessor.startProcessing();
         return remoteProcessor;
     }
 
+    private RemoteTestClassProcessor startPooledWorkerSession() {
+        List<URL> implementationClasspath = getReusableTestWorkerImplementationClasspath();
+        WorkerProcessBuilder builder = workerFactory.create(new ReusableTestWorker());
+        builder.setBaseName("Gradle Test Executor");
+        builder.setImplementationClasspath(implementationClasspath);
+        options.copyTo(builder.getJavaCommand());
+        builder.getJavaCommand().jvmArgs("-Dorg.gradle.native=false");
+        buildConfigAction.execute(builder);
+
+        final TestWorkerProcessPool.PooledTestWorker worker = workerProcessPool.acquire(builder, implementationClasspath);
+        pooledWorker = worker;
+        worker.startSession(resultProcessor, serialize(processorFactory), getTestRuntimeClasspath(), getTestFrameworkImplementationClasspath(), new HashSet<String>(builder.getSharedPackages()));
+        return new RemoteTestClassProcessor() {
+            @Override
+            public void startProcessing() {
+            }
+
+            @Override
+            public void processTestClass(TestClassRunInfo testClass) {
+                worker.processTestClass(testClass);
+            }
+
+            @Override
+            public void stop() {
+                worker.stopSession();
+            }
+        };
+    }
+
+    private static byte[] serialize(WorkerTestClassProcessorFactory processorFactory) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            ObjectOutputStream outputStream = new ObjectOutputStream(bytes);
+            outputStream.writeObject(processorFactory);
+            outputStream.close();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
     List<URL> getTestWorkerImplementationClasspath() {
         return CollectionUtils.flattenCollections(URL.class,
             moduleRegistry.getModule("gradle-core-api").getImplementationClasspath().getAsURLs(),
@@ -141,6 +200,51 @@ public class ForkingTestClassProcessor implements TestClassProcessor {
         );
     }
 
+    private List<URL> getReusableTestWorkerImplementationClasspath() {
+        return CollectionUtils.flattenCollections(URL.class,
+            moduleRegistry.getModule("gradle-core-api").getImplementationClasspath().getAsURLs(),
+            moduleRegistry.getModule("gradle-core").getImplementationClasspath().getAsURLs(),
+            moduleRegistry.getModule("gradle-logging").getImplementationClasspath().getAsURLs(),
+            moduleRegistry.getModule("gradle-messaging").getImplementationClasspath().getAsURLs(),
+            moduleRegistry.getModule("gradle-base-services").getImplementationClasspath().getAsURLs(),
+            moduleRegistry.getModule("gradle-cli").getImplementationClasspath().getAsURLs(),
+            moduleRegistry.getModule("gradle-native").getImplementationClasspath().getAsURLs(),
+            moduleRegistry.getModule("gradle-testing-base").getImplementationClasspath().getAsURLs(),
+            moduleRegistry.getModule("gradle-process-services").getImplementationClasspath().getAsURLs(),
+            moduleRegistry.getExternalModule("slf4j-api").getImplementationClasspath().getAsURLs(),
+            moduleRegistry.getExternalModule("jul-to-slf4j").getImplementationClasspath().getAsURLs(),
+            moduleRegistry.getExternalModule("native-platform").getImplementationClasspath().getAsURLs(),
+            moduleRegistry.getExternalModule("kryo").getImplementationClasspath().getAsURLs(),
+            moduleRegistry.getExternalModule("commons-lang").getImplementationClasspath().getAsURLs()
+        );
+    }
+
+    /**
+     * The test framework integration, which needs to see the shared test framework packages from the test runtime classpath.
+     */
+    private List<URL> getTestFrameworkImplementationClasspath() {
+        return CollectionUtils.flattenCollections(URL.class,
+            moduleRegistry.getModule("gradle-testing-jvm").getImplementationClasspath().getAsURLs(),
+            moduleRegistry.getModule("gradle-testing-junit-platform").getImplementationClasspath().getAsURLs(),
+            moduleRegistry.getExternalModule("junit-platform-engine").getImplementationClasspath().getAsURLs(),
+            moduleRegistry.getExternalModule("junit-platform-launcher").getImplementationClasspath().getAsURLs(),
+            moduleRegistry.getExternalModule("junit-platform-commons").getImplementationClasspath().getAsURLs(),
+            moduleRegistry.getExternalModule("junit").getImplementationClasspath().getAsURLs()
+        );
+    }
+
+    private List<URL> getTestRuntimeClasspath() {
+        List<URL> testRuntimeClasspath = new ArrayList<URL>();
+        for (File file : classPath) {
+            try {
+                testRuntimeClasspath.add(file.toURI().toURL());
+            } catch (MalformedURLException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+        }
+        return testRuntimeClasspath;
+    }
+
     @Override
     public void stop() {
         try {
@@ -153,7 +257,9 @@ public class ForkingTestClassProcessor implements TestClassProcessor {
                 } finally {
                     lock.unlock();
                 }
-                workerProcess.waitForStop();
+                if (pooledWorker == null) {
+                    workerProcess.waitForStop();
+                }
             }
         } catch (ExecException e) {
             if (!stoppedNow) {
@@ -163,6 +269,18 @@ public class ForkingTestClassProcessor implements TestClassProcessor {
                     + documentationRegistry.getDocumentationFor("java_testing", "sec:test_execution"), e.getCause());
             }
         } finally {
+            if (pooledWorker != null) {
+                TestWorkerProcessPool.PooledTestWorker worker;
+                lock.lock();
+                try {
+                    // A later stopNow() must not stop a worker that is back in the pool
+                    worker = pooledWorker;
+                    pooledWorker = null;
+                } finally {
+                    lock.unlock();
+                }
+                workerProcessPool.release(worker);
+            }
             if (completion!=null) {
                 completion.leaseFinish();
             }
@@ -174,7 +292,9 @@ public class ForkingTestClassProcessor implements TestClassProcessor {
         lock.lock();
         try {
             stoppedNow = true;
-            if (remoteProcessor != null) {
+            if (pooledWorker != null) {
+                pooledWorker.stopNow();
+            } else if (remoteProcessor != null) {
                 workerProcess.stopNow();
             }
         } finally {
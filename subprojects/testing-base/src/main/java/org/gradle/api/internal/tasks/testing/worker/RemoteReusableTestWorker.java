@@ -0,0 +1,56 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker;
+
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
+
+import java.net.URL;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The protocol of a test worker that runs the tests of several test executions, one session at a time.
+ *
+ * @see ReusableTestWorker
+ */
+public interface RemoteReusableTestWorker {
+    /**
+     * Starts a session, loading the test runtime classpath and the test framework implementation in new ClassLoaders. Does not block.
+     *
+     * @param serializedProcessorFactory the Java serialized {@link org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory} to use for this session
+     * @param testRuntimeClasspath the test runtime classpath
+     * @param frameworkImplementationClasspath the test framework implementation
+     * @param sharedPackages the packages of the test runtime classpath that are visible to the test framework implementation
+     */
+    void startSession(byte[] serializedProcessorFactory, List<URL> testRuntimeClasspath, List<URL> frameworkImplementationClasspath, Set<String> sharedPackages);
+
+    /**
+     * Does not block.
+     */
+    void processTestClass(TestClassRunInfo testClass);
+
+    /**
+     * Stops the current session. The worker notifies {@link TestWorkerSessionListener#sessionCompleted()} once all
+     * results of the session have been sent. Does not block.
+     */
+    void stopSession();
+
+    /**
+     * Stops the worker process. Does not block.
+     */
+    void shutdown();
+}
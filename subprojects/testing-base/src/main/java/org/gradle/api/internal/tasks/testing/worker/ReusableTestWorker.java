@@ -0,0 +1,194 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker;
+
+import org.gradle.api.Action;
+import org.gradle.api.internal.tasks.testing.TestClassProcessor;
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
+import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.classloader.ClassLoaderUtils;
+import org.gradle.internal.classloader.FilteringClassLoader;
+import org.gradle.internal.classloader.MultiParentClassLoader;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.dispatch.ContextClassLoaderProxy;
+import org.gradle.internal.id.IdGenerator;
+import org.gradle.internal.io.ClassLoaderObjectInputStream;
+import org.gradle.internal.remote.ObjectConnection;
+import org.gradle.internal.service.DefaultServiceRegistry;
+import org.gradle.internal.time.Clock;
+import org.gradle.process.internal.worker.WorkerProcessContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.security.AccessControlException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * A test worker that stays alive after a test execution has finished, so that it can be used for the next test execution
+ * with the same process settings. The test runtime classpath is not part of the worker process classpath. Each session loads it
+ * in a new ClassLoader that only sees the Java platform classes, just like the system ClassLoader of a {@link TestWorker}. The test
+ * framework implementation is loaded in a second ClassLoader, which sees the Gradle classes of the worker and the shared packages of
+ * the test runtime classpath. Both ClassLoaders are discarded at the end of the session.
+ */
+public class ReusableTestWorker implements Action<WorkerProcessContext>, RemoteReusableTestWorker, Serializable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReusableTestWorker.class);
+    private transient CountDownLatch completed;
+    private transient WorkerProcessContext workerProcessContext;
+    private transient DefaultServiceRegistry testServices;
+    private transient TestWorkerSessionListener sessionListener;
+    private transient BatchingTestResultProcessor resultProcessor;
+    private transient SecurityManager securityManager;
+    private transient URLClassLoader testClassLoader;
+    private transient URLClassLoader frameworkClassLoader;
+    private transient TestClassProcessor processor;
+
+    @Override
+    public void execute(WorkerProcessContext workerProcessContext) {
+        LOGGER.info("{} started.", workerProcessContext.getDisplayName());
+
+        this.workerProcessContext = workerProcessContext;
+        securityManager = System.getSecurityManager();
+        completed = new CountDownLatch(1);
+
+        System.setProperty(TestWorker.WORKER_ID_SYS_PROPERTY, workerProcessContext.getWorkerId().toString());
+
+        testServices = new TestWorker.TestFrameworkServiceRegistry(workerProcessContext);
+        ObjectConnection serverConnection = workerProcessContext.getServerConnection();
+        serverConnection.useParameterSerializers(TestEventSerializer.create());
+        sessionListener = serverConnection.addOutgoing(TestWorkerSessionListener.class);
+        resultProcessor = new BatchingTestResultProcessor(sessionListener, testServices.get(ExecutorFactory.class));
+        serverConnection.addIncoming(RemoteReusableTestWorker.class, this);
+        serverConnection.connect();
+
+        try {
+            try {
+                completed.await();
+            } catch (InterruptedException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+        } finally {
+            LOGGER.info("{} stopped.", workerProcessContext.getDisplayName());
+            resultProcessor.stop();
+            testServices.close();
+        }
+    }
+
+    @Override
+    public void startSession(byte[] serializedProcessorFactory, List<URL> testRuntimeClasspath, List<URL> frameworkImplementationClasspath, Set<String> sharedPackages) {
+        Thread.currentThread().setName("Test worker");
+        LOGGER.info("{} started executing tests.", workerProcessContext.getDisplayName());
+
+        testClassLoader = createTestClassLoader(testRuntimeClasspath);
+        frameworkClassLoader = createFrameworkClassLoader(frameworkImplementationClasspath, testClassLoader, sharedPackages, getClass().getClassLoader());
+        WorkerTestClassProcessorFactory factory = deserialize(serializedProcessorFactory, frameworkClassLoader);
+
+        IdGenerator<Object> idGenerator = testServices.get(IdGenerator.class);
+        TestClassProcessor targetProcessor = new WorkerTestClassProcessor(factory.create(testServices), idGenerator.generateId(),
+            workerProcessContext.getDisplayName(), testServices.get(Clock.class));
+        processor = new ContextClassLoaderProxy<TestClassProcessor>(TestClassProcessor.class, targetProcessor, testClassLoader).getSource();
+        processor.startProcessing(resultProcessor);
+    }
+
+    /**
+     * Creates the ClassLoader for the test runtime classpath. The classes of the worker, such as its logging or serialization libraries, are not visible.
+     */
+    static URLClassLoader createTestClassLoader(List<URL> testRuntimeClasspath) {
+        return new URLClassLoader(testRuntimeClasspath.toArray(new URL[0]), ClassLoaderUtils.getPlatformClassLoader());
+    }
+
+    /**
+     * Creates the ClassLoader for the test framework implementation. Only the shared packages, such as the test framework API, are loaded from the test runtime classpath.
+     */
+    static URLClassLoader createFrameworkClassLoader(List<URL> frameworkImplementationClasspath, ClassLoader testClassLoader, Set<String> sharedPackages, ClassLoader workerClassLoader) {
+        FilteringClassLoader.Spec spec = new FilteringClassLoader.Spec();
+        for (String sharedPackage : sharedPackages) {
+            spec.allowPackage(sharedPackage);
+        }
+        ClassLoader parent = new MultiParentClassLoader(new FilteringClassLoader(testClassLoader, spec), workerClassLoader);
+        return new URLClassLoader(frameworkImplementationClasspath.toArray(new URL[0]), parent);
+    }
+
+    private static WorkerTestClassProcessorFactory deserialize(byte[] serializedProcessorFactory, ClassLoader classLoader) {
+        try {
+            ObjectInputStream inputStream = new ClassLoaderObjectInputStream(new ByteArrayInputStream(serializedProcessorFactory), classLoader);
+            return (WorkerTestClassProcessorFactory) inputStream.readObject();
+        } catch (Exception e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    @Override
+    public void processTestClass(TestClassRunInfo testClass) {
+        Thread.currentThread().setName("Test worker");
+        try {
+            processor.processTestClass(testClass);
+        } catch (AccessControlException e) {
+            // The tests have installed a security manager we cannot recover from, do not reuse this worker
+            completed.countDown();
+            throw e;
+        } finally {
+            // Clean the interrupted status
+            Thread.interrupted();
+        }
+    }
+
+    @Override
+    public void stopSession() {
+        Thread.currentThread().setName("Test worker");
+        try {
+            processor.stop();
+        } finally {
+            LOGGER.info("{} finished executing tests.", workerProcessContext.getDisplayName());
+            processor = null;
+            resetSecurityManager();
+            ClassLoaderUtils.tryClose(frameworkClassLoader);
+            ClassLoaderUtils.tryClose(testClassLoader);
+            frameworkClassLoader = null;
+            testClassLoader = null;
+            resultProcessor.flush();
+            sessionListener.sessionCompleted();
+            // Clean the interrupted status
+            // because some test class processors do work here, e.g. JUnitPlatform
+            Thread.interrupted();
+        }
+    }
+
+    private void resetSecurityManager() {
+        if (System.getSecurityManager() != securityManager) {
+            try {
+                // Reset security manager the tests seem to have installed
+                System.setSecurityManager(securityManager);
+            } catch (SecurityException e) {
+                LOGGER.warn("Unable to reset SecurityManager, stopping worker.", e);
+                completed.countDown();
+            }
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        completed.countDown();
+    }
+}
@@ -17,6 +17,7 @@
 package org.gradle.api.internal.tasks.testing.worker;
 
 import org.gradle.api.internal.tasks.testing.*;
+import org.gradle.api.internal.tasks.testing.processors.TestOutputEventBatch;
 import org.gradle.api.tasks.testing.TestOutputEvent;
 import org.gradle.api.tasks.testing.TestResult;
 import org.gradle.internal.id.CompositeIdGenerator;
@@ -36,6 +37,7 @@ public class TestEventSerializer {
         registry.register(TestStartEvent.class, new TestStartEventSerializer());
         registry.register(TestCompleteEvent.class, new TestCompleteEventSerializer());
         registry.register(DefaultTestOutputEvent.class, new DefaultTestOutputEventSerializer());
+        registry.register(TestOutputEventBatch.class, new TestOutputEventBatchSerializer());
         registry.register(Throwable.class, factory.getSerializerFor(Throwable.class));
         return registry;
     }
@@ -140,6 +142,45 @@ public class TestEventSerializer {
         }
     }
 
+    private static class TestOutputEventBatchSerializer implements Serializer<TestOutputEventBatch> {
+        @Override
+        public TestOutputEventBatch read(Decoder decoder) throws Exception {
+            int size = decoder.readSmallInt();
+            TestOutputEventBatch batch = new TestOutputEventBatch(size);
+            Object testId = null;
+            for (int i = 0; i < size; i++) {
+                if (!decoder.readBoolean()) {
+                    testId = new CompositeIdGenerator.CompositeId(decoder.readSmallLong(), decoder.readSmallLong());
+                }
+                TestOutputEvent.Destination destination = decoder.readBoolean() ? TestOutputEvent.Destination.StdOut : TestOutputEvent.Destination.StdErr;
+                String message = decoder.readString();
+                batch.add(testId, new DefaultTestOutputEvent(destination, message));
+            }
+            return batch;
+        }
+
+        @Override
+        public void write(Encoder encoder, TestOutputEventBatch value) throws Exception {
+            int size = value.size();
+            encoder.writeSmallInt(size);
+            Object previousTestId = null;
+            for (int i = 0; i < size; i++) {
+                // Consecutive events usually come from the same test
+                CompositeIdGenerator.CompositeId testId = (CompositeIdGenerator.CompositeId) value.getTestId(i);
+                boolean sameTest = i > 0 && testId.equals(previousTestId);
+                encoder.writeBoolean(sameTest);
+                if (!sameTest) {
+                    encoder.writeSmallLong((Long) testId.getScope());
+                    encoder.writeSmallLong((Long) testId.getId());
+                }
+                previousTestId = testId;
+                TestOutputEvent event = value.getEvent(i);
+                encoder.writeBoolean(event.getDestination() == TestOutputEvent.Destination.StdOut);
+                encoder.writeString(event.getMessage());
+            }
+        }
+    }
+
     private static class DefaultTestSuiteDescriptorSerializer implements Serializer<DefaultTestSuiteDescriptor> {
         final Serializer<CompositeIdGenerator.CompositeId> idSerializer = new IdSerializer();
 
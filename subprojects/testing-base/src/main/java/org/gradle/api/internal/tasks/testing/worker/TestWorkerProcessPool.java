@@ -0,0 +1,495 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker;
+
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent;
+import org.gradle.api.internal.tasks.testing.TestDescriptorInternal;
+import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.gradle.api.internal.tasks.testing.TestStartEvent;
+import org.gradle.api.internal.tasks.testing.processors.BatchUnpackingTestResultProcessor;
+import org.gradle.api.internal.tasks.testing.processors.TestOutputEventBatch;
+import org.gradle.api.tasks.testing.TestOutputEvent;
+import org.gradle.cache.internal.HeapMemoryHolder;
+import org.gradle.cache.internal.HeapMemoryManager;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
+import org.gradle.internal.concurrent.ManagedScheduledExecutor;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.remote.ObjectConnection;
+import org.gradle.internal.time.Clock;
+import org.gradle.process.internal.ExecException;
+import org.gradle.process.internal.JavaExecHandleBuilder;
+import org.gradle.process.internal.health.memory.MaximumHeapHelper;
+import org.gradle.process.internal.health.memory.MemoryAmount;
+import org.gradle.process.internal.health.memory.MemoryHolder;
+import org.gradle.process.internal.health.memory.MemoryManager;
+import org.gradle.process.internal.health.memory.OsMemoryInfo;
+import org.gradle.process.internal.worker.WorkerProcess;
+import org.gradle.process.internal.worker.WorkerProcessBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps test worker processes alive between test executions, so that a test execution with the same worker process settings
+ * does not need to pay for JVM startup and warm up. Reusing workers is opt-in, see {@link #REUSE_WORKERS_PROPERTY}.
+ *
+ * <p>At most {@link #DEFAULT_MAX_IDLE_WORKERS} workers are kept idle, and idle workers are stopped after {@link #DEFAULT_IDLE_TIMEOUT_MILLIS}
+ * or when the system or the heap of the build process is running low on memory.</p>
+ */
+public class TestWorkerProcessPool implements Stoppable, MemoryHolder, HeapMemoryHolder {
+    public static final String REUSE_WORKERS_PROPERTY = "org.gradle.internal.testing.reuseWorkers";
+    static final int DEFAULT_MAX_IDLE_WORKERS = Runtime.getRuntime().availableProcessors();
+    static final long DEFAULT_IDLE_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(3);
+    private static final long EXPIRATION_CHECK_INTERVAL_MILLIS = TimeUnit.SECONDS.toMillis(30);
+    private static final Logger LOGGER = LoggerFactory.getLogger(TestWorkerProcessPool.class);
+
+    private final ExecutorFactory executorFactory;
+    private final MemoryManager memoryManager;
+    private final HeapMemoryManager heapMemoryManager;
+    private final OsMemoryInfo memoryInfo;
+    private final Clock clock;
+    private final int maxIdleWorkers;
+    private final long idleTimeoutMillis;
+    private final Object lock = new Object();
+    // The most recently released worker first
+    private final LinkedList<PooledTestWorker> idleWorkers = new LinkedList<PooledTestWorker>();
+    // Created when the first worker is started, as most builds never reuse workers
+    private ManagedExecutor processMonitor;
+    private ManagedScheduledExecutor expirationScheduler;
+    private long osTotalMemory = -1;
+    private boolean stopped;
+
+    public TestWorkerProcessPool(ExecutorFactory executorFactory, MemoryManager memoryManager, HeapMemoryManager heapMemoryManager, OsMemoryInfo memoryInfo, Clock clock) {
+        this(executorFactory, memoryManager, heapMemoryManager, memoryInfo, clock, DEFAULT_MAX_IDLE_WORKERS, DEFAULT_IDLE_TIMEOUT_MILLIS);
+    }
+
+    TestWorkerProcessPool(ExecutorFactory executorFactory, MemoryManager memoryManager, HeapMemoryManager heapMemoryManager, OsMemoryInfo memoryInfo, Clock clock, int maxIdleWorkers, long idleTimeoutMillis) {
+        this.executorFactory = executorFactory;
+        this.memoryManager = memoryManager;
+        this.heapMemoryManager = heapMemoryManager;
+        this.memoryInfo = memoryInfo;
+        this.clock = clock;
+        this.maxIdleWorkers = maxIdleWorkers;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+    }
+
+    public boolean isEnabled() {
+        return Boolean.getBoolean(REUSE_WORKERS_PROPERTY);
+    }
+
+    /**
+     * Returns an idle worker started with the same settings as the given builder, or starts a new worker using the builder.
+     */
+    public PooledTestWorker acquire(WorkerProcessBuilder builder, List<URL> implementationClasspath) {
+        List<Object> key = keyOf(builder, implementationClasspath);
+        synchronized (lock) {
+            Iterator<PooledTestWorker> iterator = idleWorkers.iterator();
+            while (iterator.hasNext()) {
+                PooledTestWorker worker = iterator.next();
+                if (!worker.key.equals(key)) {
+                    continue;
+                }
+                iterator.remove();
+                if (worker.isReusable()) {
+                    LOGGER.debug("Reusing {}.", worker.process);
+                    return worker;
+                }
+            }
+        }
+        return start(key, builder);
+    }
+
+    /**
+     * Returns a worker to the pool once its session has completed. A worker that has been stopped, has exited or did not complete its session is not reused.
+     */
+    public void release(PooledTestWorker worker) {
+        List<PooledTestWorker> toStop = new ArrayList<PooledTestWorker>();
+        synchronized (lock) {
+            if (!stopped && worker.isReusable()) {
+                worker.idleSince = clock.getCurrentTime();
+                idleWorkers.addFirst(worker);
+                while (idleWorkers.size() > maxIdleWorkers) {
+                    toStop.add(idleWorkers.removeLast());
+                }
+            } else {
+                toStop.add(worker);
+            }
+        }
+        shutdown(toStop);
+    }
+
+    /**
+     * Stops the workers that have been idle for longer than the idle timeout.
+     */
+    void expireIdleWorkers() {
+        List<PooledTestWorker> toStop = new ArrayList<PooledTestWorker>();
+        long expiredBefore = clock.getCurrentTime() - idleTimeoutMillis;
+        synchronized (lock) {
+            Iterator<PooledTestWorker> iterator = idleWorkers.iterator();
+            while (iterator.hasNext()) {
+                PooledTestWorker worker = iterator.next();
+                if (worker.idleSince <= expiredBefore) {
+                    iterator.remove();
+                    toStop.add(worker);
+                }
+            }
+        }
+        if (!toStop.isEmpty()) {
+            LOGGER.debug("Stopping {} idle test worker(s).", toStop.size());
+        }
+        shutdown(toStop);
+    }
+
+    /**
+     * Stops idle workers, least recently used first, until the requested amount of memory has been released.
+     */
+    @Override
+    public long attemptToRelease(long memoryAmountBytes) throws IllegalArgumentException {
+        if (memoryAmountBytes < 0) {
+            throw new IllegalArgumentException("Negative memory amount");
+        }
+        List<PooledTestWorker> toStop = new ArrayList<PooledTestWorker>();
+        long releasedBytes = 0;
+        synchronized (lock) {
+            while (releasedBytes < memoryAmountBytes && !idleWorkers.isEmpty()) {
+                PooledTestWorker worker = idleWorkers.removeLast();
+                toStop.add(worker);
+                releasedBytes += worker.getMemoryUsage(osTotalMemory);
+            }
+        }
+        if (!toStop.isEmpty()) {
+            LOGGER.debug("Stopped {} idle test worker(s) to free some system memory.", toStop.size());
+        }
+        shutdown(toStop);
+        return releasedBytes;
+    }
+
+    int getIdleWorkerCount() {
+        synchronized (lock) {
+            return idleWorkers.size();
+        }
+    }
+
+    @Override
+    public long getRetainedValueCount() {
+        return getIdleWorkerCount();
+    }
+
+    /**
+     * Stops all idle workers, along with the connections and buffers the build process holds for them.
+     */
+    @Override
+    public long release() {
+        List<PooledTestWorker> toStop;
+        synchronized (lock) {
+            toStop = new ArrayList<PooledTestWorker>(idleWorkers);
+            idleWorkers.clear();
+        }
+        if (!toStop.isEmpty()) {
+            LOGGER.debug("Stopped {} idle test worker(s) as the heap is running low.", toStop.size());
+        }
+        shutdown(toStop);
+        return toStop.size();
+    }
+
+    private PooledTestWorker start(List<Object> key, WorkerProcessBuilder builder) {
+        ManagedExecutor processMonitor = startMonitoring();
+        WorkerProcess workerProcess = builder.build();
+        workerProcess.start();
+        final PooledTestWorker worker = new PooledTestWorker(key, workerProcess, builder.getJavaCommand().getMaxHeapSize());
+        processMonitor.execute(new Runnable() {
+            @Override
+            public void run() {
+                worker.waitForExit();
+            }
+        });
+        return worker;
+    }
+
+    /**
+     * Starts expiring idle workers and releasing them when memory is running low, the first time this is called.
+     */
+    private ManagedExecutor startMonitoring() {
+        synchronized (lock) {
+            if (processMonitor == null) {
+                processMonitor = executorFactory.create("Test worker process monitor");
+                expirationScheduler = executorFactory.createScheduled("Test worker process expiration", 1);
+                expirationScheduler.scheduleAtFixedRate(new Runnable() {
+                    @Override
+                    public void run() {
+                        expireIdleWorkers();
+                    }
+                }, EXPIRATION_CHECK_INTERVAL_MILLIS, EXPIRATION_CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                osTotalMemory = getTotalPhysicalMemory(memoryInfo);
+                memoryManager.addMemoryHolder(this);
+                heapMemoryManager.addHolder(this, HeapMemoryManager.Priority.EXPENSIVE_TO_RECREATE);
+            }
+            return processMonitor;
+        }
+    }
+
+    private static List<Object> keyOf(WorkerProcessBuilder builder, List<URL> implementationClasspath) {
+        JavaExecHandleBuilder javaCommand = builder.getJavaCommand();
+        return Arrays.<Object>asList(
+            javaCommand.getExecutable(),
+            javaCommand.getWorkingDir(),
+            new HashMap<String, Object>(javaCommand.getEnvironment()),
+            javaCommand.getAllJvmArgs(),
+            builder.getLogLevel(),
+            builder.getApplicationClasspath(),
+            implementationClasspath
+        );
+    }
+
+    private static long getTotalPhysicalMemory(OsMemoryInfo memoryInfo) {
+        try {
+            return memoryInfo.getOsSnapshot().getTotalPhysicalMemory();
+        } catch (UnsupportedOperationException e) {
+            return -1;
+        }
+    }
+
+    private static void shutdown(List<PooledTestWorker> workers) {
+        for (PooledTestWorker worker : workers) {
+            worker.shutdown();
+        }
+    }
+
+    @Override
+    public void stop() {
+        List<PooledTestWorker> workers;
+        ManagedExecutor processMonitor;
+        ManagedScheduledExecutor expirationScheduler;
+        synchronized (lock) {
+            stopped = true;
+            workers = new ArrayList<PooledTestWorker>(idleWorkers);
+            idleWorkers.clear();
+            processMonitor = this.processMonitor;
+            expirationScheduler = this.expirationScheduler;
+        }
+        if (processMonitor == null) {
+            // No worker was ever started
+            return;
+        }
+        expirationScheduler.stop();
+        memoryManager.removeMemoryHolder(this);
+        heapMemoryManager.removeHolder(this);
+        shutdown(workers);
+        processMonitor.stop();
+    }
+
+    /**
+     * A worker process that runs one test session at a time.
+     */
+    public static class PooledTestWorker {
+        private final List<Object> key;
+        private final WorkerProcess process;
+        private final String maxHeapSize;
+        private final RemoteReusableTestWorker remoteWorker;
+        private final SessionResultProcessor sessionResultProcessor = new SessionResultProcessor(this);
+        private final Lock stateLock = new ReentrantLock();
+        private final Condition stateChanged = stateLock.newCondition();
+        private boolean sessionRunning;
+        private boolean stoppedNow;
+        private boolean exited;
+        private ExecException exitFailure;
+        // Guarded by the pool lock
+        private long idleSince;
+
+        private PooledTestWorker(List<Object> key, WorkerProcess process, String maxHeapSize) {
+            this.key = key;
+            this.process = process;
+            this.maxHeapSize = maxHeapSize;
+            ObjectConnection connection = process.getConnection();
+            connection.useParameterSerializers(TestEventSerializer.create());
+            connection.addIncoming(TestWorkerSessionListener.class, sessionResultProcessor);
+            remoteWorker = connection.addOutgoing(RemoteReusableTestWorker.class);
+            connection.connect();
+        }
+
+        public void startSession(TestResultProcessor resultProcessor, byte[] serializedProcessorFactory, List<URL> testRuntimeClasspath, List<URL> frameworkImplementationClasspath, Set<String> sharedPackages) {
+            stateLock.lock();
+            try {
+                sessionRunning = true;
+            } finally {
+                stateLock.unlock();
+            }
+            sessionResultProcessor.target = resultProcessor;
+            remoteWorker.startSession(serializedProcessorFactory, testRuntimeClasspath, frameworkImplementationClasspath, sharedPackages);
+        }
+
+        public void processTestClass(TestClassRunInfo testClass) {
+            remoteWorker.processTestClass(testClass);
+        }
+
+        /**
+         * Stops the current session, blocking until all of its results have been received.
+         *
+         * <p>The worker sends the end of the session through the same connection as the results of the session, which are dispatched in order by a single thread.
+         * Once the end of the session has been received, all of its results have been forwarded.</p>
+         */
+        public void stopSession() {
+            remoteWorker.stopSession();
+            stateLock.lock();
+            try {
+                while (sessionRunning && !exited) {
+                    stateChanged.await();
+                }
+                if (exitFailure != null) {
+                    throw exitFailure;
+                }
+            } catch (InterruptedException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            } finally {
+                stateLock.unlock();
+            }
+        }
+
+        private void sessionCompleted() {
+            stateLock.lock();
+            try {
+                sessionRunning = false;
+                stateChanged.signalAll();
+            } finally {
+                stateLock.unlock();
+            }
+        }
+
+        public void stopNow() {
+            stateLock.lock();
+            try {
+                // Recorded before the process is stopped, as the process exit is only noticed asynchronously
+                stoppedNow = true;
+            } finally {
+                stateLock.unlock();
+            }
+            process.stopNow();
+        }
+
+        private boolean isReusable() {
+            stateLock.lock();
+            try {
+                return !exited && !stoppedNow && !sessionRunning;
+            } finally {
+                stateLock.unlock();
+            }
+        }
+
+        private void shutdown() {
+            stateLock.lock();
+            try {
+                if (exited || stoppedNow) {
+                    return;
+                }
+            } finally {
+                stateLock.unlock();
+            }
+            remoteWorker.shutdown();
+        }
+
+        private long getMemoryUsage(long osTotalMemory) {
+            try {
+                return process.getJvmMemoryStatus().getCommittedMemory();
+            } catch (UnsupportedOperationException e) {
+                // The worker does not report its memory usage
+            } catch (IllegalStateException e) {
+                // The worker has not reported its memory usage yet
+            }
+            long maxHeap = MemoryAmount.parseNotation(maxHeapSize);
+            if (maxHeap != -1) {
+                return maxHeap;
+            }
+            if (osTotalMemory != -1) {
+                return new MaximumHeapHelper().getDefaultMaximumHeapSize(osTotalMemory);
+            }
+            return 0;
+        }
+
+        private void waitForExit() {
+            ExecException failure = null;
+            try {
+                process.waitForStop();
+            } catch (ExecException e) {
+                failure = e;
+            }
+            stateLock.lock();
+            try {
+                exited = true;
+                if (sessionRunning) {
+                    exitFailure = failure;
+                }
+                stateChanged.signalAll();
+            } finally {
+                stateLock.unlock();
+            }
+        }
+    }
+
+    private static class SessionResultProcessor implements TestWorkerSessionListener {
+        private final PooledTestWorker worker;
+        private volatile TestResultProcessor target;
+
+        SessionResultProcessor(PooledTestWorker worker) {
+            this.worker = worker;
+        }
+
+        @Override
+        public void started(TestDescriptorInternal test, TestStartEvent event) {
+            target.started(test, event);
+        }
+
+        @Override
+        public void completed(Object testId, TestCompleteEvent event) {
+            target.completed(testId, event);
+        }
+
+        @Override
+        public void output(Object testId, TestOutputEvent event) {
+            target.output(testId, event);
+        }
+
+        @Override
+        public void failure(Object testId, Throwable result) {
+            target.failure(testId, result);
+        }
+
+        @Override
+        public void outputBatch(TestOutputEventBatch batch) {
+            BatchUnpackingTestResultProcessor.outputBatch(batch, target);
+        }
+
+        @Override
+        public void sessionCompleted() {
+            worker.sessionCompleted();
+        }
+    }
+}
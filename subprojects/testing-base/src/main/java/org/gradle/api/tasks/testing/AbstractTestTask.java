@@ -452,7 +452,7 @@ public abstract class AbstractTestTask extends ConventionTask implements Verific
         getProject().mkdir(binaryResultsDir);
 
         Map<String, TestClassResult> results = new HashMap<String, TestClassResult>();
-        TestOutputStore testOutputStore = new TestOutputStore(binaryResultsDir);
+        TestOutputStore testOutputStore = new TestOutputStore(binaryResultsDir, Integer.getInteger(TestOutputStore.MAX_OUTPUT_PER_TEST_PROPERTY, 0));
 
         TestOutputStore.Writer outputWriter = testOutputStore.writer();
         TestReportDataCollector testReportDataCollector = new TestReportDataCollector(results, outputWriter);
@@ -145,6 +145,90 @@ class TestOutputStoreSpec extends WorkspaceTest {
         reader.close()
     }
 
+    def "reads output of interleaved classes that spans several segments"() {
+        def chunk = "x" * 1000
+
+        when:
+        def writer = output.writer()
+        200.times {
+            writer.onOutput(1, 1, output(StdOut, "[1-$it]$chunk"))
+            writer.onOutput(2, 1, output(StdOut, "[2-$it]$chunk"))
+            writer.onOutput(1, 2, output(StdErr, "[3-$it]"))
+        }
+        writer.close()
+        def reader = output.reader()
+
+        then:
+        collectOutput(reader, 1, 1, StdOut) == (0..<200).collect { "[1-$it]$chunk" }.join("")
+        collectOutput(reader, 2, 1, StdOut) == (0..<200).collect { "[2-$it]$chunk" }.join("")
+        collectAllOutput(reader, 1, StdErr) == (0..<200).collect { "[3-$it]" }.join("")
+        collectOutput(reader, 1, 2, StdOut) == ""
+
+        cleanup:
+        reader.close()
+    }
+
+    def "keeps start and end of output when test writes more than the limit"() {
+        def limitedOutput = new TestOutputStore(testDirectory, 10)
+
+        when:
+        def writer = limitedOutput.writer()
+        writer.onOutput(1, 1, output(StdOut, "0123"))
+        writer.onOutput(1, 1, output(StdOut, "4567"))
+        writer.onOutput(1, 1, output(StdOut, "89abcdef"))
+        writer.onOutput(1, 1, output(StdErr, "err"))
+        writer.onOutput(1, 2, output(StdOut, "short"))
+        writer.onTestCompleted(1, 1)
+        writer.onOutput(1, 2, output(StdOut, "-output"))
+        writer.close()
+        def reader = limitedOutput.reader()
+
+        then:
+        collectOutput(reader, 1, 1, StdOut) == "01234" + String.format("%n[... 6 characters of output omitted ...]%n") + "bcdef"
+        collectOutput(reader, 1, 1, StdErr) == "err"
+        collectOutput(reader, 1, 2, StdOut) == "short" + String.format("%n[... 2 characters of output omitted ...]%n") + "utput"
+
+        cleanup:
+        reader.close()
+    }
+
+    def "keeps output of a class that is written after the class completes"() {
+        when:
+        def writer = output.writer()
+        writer.onOutput(1, 1, output(StdOut, "[1-before]"))
+        writer.onOutput(2, 1, output(StdOut, "[2-before]"))
+        writer.onClassCompleted(1)
+        writer.onClassCompleted(3)
+        writer.onOutput(2, 1, output(StdOut, "[2-after]"))
+        writer.onOutput(1, 1, output(StdOut, "[1-after]"))
+        writer.close()
+        def reader = output.reader()
+
+        then:
+        collectOutput(reader, 1, 1, StdOut) == "[1-before][1-after]"
+        collectOutput(reader, 2, 1, StdOut) == "[2-before][2-after]"
+
+        cleanup:
+        reader.close()
+    }
+
+    def "writes end of output of the tests of a class when the class completes"() {
+        def limitedOutput = new TestOutputStore(testDirectory, 10)
+
+        when:
+        def writer = limitedOutput.writer()
+        writer.onOutput(1, 1, output(StdOut, "0123456789abcdef"))
+        writer.onClassCompleted(1)
+        writer.close()
+        def reader = limitedOutput.reader()
+
+        then:
+        collectOutput(reader, 1, 1, StdOut) == "01234" + String.format("%n[... 6 characters of output omitted ...]%n") + "bcdef"
+
+        cleanup:
+        reader.close()
+    }
+
     def "can open empty reader"() {
         // neither file
         expect:
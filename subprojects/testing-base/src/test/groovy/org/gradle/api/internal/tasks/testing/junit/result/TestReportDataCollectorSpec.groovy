@@ -87,6 +87,40 @@ class TestReportDataCollectorSpec extends Specification {
         0 * writer._
     }
 
+    def "notifies output writer when test completes"() {
+        def test = new DefaultTestDescriptor("1.1.1", "FooTest", "testMethod")
+
+        when:
+        collector.beforeTest(test)
+        collector.onOutput(test, new DefaultTestOutputEvent(StdOut, "out"))
+        collector.afterTest(test, new DefaultTestResult(SUCCESS, 100, 200, 1, 1, 0, []))
+
+        then:
+        1 * writer.onOutput(2, 1, new DefaultTestOutputEvent(StdOut, "out"))
+
+        then:
+        1 * writer.onTestCompleted(2, 1)
+        0 * writer._
+    }
+
+    def "notifies output writer when test class completes"() {
+        def clazz = new DefaultTestClassDescriptor("1.1", "FooTest")
+        def test = new DefaultTestDescriptor("1.1.1", "FooTest", "testMethod")
+
+        when:
+        collector.beforeSuite(clazz)
+        collector.beforeTest(test)
+        collector.afterTest(test, new DefaultTestResult(SUCCESS, 100, 200, 1, 1, 0, []))
+        collector.afterSuite(clazz, new DefaultTestResult(SUCCESS, 100, 200, 1, 1, 0, []))
+
+        then:
+        1 * writer.onTestCompleted(2, 1)
+
+        then:
+        1 * writer.onClassCompleted(2)
+        0 * writer._
+    }
+
     def "writes test outputs for class"() {
         def testClass = new DefaultTestClassDescriptor("1.1.1", "FooTest")
         def suite = new DefaultTestSuiteDescriptor("1", "Suite")
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.processors
+
+import org.gradle.api.internal.tasks.testing.DefaultTestOutputEvent
+import org.gradle.api.internal.tasks.testing.TestResultProcessor
+import org.gradle.api.tasks.testing.TestOutputEvent
+import spock.lang.Specification
+
+class BatchUnpackingTestResultProcessorTest extends Specification {
+    def event1 = new DefaultTestOutputEvent(TestOutputEvent.Destination.StdOut, "one")
+    def event2 = new DefaultTestOutputEvent(TestOutputEvent.Destination.StdErr, "two")
+    def batch = new TestOutputEventBatch()
+
+    def setup() {
+        batch.add("id1", event1)
+        batch.add("id2", event2)
+    }
+
+    def "unpacks batch for a processor that does not accept batches"() {
+        def target = Mock(TestResultProcessor)
+        def processor = new BatchUnpackingTestResultProcessor(target)
+
+        when:
+        processor.outputBatch(batch)
+
+        then:
+        1 * target.output("id1", event1)
+
+        then:
+        1 * target.output("id2", event2)
+        0 * target._
+    }
+
+    def "forwards batch as a single call to a processor that accepts batches"() {
+        def target = Mock(BatchAwareTestResultProcessor)
+        def processor = new BatchUnpackingTestResultProcessor(target)
+
+        when:
+        processor.outputBatch(batch)
+
+        then:
+        1 * target.outputBatch(batch)
+        0 * target._
+    }
+}
@@ -27,7 +27,7 @@ import org.gradle.internal.Factory
 class MaxNParallelTestClassProcessorTest extends Specification {
     private final Factory<TestClassProcessor> factory = Mock()
     private final TestResultProcessor resultProcessor = Mock()
-    private final TestResultProcessor asyncResultProcessor = Mock()
+    private final BatchAwareTestResultProcessor asyncResultProcessor = Mock()
     private final Actor resultProcessorActor = Mock()
     private final ActorFactory actorFactory = Mock()
     private final MaxNParallelTestClassProcessor processor = new MaxNParallelTestClassProcessor(2, factory, actorFactory)
@@ -37,8 +37,8 @@ class MaxNParallelTestClassProcessorTest extends Specification {
         processor.startProcessing(resultProcessor)
 
         then:
-        1 * actorFactory.createActor(resultProcessor) >> resultProcessorActor
-        1 * resultProcessorActor.getProxy(TestResultProcessor) >> asyncResultProcessor
+        1 * actorFactory.createActor({ it instanceof BatchUnpackingTestResultProcessor }) >> resultProcessorActor
+        1 * resultProcessorActor.getProxy(BatchAwareTestResultProcessor) >> asyncResultProcessor
     }
 
     def doesNothingWhenNoTestsProcessed() {
@@ -53,8 +53,8 @@ class MaxNParallelTestClassProcessorTest extends Specification {
     }
 
     def startProcessor() {
-        1 * actorFactory.createActor(resultProcessor) >> resultProcessorActor
-        1 * resultProcessorActor.getProxy(TestResultProcessor) >> asyncResultProcessor
+        1 * actorFactory.createActor({ it instanceof BatchUnpackingTestResultProcessor }) >> resultProcessorActor
+        1 * resultProcessorActor.getProxy(BatchAwareTestResultProcessor) >> asyncResultProcessor
         processor.startProcessing(resultProcessor)
     }
 
@@ -202,4 +202,34 @@ class MaxNParallelTestClassProcessorTest extends Specification {
         1 * processor1.stopNow()
         1 * processor2.stopNow()
     }
+
+    def assignsTestClassesToProcessorWithLeastExpectedWork() {
+        TestClassRunInfo slow = Stub() { getTestClassName() >> 'Slow' }
+        TestClassRunInfo medium = Stub() { getTestClassName() >> 'Medium' }
+        TestClassRunInfo fast = Stub() { getTestClassName() >> 'Fast' }
+        TestClassProcessor asyncProcessor1 = Mock()
+        TestClassProcessor asyncProcessor2 = Mock()
+        def balancingProcessor = new MaxNParallelTestClassProcessor(2, factory, actorFactory, [Slow: 1000L, Medium: 400L, Fast: 100L])
+
+        given:
+        actorFactory.createActor(resultProcessor) >> resultProcessorActor
+        resultProcessorActor.getProxy(TestResultProcessor) >> asyncResultProcessor
+        factory.create() >>> [Mock(TestClassProcessor), Mock(TestClassProcessor)]
+        actorFactory.createActor(_ as TestClassProcessor) >>> [Stub(Actor) { getProxy(TestClassProcessor) >> asyncProcessor1 }, Stub(Actor) { getProxy(TestClassProcessor) >> asyncProcessor2 }]
+        balancingProcessor.startProcessing(resultProcessor)
+
+        when:
+        balancingProcessor.processTestClass(slow)
+        balancingProcessor.processTestClass(medium)
+        balancingProcessor.processTestClass(fast)
+        balancingProcessor.processTestClass(fast)
+        balancingProcessor.processTestClass(fast)
+        balancingProcessor.processTestClass(medium)
+
+        then:
+        1 * asyncProcessor1.processTestClass(slow)
+        3 * asyncProcessor2.processTestClass(fast)
+        2 * asyncProcessor2.processTestClass(medium)
+        0 * asyncProcessor1.processTestClass(_)
+    }
 }
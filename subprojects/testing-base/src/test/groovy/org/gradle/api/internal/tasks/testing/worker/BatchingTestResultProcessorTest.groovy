@@ -0,0 +1,113 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker
+
+import org.gradle.api.internal.tasks.testing.DefaultTestOutputEvent
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent
+import org.gradle.api.internal.tasks.testing.TestDescriptorInternal
+import org.gradle.api.internal.tasks.testing.TestStartEvent
+import org.gradle.api.tasks.testing.TestOutputEvent
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.id.CompositeIdGenerator
+import spock.lang.Specification
+
+import java.util.concurrent.TimeUnit
+
+class BatchingTestResultProcessorTest extends Specification {
+    def target = Mock(RemoteTestResultProcessor)
+    def executorFactory = new DefaultExecutorFactory()
+    def processor = new BatchingTestResultProcessor(target, executorFactory, TimeUnit.HOURS.toMillis(1))
+    def testId = new CompositeIdGenerator.CompositeId(1L, 2L)
+
+    def cleanup() {
+        executorFactory.stop()
+    }
+
+    def "sends collected output before other events"() {
+        def test = Stub(TestDescriptorInternal)
+        def startEvent = new TestStartEvent(0)
+        def completeEvent = new TestCompleteEvent(10)
+
+        when:
+        processor.started(test, startEvent)
+        processor.output(testId, output("one"))
+        processor.output(testId, output("two"))
+        processor.completed(testId, completeEvent)
+
+        then:
+        1 * target.started(test, startEvent)
+
+        then:
+        1 * target.outputBatch({ it.size() == 2 && it.getEvent(0).message == "one" && it.getEvent(1).message == "two" })
+
+        then:
+        1 * target.completed(testId, completeEvent)
+        0 * target._
+    }
+
+    def "sends output when batch is large"() {
+        def message = "x" * 1024
+
+        when:
+        40.times {
+            processor.output(testId, output(message))
+        }
+
+        then:
+        1 * target.outputBatch({ it.size() == 32 })
+        0 * target._
+    }
+
+    def "sends remaining output when stopped"() {
+        when:
+        processor.output(testId, output("one"))
+        processor.stop()
+
+        then:
+        1 * target.outputBatch({ it.size() == 1 })
+        0 * target._
+    }
+
+    def "sends output at regular intervals"() {
+        def processor = new BatchingTestResultProcessor(target, executorFactory, 10)
+
+        when:
+        processor.output(testId, output("one"))
+        Thread.sleep(500)
+
+        then:
+        1 * target.outputBatch({ it.size() == 1 })
+        0 * target._
+    }
+
+    def "sends output of unknown test ids without batching"() {
+        when:
+        processor.output(testId, output("one"))
+        processor.output("other", output("two"))
+
+        then:
+        1 * target.outputBatch({ it.size() == 1 })
+
+        then:
+        1 * target.output("other", { it.message == "two" })
+        0 * target._
+    }
+
+    def output(String message) {
+        new DefaultTestOutputEvent(TestOutputEvent.Destination.StdOut, message)
+    }
+}
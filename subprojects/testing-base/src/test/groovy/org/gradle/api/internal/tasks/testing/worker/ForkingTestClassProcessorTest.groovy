@@ -20,10 +20,13 @@ import org.gradle.api.Action
 import org.gradle.api.internal.DocumentationRegistry
 import org.gradle.api.internal.classpath.Module
 import org.gradle.api.internal.classpath.ModuleRegistry
+import org.gradle.api.internal.tasks.testing.TestClassProcessor
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo
+import org.gradle.api.internal.tasks.testing.TestResultProcessor
 import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory
 import org.gradle.internal.classpath.ClassPath
 import org.gradle.internal.remote.ObjectConnection
+import org.gradle.internal.service.ServiceRegistry
 import org.gradle.internal.work.WorkerLeaseRegistry
 import org.gradle.process.JavaForkOptions
 import org.gradle.process.internal.ExecException
@@ -123,6 +126,61 @@ class ForkingTestClassProcessorTest extends Specification {
         notThrown(ExecException)
     }
 
+    def "runs tests in a pooled worker process and returns it to the pool when stopped"() {
+        def pool = Mock(TestWorkerProcessPool)
+        def pooledWorker = Mock(TestWorkerProcessPool.PooledTestWorker)
+        def resultProcessor = Mock(TestResultProcessor)
+        def test = Mock(TestClassRunInfo)
+        def processor = new ForkingTestClassProcessor(workerLease, workerProcessFactory, new TestProcessorFactory(), options, [new File("classpath.jar")], Mock(Action), moduleRegistry, documentationRegistry, pool)
+        moduleRegistry.getModule(_) >> { module(it[0]) }
+        moduleRegistry.getExternalModule(_) >> { module(it[0]) }
+
+        when:
+        processor.startProcessing(resultProcessor)
+        processor.processTestClass(test)
+
+        then:
+        1 * workerLease.startChild() >> Mock(WorkerLeaseRegistry.WorkerLeaseCompletion)
+        1 * workerProcessBuilder.setImplementationClasspath(_) >> { assert it[0].size() == 14 }
+        0 * workerProcessBuilder.applicationClasspath(_)
+        1 * pool.acquire(workerProcessBuilder, { it.size() == 14 }) >> pooledWorker
+        _ * workerProcessBuilder.getSharedPackages() >> (["org.junit"] as Set)
+        1 * pooledWorker.startSession(resultProcessor, _, [new File("classpath.jar").toURI().toURL()], { it.size() == 6 }, ["org.junit"] as Set)
+        1 * pooledWorker.processTestClass(test)
+        0 * workerProcess._
+
+        when:
+        processor.stop()
+
+        then:
+        1 * pooledWorker.stopSession()
+
+        then:
+        1 * pool.release(pooledWorker)
+        0 * workerProcess._
+    }
+
+    def "does not return a pooled worker to the pool when it is stopped after the tests have finished"() {
+        def pool = Mock(TestWorkerProcessPool)
+        def pooledWorker = Mock(TestWorkerProcessPool.PooledTestWorker)
+        def processor = new ForkingTestClassProcessor(workerLease, workerProcessFactory, new TestProcessorFactory(), options, [new File("classpath.jar")], Mock(Action), moduleRegistry, documentationRegistry, pool)
+        moduleRegistry.getModule(_) >> { module(it[0]) }
+        moduleRegistry.getExternalModule(_) >> { module(it[0]) }
+        workerLease.startChild() >> Mock(WorkerLeaseRegistry.WorkerLeaseCompletion)
+        workerProcessBuilder.getSharedPackages() >> ([] as Set)
+        pool.acquire(_, _) >> pooledWorker
+
+        when:
+        processor.startProcessing(Mock(TestResultProcessor))
+        processor.processTestClass(Mock(TestClassRunInfo))
+        processor.stop()
+        processor.stopNow()
+
+        then:
+        1 * pool.release(pooledWorker)
+        0 * pooledWorker.stopNow()
+    }
+
     def module(String module) {
         return Stub(Module) {
             _ * getImplementationClasspath() >> {
@@ -132,4 +190,11 @@ class ForkingTestClassProcessorTest extends Specification {
             }
         }
     }
+
+    static class TestProcessorFactory implements WorkerTestClassProcessorFactory, Serializable {
+        @Override
+        TestClassProcessor create(ServiceRegistry serviceRegistry) {
+            return null
+        }
+    }
 }
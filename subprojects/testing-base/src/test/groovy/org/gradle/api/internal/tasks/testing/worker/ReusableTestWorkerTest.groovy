@@ -0,0 +1,70 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker
+
+import junit.framework.TestCase
+import org.gradle.api.internal.tasks.testing.TestClassProcessor
+import org.gradle.internal.classloader.ClasspathUtil
+import org.slf4j.Logger
+import spock.lang.Specification
+
+class ReusableTestWorkerTest extends Specification {
+    def testRuntimeClasspath = [ClasspathUtil.getClasspathForClass(TestCase).toURI().toURL()]
+    def workerClassLoader = getClass().classLoader
+
+    def "test runtime classpath does not see the classes of the worker"() {
+        when:
+        def testClassLoader = ReusableTestWorker.createTestClassLoader(testRuntimeClasspath)
+        testClassLoader.loadClass(Logger.name)
+
+        then:
+        thrown(ClassNotFoundException)
+
+        cleanup:
+        testClassLoader?.close()
+    }
+
+    def "test framework implementation sees the shared packages of the test runtime classpath and the classes of the worker"() {
+        def testClassLoader = ReusableTestWorker.createTestClassLoader(testRuntimeClasspath)
+
+        when:
+        def frameworkClassLoader = ReusableTestWorker.createFrameworkClassLoader([], testClassLoader, ["junit.framework"] as Set, workerClassLoader)
+
+        then:
+        frameworkClassLoader.loadClass(TestCase.name).classLoader.is(testClassLoader)
+        frameworkClassLoader.loadClass(TestClassProcessor.name).is(TestClassProcessor)
+        frameworkClassLoader.loadClass(Logger.name).is(Logger)
+
+        cleanup:
+        frameworkClassLoader?.close()
+        testClassLoader.close()
+    }
+
+    def "test framework implementation does not see the packages of the test runtime classpath that are not shared"() {
+        def testClassLoader = ReusableTestWorker.createTestClassLoader(testRuntimeClasspath)
+
+        when:
+        def frameworkClassLoader = ReusableTestWorker.createFrameworkClassLoader([], testClassLoader, [] as Set, workerClassLoader)
+
+        then:
+        !frameworkClassLoader.loadClass(TestCase.name).classLoader.is(testClassLoader)
+
+        cleanup:
+        frameworkClassLoader?.close()
+        testClassLoader.close()
+    }
+}
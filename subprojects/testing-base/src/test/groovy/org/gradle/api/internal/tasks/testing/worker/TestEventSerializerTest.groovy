@@ -18,6 +18,7 @@ package org.gradle.api.internal.tasks.testing.worker
 
 import org.gradle.api.GradleException
 import org.gradle.api.internal.tasks.testing.*
+import org.gradle.api.internal.tasks.testing.processors.TestOutputEventBatch
 import org.gradle.api.tasks.testing.TestOutputEvent
 import org.gradle.api.tasks.testing.TestResult
 import org.gradle.internal.id.CompositeIdGenerator
@@ -162,6 +163,42 @@ class TestEventSerializerTest extends SerializerSpec {
         result.message == "hi"
     }
 
+    def "serializes TestOutputEventBatch"() {
+        def id1 = new CompositeIdGenerator.CompositeId(1L, 2L)
+        def id2 = new CompositeIdGenerator.CompositeId(1L, 3L)
+        def batch = new TestOutputEventBatch()
+        batch.add(id1, new DefaultTestOutputEvent(TestOutputEvent.Destination.StdOut, "one"))
+        batch.add(id1, new DefaultTestOutputEvent(TestOutputEvent.Destination.StdErr, "two \u00e9"))
+        batch.add(id2, new DefaultTestOutputEvent(TestOutputEvent.Destination.StdOut, ""))
+
+        when:
+        def result = serialize(batch)
+
+        then:
+        result instanceof TestOutputEventBatch
+        result.size() == 3
+        result.getTestId(0) == id1
+        result.getTestId(1) == id1
+        result.getTestId(2) == id2
+        result.getEvent(0).destination == TestOutputEvent.Destination.StdOut
+        result.getEvent(0).message == "one"
+        result.getEvent(1).destination == TestOutputEvent.Destination.StdErr
+        result.getEvent(1).message == "two \u00e9"
+        result.getEvent(2).message == ""
+    }
+
+    def "serializes output containing unpaired surrogates"() {
+        def id = new CompositeIdGenerator.CompositeId(1L, 2L)
+        def batch = new TestOutputEventBatch()
+        batch.add(id, new DefaultTestOutputEvent(TestOutputEvent.Destination.StdOut, "a\ud800b\udc00c"))
+
+        when:
+        def result = serialize(batch)
+
+        then:
+        result.getEvent(0).message == "a\ud800b\udc00c"
+    }
+
     def "serializes Throwable"() {
         def failure = new GradleException("broken", new RuntimeException("cause"))
 
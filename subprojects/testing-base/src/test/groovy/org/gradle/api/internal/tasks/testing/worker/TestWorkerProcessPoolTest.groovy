@@ -0,0 +1,273 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker
+
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent
+import org.gradle.api.internal.tasks.testing.TestResultProcessor
+import org.gradle.api.logging.LogLevel
+import org.gradle.cache.internal.HeapMemoryManager
+import org.gradle.internal.concurrent.ExecutorFactory
+import org.gradle.internal.concurrent.ManagedExecutor
+import org.gradle.internal.concurrent.ManagedScheduledExecutor
+import org.gradle.internal.remote.ObjectConnection
+import org.gradle.internal.time.Clock
+import org.gradle.process.internal.JavaExecHandleBuilder
+import org.gradle.process.internal.health.memory.JvmMemoryStatus
+import org.gradle.process.internal.health.memory.MemoryManager
+import org.gradle.process.internal.health.memory.OsMemoryInfo
+import org.gradle.process.internal.worker.WorkerProcess
+import org.gradle.process.internal.worker.WorkerProcessBuilder
+import spock.lang.Specification
+
+class TestWorkerProcessPoolTest extends Specification {
+    def executorFactory = Stub(ExecutorFactory) {
+        create(_) >> Stub(ManagedExecutor)
+        createScheduled(_, _) >> Stub(ManagedScheduledExecutor)
+    }
+    def memoryManager = Mock(MemoryManager)
+    def heapMemoryManager = Mock(HeapMemoryManager)
+    def clock = Stub(Clock)
+    def currentTime = 0L
+    def pool = new TestWorkerProcessPool(executorFactory, memoryManager, heapMemoryManager, Stub(OsMemoryInfo), clock, 2, 1000)
+    def workers = []
+
+    def setup() {
+        clock.currentTime >> { currentTime }
+    }
+
+    def "does not start monitoring until a worker is started"() {
+        def executorFactory = Mock(ExecutorFactory)
+
+        when:
+        def pool = new TestWorkerProcessPool(executorFactory, memoryManager, heapMemoryManager, Stub(OsMemoryInfo), clock)
+        pool.stop()
+
+        then:
+        0 * executorFactory._
+        0 * memoryManager._
+        0 * heapMemoryManager._
+    }
+
+    def "registers with the memory managers once a worker is started until stopped"() {
+        when:
+        pool.acquire(builder("java"), [])
+        pool.acquire(builder("java"), [])
+
+        then:
+        1 * memoryManager.addMemoryHolder(pool)
+        1 * heapMemoryManager.addHolder(pool, HeapMemoryManager.Priority.EXPENSIVE_TO_RECREATE)
+
+        when:
+        pool.stop()
+
+        then:
+        1 * memoryManager.removeMemoryHolder(pool)
+        1 * heapMemoryManager.removeHolder(pool)
+    }
+
+    def "reuses a released worker with the same settings"() {
+        def builder = builder("java")
+
+        when:
+        def worker = pool.acquire(builder, [])
+        pool.release(worker)
+
+        then:
+        pool.acquire(builder("java"), []).is(worker)
+        workers.size() == 1
+    }
+
+    def "starts a new worker for different settings"() {
+        when:
+        def worker = pool.acquire(builder("java"), [])
+        pool.release(worker)
+        def other = pool.acquire(builder("other-java"), [])
+
+        then:
+        !other.is(worker)
+        workers.size() == 2
+        pool.idleWorkerCount == 1
+    }
+
+    def "does not reuse a worker that was stopped before it was released"() {
+        def worker = pool.acquire(builder("java"), [])
+
+        when:
+        worker.stopNow()
+        pool.release(worker)
+
+        then:
+        1 * workers[0].process.stopNow()
+        0 * workers[0].remote.shutdown()
+        pool.idleWorkerCount == 0
+    }
+
+    def "does not reuse a worker whose session did not complete"() {
+        def worker = pool.acquire(builder("java"), [])
+
+        when:
+        worker.startSession(Stub(TestResultProcessor), new byte[0], [], [], [] as Set)
+        pool.release(worker)
+
+        then:
+        1 * workers[0].remote.shutdown()
+        pool.idleWorkerCount == 0
+    }
+
+    def "stopping a session waits for the results that were sent before the end of the session"() {
+        def resultProcessor = Mock(TestResultProcessor)
+        def worker = pool.acquire(builder("java"), [])
+        def event = new TestCompleteEvent(0)
+        worker.startSession(resultProcessor, new byte[0], [], [], [] as Set)
+
+        when:
+        worker.stopSession()
+
+        then:
+        1 * workers[0].remote.stopSession() >> {
+            workers[0].listener.completed("test", event)
+            workers[0].listener.sessionCompleted()
+        }
+
+        then:
+        1 * resultProcessor.completed("test", event)
+
+        when:
+        pool.release(worker)
+
+        then:
+        pool.idleWorkerCount == 1
+    }
+
+    def "keeps a limited number of idle workers"() {
+        def first = pool.acquire(builder("java"), [])
+        def second = pool.acquire(builder("java"), [])
+        def third = pool.acquire(builder("java"), [])
+
+        when:
+        pool.release(first)
+        pool.release(second)
+        pool.release(third)
+
+        then:
+        pool.idleWorkerCount == 2
+        1 * workers[0].remote.shutdown()
+        0 * workers[1].remote.shutdown()
+        0 * workers[2].remote.shutdown()
+    }
+
+    def "stops workers that have been idle for longer than the idle timeout"() {
+        def first = pool.acquire(builder("java"), [])
+        def second = pool.acquire(builder("java"), [])
+        pool.release(first)
+        currentTime = 600
+        pool.release(second)
+
+        when:
+        currentTime = 1200
+        pool.expireIdleWorkers()
+
+        then:
+        pool.idleWorkerCount == 1
+        1 * workers[0].remote.shutdown()
+        0 * workers[1].remote.shutdown()
+    }
+
+    def "stops the least recently used idle workers to release memory"() {
+        def first = pool.acquire(builder("java"), [])
+        def second = pool.acquire(builder("java"), [])
+        pool.release(first)
+        pool.release(second)
+
+        when:
+        def released = pool.attemptToRelease(100)
+
+        then:
+        released == 128
+        pool.idleWorkerCount == 1
+        1 * workers[0].remote.shutdown()
+        0 * workers[1].remote.shutdown()
+    }
+
+    def "stops all idle workers when the heap is running low"() {
+        def first = pool.acquire(builder("java"), [])
+        def second = pool.acquire(builder("java"), [])
+        pool.release(first)
+        pool.release(second)
+
+        expect:
+        pool.retainedValueCount == 2
+
+        when:
+        def released = pool.release()
+
+        then:
+        released == 2
+        pool.idleWorkerCount == 0
+        1 * workers[0].remote.shutdown()
+        1 * workers[1].remote.shutdown()
+    }
+
+    def "stops idle workers when stopped"() {
+        def worker = pool.acquire(builder("java"), [])
+        pool.release(worker)
+
+        when:
+        pool.stop()
+
+        then:
+        1 * workers[0].remote.shutdown()
+        pool.idleWorkerCount == 0
+    }
+
+    def builder(String executable) {
+        def javaCommand = Stub(JavaExecHandleBuilder) {
+            getExecutable() >> executable
+            getWorkingDir() >> new File("work")
+            getEnvironment() >> [:]
+            getAllJvmArgs() >> []
+        }
+        return Stub(WorkerProcessBuilder) {
+            getJavaCommand() >> javaCommand
+            getLogLevel() >> LogLevel.INFO
+            getApplicationClasspath() >> ([] as Set)
+            build() >> { startWorker() }
+        }
+    }
+
+    def startWorker() {
+        def worker = new StartedWorker()
+        worker.remote = Mock(RemoteReusableTestWorker)
+        worker.process = Mock(WorkerProcess) {
+            getJvmMemoryStatus() >> Stub(JvmMemoryStatus) {
+                getCommittedMemory() >> 128
+            }
+            getConnection() >> Stub(ObjectConnection) {
+                addOutgoing(RemoteReusableTestWorker) >> worker.remote
+                addIncoming(TestWorkerSessionListener, _) >> { worker.listener = it[1] }
+            }
+        }
+        workers << worker
+        return worker.process
+    }
+
+    static class StartedWorker {
+        WorkerProcess process
+        RemoteReusableTestWorker remote
+        TestWorkerSessionListener listener
+    }
+}
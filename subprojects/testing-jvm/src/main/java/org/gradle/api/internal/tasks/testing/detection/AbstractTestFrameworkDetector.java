@@ -34,20 +34,24 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.InputStream;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import static org.gradle.internal.FileUtils.hasExtension;
 
+/**
+ * Detects test classes by inspecting their byte code. Test class files may be processed concurrently.
+ */
 public abstract class AbstractTestFrameworkDetector<T extends TestClassVisitor> implements TestFrameworkDetector {
     private static final Logger LOGGER = LoggerFactory.getLogger(AbstractTestFrameworkDetector.class);
     private static final String JAVA_LANG_OBJECT = "java/lang/Object";
 
     private List<File> testClassDirectories;
     private final ClassFileExtractionManager classFileExtractionManager;
-    private final Map<File, Boolean> superClasses;
+    private final ConcurrentMap<String, Boolean> superClasses;
+    private final Object publishLock = new Object();
     private TestClassProcessor testClassProcessor;
 
     private Set<File> testClassesDirectories;
@@ -56,16 +60,13 @@ public abstract class AbstractTestFrameworkDetector<T extends TestClassVisitor>
     protected AbstractTestFrameworkDetector(ClassFileExtractionManager classFileExtractionManager) {
         assert classFileExtractionManager != null;
         this.classFileExtractionManager = classFileExtractionManager;
-        this.superClasses = new HashMap<File, Boolean>();
+        this.superClasses = new ConcurrentHashMap<String, Boolean>();
     }
 
     protected abstract T createClassVisitor();
 
     private File getSuperTestClassFile(String superClassName) {
         prepareClasspath();
-        if (StringUtils.isEmpty(superClassName)) {
-            throw new IllegalArgumentException("superClassName is empty!");
-        }
 
         File superTestClassFile = null;
         for (File testClassDirectory : testClassDirectories) {
@@ -74,19 +75,10 @@ public abstract class AbstractTestFrameworkDetector<T extends TestClassVisitor>
                 superTestClassFile = candidate;
             }
         }
-
-        if (superTestClassFile != null) {
-            return superTestClassFile;
-        } else if (JAVA_LANG_OBJECT.equals(superClassName)) {
-            // java.lang.Object found, which is not a test class
-            return null;
-        } else {
-            // super test class file not in test class directories
-            return classFileExtractionManager.getLibraryClassFile(superClassName);
-        }
+        return superTestClassFile;
     }
 
-    private void prepareClasspath() {
+    private synchronized void prepareClasspath() {
         if (testClassDirectories != null) {
             return;
         }
@@ -118,14 +110,10 @@ public abstract class AbstractTestFrameworkDetector<T extends TestClassVisitor>
     }
 
     private TestClass readClassFile(File testClassFile, Factory<String> fallbackClassNameProvider) {
-        final TestClassVisitor classVisitor = createClassVisitor();
-
         InputStream classStream = null;
         try {
             classStream = new BufferedInputStream(new FileInputStream(testClassFile));
-            final ClassReader classReader = new ClassReader(IOUtils.toByteArray(classStream));
-            classReader.accept(classVisitor, ClassReader.SKIP_DEBUG | ClassReader.SKIP_CODE | ClassReader.SKIP_FRAMES);
-            return TestClass.forParseableFile(classVisitor);
+            return readClass(IOUtils.toByteArray(classStream));
         } catch (Throwable e) {
             LOGGER.debug("Failed to read class file " + testClassFile.getAbsolutePath() + "; assuming it's a test class and continuing", e);
             return TestClass.forUnparseableFile(fallbackClassNameProvider.create());
@@ -134,6 +122,22 @@ public abstract class AbstractTestFrameworkDetector<T extends TestClassVisitor>
         }
     }
 
+    private TestClass readClassBytes(byte[] classBytes, String className) {
+        try {
+            return readClass(classBytes);
+        } catch (Throwable e) {
+            LOGGER.debug("Failed to read library class " + className + "; assuming it's a test class and continuing", e);
+            return TestClass.forUnparseableFile(className);
+        }
+    }
+
+    private TestClass readClass(byte[] classBytes) {
+        final TestClassVisitor classVisitor = createClassVisitor();
+        final ClassReader classReader = new ClassReader(classBytes);
+        classReader.accept(classVisitor, ClassReader.SKIP_DEBUG | ClassReader.SKIP_CODE | ClassReader.SKIP_FRAMES);
+        return TestClass.forParseableFile(classVisitor);
+    }
+
     @Override
     public boolean processTestClass(final RelativeFile testClassFile) {
         return processTestClass(testClassFile.getFile(), false, new Factory<String>() {
@@ -150,8 +154,10 @@ public abstract class AbstractTestFrameworkDetector<T extends TestClassVisitor>
      * parent class is a test class all the extending classes are marked as test classes.
      */
     private boolean processTestClass(File testClassFile, boolean superClass, Factory<String> fallbackClassNameProvider) {
-        TestClass testClass = readClassFile(testClassFile, fallbackClassNameProvider);
+        return processTestClass(readClassFile(testClassFile, fallbackClassNameProvider), superClass);
+    }
 
+    private boolean processTestClass(TestClass testClass, boolean superClass) {
         boolean isTest = testClass.isTest();
 
         if (!isTest) { // scan parent class
@@ -159,15 +165,9 @@ public abstract class AbstractTestFrameworkDetector<T extends TestClassVisitor>
 
             if (isKnownTestCaseClassName(superClassName)) {
                 isTest = true;
-            } else {
-                File superClassFile = getSuperTestClassFile(superClassName);
-
-                if (superClassFile != null) {
-                    isTest = processSuperClass(superClassFile, superClassName);
-                } else {
-                    LOGGER.debug("test-class-scan : failed to scan parent class {}, could not find the class file",
-                        superClassName);
-                }
+            } else if (!JAVA_LANG_OBJECT.equals(superClassName)) {
+                // java.lang.Object is not a test class
+                isTest = processSuperClass(superClassName);
             }
         }
 
@@ -178,19 +178,33 @@ public abstract class AbstractTestFrameworkDetector<T extends TestClassVisitor>
 
     protected abstract boolean isKnownTestCaseClassName(String testCaseClassName);
 
-    private boolean processSuperClass(File testClassFile, String superClassName) {
-        boolean isTest;
-
-        Boolean isSuperTest = superClasses.get(testClassFile);
-
-        if (isSuperTest == null) {
-            isTest = processTestClass(testClassFile, true, Factories.constant(superClassName));
+    private boolean processSuperClass(String superClassName) {
+        if (StringUtils.isEmpty(superClassName)) {
+            throw new IllegalArgumentException("superClassName is empty!");
+        }
+        Boolean isSuperTest = superClasses.get(superClassName);
+        if (isSuperTest != null) {
+            return isSuperTest;
+        }
 
-            superClasses.put(testClassFile, isTest);
+        // Several threads may scan the same super class at the same time, which is harmless as they all come to the same conclusion
+        boolean isTest;
+        File superClassFile = getSuperTestClassFile(superClassName);
+        if (superClassFile != null) {
+            isTest = processTestClass(superClassFile, true, Factories.constant(superClassName));
         } else {
-            isTest = isSuperTest;
+            // super test class file not in test class directories
+            byte[] superClassBytes = classFileExtractionManager.getLibraryClassBytes(superClassName);
+            if (superClassBytes != null) {
+                isTest = processTestClass(readClassBytes(superClassBytes, superClassName), true);
+            } else {
+                LOGGER.debug("test-class-scan : failed to scan parent class {}, could not find the class file",
+                    superClassName);
+                isTest = false;
+            }
         }
 
+        superClasses.put(superClassName, isTest);
         return isTest;
     }
 
@@ -201,7 +215,9 @@ public abstract class AbstractTestFrameworkDetector<T extends TestClassVisitor>
     private void publishTestClass(boolean isTest, TestClass testClass, boolean superClass) {
         if (isTest && !testClass.isAbstract() && !superClass) {
             String className = Type.getObjectType(testClass.getClassName()).getClassName();
-            testClassProcessor.processTestClass(new DefaultTestClassRunInfo(className));
+            synchronized (publishLock) {
+                testClassProcessor.processTestClass(new DefaultTestClassRunInfo(className));
+            }
         }
     }
 
@@ -16,6 +16,7 @@
 
 package org.gradle.api.internal.tasks.testing.detection;
 
+import org.gradle.api.Action;
 import org.gradle.api.file.EmptyFileVisitor;
 import org.gradle.api.file.FileTree;
 import org.gradle.api.file.FileVisitDetails;
@@ -23,24 +24,44 @@ import org.gradle.api.internal.file.RelativeFile;
 import org.gradle.api.internal.tasks.testing.DefaultTestClassRunInfo;
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
+import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.gradle.internal.operations.BuildOperationContext;
+import org.gradle.internal.operations.BuildOperationDescriptor;
+import org.gradle.internal.operations.BuildOperationExecutor;
+import org.gradle.internal.operations.BuildOperationQueue;
+import org.gradle.internal.operations.RunnableBuildOperation;
 
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.regex.Pattern;
 
 /**
  * The default test class scanner. Depending on the availability of a test framework detector,
  * a detection or filename scan is performed to find test classes.
+ *
+ * When a build operation executor is given, batches of candidate class files are passed to the detector concurrently, by as many threads as
+ * there are worker leases available. The detected test classes are passed on in the order the class files are visited, as with a sequential scan.
  */
 public class DefaultTestClassScanner implements Runnable {
     private static final Pattern ANONYMOUS_CLASS_NAME = Pattern.compile(".*\\$\\d+");
+    private static final int DETECTION_BATCH_SIZE = 100;
     private final FileTree candidateClassFiles;
     private final TestFrameworkDetector testFrameworkDetector;
     private final TestClassProcessor testClassProcessor;
+    private final BuildOperationExecutor buildOperationExecutor;
 
     public DefaultTestClassScanner(FileTree candidateClassFiles, TestFrameworkDetector testFrameworkDetector,
                                    TestClassProcessor testClassProcessor) {
+        this(candidateClassFiles, testFrameworkDetector, testClassProcessor, null);
+    }
+
+    public DefaultTestClassScanner(FileTree candidateClassFiles, TestFrameworkDetector testFrameworkDetector,
+                                   TestClassProcessor testClassProcessor, @Nullable BuildOperationExecutor buildOperationExecutor) {
         this.candidateClassFiles = candidateClassFiles;
         this.testFrameworkDetector = testFrameworkDetector;
         this.testClassProcessor = testClassProcessor;
+        this.buildOperationExecutor = buildOperationExecutor;
     }
 
     @Override
@@ -53,12 +74,62 @@ public class DefaultTestClassScanner implements Runnable {
     }
 
     private void detectionScan() {
-        testFrameworkDetector.startDetection(testClassProcessor);
+        if (buildOperationExecutor == null) {
+            testFrameworkDetector.startDetection(testClassProcessor);
+            candidateClassFiles.visit(new ClassFileVisitor() {
+                public void visitClassFile(FileVisitDetails fileDetails) {
+                    testFrameworkDetector.processTestClass(new RelativeFile(fileDetails.getFile(), fileDetails.getRelativePath()));
+                }
+            });
+        } else {
+            parallelDetectionScan();
+        }
+    }
+
+    private void parallelDetectionScan() {
+        final List<DetectionBatch> batches = new ArrayList<DetectionBatch>();
         candidateClassFiles.visit(new ClassFileVisitor() {
             public void visitClassFile(FileVisitDetails fileDetails) {
-                testFrameworkDetector.processTestClass(new RelativeFile(fileDetails.getFile(), fileDetails.getRelativePath()));
+                if (batches.isEmpty() || batches.get(batches.size() - 1).testClassFiles.size() == DETECTION_BATCH_SIZE) {
+                    batches.add(new DetectionBatch());
+                }
+                batches.get(batches.size() - 1).testClassFiles.add(new RelativeFile(fileDetails.getFile(), fileDetails.getRelativePath()));
             }
         });
+
+        final ThreadLocal<DetectionBatch> currentBatch = new ThreadLocal<DetectionBatch>();
+        testFrameworkDetector.startDetection(new BatchCollectingTestClassProcessor(currentBatch));
+        buildOperationExecutor.runAll(new Action<BuildOperationQueue<RunnableBuildOperation>>() {
+            @Override
+            public void execute(BuildOperationQueue<RunnableBuildOperation> queue) {
+                for (final DetectionBatch batch : batches) {
+                    queue.add(new RunnableBuildOperation() {
+                        @Override
+                        public void run(BuildOperationContext context) {
+                            currentBatch.set(batch);
+                            try {
+                                for (RelativeFile testClassFile : batch.testClassFiles) {
+                                    testFrameworkDetector.processTestClass(testClassFile);
+                                }
+                            } finally {
+                                currentBatch.remove();
+                            }
+                        }
+
+                        @Override
+                        public BuildOperationDescriptor.Builder description() {
+                            return BuildOperationDescriptor.displayName("Detect test classes");
+                        }
+                    });
+                }
+            }
+        });
+
+        for (DetectionBatch batch : batches) {
+            for (TestClassRunInfo testClass : batch.testClasses) {
+                testClassProcessor.processTestClass(testClass);
+            }
+        }
     }
 
     private void filenameScan() {
@@ -89,6 +160,42 @@ public class DefaultTestClassScanner implements Runnable {
         }
     }
 
+    private static class DetectionBatch {
+        private final List<RelativeFile> testClassFiles = new ArrayList<RelativeFile>(DETECTION_BATCH_SIZE);
+        private final List<TestClassRunInfo> testClasses = new ArrayList<TestClassRunInfo>();
+    }
+
+    /**
+     * Collects the test classes detected by the current thread into the batch it is working on.
+     */
+    private static class BatchCollectingTestClassProcessor implements TestClassProcessor {
+        private final ThreadLocal<DetectionBatch> currentBatch;
+
+        BatchCollectingTestClassProcessor(ThreadLocal<DetectionBatch> currentBatch) {
+            this.currentBatch = currentBatch;
+        }
+
+        @Override
+        public void startProcessing(TestResultProcessor resultProcessor) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void processTestClass(TestClassRunInfo testClass) {
+            currentBatch.get().testClasses.add(testClass);
+        }
+
+        @Override
+        public void stop() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void stopNow() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
     private String getClassName(FileVisitDetails fileDetails) {
         return fileDetails.getRelativePath().getPathString().replaceAll("\\.class", "").replace('/', '.');
     }
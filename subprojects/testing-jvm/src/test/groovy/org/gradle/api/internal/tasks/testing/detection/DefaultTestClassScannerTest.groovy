@@ -21,7 +21,10 @@ import org.gradle.api.file.FileVisitDetails
 import org.gradle.api.file.FileVisitor
 import org.gradle.api.file.RelativePath
 import org.gradle.api.internal.file.DefaultFileVisitDetails
+import org.gradle.api.internal.tasks.testing.DefaultTestClassRunInfo
 import org.gradle.api.internal.tasks.testing.TestClassProcessor
+import org.gradle.internal.operations.BuildOperationExecutor
+import org.gradle.internal.operations.BuildOperationQueue
 import org.junit.Test
 import spock.lang.Specification
 import spock.lang.Subject
@@ -78,6 +81,39 @@ class DefaultTestClassScannerTest extends Specification {
         0 * _._
     }
 
+    def "passes test classes detected concurrently to the processor in the order of their class files"() {
+        given:
+        def buildOperationExecutor = Stub(BuildOperationExecutor) {
+            runAll(_) >> { args ->
+                def operations = []
+                args[0].execute([add: { operations << it }] as BuildOperationQueue)
+                // Run the batches in reverse, as if the later batches completed first
+                operations.reverse().each { it.run(null) }
+            }
+        }
+        def processor = Mock(TestClassProcessor)
+        def parallelScanner = new DefaultTestClassScanner(files, detector, processor, buildOperationExecutor)
+        def classes = (1..250).collect { stubFileVisitDetails("class$it") }
+        TestClassProcessor detectionProcessor = null
+        def received = []
+
+        when:
+        parallelScanner.run()
+
+        then:
+        1 * detector.startDetection(_) >> { args -> detectionProcessor = args[0] }
+        1 * files.visit(_) >> { args ->
+            FileVisitor visitor = args[0]
+            classes.each { visitor.visitFile(it) }
+        }
+        250 * detector.processTestClass(_) >> { args ->
+            detectionProcessor.processTestClass(new DefaultTestClassRunInfo(args[0].file.name - ".class"))
+            true
+        }
+        250 * processor.processTestClass(_) >> { args -> received << args[0].testClassName }
+        received == (1..250).collect { "class$it" }
+    }
+
     FileVisitDetails stubFileVisitDetails(String className) {
         return new DefaultFileVisitDetails(new File("${className}.class"), new RelativePath(false, "${className}.class"), null, null, null)
     }
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.workers.internal
+
+import org.gradle.integtests.fixtures.AbstractIntegrationSpec
+import org.gradle.integtests.fixtures.timeout.IntegrationTestTimeout
+import spock.lang.Unroll
+
+import static org.gradle.workers.fixtures.WorkerExecutorFixture.ISOLATION_MODES
+
+@IntegrationTestTimeout(120)
+@Unroll
+class WorkerExecutorBatchIntegrationTest extends AbstractIntegrationSpec {
+
+    def setup() {
+        file("buildSrc/src/main/java/ItemAction.java") << """
+            import java.io.File;
+            import java.io.FileWriter;
+            import java.io.IOException;
+            import javax.inject.Inject;
+
+            public class ItemAction implements Runnable {
+                private final String item;
+                private final File outputDir;
+
+                @Inject
+                public ItemAction(String item, File outputDir) {
+                    this.item = item;
+                    this.outputDir = outputDir;
+                }
+
+                public void run() {
+                    if (item.startsWith("fail")) {
+                        throw new RuntimeException("Failure from item " + item);
+                    }
+                    outputDir.mkdirs();
+                    try {
+                        FileWriter writer = new FileWriter(new File(outputDir, item));
+                        writer.write(item);
+                        writer.close();
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+            }
+        """
+
+        buildFile << """
+            import javax.inject.Inject
+
+            class ItemsTask extends DefaultTask {
+                def items = []
+                def isolationMode = IsolationMode.AUTO
+
+                @Inject
+                WorkerExecutor getWorkerExecutor() {
+                    throw new UnsupportedOperationException()
+                }
+
+                @TaskAction
+                void executeTask() {
+                    def outputDir = project.file("build/\${name}")
+                    workerExecutor.submitAll(ItemAction, items) {
+                        isolationMode = this.isolationMode
+                        if (isolationMode == IsolationMode.PROCESS) {
+                            forkOptions.maxHeapSize = "64m"
+                        }
+                        params = [outputDir]
+                    }
+                }
+            }
+        """
+    }
+
+    def "runs every item submitted at once in #isolationMode"() {
+        buildFile << """
+            task runItems(type: ItemsTask) {
+                isolationMode = $isolationMode
+                items = ["a", "b", "c", "d", "e"]
+            }
+        """
+
+        when:
+        succeeds("runItems", "--max-workers=2")
+
+        then:
+        ["a", "b", "c", "d", "e"].each {
+            file("build/runItems/$it").assertIsFile()
+        }
+
+        where:
+        isolationMode << ISOLATION_MODES
+    }
+
+    def "runs the remaining items of a batch and reports each failed item in #isolationMode"() {
+        buildFile << """
+            task runItems(type: ItemsTask) {
+                isolationMode = $isolationMode
+                items = ["a", "fail1", "b", "fail2", "c"]
+            }
+        """
+
+        when:
+        fails("runItems", "--max-workers=1")
+
+        then:
+        failure.assertHasDescription("Execution failed for task ':runItems'.")
+        failureHasCause("Multiple task action failures occurred")
+        failureHasCause("A failure occurred while executing ItemAction (item 2)")
+        failureHasCause("Failure from item fail1")
+        failureHasCause("A failure occurred while executing ItemAction (item 4)")
+        failureHasCause("Failure from item fail2")
+
+        and:
+        ["a", "b", "c"].each {
+            file("build/runItems/$it").assertIsFile()
+        }
+
+        where:
+        isolationMode << ISOLATION_MODES
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.workers.internal;
+
+import org.gradle.cache.internal.HeapMemoryManager;
+import org.gradle.internal.classloader.ClasspathHasher;
+import org.gradle.internal.classloader.DefaultClassLoaderFactory;
+import org.gradle.internal.classpath.ClassPath;
+import org.gradle.internal.hash.HashCode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.inject.Inject;
+import java.io.File;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how quickly many small actions can be run in ClassLoader isolation.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class IsolatedClassloaderWorkerBenchmark {
+    private static final int ACTIONS = 10000;
+
+    private IsolatedClassloaderWorkerFactory workerFactory;
+    private DaemonForkOptions forkOptions;
+    private SerializingActionExecutionSpec[] specs;
+
+    @Setup
+    public void setup() {
+        // The real hasher serves the hashes from the file system snapshots of the build session
+        ClasspathHasher classpathHasher = new ClasspathHasher() {
+            @Override
+            public HashCode hash(ClassPath classpath) {
+                return HashCode.fromInt(classpath.hashCode());
+            }
+        };
+        workerFactory = new IsolatedClassloaderWorkerFactory(new DefaultClassLoaderFactory(), classpathHasher, null, new HeapMemoryManager());
+        forkOptions = new DaemonForkOptions(null, Collections.<File>emptyList(), Collections.<String>emptyList(), KeepAliveMode.DAEMON);
+        specs = new SerializingActionExecutionSpec[ACTIONS];
+        for (int i = 0; i < ACTIONS; i++) {
+            specs[i] = new SerializingActionExecutionSpec(SmallAction.class, "action " + i, new Object[]{i});
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        workerFactory.stop();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ACTIONS)
+    public void runSmallActions() {
+        for (SerializingActionExecutionSpec spec : specs) {
+            workerFactory.executeInWorkerClassLoader(spec, forkOptions);
+        }
+    }
+
+    public static class SmallAction implements Runnable {
+        private final int index;
+
+        @Inject
+        public SmallAction(Integer index) {
+            this.index = index;
+        }
+
+        @Override
+        public void run() {
+            if (index < 0) {
+                throw new IllegalArgumentException();
+            }
+        }
+    }
+}
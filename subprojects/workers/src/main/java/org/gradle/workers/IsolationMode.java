@@ -34,7 +34,10 @@ public enum IsolationMode {
      */
     NONE,
     /**
-     * Isolate the work in it's own classloader, use in-process workers.
+     * Isolate the work in its own classloader, use in-process workers.
+     *
+     * <p>The classloader is reused within the build by other work that has the same classpath and shared packages, much like a worker daemon is reused for {@link #PROCESS}.
+     * Static state of the classes loaded by it is therefore shared between such work.</p>
      */
     CLASSLOADER,
     /**
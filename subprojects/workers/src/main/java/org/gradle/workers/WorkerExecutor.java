@@ -17,6 +17,7 @@
 package org.gradle.workers;
 
 import org.gradle.api.Action;
+import org.gradle.api.Incubating;
 
 /**
  * Allows work to be submitted for asynchronous execution.  This api allows for safe, concurrent execution of work items and enables:
@@ -57,6 +58,28 @@ public interface WorkerExecutor {
      */
     void submit(Class<? extends Runnable> actionClass, Action<? super WorkerConfiguration> configAction);
 
+    /**
+     * Submits many small pieces of work of the same kind, one for each of the given items, to be executed asynchronously.
+     *
+     * <p>The configuration action is applied once and is shared by all of the work. The implementation of each piece of work receives its
+     * item as the first constructor parameter, followed by the parameters set in the {@link WorkerConfiguration}.</p>
+     *
+     * <pre>
+     *      workerExecutor.submitAll(CompressFile.class, sourceFiles) { WorkerConfiguration conf -&gt;
+     *          // Each unit of work is constructed with a source file and the output directory
+     *          conf.params = [ file('out') ]
+     *      }
+     * </pre>
+     *
+     * <p>The work is grouped into batches, about one for each worker that can run in parallel, so that scheduling and isolating work happens
+     * once per batch rather than once per item. Any errors are still reported for each item, and are thrown from {@link #await()} or from the
+     * surrounding task action if {@link #await()} is not used.</p>
+     *
+     * @since 5.4
+     */
+    @Incubating
+    void submitAll(Class<? extends Runnable> actionClass, Iterable<?> items, Action<? super WorkerConfiguration> configAction);
+
     /**
      * Blocks until all work associated with the current build operation is complete.  Note that when using this method inside
      * a task action, it will block completion of the task action until all submitted work is complete.  This means that other
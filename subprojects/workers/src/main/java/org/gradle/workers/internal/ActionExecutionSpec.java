@@ -25,6 +25,4 @@ public interface ActionExecutionSpec extends Serializable, Describable {
 
     @Override
     String getDisplayName();
-
-    Object[] getParams(ClassLoader classLoader);
 }
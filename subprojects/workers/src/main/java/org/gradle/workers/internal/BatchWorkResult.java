@@ -0,0 +1,53 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.workers.internal;
+
+import java.util.List;
+
+/**
+ * The results of the items of a {@link BatchedActionExecutionSpec}, in the same order as the items.
+ */
+public class BatchWorkResult extends DefaultWorkResult {
+    private final List<DefaultWorkResult> itemResults;
+
+    public BatchWorkResult(List<DefaultWorkResult> itemResults) {
+        super(didWork(itemResults), firstFailure(itemResults));
+        this.itemResults = itemResults;
+    }
+
+    public List<DefaultWorkResult> getItemResults() {
+        return itemResults;
+    }
+
+    private static boolean didWork(List<DefaultWorkResult> itemResults) {
+        for (DefaultWorkResult itemResult : itemResults) {
+            if (itemResult.getDidWork()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Throwable firstFailure(List<DefaultWorkResult> itemResults) {
+        for (DefaultWorkResult itemResult : itemResults) {
+            if (!itemResult.isSuccess()) {
+                return itemResult.getException();
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.workers.internal;
+
+import java.util.List;
+
+/**
+ * A batch of work items of the same kind that is executed as a single unit of work, by the same worker.
+ */
+public class BatchedActionExecutionSpec implements ActionExecutionSpec {
+    private final Class<?> implementationClass;
+    private final String displayName;
+    private final List<SerializingActionExecutionSpec> items;
+
+    public BatchedActionExecutionSpec(Class<?> implementationClass, String displayName, List<SerializingActionExecutionSpec> items) {
+        this.implementationClass = implementationClass;
+        this.displayName = displayName;
+        this.items = items;
+    }
+
+    @Override
+    public Class<?> getImplementationClass() {
+        return implementationClass;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    public List<SerializingActionExecutionSpec> getItems() {
+        return items;
+    }
+}
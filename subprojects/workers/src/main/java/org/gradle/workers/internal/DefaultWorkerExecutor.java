@@ -17,8 +17,11 @@
 package org.gradle.workers.internal;
 
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 import org.gradle.api.Action;
 import org.gradle.api.Transformer;
+import org.gradle.concurrent.ParallelismConfiguration;
 import org.gradle.internal.classloader.ClasspathUtil;
 import org.gradle.internal.classloader.FilteringClassLoader;
 import org.gradle.internal.exceptions.Contextual;
@@ -44,6 +47,7 @@ import org.gradle.workers.WorkerExecutionException;
 import org.gradle.workers.WorkerExecutor;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Callable;
 
@@ -57,8 +61,9 @@ public class DefaultWorkerExecutor implements WorkerExecutor {
     private final BuildOperationExecutor buildOperationExecutor;
     private final AsyncWorkTracker asyncWorkTracker;
     private final WorkerDirectoryProvider workerDirectoryProvider;
+    private final ParallelismConfiguration parallelismConfiguration;
 
-    public DefaultWorkerExecutor(WorkerFactory daemonWorkerFactory, WorkerFactory isolatedClassloaderWorkerFactory, WorkerFactory noIsolationWorkerFactory, JavaForkOptionsFactory forkOptionsFactory, WorkerLeaseRegistry workerLeaseRegistry, BuildOperationExecutor buildOperationExecutor, AsyncWorkTracker asyncWorkTracker, WorkerDirectoryProvider workerDirectoryProvider, WorkerExecutionQueueFactory workerExecutionQueueFactory) {
+    public DefaultWorkerExecutor(WorkerFactory daemonWorkerFactory, WorkerFactory isolatedClassloaderWorkerFactory, WorkerFactory noIsolationWorkerFactory, JavaForkOptionsFactory forkOptionsFactory, WorkerLeaseRegistry workerLeaseRegistry, BuildOperationExecutor buildOperationExecutor, AsyncWorkTracker asyncWorkTracker, WorkerDirectoryProvider workerDirectoryProvider, WorkerExecutionQueueFactory workerExecutionQueueFactory, ParallelismConfiguration parallelismConfiguration) {
         this.daemonWorkerFactory = daemonWorkerFactory;
         this.isolatedClassloaderWorkerFactory = isolatedClassloaderWorkerFactory;
         this.noIsolationWorkerFactory = noIsolationWorkerFactory;
@@ -68,19 +73,13 @@ public class DefaultWorkerExecutor implements WorkerExecutor {
         this.buildOperationExecutor = buildOperationExecutor;
         this.asyncWorkTracker = asyncWorkTracker;
         this.workerDirectoryProvider = workerDirectoryProvider;
+        this.parallelismConfiguration = parallelismConfiguration;
     }
 
     @Override
     public void submit(Class<? extends Runnable> actionClass, Action<? super WorkerConfiguration> configAction) {
-        WorkerConfiguration configuration = new DefaultWorkerConfiguration(forkOptionsFactory);
-        File workingDirectory = workerDirectoryProvider.getWorkingDirectory();
-        configuration.getForkOptions().setWorkingDir(workingDirectory);
-        configAction.execute(configuration);
-        String description = configuration.getDisplayName() != null ? configuration.getDisplayName() : actionClass.getName();
-
-        if (!workingDirectory.equals(configuration.getForkOptions().getWorkingDir())) {
-            throw new WorkExecutionException(description + ": setting the working directory of a worker is not supported.");
-        }
+        WorkerConfiguration configuration = configure(actionClass, configAction);
+        String description = getDescription(actionClass, configuration);
 
         // Serialize parameters in this thread prior to starting work in a separate thread
         ActionExecutionSpec spec;
@@ -93,10 +92,77 @@ public class DefaultWorkerExecutor implements WorkerExecutor {
         submit(spec, configuration.getIsolationMode(), getDaemonForkOptions(actionClass, configuration));
     }
 
-    private void submit(final ActionExecutionSpec spec, final IsolationMode isolationMode, final DaemonForkOptions daemonForkOptions) {
+    @Override
+    public void submitAll(Class<? extends Runnable> actionClass, Iterable<?> items, Action<? super WorkerConfiguration> configAction) {
+        WorkerConfiguration configuration = configure(actionClass, configAction);
+        String description = getDescription(actionClass, configuration);
+        Object[] sharedParams = configuration.getParams();
+
+        // Serialize parameters in this thread prior to starting work in a separate thread
+        List<SerializingActionExecutionSpec> specs = new ArrayList<SerializingActionExecutionSpec>();
+        ImmutableSet.Builder<Class<?>> itemTypes = ImmutableSet.builder();
+        for (Object item : items) {
+            String itemDescription = description + " (item " + (specs.size() + 1) + ")";
+            Object[] params = new Object[sharedParams.length + 1];
+            params[0] = item;
+            System.arraycopy(sharedParams, 0, params, 1, sharedParams.length);
+            try {
+                specs.add(new SerializingActionExecutionSpec(actionClass, itemDescription, params));
+            } catch (Throwable t) {
+                throw new WorkExecutionException(itemDescription, t);
+            }
+            if (item != null) {
+                itemTypes.add(item.getClass());
+            }
+        }
+        if (specs.isEmpty()) {
+            return;
+        }
+
+        DaemonForkOptions daemonForkOptions = getDaemonForkOptions(actionClass, configuration, itemTypes.build());
+        int batchSize = (specs.size() + parallelismConfiguration.getMaxWorkerCount() - 1) / parallelismConfiguration.getMaxWorkerCount();
+        for (List<SerializingActionExecutionSpec> batchItems : Lists.partition(specs, batchSize)) {
+            String batchDescription = description + " (batch of " + batchItems.size() + " items)";
+            submitBatch(new BatchedActionExecutionSpec(actionClass, batchDescription, batchItems), configuration.getIsolationMode(), daemonForkOptions);
+        }
+    }
+
+    private WorkerConfiguration configure(Class<?> actionClass, Action<? super WorkerConfiguration> configAction) {
+        WorkerConfiguration configuration = new DefaultWorkerConfiguration(forkOptionsFactory);
+        File workingDirectory = workerDirectoryProvider.getWorkingDirectory();
+        configuration.getForkOptions().setWorkingDir(workingDirectory);
+        configAction.execute(configuration);
+
+        if (!workingDirectory.equals(configuration.getForkOptions().getWorkingDir())) {
+            throw new WorkExecutionException(getDescription(actionClass, configuration) + ": setting the working directory of a worker is not supported.");
+        }
+        return configuration;
+    }
+
+    private static String getDescription(Class<?> actionClass, WorkerConfiguration configuration) {
+        return configuration.getDisplayName() != null ? configuration.getDisplayName() : actionClass.getName();
+    }
+
+    private void submit(ActionExecutionSpec spec, IsolationMode isolationMode, DaemonForkOptions daemonForkOptions) {
+        BuildOperationRef currentBuildOperation = buildOperationExecutor.getCurrentOperation();
+        WorkerExecution execution = createExecution(spec, isolationMode, daemonForkOptions, currentBuildOperation);
+        executionQueue.submit(execution);
+        asyncWorkTracker.registerWork(currentBuildOperation, execution);
+    }
+
+    private void submitBatch(BatchedActionExecutionSpec batch, IsolationMode isolationMode, DaemonForkOptions daemonForkOptions) {
+        BuildOperationRef currentBuildOperation = buildOperationExecutor.getCurrentOperation();
+        WorkerExecution execution = createExecution(batch, isolationMode, daemonForkOptions, currentBuildOperation);
+        executionQueue.submit(execution);
+        // The batch is executed as a whole, but its items complete, and fail, individually
+        for (int i = 0; i < batch.getItems().size(); i++) {
+            asyncWorkTracker.registerWork(currentBuildOperation, new BatchItemCompletion(execution, i, batch.getItems().get(i).getDisplayName()));
+        }
+    }
+
+    private WorkerExecution createExecution(final ActionExecutionSpec spec, final IsolationMode isolationMode, final DaemonForkOptions daemonForkOptions, final BuildOperationRef currentBuildOperation) {
         final WorkerLease currentWorkerWorkerLease = getCurrentWorkerLease();
-        final BuildOperationRef currentBuildOperation = buildOperationExecutor.getCurrentOperation();
-        WorkerExecution execution = new WorkerExecution(spec.getDisplayName(), currentWorkerWorkerLease, new Callable<DefaultWorkResult>() {
+        return new WorkerExecution(spec.getDisplayName(), currentWorkerWorkerLease, new Callable<DefaultWorkResult>() {
             @Override
             public DefaultWorkResult call() throws Exception {
                 try {
@@ -108,8 +174,6 @@ public class DefaultWorkerExecutor implements WorkerExecutor {
                 }
             }
         });
-        executionQueue.submit(execution);
-        asyncWorkTracker.registerWork(currentBuildOperation, execution);
     }
 
     private WorkerLease getCurrentWorkerLease() {
@@ -162,6 +226,10 @@ public class DefaultWorkerExecutor implements WorkerExecutor {
     }
 
     DaemonForkOptions getDaemonForkOptions(Class<?> actionClass, WorkerConfiguration configuration) {
+        return getDaemonForkOptions(actionClass, configuration, ImmutableSet.<Class<?>>of());
+    }
+
+    private DaemonForkOptions getDaemonForkOptions(Class<?> actionClass, WorkerConfiguration configuration, Iterable<Class<?>> itemTypes) {
         validateWorkerConfiguration(configuration);
         Iterable<Class<?>> paramTypes = CollectionUtils.collect(configuration.getParams(), new Transformer<Class<?>, Object>() {
             @Override
@@ -169,7 +237,7 @@ public class DefaultWorkerExecutor implements WorkerExecutor {
                 return o.getClass();
             }
         });
-        return toDaemonOptions(actionClass, paramTypes, configuration.getForkOptions(), configuration.getClasspath());
+        return toDaemonOptions(actionClass, Iterables.concat(itemTypes, paramTypes), configuration.getForkOptions(), configuration.getClasspath());
     }
 
     private void validateWorkerConfiguration(WorkerConfiguration configuration) {
@@ -287,6 +355,46 @@ public class DefaultWorkerExecutor implements WorkerExecutor {
         }
     }
 
+    private static class BatchItemCompletion implements AsyncWorkCompletion {
+        private final WorkerExecution batchExecution;
+        private final int index;
+        private final String description;
+
+        BatchItemCompletion(WorkerExecution batchExecution, int index, String description) {
+            this.batchExecution = batchExecution;
+            this.index = index;
+            this.description = description;
+        }
+
+        @Override
+        public void waitForCompletion() {
+            DefaultWorkResult batchResult;
+            try {
+                batchResult = batchExecution.await();
+            } catch (RuntimeException e) {
+                // The whole batch failed, report that once rather than for every item
+                if (index == 0) {
+                    throw e;
+                }
+                return;
+            }
+            DefaultWorkResult result = ((BatchWorkResult) batchResult).getItemResults().get(index);
+            if (!result.isSuccess()) {
+                throw new WorkExecutionException(description, result.getException());
+            }
+        }
+
+        @Override
+        public boolean isComplete() {
+            return batchExecution.isComplete();
+        }
+
+        @Override
+        public void cancel() {
+            batchExecution.cancel();
+        }
+    }
+
     private static class LazyChildWorkerLeaseLock implements ResourceLock {
         private final WorkerLease parentWorkerLease;
         private WorkerLease child;
@@ -20,6 +20,8 @@ import org.gradle.api.tasks.WorkResult;
 import org.gradle.internal.reflect.Instantiator;
 
 import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.Callable;
 
 public class DefaultWorkerServer implements WorkerProtocol {
@@ -32,6 +34,13 @@ public class DefaultWorkerServer implements WorkerProtocol {
 
     @Override
     public DefaultWorkResult execute(ActionExecutionSpec spec) {
+        if (spec instanceof BatchedActionExecutionSpec) {
+            return executeBatch((BatchedActionExecutionSpec) spec);
+        }
+        return executeAction((ParameterizedActionExecutionSpec) spec);
+    }
+
+    private DefaultWorkResult executeAction(ParameterizedActionExecutionSpec spec) {
         try {
             Class<?> implementationClass = spec.getImplementationClass();
             Object action = instantiator.newInstance(implementationClass, spec.getParams(implementationClass.getClassLoader()));
@@ -55,6 +64,15 @@ public class DefaultWorkerServer implements WorkerProtocol {
         }
     }
 
+    private DefaultWorkResult executeBatch(BatchedActionExecutionSpec batch) {
+        // The items are independent of each other, so a failed item does not stop the rest of the batch
+        List<DefaultWorkResult> itemResults = new ArrayList<DefaultWorkResult>(batch.getItems().size());
+        for (ParameterizedActionExecutionSpec item : batch.getItems()) {
+            itemResults.add(executeAction(item));
+        }
+        return new BatchWorkResult(itemResults);
+    }
+
     @Override
     public String toString() {
         return "DefaultWorkerServer{}";
@@ -16,26 +16,34 @@
 
 package org.gradle.workers.internal;
 
+import com.google.common.base.Objects;
 import org.gradle.api.internal.classloading.GroovySystemLoader;
 import org.gradle.api.internal.classloading.GroovySystemLoaderFactory;
 import org.gradle.api.logging.LogLevel;
 import org.gradle.api.logging.Logger;
 import org.gradle.cache.internal.DefaultCrossBuildInMemoryCacheFactory;
+import org.gradle.cache.internal.HeapMemoryHolder;
+import org.gradle.cache.internal.HeapMemoryManager;
 import org.gradle.internal.UncheckedException;
 import org.gradle.internal.classloader.CachingClassLoader;
 import org.gradle.internal.classloader.ClassLoaderFactory;
+import org.gradle.internal.classloader.ClasspathHasher;
 import org.gradle.internal.classloader.ClasspathUtil;
 import org.gradle.internal.classloader.FilteringClassLoader;
 import org.gradle.internal.classloader.MultiParentClassLoader;
 import org.gradle.internal.classloader.VisitableURLClassLoader;
+import org.gradle.internal.classpath.ClassPath;
 import org.gradle.internal.classpath.DefaultClassPath;
 import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.concurrent.Stoppable;
 import org.gradle.internal.event.DefaultListenerManager;
+import org.gradle.internal.hash.HashCode;
 import org.gradle.internal.instantiation.DefaultInstantiatorFactory;
 import org.gradle.internal.instantiation.InjectAnnotationHandler;
 import org.gradle.internal.io.ClassLoaderObjectInputStream;
 import org.gradle.internal.operations.BuildOperationExecutor;
 import org.gradle.internal.operations.BuildOperationRef;
+import org.gradle.internal.reflect.JavaMethod;
 import org.gradle.internal.serialize.ExceptionReplacingObjectInputStream;
 import org.gradle.internal.serialize.ExceptionReplacingObjectOutputStream;
 import org.gradle.util.GUtil;
@@ -47,18 +55,37 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
-public class IsolatedClassloaderWorkerFactory implements WorkerFactory {
+/**
+ * Runs work in an isolated ClassLoader of the build process.
+ *
+ * <p>The ClassLoaders are reused for the rest of the build session by all work with the same classpath and shared packages, unless the heap is running low.
+ * The classpath is matched on both its entries and their content, so work always runs against its own files.</p>
+ */
+public class IsolatedClassloaderWorkerFactory implements WorkerFactory, Stoppable, HeapMemoryHolder {
 
     private final ClassLoaderFactory classLoaderFactory;
+    private final ClasspathHasher classpathHasher;
     private final BuildOperationExecutor buildOperationExecutor;
+    private final HeapMemoryManager heapMemoryManager;
     private final GroovySystemLoaderFactory groovySystemLoaderFactory = new GroovySystemLoaderFactory();
+    private final ConcurrentMap<WorkerClassLoaderKey, WorkerClassLoader> workerClassLoaders = new ConcurrentHashMap<WorkerClassLoaderKey, WorkerClassLoader>();
+    private final Object lock = new Object();
 
-    public IsolatedClassloaderWorkerFactory(ClassLoaderFactory classLoaderFactory, BuildOperationExecutor buildOperationExecutor) {
+    public IsolatedClassloaderWorkerFactory(ClassLoaderFactory classLoaderFactory, ClasspathHasher classpathHasher, BuildOperationExecutor buildOperationExecutor, HeapMemoryManager heapMemoryManager) {
         this.classLoaderFactory = classLoaderFactory;
+        this.classpathHasher = classpathHasher;
         this.buildOperationExecutor = buildOperationExecutor;
+        this.heapMemoryManager = heapMemoryManager;
+        heapMemoryManager.addHolder(this, HeapMemoryManager.Priority.EXPENSIVE_TO_RECREATE);
     }
 
     @Override
@@ -81,28 +108,94 @@ public class IsolatedClassloaderWorkerFactory implements WorkerFactory {
         return IsolationMode.CLASSLOADER;
     }
 
-    private DefaultWorkResult executeInWorkerClassLoader(ActionExecutionSpec spec, DaemonForkOptions forkOptions) {
-        ClassLoader actionClasspathLoader = createActionClasspathLoader(forkOptions);
-        GroovySystemLoader actionClasspathGroovy = groovySystemLoaderFactory.forClassLoader(actionClasspathLoader);
-        ClassLoader workerClassLoader = createWorkerClassLoader(actionClasspathLoader, forkOptions.getSharedPackages(), spec.getClass());
+    @Override
+    public void stop() {
+        heapMemoryManager.removeHolder(this);
+        release();
+    }
+
+    @Override
+    public long getRetainedValueCount() {
+        return workerClassLoaders.size();
+    }
+
+    /**
+     * Drops the worker ClassLoaders, so that later work uses new ones. A ClassLoader that is in use is closed when the work using it has finished.
+     */
+    @Override
+    public long release() {
+        List<WorkerClassLoader> discarded;
+        synchronized (lock) {
+            discarded = new ArrayList<WorkerClassLoader>(workerClassLoaders.values());
+            workerClassLoaders.clear();
+        }
+        for (WorkerClassLoader workerClassLoader : discarded) {
+            workerClassLoader.discard();
+        }
+        return discarded.size();
+    }
+
+    DefaultWorkResult executeInWorkerClassLoader(ActionExecutionSpec spec, DaemonForkOptions forkOptions) {
+        WorkerClassLoader workerClassLoader = useWorkerClassLoader(forkOptions, spec.getClass());
+        try {
+            return executeInWorkerClassLoader(spec, workerClassLoader);
+        } finally {
+            workerClassLoader.endUse();
+        }
+    }
 
+    private DefaultWorkResult executeInWorkerClassLoader(ActionExecutionSpec spec, WorkerClassLoader workerClassLoader) {
         ClassLoader previousContextLoader = Thread.currentThread().getContextClassLoader();
         try {
-            Thread.currentThread().setContextClassLoader(workerClassLoader);
-            Callable<?> worker = transferWorkerIntoWorkerClassloader(spec, workerClassLoader);
-            Object result = worker.call();
-            return transferResultFromWorkerClassLoader(result);
+            Thread.currentThread().setContextClassLoader(workerClassLoader.getClassLoader());
+            if (spec instanceof SerializingActionExecutionSpec) {
+                // The parameters are already serialized, so hand them over as they are
+                return transferResultFromWorkerClassLoader(workerClassLoader.execute((SerializingActionExecutionSpec) spec));
+            } else if (spec instanceof BatchedActionExecutionSpec) {
+                // Hand over the items one by one in the same way, rather than serializing the whole batch into the worker ClassLoader
+                List<SerializingActionExecutionSpec> items = ((BatchedActionExecutionSpec) spec).getItems();
+                List<DefaultWorkResult> itemResults = new ArrayList<DefaultWorkResult>(items.size());
+                for (SerializingActionExecutionSpec item : items) {
+                    itemResults.add(transferResultFromWorkerClassLoader(workerClassLoader.execute(item)));
+                }
+                return new BatchWorkResult(itemResults);
+            } else {
+                Callable<?> worker = transferWorkerIntoWorkerClassloader(spec, workerClassLoader.getClassLoader());
+                return transferResultFromWorkerClassLoader(worker.call());
+            }
         } catch (Exception e) {
             throw UncheckedException.throwAsUncheckedException(e);
         } finally {
-            actionClasspathGroovy.shutdown();
-            CompositeStoppable.stoppable(workerClassLoader, actionClasspathLoader).stop();
             Thread.currentThread().setContextClassLoader(previousContextLoader);
         }
     }
 
-    private ClassLoader createActionClasspathLoader(DaemonForkOptions forkOptions) {
-        return classLoaderFactory.createIsolatedClassLoader("worker-action-loader", DefaultClassPath.of(forkOptions.getClasspath()));
+    /**
+     * Returns the worker ClassLoader for the given work, which has to be handed back using {@link WorkerClassLoader#endUse()}.
+     */
+    private WorkerClassLoader useWorkerClassLoader(DaemonForkOptions forkOptions, Class<?> actionClass) {
+        ClassPath actionClasspath = DefaultClassPath.of(forkOptions.getClasspath());
+        WorkerClassLoaderKey key = new WorkerClassLoaderKey(actionClasspath, classpathHasher.hash(actionClasspath), forkOptions.getSharedPackages(), actionClass.getClassLoader());
+        while (true) {
+            WorkerClassLoader workerClassLoader = workerClassLoaders.get(key);
+            if (workerClassLoader == null) {
+                synchronized (lock) {
+                    workerClassLoader = workerClassLoaders.get(key);
+                    if (workerClassLoader == null) {
+                        ClassLoader actionClasspathLoader = classLoaderFactory.createIsolatedClassLoader("worker-action-loader", actionClasspath);
+                        GroovySystemLoader actionClasspathGroovy = groovySystemLoaderFactory.forClassLoader(actionClasspathLoader);
+                        ClassLoader classLoader = createWorkerClassLoader(actionClasspathLoader, forkOptions.getSharedPackages(), actionClass);
+                        workerClassLoader = new WorkerClassLoader(classLoader, actionClasspathLoader, actionClasspathGroovy);
+                        workerClassLoaders.put(key, workerClassLoader);
+                    }
+                }
+            }
+            if (workerClassLoader.startUse()) {
+                return workerClassLoader;
+            }
+            // Released in the meantime
+            workerClassLoaders.remove(key, workerClassLoader);
+        }
     }
 
     private ClassLoader createWorkerClassLoader(ClassLoader actionClasspathLoader, Iterable<String> sharedPackages, Class<?> actionClass) {
@@ -147,10 +240,122 @@ public class IsolatedClassloaderWorkerFactory implements WorkerFactory {
         return (DefaultWorkResult) ois.readObject();
     }
 
+    /**
+     * The ClassLoaders for work with a particular classpath, and the entry point to run that work in them.
+     */
+    private static class WorkerClassLoader implements Stoppable {
+        private final ClassLoader classLoader;
+        private final ClassLoader actionClasspathLoader;
+        private final GroovySystemLoader actionClasspathGroovy;
+        private volatile JavaMethod<?, Object> executeSerialized;
+        // Guarded by this
+        private int uses;
+        private boolean discarded;
+
+        WorkerClassLoader(ClassLoader classLoader, ClassLoader actionClasspathLoader, GroovySystemLoader actionClasspathGroovy) {
+            this.classLoader = classLoader;
+            this.actionClasspathLoader = actionClasspathLoader;
+            this.actionClasspathGroovy = actionClasspathGroovy;
+        }
+
+        ClassLoader getClassLoader() {
+            return classLoader;
+        }
+
+        /**
+         * Marks this ClassLoader as used by some work, returning false when it has been discarded.
+         */
+        synchronized boolean startUse() {
+            if (discarded) {
+                return false;
+            }
+            uses++;
+            return true;
+        }
+
+        void endUse() {
+            boolean stopNow;
+            synchronized (this) {
+                uses--;
+                stopNow = discarded && uses == 0;
+            }
+            if (stopNow) {
+                stop();
+            }
+        }
+
+        /**
+         * Closes this ClassLoader once no work is using it.
+         */
+        void discard() {
+            boolean stopNow;
+            synchronized (this) {
+                discarded = true;
+                stopNow = uses == 0;
+            }
+            if (stopNow) {
+                stop();
+            }
+        }
+
+        Object execute(SerializingActionExecutionSpec spec) throws ClassNotFoundException, NoSuchMethodException {
+            if (executeSerialized == null) {
+                executeSerialized = JavaMethod.ofStatic(classLoader.loadClass(WorkerCallable.class.getName()), Object.class, "executeSerialized", String.class, String.class, byte[].class);
+            }
+            return executeSerialized.invokeStatic(spec.getImplementationClass().getName(), spec.getDisplayName(), spec.getSerializedParams());
+        }
+
+        @Override
+        public void stop() {
+            actionClasspathGroovy.shutdown();
+            CompositeStoppable.stoppable(classLoader, actionClasspathLoader).stop();
+        }
+    }
+
+    private static class WorkerClassLoaderKey {
+        private final ClassPath classpath;
+        private final HashCode classpathHash;
+        private final Set<String> sharedPackages;
+        private final ClassLoader actionClassLoader;
+
+        WorkerClassLoaderKey(ClassPath classpath, HashCode classpathHash, Iterable<String> sharedPackages, ClassLoader actionClassLoader) {
+            this.classpath = classpath;
+            this.classpathHash = classpathHash;
+            this.sharedPackages = new TreeSet<String>();
+            for (String sharedPackage : sharedPackages) {
+                this.sharedPackages.add(sharedPackage);
+            }
+            this.actionClassLoader = actionClassLoader;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            WorkerClassLoaderKey other = (WorkerClassLoaderKey) o;
+            return classpath.equals(other.classpath)
+                && classpathHash.equals(other.classpathHash)
+                && sharedPackages.equals(other.sharedPackages)
+                && actionClassLoader == other.actionClassLoader;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(classpath, classpathHash, sharedPackages, System.identityHashCode(actionClassLoader));
+        }
+    }
+
     /**
      * This is serialized across into the worker ClassLoader and then executed.
      */
     private static class WorkerCallable implements Callable<Object>, Serializable {
+        // Each worker ClassLoader has its own copy of this class, and so its own worker
+        private static WorkerProtocol worker;
+
         private final ActionExecutionSpec spec;
 
         private WorkerCallable(ActionExecutionSpec spec) {
@@ -159,10 +364,23 @@ public class IsolatedClassloaderWorkerFactory implements WorkerFactory {
 
         @Override
         public Object call() throws Exception {
-            // TODO - reuse these services, either by making the global instances visible or by reusing the worker ClassLoaders and retaining a reference to them
-            DefaultInstantiatorFactory instantiatorFactory = new DefaultInstantiatorFactory(new DefaultCrossBuildInMemoryCacheFactory(new DefaultListenerManager()), Collections.<InjectAnnotationHandler>emptyList());
-            WorkerProtocol worker = new DefaultWorkerServer(instantiatorFactory.inject());
-            return worker.execute(spec);
+            return getWorker().execute(spec);
+        }
+
+        /**
+         * Runs work whose parameters are already serialized, without serializing the work itself. Called reflectively from outside the worker ClassLoader.
+         */
+        static Object executeSerialized(String implementationClassName, String displayName, byte[] params) throws ClassNotFoundException {
+            Class<? extends Runnable> implementationClass = Class.forName(implementationClassName, false, WorkerCallable.class.getClassLoader()).asSubclass(Runnable.class);
+            return getWorker().execute(new SerializingActionExecutionSpec(implementationClass, displayName, params));
+        }
+
+        private static synchronized WorkerProtocol getWorker() {
+            if (worker == null) {
+                DefaultInstantiatorFactory instantiatorFactory = new DefaultInstantiatorFactory(new DefaultCrossBuildInMemoryCacheFactory(new DefaultListenerManager()), Collections.<InjectAnnotationHandler>emptyList());
+                worker = new DefaultWorkerServer(instantiatorFactory.inject());
+            }
+            return worker;
         }
     }
 }
@@ -26,9 +26,9 @@ import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 
 /**
- * Represents an {@link ActionExecutionSpec} that contains constructor parameters.
+ * Represents a {@link ParameterizedActionExecutionSpec} that contains serialized constructor parameters.
  */
-public class SerializingActionExecutionSpec implements ActionExecutionSpec {
+public class SerializingActionExecutionSpec implements ParameterizedActionExecutionSpec {
     private final String displayName;
     private final Class<? extends Runnable> implementationClass;
     private final byte[] params;
@@ -39,6 +39,12 @@ public class SerializingActionExecutionSpec implements ActionExecutionSpec {
         this.params = serialize(params);
     }
 
+    SerializingActionExecutionSpec(Class<? extends Runnable> implementationClass, String displayName, byte[] serializedParams) {
+        this.implementationClass = implementationClass;
+        this.displayName = displayName;
+        this.params = serializedParams;
+    }
+
     @Override
     public Class<? extends Runnable> getImplementationClass() {
         return implementationClass;
@@ -54,6 +60,10 @@ public class SerializingActionExecutionSpec implements ActionExecutionSpec {
         return deserialize(classLoader);
     }
 
+    byte[] getSerializedParams() {
+        return params;
+    }
+
     private byte[] serialize(Object[] params) {
         ByteArrayOutputStream bos = new ByteArrayOutputStream();
         try {
@@ -16,7 +16,7 @@
 
 package org.gradle.workers.internal;
 
-public class SimpleActionExecutionSpec implements ActionExecutionSpec {
+public class SimpleActionExecutionSpec implements ParameterizedActionExecutionSpec {
     private final Class<?> implementationClass;
     private final String displayName;
     private final Object[] params;
@@ -29,7 +29,7 @@ class WorkerDaemonClient implements Worker, Stoppable {
     private final WorkerProcess workerProcess;
     private final LogLevel logLevel;
     private int uses;
-    private boolean failed;
+    private volatile boolean failed;
     private boolean cannotBeExpired = Boolean.getBoolean(DISABLE_EXPIRATION_PROPERTY_KEY);
 
     public WorkerDaemonClient(DaemonForkOptions forkOptions, WorkerDaemonProcess workerDaemonProcess, WorkerProcess workerProcess, LogLevel logLevel) {
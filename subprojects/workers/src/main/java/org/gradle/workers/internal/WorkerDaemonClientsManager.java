@@ -16,6 +16,7 @@
 
 package org.gradle.workers.internal;
 
+import com.google.common.base.Objects;
 import com.google.common.collect.Lists;
 import org.gradle.api.Action;
 import org.gradle.api.Transformer;
@@ -25,6 +26,8 @@ import org.gradle.api.logging.Logging;
 import org.gradle.api.specs.Spec;
 import org.gradle.initialization.SessionLifecycleListener;
 import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
 import org.gradle.internal.concurrent.Stoppable;
 import org.gradle.internal.event.ListenerManager;
 import org.gradle.internal.exceptions.DefaultMultiCauseException;
@@ -32,23 +35,42 @@ import org.gradle.internal.logging.LoggingManagerInternal;
 import org.gradle.internal.logging.events.LogLevelChangeEvent;
 import org.gradle.internal.logging.events.OutputEvent;
 import org.gradle.internal.logging.events.OutputEventListener;
+import org.gradle.process.JavaForkOptions;
 import org.gradle.process.internal.health.memory.MemoryManager;
 import org.gradle.process.internal.health.memory.OsMemoryInfo;
 import org.gradle.process.internal.worker.WorkerProcess;
 import org.gradle.util.CollectionUtils;
 
+import java.io.File;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
-import java.util.Iterator;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import static org.gradle.process.internal.util.MergeOptionsUtil.normalized;
+
+/**
+ * Keeps track of the worker daemons of this process.
+ *
+ * <p>Idle daemons are pooled by the fork options that have to match exactly for a daemon to be compatible with a request, so reserving and releasing a daemon only contends with requests for similar daemons and does not take a lock. When a session first needs a new daemon for a pool, further daemons are started in the background with the same fork options, up to the number of daemons of that pool that the previous session used at the same time. Nothing is started for a pool that the session does not use.</p>
+ */
 public class WorkerDaemonClientsManager implements Stoppable {
 
+    public static final String DISABLE_PRESTART_PROPERTY_KEY = "org.gradle.workers.internal.disable-daemons-prestart";
+
     private static final Logger LOGGER = Logging.getLogger(WorkerDaemonClientsManager.class);
 
+    // Only taken to stop clients, reserving and releasing them is lock free
     private final Object lock = new Object();
-    private final List<WorkerDaemonClient> allClients = new ArrayList<WorkerDaemonClient>();
-    private final List<WorkerDaemonClient> idleClients = new ArrayList<WorkerDaemonClient>();
+    // Every client that has been started and not stopped, with the pool it goes back to when it is released
+    private final ConcurrentMap<WorkerDaemonClient, PoolKey> allClients = new ConcurrentHashMap<WorkerDaemonClient, PoolKey>();
+    private final ConcurrentMap<PoolKey, Queue<WorkerDaemonClient>> idleClients = new ConcurrentHashMap<PoolKey, Queue<WorkerDaemonClient>>();
+    private final ConcurrentMap<PoolKey, Demand> demands = new ConcurrentHashMap<PoolKey, Demand>();
     private final Action<WorkerProcess> workerProcessCleanupAction = new WorkerProcessCleanupAction();
 
     private final WorkerDaemonStarter workerDaemonStarter;
@@ -59,9 +81,13 @@ public class WorkerDaemonClientsManager implements Stoppable {
     private final OutputEventListener logLevelChangeEventListener;
     private final WorkerDaemonExpiration workerDaemonExpiration;
     private final MemoryManager memoryManager;
+    private final ManagedExecutor prestartExecutor;
+    private final boolean prestartEnabled = !Boolean.getBoolean(DISABLE_PRESTART_PROPERTY_KEY);
     private volatile LogLevel currentLogLevel;
+    // Incremented under the lock when a session completes
+    private volatile int session;
 
-    public WorkerDaemonClientsManager(WorkerDaemonStarter workerDaemonStarter, ListenerManager listenerManager, LoggingManagerInternal loggingManager, MemoryManager memoryManager, OsMemoryInfo memoryInfo) {
+    public WorkerDaemonClientsManager(WorkerDaemonStarter workerDaemonStarter, ListenerManager listenerManager, LoggingManagerInternal loggingManager, MemoryManager memoryManager, OsMemoryInfo memoryInfo, ExecutorFactory executorFactory) {
         this.workerDaemonStarter = workerDaemonStarter;
         this.listenerManager = listenerManager;
         this.loggingManager = loggingManager;
@@ -74,56 +100,193 @@ public class WorkerDaemonClientsManager implements Stoppable {
         this.memoryManager = memoryManager;
         this.workerDaemonExpiration = new WorkerDaemonExpiration(this, getTotalPhysicalMemory());
         memoryManager.addMemoryHolder(workerDaemonExpiration);
+        this.prestartExecutor = executorFactory.create("Worker daemon prestart");
     }
 
     // TODO - should supply and check for the same parameters as passed to reserveNewClient()
     public WorkerDaemonClient reserveIdleClient(DaemonForkOptions forkOptions) {
-        return reserveIdleClient(forkOptions, idleClients);
+        PoolKey key = PoolKey.of(forkOptions);
+        Queue<WorkerDaemonClient> candidates = idleClients.get(key);
+        if (candidates == null) {
+            return null;
+        }
+        WorkerDaemonClient client = reserveIdleClient(forkOptions, candidates);
+        if (client != null) {
+            demandFor(key).reserved();
+        }
+        return client;
     }
 
-    WorkerDaemonClient reserveIdleClient(DaemonForkOptions forkOptions, List<WorkerDaemonClient> clients) {
-        synchronized (lock) {
-            Iterator<WorkerDaemonClient> it = clients.iterator();
-            while (it.hasNext()) {
-                WorkerDaemonClient candidate = it.next();
-                if (candidate.isCompatibleWith(forkOptions)) {
-                    it.remove();
-                    if (candidate.getLogLevel() != currentLogLevel) {
-                        // TODO: Send a message to workers to change their log level rather than stopping
-                        LOGGER.info("Log level has changed, stopping idle worker daemon with out-of-date log level.");
-                        candidate.stop();
-                    } else {
-                        return candidate;
-                    }
-                }
+    WorkerDaemonClient reserveIdleClient(DaemonForkOptions forkOptions, Collection<WorkerDaemonClient> clients) {
+        while (true) {
+            WorkerDaemonClient candidate = findCompatibleClient(forkOptions, clients);
+            if (candidate == null) {
+                return null;
+            }
+            if (!clients.remove(candidate)) {
+                // Reserved by another thread in the meantime
+                continue;
+            }
+            if (candidate.getLogLevel() != currentLogLevel) {
+                // TODO: Send a message to workers to change their log level rather than stopping
+                LOGGER.info("Log level has changed, stopping idle worker daemon with out-of-date log level.");
+                allClients.remove(candidate);
+                candidate.stop();
+            } else {
+                return candidate;
+            }
+        }
+    }
+
+    private static WorkerDaemonClient findCompatibleClient(DaemonForkOptions forkOptions, Collection<WorkerDaemonClient> clients) {
+        for (WorkerDaemonClient candidate : clients) {
+            if (candidate.isCompatibleWith(forkOptions)) {
+                return candidate;
             }
-            return null;
         }
+        return null;
     }
 
     public WorkerDaemonClient reserveNewClient(Class<? extends WorkerProtocol> workerProtocolImplementationClass, DaemonForkOptions forkOptions) {
+        PoolKey key = PoolKey.of(forkOptions);
+        Demand demand = demandFor(key);
+        // Account for the daemon that is started here and the ones in use, so that only the difference to the previous peak is started in advance
+        int missing = demand.takeExpected() - demand.inUse() - 1 - countIdleClients(key, forkOptions);
+        if (missing > 0) {
+            prestartClients(workerProtocolImplementationClass, forkOptions, key, missing);
+        }
+        WorkerDaemonClient client = startClient(workerProtocolImplementationClass, forkOptions, key);
+        demand.reserved();
+        return client;
+    }
+
+    private WorkerDaemonClient startClient(Class<? extends WorkerProtocol> workerProtocolImplementationClass, DaemonForkOptions forkOptions, PoolKey key) {
         //allow the daemon to be started concurrently
         WorkerDaemonClient client = workerDaemonStarter.startDaemon(workerProtocolImplementationClass, forkOptions, workerProcessCleanupAction);
-        synchronized (lock) {
-            allClients.add(client);
-        }
+        allClients.put(client, key);
         return client;
     }
 
     public void release(WorkerDaemonClient client) {
+        PoolKey key = allClients.get(client);
+        if (key == null) {
+            // Stopped or failed while it was in use
+            return;
+        }
+        demandFor(key).released();
+        if (!client.isFailed()) {
+            idleClientsFor(key).add(client);
+        }
+    }
+
+    private Queue<WorkerDaemonClient> idleClientsFor(PoolKey key) {
+        Queue<WorkerDaemonClient> clients = idleClients.get(key);
+        if (clients == null) {
+            clients = new ConcurrentLinkedQueue<WorkerDaemonClient>();
+            Queue<WorkerDaemonClient> existing = idleClients.putIfAbsent(key, clients);
+            if (existing != null) {
+                clients = existing;
+            }
+        }
+        return clients;
+    }
+
+    private Demand demandFor(PoolKey key) {
+        Demand demand = demands.get(key);
+        if (demand == null) {
+            demand = new Demand();
+            Demand existing = demands.putIfAbsent(key, demand);
+            if (existing != null) {
+                demand = existing;
+            }
+        }
+        return demand;
+    }
+
+    /**
+     * Removes the given client from the idle pool, returning false when it is not idle.
+     */
+    private boolean removeIdleClient(WorkerDaemonClient client) {
+        PoolKey key = allClients.get(client);
+        if (key == null) {
+            return false;
+        }
+        Queue<WorkerDaemonClient> clients = idleClients.get(key);
+        return clients != null && clients.remove(client);
+    }
+
+    private List<WorkerDaemonClient> getIdleClients() {
+        List<WorkerDaemonClient> clients = new ArrayList<WorkerDaemonClient>();
+        for (Queue<WorkerDaemonClient> pool : idleClients.values()) {
+            clients.addAll(pool);
+        }
+        return clients;
+    }
+
+    private void prestartClients(final Class<? extends WorkerProtocol> workerProtocolImplementationClass, final DaemonForkOptions forkOptions, final PoolKey key, int count) {
+        if (!prestartEnabled) {
+            return;
+        }
+        LOGGER.debug("Starting {} worker daemon(s) in advance with fork options {}.", count, forkOptions);
+        final int startedInSession = session;
+        for (int i = 0; i < count; i++) {
+            prestartExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    WorkerDaemonClient client;
+                    try {
+                        client = startClient(workerProtocolImplementationClass, forkOptions, key);
+                    } catch (Exception e) {
+                        // The daemon is started again on demand, when it is needed
+                        LOGGER.debug("Could not start worker daemon in advance.", e);
+                        return;
+                    }
+                    addPrestartedClient(client, key, startedInSession);
+                }
+            });
+        }
+    }
+
+    private void addPrestartedClient(WorkerDaemonClient client, PoolKey key, int startedInSession) {
         synchronized (lock) {
-            if (!client.isFailed()) {
-                idleClients.add(client);
+            // A session-scoped daemon that finished starting after its session completed has missed being stopped with the session
+            boolean outlivedSession = key.keepAliveMode == KeepAliveMode.SESSION && startedInSession != session;
+            if (allClients.containsKey(client) && !outlivedSession) {
+                idleClientsFor(key).add(client);
+                return;
+            }
+            allClients.remove(client);
+        }
+        try {
+            client.stop();
+        } catch (Exception e) {
+            LOGGER.debug("Could not stop worker daemon started in advance.", e);
+        }
+    }
+
+    private int countIdleClients(PoolKey key, DaemonForkOptions forkOptions) {
+        Queue<WorkerDaemonClient> clients = idleClients.get(key);
+        if (clients == null) {
+            return 0;
+        }
+        int count = 0;
+        for (WorkerDaemonClient client : clients) {
+            if (client.isCompatibleWith(forkOptions)) {
+                count++;
             }
         }
+        return count;
     }
 
     @Override
     public void stop() {
+        // Daemons being started in advance do not need the lock, so wait for them first
+        prestartExecutor.stop();
         synchronized (lock) {
-            stopWorkers(allClients);
+            stopWorkers(new ArrayList<WorkerDaemonClient>(allClients.keySet()));
             allClients.clear();
             idleClients.clear();
+            demands.clear();
             listenerManager.removeListener(stopSessionScopeWorkers);
             memoryManager.removeMemoryHolder(workerDaemonExpiration);
         }
@@ -146,13 +309,19 @@ public class WorkerDaemonClientsManager implements Stoppable {
      */
     public void selectIdleClientsToStop(Transformer<List<WorkerDaemonClient>, List<WorkerDaemonClient>> selectionFunction) {
         synchronized (lock) {
-            List<WorkerDaemonClient> sortedClients = CollectionUtils.sort(idleClients, new Comparator<WorkerDaemonClient>() {
+            List<WorkerDaemonClient> sortedClients = CollectionUtils.sort(getIdleClients(), new Comparator<WorkerDaemonClient>() {
                 @Override
                 public int compare(WorkerDaemonClient o1, WorkerDaemonClient o2) {
                     return Integer.compare(o1.getUses(), o2.getUses());
                 }
             });
-            List<WorkerDaemonClient> clientsToStop = selectionFunction.transform(new ArrayList<WorkerDaemonClient>(sortedClients));
+            List<WorkerDaemonClient> clientsToStop = new ArrayList<WorkerDaemonClient>();
+            for (WorkerDaemonClient client : selectionFunction.transform(new ArrayList<WorkerDaemonClient>(sortedClients))) {
+                // Skip the clients that have been reserved since they were selected
+                if (removeIdleClient(client)) {
+                    clientsToStop.add(client);
+                }
+            }
             if (!clientsToStop.isEmpty()) {
                 stopWorkers(clientsToStop);
             }
@@ -165,14 +334,14 @@ public class WorkerDaemonClientsManager implements Stoppable {
             LOGGER.debug("Stopping {} worker daemon(s).", clientCount);
             List<Exception> failures = Lists.newArrayList();
             for (WorkerDaemonClient client : clientsToStop) {
+                removeIdleClient(client);
+                allClients.remove(client);
                 try {
                     client.stop();
                 } catch (Exception e) {
                     failures.add(e);
                 }
             }
-            idleClients.removeAll(clientsToStop);
-            allClients.removeAll(clientsToStop);
             if (!failures.isEmpty()) {
                 if (failures.size() == 1) {
                     throw UncheckedException.throwAsUncheckedException(failures.get(0));
@@ -185,14 +354,104 @@ public class WorkerDaemonClientsManager implements Stoppable {
         }
     }
 
+    /**
+     * The fork options that have to be equal for a daemon to be compatible with a request. Compatibility is still checked for each daemon of a pool.
+     */
+    private static class PoolKey {
+        private final KeepAliveMode keepAliveMode;
+        private final String executable;
+        private final File workingDir;
+        private final boolean debug;
+        private final boolean enableAssertions;
+
+        private PoolKey(KeepAliveMode keepAliveMode, String executable, File workingDir, boolean debug, boolean enableAssertions) {
+            this.keepAliveMode = keepAliveMode;
+            this.executable = executable;
+            this.workingDir = workingDir;
+            this.debug = debug;
+            this.enableAssertions = enableAssertions;
+        }
+
+        static PoolKey of(DaemonForkOptions forkOptions) {
+            JavaForkOptions javaForkOptions = forkOptions.getJavaForkOptions();
+            return new PoolKey(forkOptions.getKeepAliveMode(), normalized(javaForkOptions.getExecutable()), javaForkOptions.getWorkingDir(), javaForkOptions.getDebug(), javaForkOptions.getEnableAssertions());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            PoolKey other = (PoolKey) o;
+            return keepAliveMode == other.keepAliveMode
+                && executable.equals(other.executable)
+                && Objects.equal(workingDir, other.workingDir)
+                && debug == other.debug
+                && enableAssertions == other.enableAssertions;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(keepAliveMode, executable, workingDir, debug, enableAssertions);
+        }
+    }
+
+    /**
+     * How many daemons of a pool are in use, and how many were in use at the same time during the current and the previous session.
+     * Only counts are kept, so that nothing of a session's fork options outlives the session.
+     */
+    private static class Demand {
+        private final AtomicInteger inUse = new AtomicInteger();
+        private final AtomicInteger peakInUse = new AtomicInteger();
+        private final AtomicInteger expected = new AtomicInteger();
+
+        void reserved() {
+            int count = inUse.incrementAndGet();
+            int peak = peakInUse.get();
+            while (count > peak && !peakInUse.compareAndSet(peak, count)) {
+                peak = peakInUse.get();
+            }
+        }
+
+        void released() {
+            inUse.decrementAndGet();
+        }
+
+        int inUse() {
+            return inUse.get();
+        }
+
+        /**
+         * Returns the peak of the previous session the first time it is called in a session, and 0 afterwards.
+         */
+        int takeExpected() {
+            return expected.getAndSet(0);
+        }
+
+        /**
+         * Remembers the peak of the session that has completed and starts counting for the next one.
+         */
+        void sessionCompleted() {
+            expected.set(peakInUse.getAndSet(inUse.get()));
+        }
+    }
+
     private class StopSessionScopedWorkers implements SessionLifecycleListener {
         @Override
-        public void afterStart() { }
+        public void afterStart() {
+        }
 
         @Override
         public void beforeComplete() {
             synchronized (lock) {
-                List<WorkerDaemonClient> sessionScopedClients = CollectionUtils.filter(allClients, new Spec<WorkerDaemonClient>() {
+                session++;
+                for (Demand demand : demands.values()) {
+                    demand.sessionCompleted();
+                }
+                List<WorkerDaemonClient> sessionScopedClients = CollectionUtils.filter(new ArrayList<WorkerDaemonClient>(allClients.keySet()), new Spec<WorkerDaemonClient>() {
                     @Override
                     public boolean isSatisfiedBy(WorkerDaemonClient client) {
                         return client.getKeepAliveMode() == KeepAliveMode.SESSION;
@@ -216,14 +475,11 @@ public class WorkerDaemonClientsManager implements Stoppable {
     private class WorkerProcessCleanupAction implements Action<WorkerProcess> {
         @Override
         public void execute(WorkerProcess workerProcess) {
-            synchronized (lock) {
-                Iterator<WorkerDaemonClient> iterator = allClients.iterator();
-                while (iterator.hasNext()) {
-                    WorkerDaemonClient client = iterator.next();
-                    if (client.isProcess(workerProcess)) {
-                        client.setFailed(true);
-                        iterator.remove();
-                    }
+            for (WorkerDaemonClient client : allClients.keySet()) {
+                if (client.isProcess(workerProcess)) {
+                    client.setFailed(true);
+                    removeIdleClient(client);
+                    allClients.remove(client);
                 }
             }
         }
@@ -17,6 +17,7 @@
 package org.gradle.workers.internal
 
 import org.gradle.api.internal.file.TestFiles
+import org.gradle.internal.concurrent.DefaultParallelismConfiguration
 import org.gradle.internal.operations.BuildOperationExecutor
 import org.gradle.internal.work.AsyncWorkTracker
 import org.gradle.internal.work.ConditionalExecution
@@ -51,12 +52,13 @@ class DefaultWorkerExecutorTest extends Specification {
     def executionQueueFactory = Mock(WorkerExecutionQueueFactory)
     def executionQueue = Mock(ConditionalExecutionQueue)
     def worker = Mock(Worker)
+    def parallelismConfiguration = new DefaultParallelismConfiguration(false, 2)
     ConditionalExecution task
     DefaultWorkerExecutor workerExecutor
 
     def setup() {
         _ * executionQueueFactory.create() >> executionQueue
-        workerExecutor = new DefaultWorkerExecutor(workerDaemonFactory, inProcessWorkerFactory, noIsolationWorkerFactory, forkOptionsFactory, buildOperationWorkerRegistry, buildOperationExecutor, asyncWorkTracker, workerDirectoryProvider, executionQueueFactory)
+        workerExecutor = new DefaultWorkerExecutor(workerDaemonFactory, inProcessWorkerFactory, noIsolationWorkerFactory, forkOptionsFactory, buildOperationWorkerRegistry, buildOperationExecutor, asyncWorkTracker, workerDirectoryProvider, executionQueueFactory, parallelismConfiguration)
     }
 
     def "worker configuration fork property defaults to AUTO"() {
@@ -195,6 +197,68 @@ class DefaultWorkerExecutorTest extends Specification {
         }
     }
 
+    def "executor groups the items of submitted work into a batch per worker"() {
+        def tasks = []
+
+        when:
+        workerExecutor.submitAll(TestItemRunnable.class, ["a", "b", "c"]) { WorkerConfiguration configuration ->
+            configuration.isolationMode = IsolationMode.CLASSLOADER
+            configuration.params = ["shared"]
+        }
+
+        then:
+        2 * buildOperationWorkerRegistry.getCurrentWorkerLease()
+        2 * executionQueue.submit(_) >> { args -> tasks << args[0] }
+        3 * asyncWorkTracker.registerWork(_, _)
+
+        when:
+        tasks*.getExecution()*.run()
+
+        then:
+        2 * inProcessWorkerFactory.getWorker(_) >> worker
+        1 * worker.execute({ it.items.size() == 2 }, _) >> { spec, buildOperation ->
+            assert spec.items*.displayName == ["${TestItemRunnable.name} (item 1)", "${TestItemRunnable.name} (item 2)"]
+            assert spec.items[0].getParams(getClass().classLoader) == ["a", "shared"] as Object[]
+            return new BatchWorkResult([new DefaultWorkResult(true, null), new DefaultWorkResult(true, null)])
+        }
+        1 * worker.execute({ it.items.size() == 1 }, _) >> { spec, buildOperation ->
+            assert spec.items[0].getParams(getClass().classLoader) == ["c", "shared"] as Object[]
+            return new BatchWorkResult([new DefaultWorkResult(true, null)])
+        }
+    }
+
+    def "reports the failures of the items of a batch individually"() {
+        def task
+        def completions = []
+        def failure = new RuntimeException("broken")
+
+        given:
+        workerExecutor.submitAll(TestItemRunnable.class, ["a", "b"]) { WorkerConfiguration configuration ->
+            configuration.isolationMode = IsolationMode.NONE
+            configuration.params = ["shared"]
+        }
+        1 * executionQueue.submit(_) >> { args -> task = args[0] }
+        2 * asyncWorkTracker.registerWork(_, _) >> { args -> completions << args[1] }
+        noIsolationWorkerFactory.getWorker(_) >> worker
+        worker.execute(_, _) >> new BatchWorkResult([new DefaultWorkResult(true, null), new DefaultWorkResult(true, failure)])
+
+        when:
+        task.getExecution().run()
+        task.complete()
+        completions[0].waitForCompletion()
+
+        then:
+        noExceptionThrown()
+
+        when:
+        completions[1].waitForCompletion()
+
+        then:
+        def e = thrown(Exception)
+        e.message == "A failure occurred while executing ${TestItemRunnable.name} (item 2)"
+        e.cause == failure
+    }
+
     def "cannot set classpath in isolation mode NONE"() {
         when:
         workerExecutor.submit(TestRunnable.class) { WorkerConfiguration configuration ->
@@ -293,6 +357,15 @@ class DefaultWorkerExecutorTest extends Specification {
         isolationMode << [IsolationMode.NONE, IsolationMode.CLASSLOADER]
     }
 
+    static class TestItemRunnable implements Runnable {
+        TestItemRunnable(String item, String shared) {
+        }
+
+        @Override
+        void run() {
+        }
+    }
+
     static class TestRunnable implements Runnable {
         @Override
         void run() {
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.workers.internal
+
+import org.gradle.util.TestUtil
+import spock.lang.Specification
+
+import javax.inject.Inject
+
+class DefaultWorkerServerTest extends Specification {
+    def server = new DefaultWorkerServer(TestUtil.instantiatorFactory().inject())
+
+    def setup() {
+        ItemAction.executed.clear()
+    }
+
+    def "executes the remaining items of a batch after an item fails"() {
+        def batch = new BatchedActionExecutionSpec(ItemAction, "batch", [item("a"), item("fail 1"), item("b"), item("fail 2"), item("c")])
+
+        when:
+        def result = server.execute(batch)
+
+        then:
+        ItemAction.executed == ["a", "fail 1", "b", "fail 2", "c"]
+
+        and:
+        result instanceof BatchWorkResult
+        def itemResults = (result as BatchWorkResult).itemResults
+        itemResults.size() == 5
+        itemResults[0].success
+        itemResults[1].exception.message == "Failure from fail 1"
+        itemResults[2].success
+        itemResults[3].exception.message == "Failure from fail 2"
+        itemResults[4].success
+
+        and:
+        !result.success
+        result.exception.message == "Failure from fail 1"
+    }
+
+    def "reports a failure for an item that cannot be instantiated"() {
+        def batch = new BatchedActionExecutionSpec(ItemAction, "batch", [item("a"), new SerializingActionExecutionSpec(ItemAction, "broken", [] as Object[]), item("b")])
+
+        when:
+        def result = server.execute(batch) as BatchWorkResult
+
+        then:
+        ItemAction.executed == ["a", "b"]
+        result.itemResults[0].success
+        !result.itemResults[1].success
+        result.itemResults[2].success
+    }
+
+    private static SerializingActionExecutionSpec item(String item) {
+        return new SerializingActionExecutionSpec(ItemAction, item, [item] as Object[])
+    }
+
+    static class ItemAction implements Runnable {
+        static final List<String> executed = []
+        private final String item
+
+        @Inject
+        ItemAction(String item) {
+            this.item = item
+        }
+
+        @Override
+        void run() {
+            executed << item
+            if (item.startsWith("fail")) {
+                throw new RuntimeException("Failure from " + item)
+            }
+        }
+    }
+}
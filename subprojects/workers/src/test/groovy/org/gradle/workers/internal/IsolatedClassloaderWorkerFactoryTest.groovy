@@ -0,0 +1,134 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.workers.internal
+
+import org.gradle.cache.internal.HeapMemoryManager
+import org.gradle.internal.classloader.ClasspathHasher
+import org.gradle.internal.classloader.DefaultClassLoaderFactory
+import org.gradle.internal.hash.HashCode
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.workers.fixtures.WorkerClassLoaderRecorder
+import org.junit.Rule
+import spock.lang.Specification
+import spock.lang.Subject
+
+import javax.inject.Inject
+
+class IsolatedClassloaderWorkerFactoryTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def classpathHasher = Stub(ClasspathHasher) {
+        hash(_) >> HashCode.fromInt(1)
+    }
+    def forkOptions = new DaemonForkOptions(null, [], [], KeepAliveMode.SESSION)
+
+    def heapMemoryManager = Mock(HeapMemoryManager)
+
+    @Subject factory = new IsolatedClassloaderWorkerFactory(new DefaultClassLoaderFactory(), classpathHasher, null, heapMemoryManager)
+
+    def cleanup() {
+        factory.stop()
+        WorkerClassLoaderRecorder.clear()
+    }
+
+    def "reuses the worker ClassLoader for work with the same classpath"() {
+        when:
+        factory.executeInWorkerClassLoader(new SerializingActionExecutionSpec(RecordingAction, "first", ["first"] as Object[]), forkOptions)
+        factory.executeInWorkerClassLoader(new SerializingActionExecutionSpec(RecordingAction, "second", ["second"] as Object[]), forkOptions)
+
+        then:
+        WorkerClassLoaderRecorder.get("first") != RecordingAction.classLoader
+        WorkerClassLoaderRecorder.get("first").is(WorkerClassLoaderRecorder.get("second"))
+    }
+
+    def "runs each item of a batch in the worker ClassLoader"() {
+        def batch = new BatchedActionExecutionSpec(RecordingAction, "batch", [
+            new SerializingActionExecutionSpec(RecordingAction, "first", ["first"] as Object[]),
+            new SerializingActionExecutionSpec(RecordingAction, "second", ["second"] as Object[])
+        ])
+
+        when:
+        def result = factory.executeInWorkerClassLoader(batch, forkOptions)
+
+        then:
+        result instanceof BatchWorkResult
+        (result as BatchWorkResult).itemResults.size() == 2
+        (result as BatchWorkResult).itemResults.every { it.success }
+
+        and:
+        WorkerClassLoaderRecorder.get("first") != RecordingAction.classLoader
+        WorkerClassLoaderRecorder.get("first").is(WorkerClassLoaderRecorder.get("second"))
+    }
+
+    def "uses separate worker ClassLoaders for work with different classpaths of the same content"() {
+        def firstOptions = new DaemonForkOptions(null, [tmpDir.createDir("first")], [], KeepAliveMode.SESSION)
+        def secondOptions = new DaemonForkOptions(null, [tmpDir.createDir("second")], [], KeepAliveMode.SESSION)
+
+        when:
+        factory.executeInWorkerClassLoader(new SerializingActionExecutionSpec(RecordingAction, "first", ["first"] as Object[]), firstOptions)
+        factory.executeInWorkerClassLoader(new SerializingActionExecutionSpec(RecordingAction, "second", ["second"] as Object[]), secondOptions)
+
+        then:
+        factory.retainedValueCount == 2
+        !WorkerClassLoaderRecorder.get("first").is(WorkerClassLoaderRecorder.get("second"))
+    }
+
+    def "uses a new worker ClassLoader once the ClassLoaders have been released"() {
+        when:
+        factory.executeInWorkerClassLoader(new SerializingActionExecutionSpec(RecordingAction, "first", ["first"] as Object[]), forkOptions)
+
+        then:
+        factory.retainedValueCount == 1
+
+        when:
+        def released = factory.release()
+        factory.executeInWorkerClassLoader(new SerializingActionExecutionSpec(RecordingAction, "second", ["second"] as Object[]), forkOptions)
+
+        then:
+        released == 1
+        factory.retainedValueCount == 1
+        !WorkerClassLoaderRecorder.get("first").is(WorkerClassLoaderRecorder.get("second"))
+    }
+
+    def "registers with the heap memory manager until stopped"() {
+        when:
+        def factory = new IsolatedClassloaderWorkerFactory(new DefaultClassLoaderFactory(), classpathHasher, null, heapMemoryManager)
+
+        then:
+        1 * heapMemoryManager.addHolder(_, HeapMemoryManager.Priority.EXPENSIVE_TO_RECREATE)
+
+        when:
+        factory.stop()
+
+        then:
+        1 * heapMemoryManager.removeHolder(factory)
+    }
+
+    static class RecordingAction implements Runnable {
+        private final String key
+
+        @Inject
+        RecordingAction(String key) {
+            this.key = key
+        }
+
+        @Override
+        void run() {
+            WorkerClassLoaderRecorder.record(key, getClass().classLoader)
+        }
+    }
+}
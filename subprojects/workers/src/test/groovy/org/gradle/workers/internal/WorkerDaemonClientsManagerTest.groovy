@@ -17,6 +17,7 @@
 package org.gradle.workers.internal
 
 import org.gradle.api.Transformer
+import org.gradle.api.internal.file.TestFiles
 import org.gradle.api.logging.LogLevel
 import org.gradle.initialization.SessionLifecycleListener
 import org.gradle.internal.event.DefaultListenerManager
@@ -35,14 +36,14 @@ class WorkerDaemonClientsManagerTest extends ConcurrentSpecification {
 
     def workingDir = new File("some-dir")
 
-    def options = Stub(DaemonForkOptions)
+    def options = new DaemonForkOptionsBuilder(TestFiles.execFactory()).build()
     def starter = Stub(WorkerDaemonStarter)
     def serverImpl = Stub(WorkerProtocol)
     def listenerManager = Stub(ListenerManager)
     def loggingManager = Stub(LoggingManagerInternal)
     def memoryManager = Mock(MemoryManager)
 
-    @Subject manager = new WorkerDaemonClientsManager(starter, listenerManager, loggingManager, memoryManager, new MBeanOsMemoryInfo())
+    @Subject manager = new WorkerDaemonClientsManager(starter, listenerManager, loggingManager, memoryManager, new MBeanOsMemoryInfo(), executorFactory)
 
     def "does not reserve idle client when no clients"() {
         expect:
@@ -151,7 +152,7 @@ class WorkerDaemonClientsManagerTest extends ConcurrentSpecification {
 
     def "can stop session-scoped clients"() {
         listenerManager = new DefaultListenerManager()
-        manager = new WorkerDaemonClientsManager(starter, listenerManager, loggingManager, memoryManager, new MBeanOsMemoryInfo())
+        manager = new WorkerDaemonClientsManager(starter, listenerManager, loggingManager, memoryManager, new MBeanOsMemoryInfo(), executorFactory)
         def client1 = Mock(WorkerDaemonClient)
         def client2 = Mock(WorkerDaemonClient)
         starter.startDaemon(serverImpl.class, options, _) >>> [client1, client2]
@@ -170,7 +171,7 @@ class WorkerDaemonClientsManagerTest extends ConcurrentSpecification {
 
     def "Stopping session-scoped clients does not stop other clients"() {
         listenerManager = new DefaultListenerManager()
-        manager = new WorkerDaemonClientsManager(starter, listenerManager, loggingManager, memoryManager, new MBeanOsMemoryInfo())
+        manager = new WorkerDaemonClientsManager(starter, listenerManager, loggingManager, memoryManager, new MBeanOsMemoryInfo(), executorFactory)
         def client1 = Mock(WorkerDaemonClient)
         def client2 = Mock(WorkerDaemonClient)
         starter.startDaemon(serverImpl.class, options, _) >>> [client1, client2]
@@ -207,6 +208,131 @@ class WorkerDaemonClientsManagerTest extends ConcurrentSpecification {
         manager.reserveIdleClient(options) == client
     }
 
+    def "hands out each idle client to one caller only"() {
+        def clients = (1..10).collect {
+            Stub(WorkerDaemonClient) {
+                isCompatibleWith(_) >> true
+                getLogLevel() >> LogLevel.DEBUG
+            }
+        }
+        starter.startDaemon(serverImpl.class, options, _) >>> clients
+        def reserved = Collections.synchronizedList([])
+
+        when:
+        10.times { manager.reserveNewClient(serverImpl.class, options) }
+        clients.each { manager.release(it) }
+        10.times {
+            start {
+                reserved << manager.reserveIdleClient(options)
+            }
+        }
+        finished()
+
+        then:
+        reserved as Set == clients as Set
+        manager.reserveIdleClient(options) == null
+    }
+
+    def "starts as many clients in advance as the previous session used at the same time when a new client is first needed"() {
+        listenerManager = new DefaultListenerManager()
+        manager = new WorkerDaemonClientsManager(starter, listenerManager, loggingManager, memoryManager, new MBeanOsMemoryInfo(), executorFactory)
+        def clients = (1..5).collect {
+            Stub(WorkerDaemonClient) {
+                isCompatibleWith(_) >> true
+                getLogLevel() >> LogLevel.DEBUG
+                getKeepAliveMode() >> KeepAliveMode.DAEMON
+            }
+        }
+        starter.startDaemon(serverImpl.class, options, _) >>> clients
+        def stopAll = new Transformer<List<WorkerDaemonClient>, List<WorkerDaemonClient>>() {
+            @Override
+            List<WorkerDaemonClient> transform(List<WorkerDaemonClient> workerDaemonClients) {
+                return workerDaemonClients
+            }
+        }
+
+        given:
+        def first = manager.reserveNewClient(serverImpl.class, options)
+        def second = manager.reserveNewClient(serverImpl.class, options)
+        def third = manager.reserveNewClient(serverImpl.class, options)
+        [first, second, third].each { manager.release(it) }
+        listenerManager.getBroadcaster(SessionLifecycleListener).beforeComplete()
+        manager.selectIdleClientsToStop(stopAll)
+
+        when:
+        listenerManager.getBroadcaster(SessionLifecycleListener).afterStart()
+
+        then:
+        manager.reserveIdleClient(options) == null
+
+        when:
+        def reserved = manager.reserveNewClient(serverImpl.class, options)
+        finished()
+
+        then:
+        reserved in clients[3..4]
+        manager.reserveIdleClient(options) == (clients[3..4] - reserved)[0]
+        manager.reserveIdleClient(options) == null
+    }
+
+    def "does not start clients in advance when the previous session did not use the pool"() {
+        listenerManager = new DefaultListenerManager()
+        manager = new WorkerDaemonClientsManager(starter, listenerManager, loggingManager, memoryManager, new MBeanOsMemoryInfo(), executorFactory)
+        def client = Stub(WorkerDaemonClient) {
+            isCompatibleWith(_) >> true
+            getLogLevel() >> LogLevel.DEBUG
+        }
+        def startCount = 0
+        starter.startDaemon(serverImpl.class, options, _) >> { startCount++; client }
+
+        when:
+        listenerManager.getBroadcaster(SessionLifecycleListener).afterStart()
+        manager.reserveNewClient(serverImpl.class, options)
+        finished()
+
+        then:
+        startCount == 1
+    }
+
+    def "stops a session-scoped client started in advance that becomes available after its session completed"() {
+        listenerManager = new DefaultListenerManager()
+        manager = new WorkerDaemonClientsManager(starter, listenerManager, loggingManager, memoryManager, new MBeanOsMemoryInfo(), executorFactory)
+        def sessionOptions = new DaemonForkOptionsBuilder(TestFiles.execFactory()).keepAliveMode(KeepAliveMode.SESSION).build()
+        def clients = (1..3).collect {
+            Mock(WorkerDaemonClient) {
+                isCompatibleWith(_) >> true
+                getLogLevel() >> LogLevel.DEBUG
+                getKeepAliveMode() >> KeepAliveMode.SESSION
+            }
+        }
+        def prestarted = clients[2]
+        def testThread = Thread.currentThread()
+        def requested = new LinkedList(clients[0..1] + [Stub(WorkerDaemonClient)])
+        starter.startDaemon(serverImpl.class, sessionOptions, _) >> {
+            if (Thread.currentThread() == testThread) {
+                return requested.poll()
+            }
+            // The session completes while the daemon is starting in advance
+            listenerManager.getBroadcaster(SessionLifecycleListener).beforeComplete()
+            prestarted
+        }
+
+        given:
+        def first = manager.reserveNewClient(serverImpl.class, sessionOptions)
+        def second = manager.reserveNewClient(serverImpl.class, sessionOptions)
+        manager.release(first)
+        manager.release(second)
+        listenerManager.getBroadcaster(SessionLifecycleListener).beforeComplete()
+
+        when:
+        manager.reserveNewClient(serverImpl.class, sessionOptions)
+        finished()
+
+        then:
+        1 * prestarted.stop()
+        manager.reserveIdleClient(sessionOptions) == null
+    }
+
     def "clients are discarded when log level changes"() {
         OutputEventListener listener
         def client = Mock(WorkerDaemonClient) {
@@ -218,7 +344,7 @@ class WorkerDaemonClientsManagerTest extends ConcurrentSpecification {
         loggingManager.getLevel() >> LogLevel.INFO
 
         when:
-        manager = new WorkerDaemonClientsManager(starter, listenerManager, loggingManager, memoryManager, new MBeanOsMemoryInfo())
+        manager = new WorkerDaemonClientsManager(starter, listenerManager, loggingManager, memoryManager, new MBeanOsMemoryInfo(), executorFactory)
 
         then:
         listener != null
@@ -295,7 +421,7 @@ class WorkerDaemonClientsManagerTest extends ConcurrentSpecification {
         WorkerDaemonExpiration workerDaemonExpiration
 
         when:
-        def manager = new WorkerDaemonClientsManager(starter, listenerManager, loggingManager, memoryManager, new MBeanOsMemoryInfo())
+        def manager = new WorkerDaemonClientsManager(starter, listenerManager, loggingManager, memoryManager, new MBeanOsMemoryInfo(), executorFactory)
 
         then:
         1 * memoryManager.addMemoryHolder(_) >> { args -> workerDaemonExpiration = args[0] }
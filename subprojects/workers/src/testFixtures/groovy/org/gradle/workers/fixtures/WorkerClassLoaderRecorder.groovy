@@ -0,0 +1,58 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.workers.fixtures
+
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Records the ClassLoader that some work ran in, for work that runs in an isolated worker ClassLoader of the test process.
+ *
+ * <p>Such work sees its own copy of this class, so the ClassLoaders are recorded by the copy loaded by the system ClassLoader.</p>
+ */
+class WorkerClassLoaderRecorder {
+    private static final Map<String, ClassLoader> CLASS_LOADERS = new ConcurrentHashMap<String, ClassLoader>()
+
+    static void record(String key, ClassLoader classLoader) {
+        Class<?> recorder = systemRecorder()
+        if (recorder == WorkerClassLoaderRecorder) {
+            CLASS_LOADERS.put(key, classLoader)
+        } else {
+            recorder.record(key, classLoader)
+        }
+    }
+
+    static ClassLoader get(String key) {
+        Class<?> recorder = systemRecorder()
+        if (recorder == WorkerClassLoaderRecorder) {
+            return CLASS_LOADERS.get(key)
+        }
+        return recorder.get(key)
+    }
+
+    static void clear() {
+        Class<?> recorder = systemRecorder()
+        if (recorder == WorkerClassLoaderRecorder) {
+            CLASS_LOADERS.clear()
+        } else {
+            recorder.clear()
+        }
+    }
+
+    private static Class<?> systemRecorder() {
+        return ClassLoader.systemClassLoader.loadClass(WorkerClassLoaderRecorder.name)
+    }
+}